@@ -35,8 +35,12 @@ public class SecurityConfig {
             .csrf(AbstractHttpConfigurer::disable) // Disable CSRF for stateless APIs
             .authorizeHttpRequests(authz -> authz
                 .requestMatchers("/api/users/register", "/login").permitAll() // Permit access to registration and login
+                .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/movies/export").authenticated() // Bulk catalog export is for signed-in clients only
+                .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/movies/similar/content/accuracy").authenticated() // Scans the catalog, not for anonymous clients
+                .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/movies/*/similar/exact").authenticated() // Brute-force scan of every vector
                 .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/movies/**").permitAll() // Allow GET requests to /api/movies for all users
                 .requestMatchers(org.springframework.http.HttpMethod.POST, "/api/movies").authenticated() // Require authentication for POST to /api/movies
+                .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/actors/**").permitAll() // Actor graph queries are public like the catalog
                 // Review endpoints
                 .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/movies/{movieId}/reviews").permitAll()
                 .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/users/{userId}/reviews").authenticated()
@@ -0,0 +1,57 @@
+package com.example.whattowatchnow.controller;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.dto.ActorPath;
+import com.example.whattowatchnow.dto.Collaborator;
+import com.example.whattowatchnow.service.ActorGraphService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/actors")
+public class ActorController {
+
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_LIMIT = 100;
+
+    private final ActorGraphService actorGraphService;
+
+    @Autowired
+    public ActorController(ActorGraphService actorGraphService) {
+        this.actorGraphService = actorGraphService;
+    }
+
+    // Movies featuring both actors
+    @GetMapping("/shared-movies")
+    public ResponseEntity<List<Movie>> getSharedMovies(@RequestParam String a, @RequestParam String b) {
+        return actorGraphService.sharedMovies(a, b)
+                .map(movies -> new ResponseEntity<>(movies, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    // Shortest chain of co-stars from one actor to the other
+    @GetMapping("/path")
+    public ResponseEntity<ActorPath> getPath(@RequestParam String from, @RequestParam String to) {
+        return actorGraphService.shortestPath(from, to)
+                .map(path -> new ResponseEntity<>(path, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @GetMapping("/{name}/collaborators")
+    public ResponseEntity<List<Collaborator>> getCollaborators(
+            @PathVariable String name,
+            @RequestParam(required = false) Integer limit) {
+        int size = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        return actorGraphService.topCollaborators(name, size)
+                .map(collaborators -> new ResponseEntity<>(collaborators, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.whattowatchnow.controller;
+
+import com.example.whattowatchnow.dto.LeaderboardEntry;
+import com.example.whattowatchnow.service.LeaderboardService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/movies")
+public class LeaderboardController {
+
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_LIMIT = 100;
+
+    private final LeaderboardService leaderboardService;
+
+    @Autowired
+    public LeaderboardController(LeaderboardService leaderboardService) {
+        this.leaderboardService = leaderboardService;
+    }
+
+    // Most reviewed lately, recent reviews counting the most
+    @GetMapping("/trending")
+    public ResponseEntity<List<LeaderboardEntry>> getTrending(
+            @RequestParam(required = false) String genre,
+            @RequestParam(required = false) Integer limit) {
+        return new ResponseEntity<>(leaderboardService.trending(genre, size(limit)), HttpStatus.OK);
+    }
+
+    // Best average rating, with few-review movies pulled towards the catalog mean
+    @GetMapping("/top-rated")
+    public ResponseEntity<List<LeaderboardEntry>> getTopRated(
+            @RequestParam(required = false) String genre,
+            @RequestParam(required = false) Integer limit) {
+        return new ResponseEntity<>(leaderboardService.topRated(genre, size(limit)), HttpStatus.OK);
+    }
+
+    private static int size(Integer limit) {
+        return limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
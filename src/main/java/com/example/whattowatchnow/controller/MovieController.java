@@ -1,12 +1,27 @@
 package com.example.whattowatchnow.controller;
 
 import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.dto.ContentSimilarityReport;
+import com.example.whattowatchnow.dto.MoviePage;
+import com.example.whattowatchnow.dto.MovieSuggestion;
+import com.example.whattowatchnow.dto.RatingSummary;
+import com.example.whattowatchnow.service.ContentSimilarityService;
+import com.example.whattowatchnow.service.MovieExportService;
+import com.example.whattowatchnow.service.MovieRatingService;
 import com.example.whattowatchnow.service.MovieService;
+import com.example.whattowatchnow.service.MovieSuggestService;
+import com.example.whattowatchnow.service.RandomMovieService;
+import com.example.whattowatchnow.service.SimilarMovieService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,22 +29,101 @@ import java.util.Optional;
 @RequestMapping("/api/movies")
 public class MovieController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int DEFAULT_SUGGESTIONS = 8;
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int DEFAULT_SIMILAR = 10;
+    private static final int MAX_SIMILAR = 50;
+    private static final int MAX_EF = 1000;
+    private static final int MAX_ACCURACY_SAMPLE = 100; // Each sampled movie is an exact scan of the catalog
+
     private final MovieService movieService;
+    private final MovieExportService movieExportService;
+    private final MovieSuggestService movieSuggestService;
+    private final MovieRatingService movieRatingService;
+    private final SimilarMovieService similarMovieService;
+    private final ContentSimilarityService contentSimilarityService;
+    private final RandomMovieService randomMovieService;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final Duration exportTimeout;
 
     @Autowired
-    public MovieController(MovieService movieService) {
+    public MovieController(MovieService movieService,
+                           MovieExportService movieExportService,
+                           MovieSuggestService movieSuggestService,
+                           MovieRatingService movieRatingService,
+                           SimilarMovieService similarMovieService,
+                           ContentSimilarityService contentSimilarityService,
+                           RandomMovieService randomMovieService,
+                           @Value("${whattowatchnow.movies.default-page-size:20}") int defaultPageSize,
+                           @Value("${whattowatchnow.movies.max-page-size:100}") int maxPageSize,
+                           @Value("${whattowatchnow.movies.export.timeout:PT1H}") Duration exportTimeout) {
         this.movieService = movieService;
+        this.movieExportService = movieExportService;
+        this.movieSuggestService = movieSuggestService;
+        this.movieRatingService = movieRatingService;
+        this.similarMovieService = similarMovieService;
+        this.contentSimilarityService = contentSimilarityService;
+        this.randomMovieService = randomMovieService;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.exportTimeout = exportTimeout;
     }
 
     @GetMapping
-    public ResponseEntity<List<Movie>> getAllMovies(
+    public ResponseEntity<MoviePage> getAllMovies(
             @RequestParam(required = false) String query,
             @RequestParam(required = false) String genre,
             @RequestParam(required = false) Integer year,
-            @RequestParam(required = false) String actor) {
-        
-        List<Movie> movies = movieService.findMovies(query, genre, year, actor);
-        return new ResponseEntity<>(movies, HttpStatus.OK);
+            @RequestParam(required = false) String actor,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean facets,
+            @RequestParam(defaultValue = "false") boolean fuzzy) {
+
+        // Never let a client ask for an unbounded page
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        try {
+            MoviePage page = movieService.findMovies(query, genre, year, actor, cursor, pageSize, facets, fuzzy);
+            return new ResponseEntity<>(page, HttpStatus.OK);
+        } catch (IllegalArgumentException e) { // Malformed or mismatched cursor
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Typeahead for the search box: titles and actor names starting with the prefix, most popular first
+    @GetMapping("/suggest")
+    public ResponseEntity<List<MovieSuggestion>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(required = false) Integer limit) {
+        int size = limit == null ? DEFAULT_SUGGESTIONS : Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        return new ResponseEntity<>(movieSuggestService.suggest(prefix, size), HttpStatus.OK);
+    }
+
+    // Streams the whole catalog as NDJSON, resumable with ?after=<id of the last movie received>.
+    // Runs as its own async task so only the export gets the long timeout.
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportMovies(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean includeReviews,
+            HttpServletResponse response) {
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            response.setContentType(NDJSON.toString());
+            movieExportService.exportMovies(after, includeReviews, response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+
+    // "Surprise me": a random match for the filters, better rated and more popular movies more likely
+    @GetMapping("/random")
+    public ResponseEntity<Movie> getRandomMovie(
+            @RequestParam(required = false) String genre,
+            @RequestParam(required = false) Integer year) {
+        return randomMovieService.pick(genre, year)
+                .map(movie -> new ResponseEntity<>(movie, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
     @GetMapping("/{id}")
@@ -39,6 +133,51 @@ public class MovieController {
                     .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
+    // Count, mean and star histogram, maintained incrementally so no reviews are read
+    @GetMapping("/{id}/rating")
+    public ResponseEntity<RatingSummary> getMovieRating(@PathVariable String id) {
+        return new ResponseEntity<>(movieRatingService.getRating(id), HttpStatus.OK);
+    }
+
+    // "More like this" from the nearest-neighbor index; ef trades latency for recall
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<Movie>> getSimilarMovies(
+            @PathVariable String id,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Integer ef) {
+        int size = limit == null ? DEFAULT_SIMILAR : Math.max(1, Math.min(limit, MAX_SIMILAR));
+        Integer candidates = ef == null ? null : Math.max(size, Math.min(ef, MAX_EF));
+        return new ResponseEntity<>(similarMovieService.similarTo(id, size, candidates, false), HttpStatus.OK);
+    }
+
+    // Same as /similar but scanning every movie, for checking what the index misses
+    @GetMapping("/{id}/similar/exact")
+    public ResponseEntity<List<Movie>> getExactSimilarMovies(
+            @PathVariable String id,
+            @RequestParam(required = false) Integer limit) {
+        int size = limit == null ? DEFAULT_SIMILAR : Math.max(1, Math.min(limit, MAX_SIMILAR));
+        return new ResponseEntity<>(similarMovieService.similarTo(id, size, null, true), HttpStatus.OK);
+    }
+
+    // Same genres and cast by MinHash/LSH, useful for titles with few or no reviews
+    @GetMapping("/{id}/similar/content")
+    public ResponseEntity<List<Movie>> getContentSimilarMovies(
+            @PathVariable String id,
+            @RequestParam(required = false) Integer limit) {
+        int size = limit == null ? DEFAULT_SIMILAR : Math.max(1, Math.min(limit, MAX_SIMILAR));
+        return new ResponseEntity<>(contentSimilarityService.similarTo(id, size), HttpStatus.OK);
+    }
+
+    // LSH results vs exact Jaccard on a random sample of movies
+    @GetMapping("/similar/content/accuracy")
+    public ResponseEntity<ContentSimilarityReport> getContentSimilarityAccuracy(
+            @RequestParam(defaultValue = "100") int sample,
+            @RequestParam(defaultValue = "10") int k) {
+        int queries = Math.max(1, Math.min(sample, MAX_ACCURACY_SAMPLE));
+        int size = Math.max(1, Math.min(k, MAX_SIMILAR));
+        return new ResponseEntity<>(contentSimilarityService.accuracy(queries, size), HttpStatus.OK);
+    }
+
     @PostMapping
     public ResponseEntity<Movie> addMovie(@RequestBody Movie movie) {
         try {
@@ -1,23 +1,38 @@
 package com.example.whattowatchnow.controller;
 
 import com.example.whattowatchnow.domain.Review;
+import com.example.whattowatchnow.dto.MovieReviewSummary;
+import com.example.whattowatchnow.dto.ReviewPage;
+import com.example.whattowatchnow.service.ReviewFeed;
 import com.example.whattowatchnow.service.ReviewService;
+import com.example.whattowatchnow.service.ReviewSort;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
 public class ReviewController {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_BATCH_MOVIES = 100;
+    private static final int DEFAULT_RECENT_REVIEWS = 3;
+    private static final int MAX_RECENT_REVIEWS = 10;
+
     private final ReviewService reviewService;
+    private final ReviewFeed reviewFeed;
 
     @Autowired
-    public ReviewController(ReviewService reviewService) {
+    public ReviewController(ReviewService reviewService, ReviewFeed reviewFeed) {
         this.reviewService = reviewService;
+        this.reviewFeed = reviewFeed;
     }
 
     @PostMapping("/movies/{movieId}/reviews")
@@ -26,15 +41,47 @@ public class ReviewController {
             // The ReviewService.addReview method will extract the userId from the security context
             Review savedReview = reviewService.addReview(review, movieId);
             return new ResponseEntity<>(savedReview, HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) { // Rating outside 1-5
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) { // Write-behind batch failed or timed out
+            return new ResponseEntity<>(null, HttpStatus.SERVICE_UNAVAILABLE);
         } catch (RuntimeException e) { // Catch specific exceptions like UserNotFound
              return new ResponseEntity<>(null, HttpStatus.UNAUTHORIZED); // Or BAD_REQUEST if input is bad
         }
     }
 
+    // Newest first by default, or sort=rating; follow nextCursor for more
     @GetMapping("/movies/{movieId}/reviews")
-    public ResponseEntity<List<Review>> getReviewsForMovie(@PathVariable String movieId) {
-        List<Review> reviews = reviewService.getReviewsForMovie(movieId);
-        return new ResponseEntity<>(reviews, HttpStatus.OK);
+    public ResponseEntity<ReviewPage> getReviewsForMovie(
+            @PathVariable String movieId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        try {
+            ReviewPage page = reviewService.getReviewsForMovie(movieId, ReviewSort.parse(sort), cursor, pageSize);
+            return new ResponseEntity<>(page, HttpStatus.OK);
+        } catch (IllegalArgumentException e) { // Unknown sort, malformed or mismatched cursor
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Live review-added / review-deleted events for one movie
+    @GetMapping(value = "/movies/{movieId}/reviews/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamReviewsForMovie(@PathVariable String movieId) {
+        return reviewFeed.subscribe(movieId);
+    }
+
+    // Ratings and newest reviews for a whole grid of movies in one round trip: ?ids=a,b,c
+    @GetMapping("/movies/review-summaries")
+    public ResponseEntity<Map<String, MovieReviewSummary>> getReviewSummaries(
+            @RequestParam List<String> ids,
+            @RequestParam(required = false) Integer recent) {
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_MOVIES) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        int recentReviews = recent == null ? DEFAULT_RECENT_REVIEWS : Math.max(0, Math.min(recent, MAX_RECENT_REVIEWS));
+        return new ResponseEntity<>(reviewService.getReviewSummaries(ids, recentReviews), HttpStatus.OK);
     }
 
     @GetMapping("/users/{userId}/reviews")
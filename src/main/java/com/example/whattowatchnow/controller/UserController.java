@@ -1,24 +1,42 @@
 package com.example.whattowatchnow.controller;
 
+import com.example.whattowatchnow.domain.Movie;
 import com.example.whattowatchnow.domain.User;
+import com.example.whattowatchnow.dto.FeedPage;
+import com.example.whattowatchnow.service.FeedService;
+import com.example.whattowatchnow.service.RecommendationService;
 import com.example.whattowatchnow.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
 
+    private static final int DEFAULT_RECOMMENDATIONS = 20;
+    private static final int MAX_RECOMMENDATIONS = 100;
+    private static final int DEFAULT_FEED_PAGE = 20;
+    private static final int MAX_FEED_PAGE = 50;
+
     private final UserService userService;
+    private final RecommendationService recommendationService;
+    private final FeedService feedService;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, RecommendationService recommendationService, FeedService feedService) {
         this.userService = userService;
+        this.recommendationService = recommendationService;
+        this.feedService = feedService;
     }
 
     @PostMapping("/register")
@@ -41,12 +59,9 @@ public class UserController {
 
     @GetMapping("/me")
     public ResponseEntity<com.example.whattowatchnow.dto.UserProfileDto> getCurrentUserProfile() {
-        org.springframework.security.core.Authentication authentication = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
-        String userEmail = authentication.getName();
-        User currentUser = userService.findByEmail(userEmail)
-                .orElseThrow(() -> new org.springframework.security.core.userdetails.UsernameNotFoundException("User not found with email: " + userEmail));
-        
-        User userProfile = userService.getUserProfile(currentUser.getId());
+        String userId = currentUserId();
+
+        User userProfile = userService.getUserProfile(userId);
         com.example.whattowatchnow.dto.UserProfileDto userProfileDto = new com.example.whattowatchnow.dto.UserProfileDto(
             userProfile.getId(),
             userProfile.getNickname(),
@@ -58,14 +73,11 @@ public class UserController {
 
     @PutMapping("/me")
     public ResponseEntity<?> updateUserProfile(@RequestBody com.example.whattowatchnow.dto.UserProfileDto profileUpdateDto) {
-        org.springframework.security.core.Authentication authentication = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
-        String userEmail = authentication.getName();
-        User currentUser = userService.findByEmail(userEmail)
-                .orElseThrow(() -> new org.springframework.security.core.userdetails.UsernameNotFoundException("User not found with email: " + userEmail));
+        String userId = currentUserId();
 
         try {
             User updatedUser = userService.updateUserProfile(
-                currentUser.getId(),
+                userId,
                 profileUpdateDto.getNickname(),
                 profileUpdateDto.getProfilePicture()
             );
@@ -82,4 +94,37 @@ public class UserController {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
     }
+
+    // Movies the current user has not reviewed yet, best match first
+    @GetMapping("/me/recommendations")
+    public ResponseEntity<List<Movie>> getRecommendations(@RequestParam(required = false) Integer limit) {
+        String userId = currentUserId();
+
+        int size = limit == null ? DEFAULT_RECOMMENDATIONS : Math.max(1, Math.min(limit, MAX_RECOMMENDATIONS));
+        return ResponseEntity.ok(recommendationService.recommendFor(userId, size));
+    }
+
+    // Personalized feed, paginated with ?cursor=<nextCursor of the previous page>
+    @GetMapping("/me/feed")
+    public ResponseEntity<FeedPage> getFeed(@RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer limit) {
+        String userId = currentUserId();
+
+        int size = limit == null ? DEFAULT_FEED_PAGE : Math.max(1, Math.min(limit, MAX_FEED_PAGE));
+        try {
+            return ResponseEntity.ok(feedService.getFeed(userId, cursor, size));
+        } catch (IllegalArgumentException e) { // Malformed cursor, or its feed was rebuilt
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // The id travels with the principal, so this costs no lookup once signed in
+    private String currentUserId() {
+        String userId = userService.currentUserId();
+        if (userId == null) {
+            String userEmail = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication().getName();
+            throw new org.springframework.security.core.userdetails.UsernameNotFoundException("User not found with email: " + userEmail);
+        }
+        return userId;
+    }
 }
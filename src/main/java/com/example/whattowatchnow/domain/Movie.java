@@ -1,10 +1,13 @@
 package com.example.whattowatchnow.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.List;
 
 @Document(collection = "movies")
+@CompoundIndex(name = "title_key", def = "{'titleKey': 1, '_id': 1}") // Prefix searches: range, order and cursor
 public class Movie {
 
     @Id
@@ -17,6 +20,9 @@ public class Movie {
     private String description;
     private String posterUrl; // Optional
 
+    @JsonIgnore
+    private String titleKey; // Normalized title for prefix range queries, maintained by MovieService
+
     // Constructors
     public Movie() {
     }
@@ -87,6 +93,14 @@ public class Movie {
         this.posterUrl = posterUrl;
     }
 
+    public String getTitleKey() {
+        return titleKey;
+    }
+
+    public void setTitleKey(String titleKey) {
+        this.titleKey = titleKey;
+    }
+
     // toString (optional but good practice)
     @Override
     public String toString() {
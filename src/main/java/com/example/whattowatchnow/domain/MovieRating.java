@@ -0,0 +1,61 @@
+package com.example.whattowatchnow.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running rating totals for one movie, kept in step with {@code reviews} by $inc deltas.
+ */
+@Document(collection = "movie_ratings")
+public class MovieRating {
+
+    @Id
+    private String movieId;
+
+    private long count;
+    private long sum;
+    private Map<String, Long> histogram = new HashMap<>(); // star ("1".."5") -> number of reviews
+
+    public MovieRating() {
+    }
+
+    public MovieRating(String movieId) {
+        this.movieId = movieId;
+    }
+
+    // Getters and Setters
+    public String getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(String movieId) {
+        this.movieId = movieId;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public void setSum(long sum) {
+        this.sum = sum;
+    }
+
+    public Map<String, Long> getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(Map<String, Long> histogram) {
+        this.histogram = histogram;
+    }
+}
@@ -1,10 +1,18 @@
 package com.example.whattowatchnow.domain;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 
+// One index per review listing order, each ending in _id so a page boundary is an exact seek
 @Document(collection = "reviews")
+@CompoundIndexes({
+        @CompoundIndex(name = "movie_newest", def = "{'movieId': 1, 'reviewDate': -1, '_id': -1}"),
+        @CompoundIndex(name = "movie_rating", def = "{'movieId': 1, 'rating': -1, 'reviewDate': -1, '_id': -1}"),
+        @CompoundIndex(name = "user_reviews", def = "{'userId': 1, '_id': 1}")
+})
 public class Review {
 
     @Id
@@ -16,6 +24,7 @@ public class Review {
     private Integer rating; // e.g., 1-5
     private String comment;
     private LocalDateTime reviewDate;
+    private ReviewerSnapshot reviewer; // Author's nickname and picture at write time
 
     // Constructors
     public Review() {
@@ -79,6 +88,14 @@ public class Review {
         this.reviewDate = reviewDate;
     }
 
+    public ReviewerSnapshot getReviewer() {
+        return reviewer;
+    }
+
+    public void setReviewer(ReviewerSnapshot reviewer) {
+        this.reviewer = reviewer;
+    }
+
     // toString
     @Override
     public String toString() {
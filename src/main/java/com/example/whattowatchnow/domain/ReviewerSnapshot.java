@@ -0,0 +1,41 @@
+package com.example.whattowatchnow.domain;
+
+/**
+ * Copy of the author's public profile embedded in each review, so a review list renders
+ * without looking up its authors. Kept current by the profile change fan-out.
+ */
+public class ReviewerSnapshot {
+
+    private String nickname;
+    private String profilePicture;
+
+    // Constructors
+    public ReviewerSnapshot() {
+    }
+
+    public ReviewerSnapshot(String nickname, String profilePicture) {
+        this.nickname = nickname;
+        this.profilePicture = profilePicture;
+    }
+
+    public static ReviewerSnapshot of(User user) {
+        return new ReviewerSnapshot(user.getNickname(), user.getProfilePicture());
+    }
+
+    // Getters and Setters
+    public String getNickname() {
+        return nickname;
+    }
+
+    public void setNickname(String nickname) {
+        this.nickname = nickname;
+    }
+
+    public String getProfilePicture() {
+        return profilePicture;
+    }
+
+    public void setProfilePicture(String profilePicture) {
+        this.profilePicture = profilePicture;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.whattowatchnow.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Snapshot of one movie's trending score, so a restart only replays reviews newer than
+ * {@code takenAt} instead of rescanning them all.
+ */
+@Document(collection = "trending_scores")
+public class TrendingScore {
+
+    @Id
+    private String movieId;
+
+    private double score; // Decayed review activity as of takenAt
+    private Instant takenAt;
+
+    public TrendingScore() {
+    }
+
+    public TrendingScore(String movieId, double score, Instant takenAt) {
+        this.movieId = movieId;
+        this.score = score;
+        this.takenAt = takenAt;
+    }
+
+    // Getters and Setters
+    public String getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(String movieId) {
+        this.movieId = movieId;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    public Instant getTakenAt() {
+        return takenAt;
+    }
+
+    public void setTakenAt(Instant takenAt) {
+        this.takenAt = takenAt;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.whattowatchnow.dto;
+
+import com.example.whattowatchnow.domain.Movie;
+
+import java.util.List;
+
+public class ActorPath {
+    private List<String> actors; // From the first actor asked for to the second
+    private List<Movie> movies; // movies[i] has both actors[i] and actors[i + 1]
+
+    public ActorPath() {
+    }
+
+    public ActorPath(List<String> actors, List<Movie> movies) {
+        this.actors = actors;
+        this.movies = movies;
+    }
+
+    // Getters and Setters
+    public List<String> getActors() {
+        return actors;
+    }
+
+    public void setActors(List<String> actors) {
+        this.actors = actors;
+    }
+
+    public List<Movie> getMovies() {
+        return movies;
+    }
+
+    public void setMovies(List<Movie> movies) {
+        this.movies = movies;
+    }
+}
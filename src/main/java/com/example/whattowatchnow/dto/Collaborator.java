@@ -0,0 +1,31 @@
+package com.example.whattowatchnow.dto;
+
+public class Collaborator {
+    private String actor;
+    private int sharedMovies;
+
+    public Collaborator() {
+    }
+
+    public Collaborator(String actor, int sharedMovies) {
+        this.actor = actor;
+        this.sharedMovies = sharedMovies;
+    }
+
+    // Getters and Setters
+    public String getActor() {
+        return actor;
+    }
+
+    public void setActor(String actor) {
+        this.actor = actor;
+    }
+
+    public int getSharedMovies() {
+        return sharedMovies;
+    }
+
+    public void setSharedMovies(int sharedMovies) {
+        this.sharedMovies = sharedMovies;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.whattowatchnow.dto;
+
+public class ContentSimilarityReport {
+    private int queries; // Movies sampled
+    private int k;
+    private double recall; // Share of the exact top k by Jaccard that LSH returned
+    private double meanAbsoluteError; // Estimated vs exact Jaccard of the returned movies
+    private double meanCandidates; // Movies scored per query
+    private double meanQueryMicros;
+
+    public ContentSimilarityReport() {
+    }
+
+    public ContentSimilarityReport(int queries, int k, double recall, double meanAbsoluteError,
+                                   double meanCandidates, double meanQueryMicros) {
+        this.queries = queries;
+        this.k = k;
+        this.recall = recall;
+        this.meanAbsoluteError = meanAbsoluteError;
+        this.meanCandidates = meanCandidates;
+        this.meanQueryMicros = meanQueryMicros;
+    }
+
+    // Getters and Setters
+    public int getQueries() {
+        return queries;
+    }
+
+    public void setQueries(int queries) {
+        this.queries = queries;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public void setK(int k) {
+        this.k = k;
+    }
+
+    public double getRecall() {
+        return recall;
+    }
+
+    public void setRecall(double recall) {
+        this.recall = recall;
+    }
+
+    public double getMeanAbsoluteError() {
+        return meanAbsoluteError;
+    }
+
+    public void setMeanAbsoluteError(double meanAbsoluteError) {
+        this.meanAbsoluteError = meanAbsoluteError;
+    }
+
+    public double getMeanCandidates() {
+        return meanCandidates;
+    }
+
+    public void setMeanCandidates(double meanCandidates) {
+        this.meanCandidates = meanCandidates;
+    }
+
+    public double getMeanQueryMicros() {
+        return meanQueryMicros;
+    }
+
+    public void setMeanQueryMicros(double meanQueryMicros) {
+        this.meanQueryMicros = meanQueryMicros;
+    }
+}
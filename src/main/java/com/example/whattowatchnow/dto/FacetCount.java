@@ -0,0 +1,31 @@
+package com.example.whattowatchnow.dto;
+
+public class FacetCount {
+    private String value; // e.g. "Drama" or "2019"
+    private int count;
+
+    public FacetCount() {
+    }
+
+    public FacetCount(String value, int count) {
+        this.value = value;
+        this.count = count;
+    }
+
+    // Getters and Setters
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+}
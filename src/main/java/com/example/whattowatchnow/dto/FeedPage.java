@@ -0,0 +1,35 @@
+package com.example.whattowatchnow.dto;
+
+import com.example.whattowatchnow.domain.Movie;
+
+import java.util.List;
+
+public class FeedPage {
+    private List<Movie> items;
+    private String nextCursor; // Opaque token for the next page, null on the last page
+
+    public FeedPage() {
+    }
+
+    public FeedPage(List<Movie> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<Movie> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Movie> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
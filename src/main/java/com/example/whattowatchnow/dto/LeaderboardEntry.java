@@ -0,0 +1,61 @@
+package com.example.whattowatchnow.dto;
+
+public class LeaderboardEntry {
+    private String movieId;
+    private String title;
+    private String posterUrl;
+    private double score; // Decayed review activity for trending, Bayesian average for top rated
+    private long reviewCount;
+
+    public LeaderboardEntry() {
+    }
+
+    public LeaderboardEntry(String movieId, String title, String posterUrl, double score, long reviewCount) {
+        this.movieId = movieId;
+        this.title = title;
+        this.posterUrl = posterUrl;
+        this.score = score;
+        this.reviewCount = reviewCount;
+    }
+
+    // Getters and Setters
+    public String getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(String movieId) {
+        this.movieId = movieId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getPosterUrl() {
+        return posterUrl;
+    }
+
+    public void setPosterUrl(String posterUrl) {
+        this.posterUrl = posterUrl;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    public long getReviewCount() {
+        return reviewCount;
+    }
+
+    public void setReviewCount(long reviewCount) {
+        this.reviewCount = reviewCount;
+    }
+}
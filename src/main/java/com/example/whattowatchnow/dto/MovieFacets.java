@@ -0,0 +1,37 @@
+package com.example.whattowatchnow.dto;
+
+import java.util.List;
+
+/**
+ * Per-facet counts for a search. Each facet is counted with every filter applied except
+ * its own, so the genre dropdown shows how many results each other genre would give.
+ */
+public class MovieFacets {
+    private List<FacetCount> genres;
+    private List<FacetCount> years;
+
+    public MovieFacets() {
+    }
+
+    public MovieFacets(List<FacetCount> genres, List<FacetCount> years) {
+        this.genres = genres;
+        this.years = years;
+    }
+
+    // Getters and Setters
+    public List<FacetCount> getGenres() {
+        return genres;
+    }
+
+    public void setGenres(List<FacetCount> genres) {
+        this.genres = genres;
+    }
+
+    public List<FacetCount> getYears() {
+        return years;
+    }
+
+    public void setYears(List<FacetCount> years) {
+        this.years = years;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.whattowatchnow.dto;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MoviePage {
+    private List<Movie> items;
+    private String nextCursor; // Opaque token for the next page, null on the last page
+    private MovieFacets facets; // Only when requested
+    private String didYouMean; // Corrected query when the query matched nothing
+
+    public MoviePage() {
+    }
+
+    public MoviePage(List<Movie> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<Movie> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Movie> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public MovieFacets getFacets() {
+        return facets;
+    }
+
+    public void setFacets(MovieFacets facets) {
+        this.facets = facets;
+    }
+
+    public String getDidYouMean() {
+        return didYouMean;
+    }
+
+    public void setDidYouMean(String didYouMean) {
+        this.didYouMean = didYouMean;
+    }
+}
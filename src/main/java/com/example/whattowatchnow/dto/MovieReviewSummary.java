@@ -0,0 +1,35 @@
+package com.example.whattowatchnow.dto;
+
+import com.example.whattowatchnow.domain.Review;
+
+import java.util.List;
+
+public class MovieReviewSummary {
+    private RatingSummary rating;
+    private List<Review> recentReviews; // Newest first
+
+    public MovieReviewSummary() {
+    }
+
+    public MovieReviewSummary(RatingSummary rating, List<Review> recentReviews) {
+        this.rating = rating;
+        this.recentReviews = recentReviews;
+    }
+
+    // Getters and Setters
+    public RatingSummary getRating() {
+        return rating;
+    }
+
+    public void setRating(RatingSummary rating) {
+        this.rating = rating;
+    }
+
+    public List<Review> getRecentReviews() {
+        return recentReviews;
+    }
+
+    public void setRecentReviews(List<Review> recentReviews) {
+        this.recentReviews = recentReviews;
+    }
+}
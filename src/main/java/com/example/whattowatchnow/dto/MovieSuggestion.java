@@ -0,0 +1,44 @@
+package com.example.whattowatchnow.dto;
+
+public class MovieSuggestion {
+    public static final String TITLE = "title";
+    public static final String ACTOR = "actor";
+
+    private String text; // What to show and put into the search box
+    private String type; // TITLE or ACTOR
+    private String movieId; // The matching movie for titles, null for actors
+
+    public MovieSuggestion() {
+    }
+
+    public MovieSuggestion(String text, String type, String movieId) {
+        this.text = text;
+        this.type = type;
+        this.movieId = movieId;
+    }
+
+    // Getters and Setters
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(String movieId) {
+        this.movieId = movieId;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.whattowatchnow.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RatingSummary {
+    private String movieId;
+    private long count;
+    private long sum;
+    private Double mean; // null until the movie has a review
+    private long[] histogram; // histogram[i] = number of (i + 1)-star reviews
+
+    public RatingSummary() {
+    }
+
+    public RatingSummary(String movieId, long count, long sum, long[] histogram) {
+        this.movieId = movieId;
+        this.count = count;
+        this.sum = sum;
+        this.mean = count > 0 ? (double) sum / count : null;
+        this.histogram = histogram;
+    }
+
+    // Getters and Setters
+    public String getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(String movieId) {
+        this.movieId = movieId;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public void setSum(long sum) {
+        this.sum = sum;
+    }
+
+    public Double getMean() {
+        return mean;
+    }
+
+    public void setMean(Double mean) {
+        this.mean = mean;
+    }
+
+    public long[] getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(long[] histogram) {
+        this.histogram = histogram;
+    }
+}
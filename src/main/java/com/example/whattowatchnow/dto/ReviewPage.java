@@ -0,0 +1,35 @@
+package com.example.whattowatchnow.dto;
+
+import com.example.whattowatchnow.domain.Review;
+
+import java.util.List;
+
+public class ReviewPage {
+    private List<Review> items;
+    private String nextCursor; // Opaque token for the next page, null on the last page
+
+    public ReviewPage() {
+    }
+
+    public ReviewPage(List<Review> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<Review> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Review> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,439 @@
+package com.example.whattowatchnow.graph;
+
+import com.example.whattowatchnow.search.TextAnalyzer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Who acted with whom, as a bipartite actor/movie graph in compressed sparse row form:
+ * actors are interned to dense ints and each side's adjacency is one int array of edges
+ * plus one array of row starts, so memory is {@code 8·edges + 4·(actors + movies)} bytes
+ * plus the names, known before a build finishes. Immutable once built; a rebuild replaces it.
+ * <p>
+ * Shortest co-star paths use a bidirectional breadth-first search that grows the smaller
+ * frontier one level at a time and enumerates large frontiers in parallel on the common
+ * fork-join pool. Its per-node state lives in a fixed number of reusable searchers, which
+ * also bounds how many path queries run at once. Top collaborators are counted in a
+ * borrowed searcher's arrays too.
+ */
+public final class ActorGraph {
+
+    private static final int PARALLEL_FRONTIER = 512;
+
+    private final String[] actorNames;
+    private final Map<String, Integer> actorsByKey;
+    private final String[] movieIds;
+    private final int[] movieStart;
+    private final int[] movieActors;
+    private final int[] actorStart;
+    private final int[] actorMovies; // Ascending movie numbers per actor
+    private final BlockingQueue<Search> searchers;
+
+    private ActorGraph(String[] actorNames, Map<String, Integer> actorsByKey, String[] movieIds,
+                       int[] movieStart, int[] movieActors, int searchers) {
+        this.actorNames = actorNames;
+        this.actorsByKey = actorsByKey;
+        this.movieIds = movieIds;
+        this.movieStart = movieStart;
+        this.movieActors = movieActors;
+        int actors = actorNames.length;
+
+        // Transpose by counting sort; walking movies in order keeps each actor's movies ascending
+        actorStart = new int[actors + 1];
+        for (int actor : movieActors) {
+            actorStart[actor + 1]++;
+        }
+        for (int a = 0; a < actors; a++) {
+            actorStart[a + 1] += actorStart[a];
+        }
+        actorMovies = new int[movieActors.length];
+        int[] next = Arrays.copyOf(actorStart, actors);
+        for (int m = 0; m < movieIds.length; m++) {
+            for (int i = movieStart[m]; i < movieStart[m + 1]; i++) {
+                actorMovies[next[movieActors[i]]++] = m;
+            }
+        }
+        this.searchers = new ArrayBlockingQueue<>(searchers);
+        for (int i = 0; i < searchers; i++) {
+            this.searchers.add(new Search(actors));
+        }
+    }
+
+    /**
+     * Bytes held by the adjacency arrays of a graph with these counts, excluding names and
+     * searcher state.
+     */
+    public static long adjacencyBytes(long actors, long movies, long edges) {
+        return 4 * (2 * edges + actors + 1 + movies + 1);
+    }
+
+    static String key(String name) {
+        return name == null ? "" : String.join(" ", TextAnalyzer.tokenize(name));
+    }
+
+    public int actors() {
+        return actorNames.length;
+    }
+
+    public int movies() {
+        return movieIds.length;
+    }
+
+    public int edges() {
+        return movieActors.length;
+    }
+
+    /**
+     * Actor number for a name, matched ignoring case and punctuation, or -1.
+     */
+    public int actor(String name) {
+        Integer actor = actorsByKey.get(key(name));
+        return actor == null ? -1 : actor;
+    }
+
+    public String actorName(int actor) {
+        return actorNames[actor];
+    }
+
+    public String movieId(int movie) {
+        return movieIds[movie];
+    }
+
+    /**
+     * Ids of the movies both actors appear in.
+     */
+    public List<String> sharedMovies(int a, int b) {
+        List<String> shared = new ArrayList<>();
+        int i = actorStart[a];
+        int j = actorStart[b];
+        while (i < actorStart[a + 1] && j < actorStart[b + 1]) {
+            int diff = Integer.compare(actorMovies[i], actorMovies[j]);
+            if (diff == 0) {
+                shared.add(movieIds[actorMovies[i]]);
+                i++;
+                j++;
+            } else if (diff < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Actors who appeared with {@code actor} in the most movies, as {actor, movies} pairs,
+     * most shared movies first. Counts in a borrowed searcher's arrays, so it waits for one
+     * like a path query.
+     */
+    public List<int[]> topCollaborators(int actor, int limit) throws InterruptedException {
+        if (limit <= 0) {
+            return List.of();
+        }
+        Search search = searchers.take();
+        try {
+            return search.topCollaborators(actor, limit);
+        } finally {
+            searchers.add(search);
+        }
+    }
+
+    /**
+     * A shortest chain of co-stars from {@code from} to {@code to}, as alternating actor and
+     * movie numbers starting and ending with an actor; empty if they are not connected
+     * within {@code maxMovies} movies.
+     */
+    public int[] shortestPath(int from, int to, int maxMovies) throws InterruptedException {
+        if (from == to) {
+            return new int[]{from};
+        }
+        Search search = searchers.take();
+        try {
+            return search.run(from, to, maxMovies);
+        } finally {
+            searchers.add(search);
+        }
+    }
+
+    // Owner of an edge position in actorMovies
+    private int actorAt(int position) {
+        int found = Arrays.binarySearch(actorStart, position);
+        if (found < 0) {
+            return -found - 2;
+        }
+        while (actorStart[found + 1] == position) { // Skip actors without movies
+            found++;
+        }
+        return found;
+    }
+
+    private final class Search {
+        private final Side forward;
+        private final Side backward;
+        private int generation;
+
+        Search(int actors) {
+            forward = new Side(actors);
+            backward = new Side(actors);
+        }
+
+        private void nextGeneration() {
+            if (++generation == Integer.MAX_VALUE) {
+                forward.reset();
+                backward.reset();
+                generation = 1;
+            }
+        }
+
+        int[] run(int from, int to, int maxMovies) {
+            nextGeneration();
+            forward.start(from, generation);
+            backward.start(to, generation);
+            for (int movies = 0; movies < maxMovies; movies++) {
+                Side side = forward.frontier.length <= backward.frontier.length ? forward : backward;
+                Side other = side == forward ? backward : forward;
+                if (side.frontier.length == 0) {
+                    return new int[0];
+                }
+                int meeting = side.expand(other, generation);
+                if (meeting >= 0) {
+                    return path(meeting);
+                }
+            }
+            return new int[0];
+        }
+
+        // Counts co-stars in the forward side's depth array, stamping seen for the ones counted
+        List<int[]> topCollaborators(int actor, int limit) {
+            nextGeneration();
+            int[] seen = forward.seen;
+            int[] counts = forward.depth;
+            int[] touched = new int[16];
+            int size = 0;
+            for (int i = actorStart[actor]; i < actorStart[actor + 1]; i++) {
+                int movie = actorMovies[i];
+                for (int j = movieStart[movie]; j < movieStart[movie + 1]; j++) {
+                    int coStar = movieActors[j];
+                    if (coStar == actor) {
+                        continue;
+                    }
+                    if (seen[coStar] != generation) {
+                        seen[coStar] = generation;
+                        counts[coStar] = 0;
+                        if (size == touched.length) {
+                            touched = Arrays.copyOf(touched, size * 2);
+                        }
+                        touched[size++] = coStar;
+                    }
+                    counts[coStar]++;
+                }
+            }
+
+            // Insertion into a sorted top-k; limit is small
+            int[] top = new int[Math.min(limit, size)];
+            int n = 0;
+            for (int t = 0; t < size; t++) {
+                int coStar = touched[t];
+                if (n == top.length && !ranksBefore(coStar, top[n - 1], counts)) {
+                    continue;
+                }
+                int pos = n < top.length ? n++ : n - 1;
+                while (pos > 0 && ranksBefore(coStar, top[pos - 1], counts)) {
+                    top[pos] = top[pos - 1];
+                    pos--;
+                }
+                top[pos] = coStar;
+            }
+            List<int[]> result = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                result.add(new int[]{top[i], counts[top[i]]});
+            }
+            return result;
+        }
+
+        // More shared movies first, then by name
+        private boolean ranksBefore(int a, int b, int[] counts) {
+            return counts[a] != counts[b] ? counts[a] > counts[b] : actorNames[a].compareTo(actorNames[b]) < 0;
+        }
+
+        private int[] path(int meeting) {
+            List<Integer> head = new ArrayList<>();
+            for (int actor = meeting; forward.via[actor] >= 0; ) {
+                int position = forward.via[actor];
+                head.add(actorMovies[position]);
+                actor = actorAt(position);
+                head.add(actor);
+            }
+            Collections.reverse(head);
+            List<Integer> path = new ArrayList<>(head);
+            path.add(meeting);
+            for (int actor = meeting; backward.via[actor] >= 0; ) {
+                int position = backward.via[actor];
+                path.add(actorMovies[position]);
+                actor = actorAt(position);
+                path.add(actor);
+            }
+            return path.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private final class Side {
+        private final int[] seen; // Generation in which the actor was reached
+        private final int[] depth;
+        private final int[] via; // Edge position (in actorMovies) the actor was reached through, -1 at the root
+        private int[] frontier = new int[0];
+
+        Side(int actors) {
+            seen = new int[actors];
+            depth = new int[actors];
+            via = new int[actors];
+        }
+
+        void reset() {
+            Arrays.fill(seen, 0);
+        }
+
+        void start(int actor, int generation) {
+            seen[actor] = generation;
+            depth[actor] = 0;
+            via[actor] = -1;
+            frontier = new int[]{actor};
+        }
+
+        /**
+         * Advances one level; returns the actor on a shortest path where both sides meet, or -1.
+         */
+        int expand(Side other, int generation) {
+            // Enumerate (co-star, edge position) pairs in chunks, reading state only; claims happen below
+            int chunks = frontier.length >= PARALLEL_FRONTIER ? (frontier.length + PARALLEL_FRONTIER - 1) / PARALLEL_FRONTIER : 1;
+            IntStream range = IntStream.range(0, chunks);
+            long[][] parts = (chunks > 1 ? range.parallel() : range)
+                    .mapToObj(chunk -> coStars(chunk * PARALLEL_FRONTIER,
+                            Math.min(frontier.length, (chunk + 1) * PARALLEL_FRONTIER), generation))
+                    .toArray(long[][]::new);
+            long[] reached = parts.length == 1 ? parts[0] : Arrays.stream(parts).flatMapToLong(Arrays::stream).toArray();
+
+            int[] next = new int[reached.length];
+            int size = 0;
+            int meeting = -1;
+            int best = Integer.MAX_VALUE;
+            for (long packed : reached) {
+                int actor = (int) (packed >>> 32);
+                if (seen[actor] == generation) {
+                    continue;
+                }
+                int position = (int) packed;
+                seen[actor] = generation;
+                depth[actor] = depth[actorAt(position)] + 1;
+                via[actor] = position;
+                next[size++] = actor;
+                if (other.seen[actor] == generation && other.depth[actor] < best) {
+                    best = other.depth[actor];
+                    meeting = actor;
+                }
+            }
+            frontier = Arrays.copyOf(next, size);
+            return meeting;
+        }
+
+        private long[] coStars(int from, int to, int generation) {
+            long[] found = new long[16];
+            int size = 0;
+            for (int f = from; f < to; f++) {
+                int actor = frontier[f];
+                for (int position = actorStart[actor]; position < actorStart[actor + 1]; position++) {
+                    int movie = actorMovies[position];
+                    for (int i = movieStart[movie]; i < movieStart[movie + 1]; i++) {
+                        if (seen[movieActors[i]] != generation) {
+                            if (size == found.length) {
+                                found = Arrays.copyOf(found, size * 2);
+                            }
+                            found[size++] = ((long) movieActors[i] << 32) | position;
+                        }
+                    }
+                }
+            }
+            return Arrays.copyOf(found, size);
+        }
+    }
+
+    /**
+     * Collects movies one at a time, as they stream in, and interns their actors.
+     */
+    public static final class Builder {
+        private final long maxEdges;
+        private final int searchers;
+        private final Map<String, Integer> actorsByKey = new HashMap<>();
+        private final List<String> actorNames = new ArrayList<>();
+        private final List<String> movieIds = new ArrayList<>();
+        private int[] movieStart = new int[1024];
+        private int[] movieActors = new int[4096];
+        private int edges;
+
+        /**
+         * @param maxEdges  actor appearances allowed before {@link #add} refuses, bounding memory
+         * @param searchers path queries that can run at once, each holding 24 bytes per actor
+         */
+        public Builder(long maxEdges, int searchers) {
+            this.maxEdges = maxEdges;
+            this.searchers = searchers;
+        }
+
+        public Builder add(String movieId, List<String> actors) {
+            int start = edges;
+            if (actors != null) {
+                for (String name : actors) {
+                    String key = key(name);
+                    if (key.isEmpty()) {
+                        continue;
+                    }
+                    Integer actor = actorsByKey.get(key);
+                    if (actor == null) {
+                        actor = actorNames.size();
+                        actorsByKey.put(key, actor);
+                        actorNames.add(name.trim());
+                    }
+                    if (!appearsSince(start, actor)) {
+                        if (edges == maxEdges) {
+                            throw new IllegalStateException("Actor graph exceeds " + maxEdges + " edges");
+                        }
+                        if (edges == movieActors.length) {
+                            movieActors = Arrays.copyOf(movieActors, edges * 2);
+                        }
+                        movieActors[edges++] = actor;
+                    }
+                }
+            }
+            int movie = movieIds.size();
+            movieIds.add(movieId);
+            if (movie + 2 > movieStart.length) {
+                movieStart = Arrays.copyOf(movieStart, movieStart.length * 2);
+            }
+            movieStart[movie + 1] = edges;
+            return this;
+        }
+
+        private boolean appearsSince(int start, int actor) {
+            for (int i = start; i < edges; i++) {
+                if (movieActors[i] == actor) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public ActorGraph build() {
+            int movies = movieIds.size();
+            return new ActorGraph(actorNames.toArray(new String[0]), actorsByKey, movieIds.toArray(new String[0]),
+                    Arrays.copyOf(movieStart, movies + 1), Arrays.copyOf(movieActors, edges), searchers);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.whattowatchnow.ranking;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Weighted random choice in constant time by Vose's alias method: each of the n slots
+ * holds its own id with some probability and otherwise an alias, so a pick is one uniform
+ * slot and one coin flip. Building is O(n); the table is immutable afterwards.
+ */
+final class AliasTable {
+
+    private final String[] ids;
+    private final double[] keep;
+    private final int[] alias;
+
+    /**
+     * @param weights non-negative, one per id; all zero is treated as uniform
+     */
+    AliasTable(List<String> ids, double[] weights) {
+        int n = ids.size();
+        this.ids = ids.toArray(new String[0]);
+        this.keep = new double[n];
+        this.alias = new int[n];
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double[] scaled = new double[n];
+        for (int i = 0; i < n; i++) {
+            scaled[i] = total > 0 ? weights[i] * n / total : 1;
+        }
+        // Pair each slot below the mean with one above it, which gives up the difference
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smalls = 0;
+        int larges = 0;
+        for (int i = 0; i < n; i++) {
+            if (scaled[i] < 1) {
+                small[smalls++] = i;
+            } else {
+                large[larges++] = i;
+            }
+        }
+        while (smalls > 0 && larges > 0) {
+            int less = small[--smalls];
+            int more = large[--larges];
+            keep[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] += scaled[less] - 1;
+            if (scaled[more] < 1) {
+                small[smalls++] = more;
+            } else {
+                large[larges++] = more;
+            }
+        }
+        while (larges > 0) {
+            keep[large[--larges]] = 1;
+        }
+        while (smalls > 0) { // Only rounding error left
+            keep[small[--smalls]] = 1;
+        }
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * A random id with probability proportional to its weight, or null if the table is empty.
+     */
+    String pick() {
+        if (ids.length == 0) {
+            return null;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int slot = random.nextInt(ids.length);
+        return random.nextDouble() < keep[slot] ? ids[slot] : ids[alias[slot]];
+    }
+}
@@ -0,0 +1,350 @@
+package com.example.whattowatchnow.ranking;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.domain.TrendingScore;
+import com.example.whattowatchnow.dto.LeaderboardEntry;
+import com.example.whattowatchnow.search.MovieIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Trending and top-rated movies, overall and per genre, kept fully in memory.
+ * <p>
+ * Trending is review activity with exponential time decay, computed by forward decay: a
+ * review at time t adds {@code e^((t - L) / tau)} for a fixed landmark L, so old scores never
+ * need rescoring as time passes and the ranking only changes when a review arrives. The
+ * current value is the stored one times {@code e^(-(now - L) / tau)}, and the landmark moves
+ * forward in {@link #refresh} long before the exponent could overflow.
+ * <p>
+ * Top rated is the Bayesian average {@code (C * m + sum) / (C + count)}: a movie with a
+ * handful of reviews is pulled towards the catalog mean m, so a single 5-star review does not
+ * beat hundreds of 4-star ones. m is re-estimated on each {@link #refresh}.
+ * <p>
+ * Movie metadata comes from {@link MovieIndex}, so only movies that exist are listed and
+ * genre boards follow genre edits.
+ */
+@Component
+public class Leaderboards implements MovieIndex {
+
+    private static final double REBASE_AFTER = 64; // time constants; e^64 is far from overflowing a double
+    private static final double DEFAULT_PRIOR_MEAN = 3.0;
+
+    private final double tauMillis;
+    private final double priorWeight;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(); // write lock for whole-board changes
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    private final Board trending = new Board();
+    private final Board topRated = new Board();
+    private volatile long landmark = System.currentTimeMillis();
+    private volatile double priorMean = DEFAULT_PRIOR_MEAN;
+
+    @Autowired
+    public Leaderboards(@Value("${whattowatchnow.leaderboards.trending-half-life:2d}") Duration halfLife,
+                        @Value("${whattowatchnow.leaderboards.prior-weight:10}") double priorWeight) {
+        this.tauMillis = halfLife.toMillis() / Math.log(2);
+        this.priorWeight = priorWeight;
+    }
+
+    @Override
+    public void index(Movie movie) {
+        if (movie.getId() == null) {
+            return;
+        }
+        String[] genres = distinctLowercase(movie.getGenres());
+        update(movie.getId(), s -> {
+            s.title = movie.getTitle();
+            s.posterUrl = movie.getPosterUrl();
+            s.genres = genres;
+        });
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            trending.clear();
+            topRated.clear();
+            for (Stats s : stats.values()) {
+                s.title = null;
+                s.posterUrl = null;
+                s.genres = null;
+                s.rankedGenres = null;
+                s.trendingKey = Double.NaN;
+                s.ratedKey = Double.NaN;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void reviewAdded(String movieId, int rating, long timeMillis) {
+        update(movieId, s -> {
+            s.trend += weight(timeMillis);
+            s.dirty = true;
+            s.count++;
+            s.sum += rating;
+        });
+    }
+
+    public void reviewRemoved(String movieId, int rating, long timeMillis) {
+        update(movieId, s -> {
+            s.trend = subtract(s.trend, weight(timeMillis));
+            s.dirty = true;
+            s.count = Math.max(0, s.count - 1);
+            s.sum = Math.max(0, s.sum - rating);
+        });
+    }
+
+    /**
+     * Counts a review towards trending only, for replaying reviews whose ratings are already
+     * in a restored {@link #restoreRating rating total}.
+     */
+    public void activity(String movieId, long timeMillis) {
+        update(movieId, s -> {
+            s.trend += weight(timeMillis);
+            s.dirty = true;
+        });
+    }
+
+    public void restoreTrend(String movieId, double score, Instant takenAt) {
+        update(movieId, s -> s.trend += score * weight(takenAt.toEpochMilli()));
+    }
+
+    public void restoreRating(String movieId, long count, long sum) {
+        update(movieId, s -> {
+            s.count = count;
+            s.sum = sum;
+        });
+    }
+
+    public List<LeaderboardEntry> trending(String genre, int k) {
+        lock.readLock().lock();
+        try {
+            double decay = weight(System.currentTimeMillis());
+            List<LeaderboardEntry> entries = new ArrayList<>(k);
+            for (RankedSet.Entry entry : trending.top(genre, k)) {
+                entries.add(toEntry(entry, entry.score / decay));
+            }
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<LeaderboardEntry> topRated(String genre, int k) {
+        List<LeaderboardEntry> entries = new ArrayList<>(k);
+        for (RankedSet.Entry entry : topRated.top(genre, k)) {
+            entries.add(toEntry(entry, entry.score));
+        }
+        return entries;
+    }
+
+    /**
+     * Current trending scores of the movies that changed since the last call.
+     */
+    public List<TrendingScore> changedTrends(Instant now) {
+        List<TrendingScore> changed = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            double decay = weight(now.toEpochMilli());
+            for (String movieId : stats.keySet()) {
+                stats.computeIfPresent(movieId, (id, s) -> {
+                    if (s.dirty) {
+                        s.dirty = false;
+                        changed.add(new TrendingScore(id, s.trend / decay, now));
+                    }
+                    return s;
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return changed;
+    }
+
+    /**
+     * Re-estimates the prior mean for top rated, moves the trending landmark forward when it
+     * has fallen far behind, and re-ranks every movie accordingly. Touches all movies, so it is
+     * meant for a periodic job rather than the request path.
+     */
+    public void refresh(long nowMillis) {
+        lock.writeLock().lock();
+        try {
+            double rescale = 1;
+            if ((nowMillis - landmark) / tauMillis > REBASE_AFTER) {
+                rescale = 1 / weight(nowMillis);
+                landmark = nowMillis;
+            }
+            long count = 0;
+            long sum = 0;
+            for (Stats s : stats.values()) {
+                count += s.count;
+                sum += s.sum;
+            }
+            priorMean = count == 0 ? DEFAULT_PRIOR_MEAN : (double) sum / count;
+            for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+                Stats s = entry.getValue();
+                s.trend *= rescale;
+                rerank(entry.getKey(), s);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    double priorMean() {
+        return priorMean;
+    }
+
+    /**
+     * The movie's top-rated score, the Bayesian average; the prior mean for an unreviewed movie.
+     */
+    public double bayesianRating(String movieId) {
+        Stats s = stats.get(movieId);
+        long count = s == null ? 0 : s.count;
+        return count == 0 ? priorMean : (priorWeight * priorMean + s.sum) / (priorWeight + count);
+    }
+
+    public long reviewCount(String movieId) {
+        Stats s = stats.get(movieId);
+        return s == null ? 0 : s.count;
+    }
+
+    private void update(String movieId, Consumer<Stats> change) {
+        lock.readLock().lock();
+        try {
+            stats.compute(movieId, (id, s) -> {
+                if (s == null) {
+                    s = new Stats();
+                }
+                change.accept(s);
+                rerank(id, s);
+                return s;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Called with the movie's entry locked, or under the write lock
+    private void rerank(String id, Stats s) {
+        if (!Double.isNaN(s.trendingKey)) {
+            trending.remove(id, s.rankedGenres, s.trendingKey);
+            s.trendingKey = Double.NaN;
+        }
+        if (!Double.isNaN(s.ratedKey)) {
+            topRated.remove(id, s.rankedGenres, s.ratedKey);
+            s.ratedKey = Double.NaN;
+        }
+        s.rankedGenres = s.genres;
+        if (s.title == null) {
+            return; // Not a known movie, or not indexed yet
+        }
+        if (s.trend > 0) {
+            s.trendingKey = s.trend;
+            trending.add(id, s.genres, s.trendingKey);
+        }
+        if (s.count > 0) {
+            s.ratedKey = (priorWeight * priorMean + s.sum) / (priorWeight + s.count);
+            topRated.add(id, s.genres, s.ratedKey);
+        }
+    }
+
+    private LeaderboardEntry toEntry(RankedSet.Entry entry, double score) {
+        Stats s = stats.get(entry.id);
+        return s == null
+                ? new LeaderboardEntry(entry.id, null, null, score, 0)
+                : new LeaderboardEntry(entry.id, s.title, s.posterUrl, score, s.count);
+    }
+
+    private double weight(long timeMillis) {
+        return Math.exp((timeMillis - landmark) / tauMillis);
+    }
+
+    private static double subtract(double trend, double weight) {
+        double rest = trend - weight;
+        return rest <= weight * 1e-9 ? 0 : rest; // Removing the last review leaves rounding noise, not activity
+    }
+
+    private static String[] distinctLowercase(List<String> values) {
+        if (values == null) {
+            return new String[0];
+        }
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                distinct.add(value.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return distinct.toArray(new String[0]);
+    }
+
+    private static final class Stats {
+        volatile String title; // null while the movie is not indexed
+        volatile String posterUrl;
+        String[] genres;
+        double trend; // sum of review weights relative to the landmark
+        volatile long count;
+        long sum;
+        boolean dirty; // trend changed since the last snapshot
+
+        // Where the movie currently sits in the boards
+        String[] rankedGenres;
+        double trendingKey = Double.NaN;
+        double ratedKey = Double.NaN;
+    }
+
+    /**
+     * One ranking overall plus one per genre.
+     */
+    private static final class Board {
+        private final RankedSet overall = new RankedSet();
+        private final Map<String, RankedSet> byGenre = new ConcurrentHashMap<>();
+
+        void add(String id, String[] genres, double score) {
+            overall.add(id, score);
+            for (String genre : genres) {
+                byGenre.computeIfAbsent(genre, g -> new RankedSet()).add(id, score);
+            }
+        }
+
+        void remove(String id, String[] genres, double score) {
+            overall.remove(id, score);
+            if (genres != null) {
+                for (String genre : genres) {
+                    RankedSet ranked = byGenre.get(genre);
+                    if (ranked != null) {
+                        ranked.remove(id, score);
+                    }
+                }
+            }
+        }
+
+        void clear() {
+            overall.clear();
+            byGenre.clear();
+        }
+
+        List<RankedSet.Entry> top(String genre, int k) {
+            if (genre == null || genre.isBlank()) {
+                return overall.top(k);
+            }
+            RankedSet ranked = byGenre.get(genre.trim().toLowerCase(Locale.ROOT));
+            return ranked == null ? Collections.emptyList() : ranked.top(k);
+        }
+    }
+}
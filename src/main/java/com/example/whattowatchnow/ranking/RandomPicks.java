@@ -0,0 +1,152 @@
+package com.example.whattowatchnow.ranking;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.search.MovieIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * "Surprise me": a random movie, better rated and more reviewed ones more likely, optionally
+ * restricted to a genre, a release year or both. Every such filter combination present in
+ * the catalog is a bucket with its own {@link AliasTable}, so a pick is constant time
+ * whatever the filter.
+ * <p>
+ * A movie's weight is its Bayesian average rating from {@link Leaderboards} times the log of
+ * its review count plus e, so an unreviewed movie still turns up, just less often. Tables are
+ * immutable: a saved movie or a changed rating only marks the buckets the movie is in, and
+ * {@link #refresh} rebuilds those; until then picks use the previous table. A bucket asked for
+ * before it ever had a table is built on the spot.
+ */
+@Component
+public class RandomPicks implements MovieIndex {
+
+    private final Leaderboards leaderboards;
+    private final Map<String, String[]> bucketsByMovie = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> members = new ConcurrentHashMap<>();
+    private final Map<String, AliasTable> tables = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public RandomPicks(Leaderboards leaderboards) {
+        this.leaderboards = leaderboards;
+    }
+
+    /**
+     * The bucket for a filter; null or blank genre and null year mean no restriction.
+     */
+    static String bucket(String genre, Integer year) {
+        String g = genre == null || genre.isBlank() ? null : "g:" + genre.trim().toLowerCase(Locale.ROOT);
+        String y = year == null ? null : "y:" + year;
+        return g == null ? (y == null ? "" : y) : (y == null ? g : g + "|" + y);
+    }
+
+    @Override
+    public void index(Movie movie) {
+        if (movie.getId() == null) {
+            return;
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(bucket(null, null));
+        keys.add(bucket(null, movie.getReleaseYear()));
+        if (movie.getGenres() != null) {
+            for (String genre : movie.getGenres()) {
+                if (genre != null && !genre.isBlank()) {
+                    keys.add(bucket(genre, null));
+                    keys.add(bucket(genre, movie.getReleaseYear()));
+                }
+            }
+        }
+        String[] previous = bucketsByMovie.put(movie.getId(), keys.toArray(new String[0]));
+        if (previous != null) {
+            for (String key : previous) {
+                if (!keys.contains(key)) {
+                    members.computeIfPresent(key, (k, ids) -> {
+                        ids.remove(movie.getId());
+                        return ids;
+                    });
+                    dirty.add(key);
+                }
+            }
+        }
+        for (String key : keys) {
+            members.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(movie.getId());
+            dirty.add(key);
+        }
+    }
+
+    /**
+     * Forgets the catalog ahead of a full re-index; the current tables keep serving until
+     * {@link #refresh} replaces them.
+     */
+    @Override
+    public void clear() {
+        bucketsByMovie.clear();
+        dirty.addAll(members.keySet());
+        members.clear();
+    }
+
+    /**
+     * Marks the movie's buckets for rebuilding after its rating or review count changed.
+     */
+    public void weightChanged(String movieId) {
+        String[] keys = bucketsByMovie.get(movieId);
+        if (keys != null) {
+            dirty.addAll(List.of(keys));
+        }
+    }
+
+    public void markAllDirty() {
+        dirty.addAll(members.keySet());
+        dirty.addAll(tables.keySet());
+    }
+
+    /**
+     * Rebuilds the tables of the buckets marked since the last call; returns how many.
+     */
+    public int refresh() {
+        int rebuilt = 0;
+        for (String key : new ArrayList<>(dirty)) {
+            dirty.remove(key); // Before reading the members, so later changes mark it again
+            build(key);
+            rebuilt++;
+        }
+        return rebuilt;
+    }
+
+    /**
+     * A weighted random movie id matching the filter, or null if none does.
+     */
+    public String pick(String genre, Integer year) {
+        String key = bucket(genre, year);
+        AliasTable table = tables.get(key);
+        if (table == null) {
+            table = build(key);
+        }
+        return table == null ? null : table.pick();
+    }
+
+    private AliasTable build(String key) {
+        Set<String> ids = members.get(key);
+        List<String> snapshot = ids == null ? List.of() : new ArrayList<>(ids);
+        if (snapshot.isEmpty()) {
+            tables.remove(key);
+            return null;
+        }
+        double[] weights = new double[snapshot.size()];
+        for (int i = 0; i < weights.length; i++) {
+            String id = snapshot.get(i);
+            weights[i] = leaderboards.bayesianRating(id) * Math.log(Math.E + leaderboards.reviewCount(id));
+        }
+        AliasTable table = new AliasTable(snapshot, weights);
+        tables.put(key, table);
+        return table;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.whattowatchnow.ranking;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Movie ids ordered by score, highest first, ties by id. Backed by a skip list, so updates
+ * are O(log n), the top k is a walk of the first k nodes, and readers never block writers.
+ * <p>
+ * The set does not remember scores by id: callers pass the score an id was added with when
+ * moving or removing it, and must serialize changes to the same id themselves.
+ */
+final class RankedSet {
+
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>();
+
+    void add(String id, double score) {
+        entries.add(new Entry(id, score));
+    }
+
+    void remove(String id, double score) {
+        entries.remove(new Entry(id, score));
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    List<Entry> top(int k) {
+        List<Entry> top = new ArrayList<>(Math.min(k, 64));
+        Iterator<Entry> it = entries.iterator();
+        while (top.size() < k && it.hasNext()) {
+            top.add(it.next());
+        }
+        return top;
+    }
+
+    static final class Entry implements Comparable<Entry> {
+        final String id;
+        final double score;
+
+        Entry(String id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byScore = Double.compare(other.score, score);
+            return byScore != 0 ? byScore : id.compareTo(other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry && compareTo((Entry) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return id.hashCode() * 31 + Double.hashCode(score);
+        }
+    }
+}
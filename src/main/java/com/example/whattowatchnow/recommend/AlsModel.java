@@ -0,0 +1,266 @@
+package com.example.whattowatchnow.recommend;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Latent-factor model in a compact binary file that is memory-mapped, not parsed: the factor
+ * matrices stay in the page cache and are read in place, only the id tables are loaded onto
+ * the heap. The file also holds each user's rated movies from training so a user's top-N
+ * is a dot-product scan over the movie factors with no database round trip.
+ * <p>
+ * Layout, little-endian: a 32 byte header (magic, version, factors, users, movies, iteration,
+ * rated count, reserved), user factors, movie factors, rated row starts, rated movies, then
+ * the user and movie ids as length-prefixed UTF-8. Checkpoints use the same format with the
+ * number of completed iterations in the header. A single mapping limits the file to 2 GB.
+ */
+public final class AlsModel {
+
+    private static final int MAGIC = 0x57414c53; // "WALS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    private final int factors;
+    private final int users;
+    private final int movies;
+    private final int iteration;
+    private final FloatBuffer userFactors;
+    private final FloatBuffer movieFactors;
+    private final IntBuffer ratedStart;
+    private final IntBuffer ratedMovies;
+    private final Map<String, Integer> userRows;
+    private final String[] movieIds;
+    private final Map<String, Integer> movieRows;
+
+    private AlsModel(int factors, int users, int movies, int iteration,
+                     FloatBuffer userFactors, FloatBuffer movieFactors, IntBuffer ratedStart, IntBuffer ratedMovies,
+                     Map<String, Integer> userRows, String[] movieIds) {
+        this.factors = factors;
+        this.users = users;
+        this.movies = movies;
+        this.iteration = iteration;
+        this.userFactors = userFactors;
+        this.movieFactors = movieFactors;
+        this.ratedStart = ratedStart;
+        this.ratedMovies = ratedMovies;
+        this.userRows = userRows;
+        this.movieIds = movieIds;
+        this.movieRows = new HashMap<>(movies * 2);
+        for (int m = 0; m < movies; m++) {
+            movieRows.put(movieIds[m], m);
+        }
+    }
+
+    public static AlsModel open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Model file too large to map: " + channel.size() + " bytes");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            ByteBuffer bytes = mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (bytes.getInt(0) != MAGIC || bytes.getInt(4) != VERSION) {
+                throw new IOException("Not a model file: " + file);
+            }
+            int factors = bytes.getInt(8);
+            int users = bytes.getInt(12);
+            int movies = bytes.getInt(16);
+            int iteration = bytes.getInt(20);
+            int rated = bytes.getInt(24);
+
+            int offset = HEADER_BYTES;
+            FloatBuffer userFactors = slice(bytes, offset, users * factors * 4).asFloatBuffer();
+            offset += users * factors * 4;
+            FloatBuffer movieFactors = slice(bytes, offset, movies * factors * 4).asFloatBuffer();
+            offset += movies * factors * 4;
+            IntBuffer ratedStart = slice(bytes, offset, (users + 1) * 4).asIntBuffer();
+            offset += (users + 1) * 4;
+            IntBuffer ratedMovies = slice(bytes, offset, rated * 4).asIntBuffer();
+            offset += rated * 4;
+
+            ByteBuffer ids = slice(bytes, offset, bytes.capacity() - offset);
+            Map<String, Integer> userRows = new HashMap<>(users * 2);
+            for (int u = 0; u < users; u++) {
+                userRows.put(readId(ids), u);
+            }
+            String[] movieIds = new String[movies];
+            for (int m = 0; m < movies; m++) {
+                movieIds[m] = readId(ids);
+            }
+            return new AlsModel(factors, users, movies, iteration,
+                    userFactors, movieFactors, ratedStart, ratedMovies, userRows, movieIds);
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer bytes, int offset, int length) {
+        return bytes.slice(offset, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static String readId(ByteBuffer ids) {
+        byte[] utf8 = new byte[Short.toUnsignedInt(ids.getShort())];
+        ids.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a model to a temporary file next to {@code file} and moves it into place, so a
+     * reader never maps a half-written file.
+     */
+    public static void write(Path file, int iteration, int factors, String[] userIds, String[] movieIds,
+                             float[] userFactors, float[] movieFactors, int[] ratedStart, int[] ratedMovies) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(factors).putInt(userIds.length).putInt(movieIds.length)
+                    .putInt(iteration).putInt(ratedMovies.length).putInt(0);
+            for (float value : userFactors) {
+                buffer = ensure(channel, buffer, 4).putFloat(value);
+            }
+            for (float value : movieFactors) {
+                buffer = ensure(channel, buffer, 4).putFloat(value);
+            }
+            for (int value : ratedStart) {
+                buffer = ensure(channel, buffer, 4).putInt(value);
+            }
+            for (int value : ratedMovies) {
+                buffer = ensure(channel, buffer, 4).putInt(value);
+            }
+            for (String[] ids : new String[][]{userIds, movieIds}) {
+                for (String id : ids) {
+                    byte[] utf8 = id.getBytes(StandardCharsets.UTF_8);
+                    buffer = ensure(channel, buffer, 2 + utf8.length).putShort((short) utf8.length).put(utf8);
+                }
+            }
+            flush(channel, buffer);
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static ByteBuffer ensure(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer);
+        }
+        return buffer;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public int factors() {
+        return factors;
+    }
+
+    public int users() {
+        return users;
+    }
+
+    public int movies() {
+        return movies;
+    }
+
+    /**
+     * Number of completed training iterations.
+     */
+    public int iteration() {
+        return iteration;
+    }
+
+    /**
+     * Copies the factors of the user into {@code into}; false if the model does not know them.
+     */
+    public boolean userFactors(String userId, float[] into) {
+        Integer row = userRows.get(userId);
+        if (row == null) {
+            return false;
+        }
+        userFactors.get(row * factors, into, 0, factors);
+        return true;
+    }
+
+    /**
+     * Copies the factors of the movie into {@code into}; false if the model does not know them.
+     */
+    public boolean movieFactors(String movieId, float[] into) {
+        Integer row = movieRows.get(movieId);
+        if (row == null) {
+            return false;
+        }
+        movieFactors.get(row * factors, into, 0, factors);
+        return true;
+    }
+
+    /**
+     * Movie factors by movie id, for resuming training from a checkpoint.
+     */
+    public Map<String, float[]> movieFactorsById() {
+        Map<String, float[]> byId = new HashMap<>(movies * 2);
+        for (int m = 0; m < movies; m++) {
+            float[] vector = new float[factors];
+            movieFactors.get(m * factors, vector, 0, factors);
+            byId.put(movieIds[m], vector);
+        }
+        return byId;
+    }
+
+    /**
+     * The user's {@code limit} highest scoring movies they had not rated at training time,
+     * best first. Empty for users the model was not trained on.
+     */
+    public List<String> recommend(String userId, int limit) {
+        Integer row = userRows.get(userId);
+        if (row == null) {
+            return List.of();
+        }
+        float[] user = new float[factors];
+        userFactors.get(row * factors, user, 0, factors);
+        int nextRated = ratedStart.get(row);
+        int ratedEnd = ratedStart.get(row + 1);
+
+        TopK best = new TopK(limit);
+        for (int m = 0, base = 0; m < movies; m++, base += factors) {
+            // Rated movies are stored in ascending order, so skipping them is a merge
+            if (nextRated < ratedEnd && ratedMovies.get(nextRated) == m) {
+                nextRated++;
+                continue;
+            }
+            float score = 0f;
+            for (int f = 0; f < factors; f++) {
+                score += user[f] * movieFactors.get(base + f);
+            }
+            if (score > 0f) {
+                best.offer(m, score);
+            }
+        }
+        int[] ids = new int[best.size()];
+        int found = best.drainTo(ids, new float[ids.length], 0);
+        List<String> result = new ArrayList<>(found);
+        for (int k = 0; k < found; k++) {
+            result.add(movieIds[ids[k]]);
+        }
+        return result;
+    }
+}
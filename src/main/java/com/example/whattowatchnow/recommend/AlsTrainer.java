@@ -0,0 +1,198 @@
+package com.example.whattowatchnow.recommend;
+
+import com.example.whattowatchnow.search.MovieDocIds;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Trains an {@link AlsModel} by alternating least squares on the ratings of a
+ * {@link RatingMatrix}, which are already deviations from each user's baseline, so a
+ * positive dot product means "likely to rate this above their usual".
+ * <p>
+ * Factors live in two dense float arrays, row-major. Each half-iteration solves one small
+ * ridge regression per user (or movie), {@code (YᵀY + λ·n·I) x = Yᵀr} over just their
+ * ratings, with a Cholesky factorization; the solves are independent and run in parallel
+ * on the given fork-join pool. After every iteration the model is written to the checkpoint
+ * file, and a trainer handed that checkpoint resumes after its last completed iteration,
+ * matching rows by id so users and movies added since simply start fresh.
+ */
+public final class AlsTrainer {
+
+    private final int factors;
+    private final float lambda;
+    private final int iterations;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<double[]> scratch;
+
+    public AlsTrainer(int factors, float lambda, int iterations, ForkJoinPool pool) {
+        this.factors = factors;
+        this.lambda = lambda;
+        this.iterations = iterations;
+        this.pool = pool;
+        this.scratch = ThreadLocal.withInitial(() -> new double[factors * factors + factors]);
+    }
+
+    /**
+     * Called after each completed iteration with the training RMSE of the predicted deviations.
+     */
+    public interface Progress {
+        void iterationCompleted(int iteration, double rmse);
+    }
+
+    /**
+     * Trains to {@code iterations} and writes the final model to {@code modelFile}.
+     *
+     * @param resume a checkpoint from an earlier run, or null to start from random factors
+     */
+    public AlsModel train(RatingMatrix matrix, MovieDocIds movieDocIds, AlsModel resume,
+                          Path checkpointFile, Path modelFile, Progress progress) throws IOException {
+        String[] movieIds = new String[matrix.movies];
+        for (int m = 0; m < movieIds.length; m++) {
+            movieIds[m] = movieDocIds.movieId(m);
+        }
+        float[] userFactors = new float[matrix.users * factors];
+        float[] movieFactors = new float[matrix.movies * factors];
+        int done = initialize(matrix, movieIds, resume, userFactors, movieFactors);
+
+        for (int iteration = done + 1; iteration <= iterations; iteration++) {
+            float[] users = userFactors;
+            float[] movies = movieFactors;
+            pool.submit(() -> IntStream.range(0, matrix.users).parallel().forEach(u ->
+                    solve(movies, matrix.userStart, matrix.userMovies, matrix.userValues, u, users))).join();
+            pool.submit(() -> IntStream.range(0, matrix.movies).parallel().forEach(m ->
+                    solve(users, matrix.movieStart, matrix.movieUsers, matrix.movieValues, m, movies))).join();
+            progress.iterationCompleted(iteration, rmse(matrix, users, movies));
+            if (iteration < iterations) {
+                AlsModel.write(checkpointFile, iteration, factors, matrix.userIds, movieIds,
+                        userFactors, movieFactors, matrix.userStart, matrix.userMovies);
+            }
+        }
+        AlsModel.write(modelFile, iterations, factors, matrix.userIds, movieIds,
+                userFactors, movieFactors, matrix.userStart, matrix.userMovies);
+        return AlsModel.open(modelFile);
+    }
+
+    // Fills the factors from the checkpoint where it knows the id, randomly elsewhere; returns completed iterations
+    private int initialize(RatingMatrix matrix, String[] movieIds, AlsModel resume,
+                           float[] userFactors, float[] movieFactors) {
+        SplittableRandom random = new SplittableRandom(42);
+        float scale = (float) (0.1 / Math.sqrt(factors));
+        for (int i = 0; i < movieFactors.length; i++) {
+            movieFactors[i] = (float) random.nextGaussian() * scale;
+        }
+        if (resume == null || resume.factors() != factors) {
+            return 0;
+        }
+        float[] vector = new float[factors];
+        for (int u = 0; u < matrix.users; u++) {
+            if (resume.userFactors(matrix.userIds[u], vector)) {
+                System.arraycopy(vector, 0, userFactors, u * factors, factors);
+            }
+        }
+        Map<String, float[]> saved = resume.movieFactorsById();
+        for (int m = 0; m < movieIds.length; m++) {
+            float[] movie = saved.get(movieIds[m]);
+            if (movie != null) {
+                System.arraycopy(movie, 0, movieFactors, m * factors, factors);
+            }
+        }
+        return Math.min(resume.iteration(), iterations);
+    }
+
+    // Solves row `row` of `target` against the fixed factors of the other side
+    private void solve(float[] fixed, int[] start, int[] index, float[] values, int row, float[] target) {
+        int from = start[row];
+        int to = start[row + 1];
+        int out = row * factors;
+        if (from == to) {
+            Arrays.fill(target, out, out + factors, 0f); // No ratings, no opinion
+            return;
+        }
+        double[] a = scratch.get();
+        Arrays.fill(a, 0);
+        int b = factors * factors; // Right-hand side stored after the matrix
+        for (int i = from; i < to; i++) {
+            int base = index[i] * factors;
+            float value = values[i];
+            for (int p = 0; p < factors; p++) {
+                double yp = fixed[base + p];
+                a[b + p] += yp * value;
+                for (int q = 0; q <= p; q++) {
+                    a[p * factors + q] += yp * fixed[base + q];
+                }
+            }
+        }
+        double ridge = lambda * (to - from);
+        for (int p = 0; p < factors; p++) {
+            a[p * factors + p] += ridge;
+        }
+        choleskySolve(a, factors);
+        for (int p = 0; p < factors; p++) {
+            target[out + p] = (float) a[b + p];
+        }
+    }
+
+    private double rmse(RatingMatrix matrix, float[] users, float[] movies) {
+        double squared = pool.submit(() -> IntStream.range(0, matrix.users).parallel().mapToDouble(u -> {
+            double sum = 0;
+            for (int i = matrix.userStart[u]; i < matrix.userStart[u + 1]; i++) {
+                double error = matrix.userValues[i] - dot(users, u * factors, movies, matrix.userMovies[i] * factors, factors);
+                sum += error * error;
+            }
+            return sum;
+        }).sum()).join();
+        return matrix.ratings() == 0 ? 0 : Math.sqrt(squared / matrix.ratings());
+    }
+
+    /**
+     * Solves {@code A x = b} in place for symmetric positive definite A, of which only the
+     * lower triangle is filled in. {@code a} holds A row-major followed by b; the solution
+     * replaces b.
+     */
+    static void choleskySolve(double[] a, int n) {
+        int b = n * n;
+        for (int j = 0; j < n; j++) {
+            double diagonal = a[j * n + j];
+            for (int k = 0; k < j; k++) {
+                diagonal -= a[j * n + k] * a[j * n + k];
+            }
+            diagonal = Math.sqrt(Math.max(diagonal, 1e-12));
+            a[j * n + j] = diagonal;
+            for (int i = j + 1; i < n; i++) {
+                double sum = a[i * n + j];
+                for (int k = 0; k < j; k++) {
+                    sum -= a[i * n + k] * a[j * n + k];
+                }
+                a[i * n + j] = sum / diagonal;
+            }
+        }
+        for (int i = 0; i < n; i++) { // L y = b
+            double sum = a[b + i];
+            for (int k = 0; k < i; k++) {
+                sum -= a[i * n + k] * a[b + k];
+            }
+            a[b + i] = sum / a[i * n + i];
+        }
+        for (int i = n - 1; i >= 0; i--) { // Lᵀ x = y
+            double sum = a[b + i];
+            for (int k = i + 1; k < n; k++) {
+                sum -= a[k * n + i] * a[b + k];
+            }
+            a[b + i] = sum / a[i * n + i];
+        }
+    }
+
+    private static double dot(float[] x, int xOffset, float[] y, int yOffset, int n) {
+        double sum = 0;
+        for (int f = 0; f < n; f++) {
+            sum += x[xOffset + f] * y[yOffset + f];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,525 @@
+package com.example.whattowatchnow.recommend;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hierarchical navigable small world graph for cosine nearest neighbors. Vectors are
+ * normalized on the way in and stored off-heap, back to back in one direct float buffer, so
+ * similarity is a dot product over contiguous memory and a large catalog adds nothing to
+ * the garbage collector's work. Links are small int arrays per node and layer.
+ * <p>
+ * {@code m} bounds the links per node (twice that on the bottom layer) and
+ * {@code efConstruction} the candidates considered while linking; at query time {@code ef}
+ * trades latency for recall. {@link #exactSearch} scans every vector and {@link #recall}
+ * compares the two on a sample.
+ * <p>
+ * Adding an id that is already present retires the old node and inserts a new one, and
+ * removing an id retires its node. Retired nodes still route searches but are never returned;
+ * once they make up more than a quarter of the nodes the live ones are re-inserted into a
+ * fresh graph, so updates do not grow the index without bound. Searches run concurrently
+ * with each other, inserts one at a time.
+ */
+public final class HnswIndex {
+
+    private static final int MIN_CAPACITY = 256;
+    private static final double MAX_RETIRED_FRACTION = 0.25;
+
+    private final int dimensions;
+    private final int m;
+    private final int efConstruction;
+    private final double levelFactor;
+    private final Random random;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadLocal<Visited> visited = ThreadLocal.withInitial(Visited::new);
+
+    private FloatBuffer vectors;
+    private String[] ids = new String[MIN_CAPACITY];
+    private int[][][] links = new int[MIN_CAPACITY][][]; // links[node][layer] = {count, neighbor...}
+    private final Map<String, Integer> nodesById = new HashMap<>();
+    private final BitSet retired = new BitSet();
+    private int nodes;
+    private int entryPoint = -1;
+    private int topLayer = -1;
+
+    public HnswIndex(int dimensions, int m, int efConstruction, long seed) {
+        this.dimensions = dimensions;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.levelFactor = 1 / Math.log(m);
+        this.random = new Random(seed);
+        this.vectors = allocate(MIN_CAPACITY);
+    }
+
+    private FloatBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * dimensions * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Number of live (not retired) vectors.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodesById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return nodesById.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A copy of the stored (normalized) vector, or null for an unknown id.
+     */
+    public float[] vector(String id) {
+        lock.readLock().lock();
+        try {
+            Integer node = nodesById.get(id);
+            if (node == null) {
+                return null;
+            }
+            float[] copy = new float[dimensions];
+            vectors.get(node * dimensions, copy, 0, dimensions);
+            return copy;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(String id, float[] vector) {
+        float[] normalized = normalize(vector);
+        lock.writeLock().lock();
+        try {
+            Integer existing = nodesById.get(id);
+            if (existing != null) {
+                if (sameVector(existing, normalized)) {
+                    return;
+                }
+                retired.set(existing);
+            }
+            insert(id, normalized);
+            compactIfMostlyRetired();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer node = nodesById.remove(id);
+            if (node == null) {
+                return false;
+            }
+            retired.set(node);
+            compactIfMostlyRetired();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Approximate {@code k} most similar ids to the vector, most similar first, leaving out
+     * {@code exclude} (typically the id the vector belongs to).
+     */
+    public List<String> search(float[] query, int k, int ef, String exclude) {
+        float[] q = normalize(query);
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return List.of();
+            }
+            int current = entryPoint;
+            for (int layer = topLayer; layer > 0; layer--) {
+                current = greedy(q, current, layer);
+            }
+            NodeHeap found = searchLayer(q, current, Math.max(ef, k + 1), 0);
+            return best(found, k, exclude);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Exact {@code k} most similar ids by scanning every vector; for verifying {@link #search}.
+     */
+    public List<String> exactSearch(float[] query, int k, String exclude) {
+        float[] q = normalize(query);
+        lock.readLock().lock();
+        try {
+            NodeHeap found = new NodeHeap(false);
+            for (int node = 0; node < nodes; node++) {
+                if (retired.get(node)) {
+                    continue;
+                }
+                found.push(node, similarity(q, node));
+                if (found.size() > k + 1) {
+                    found.pop();
+                }
+            }
+            return best(found, k, exclude);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Mean fraction of the exact top {@code k} that {@link #search} finds with the given
+     * {@code ef}, over up to {@code sample} randomly chosen indexed vectors used as queries.
+     */
+    public double recall(int sample, int k, int ef, long seed) {
+        List<String> live;
+        lock.readLock().lock();
+        try {
+            live = new ArrayList<>(nodesById.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (live.isEmpty()) {
+            return 1.0;
+        }
+        Random pick = new Random(seed);
+        double total = 0;
+        int queries = Math.min(sample, live.size());
+        for (int i = 0; i < queries; i++) {
+            String id = live.get(pick.nextInt(live.size()));
+            float[] vector = vector(id);
+            List<String> exact = exactSearch(vector, k, id);
+            if (exact.isEmpty()) {
+                total += 1;
+                continue;
+            }
+            Set<String> approximate = new HashSet<>(search(vector, k, ef, id));
+            total += exact.stream().filter(approximate::contains).count() / (double) exact.size();
+        }
+        return total / queries;
+    }
+
+    private List<String> best(NodeHeap found, int k, String exclude) {
+        int[] order = new int[found.size()];
+        for (int i = order.length - 1; i >= 0; i--) {
+            order[i] = found.pop(); // Least similar comes off first
+        }
+        List<String> result = new ArrayList<>(k);
+        for (int node : order) {
+            if (result.size() == k) {
+                break;
+            }
+            if (!retired.get(node) && !ids[node].equals(exclude)) {
+                result.add(ids[node]);
+            }
+        }
+        return result;
+    }
+
+    private void insert(String id, float[] vector) {
+        int node = nodes;
+        if (node == ids.length) {
+            int capacity = node * 2;
+            FloatBuffer grown = allocate(capacity);
+            grown.put(0, vectors, 0, node * dimensions);
+            vectors = grown;
+            ids = Arrays.copyOf(ids, capacity);
+            links = Arrays.copyOf(links, capacity);
+        }
+        vectors.put(node * dimensions, vector);
+        ids[node] = id;
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelFactor);
+        links[node] = new int[level + 1][];
+        for (int layer = 0; layer <= level; layer++) {
+            links[node][layer] = new int[maxLinks(layer) + 1];
+        }
+        nodes++;
+        nodesById.put(id, node);
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            topLayer = level;
+            return;
+        }
+        int current = entryPoint;
+        for (int layer = topLayer; layer > level; layer--) {
+            current = greedy(vector, current, layer);
+        }
+        for (int layer = Math.min(level, topLayer); layer >= 0; layer--) {
+            NodeHeap found = searchLayer(vector, current, efConstruction, layer);
+            int[] candidates = new int[found.size()];
+            for (int i = candidates.length - 1; i >= 0; i--) {
+                candidates[i] = found.pop();
+            }
+            current = candidates[0];
+            int[] selected = select(node, candidates, m);
+            int[] own = links[node][layer];
+            own[0] = selected.length;
+            System.arraycopy(selected, 0, own, 1, selected.length);
+            for (int neighbor : selected) {
+                link(neighbor, node, layer);
+            }
+        }
+        if (level > topLayer) {
+            entryPoint = node;
+            topLayer = level;
+        }
+    }
+
+    // Re-inserts the live nodes into a fresh graph once too many retired ones are carried along
+    private void compactIfMostlyRetired() {
+        if (retired.cardinality() <= nodes * MAX_RETIRED_FRACTION) {
+            return;
+        }
+        FloatBuffer oldVectors = vectors;
+        String[] oldIds = ids;
+        int oldNodes = nodes;
+        int capacity = Math.max(MIN_CAPACITY, nodesById.size() + nodesById.size() / 2);
+        BitSet dropped = (BitSet) retired.clone();
+        vectors = allocate(capacity);
+        ids = new String[capacity];
+        links = new int[capacity][][];
+        nodesById.clear();
+        retired.clear();
+        nodes = 0;
+        entryPoint = -1;
+        topLayer = -1;
+        for (int node = dropped.nextClearBit(0); node < oldNodes; node = dropped.nextClearBit(node + 1)) {
+            float[] vector = new float[dimensions];
+            oldVectors.get(node * dimensions, vector, 0, dimensions);
+            insert(oldIds[node], vector); // Already normalized
+        }
+    }
+
+    // Nodes held in the graph, retired ones included
+    int storedNodes() {
+        lock.readLock().lock();
+        try {
+            return nodes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int maxLinks(int layer) {
+        return layer == 0 ? 2 * m : m;
+    }
+
+    // Adds a back link, re-selecting the neighbor's links when it already has the maximum
+    private void link(int from, int to, int layer) {
+        int[] list = links[from][layer];
+        int count = list[0];
+        if (count < list.length - 1) {
+            list[count + 1] = to;
+            list[0] = count + 1;
+            return;
+        }
+        int[] candidates = Arrays.copyOfRange(list, 1, count + 2);
+        candidates[count] = to;
+        float[] similarities = new float[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            similarities[i] = similarity(from, candidates[i]);
+        }
+        sortBySimilarity(candidates, similarities);
+        int[] kept = select(from, candidates, count);
+        list[0] = kept.length;
+        System.arraycopy(kept, 0, list, 1, kept.length);
+    }
+
+    private static void sortBySimilarity(int[] nodes, float[] similarities) {
+        long[] packed = new long[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            // Order-preserving int form of the float, negated so the most similar sorts first
+            int bits = Float.floatToIntBits(similarities[i]);
+            bits ^= (bits >> 31) & 0x7fffffff;
+            packed[i] = ((long) -bits << 32) | (nodes[i] & 0xffffffffL);
+        }
+        Arrays.sort(packed);
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = (int) packed[i];
+        }
+    }
+
+    /**
+     * The neighbor selection heuristic: walking candidates from most similar, keep one only if
+     * it is closer to the base node than to any already kept, which spreads links across
+     * directions; top up with the skipped ones if that leaves fewer than {@code max}.
+     */
+    private int[] select(int base, int[] candidatesBestFirst, int max) {
+        int[] kept = new int[Math.min(max, candidatesBestFirst.length)];
+        int count = 0;
+        boolean[] skipped = new boolean[candidatesBestFirst.length];
+        for (int i = 0; i < candidatesBestFirst.length && count < kept.length; i++) {
+            int candidate = candidatesBestFirst[i];
+            if (candidate == base) {
+                continue;
+            }
+            float toBase = similarity(base, candidate);
+            boolean diverse = true;
+            for (int j = 0; j < count; j++) {
+                if (similarity(kept[j], candidate) > toBase) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                kept[count++] = candidate;
+            } else {
+                skipped[i] = true;
+            }
+        }
+        for (int i = 0; i < candidatesBestFirst.length && count < kept.length; i++) {
+            if (skipped[i]) {
+                kept[count++] = candidatesBestFirst[i];
+            }
+        }
+        return count == kept.length ? kept : Arrays.copyOf(kept, count);
+    }
+
+    private int greedy(float[] query, int start, int layer) {
+        int current = start;
+        float best = similarity(query, current);
+        boolean moved = true;
+        while (moved) {
+            moved = false;
+            int[] list = links[current][layer];
+            for (int i = 1; i <= list[0]; i++) {
+                float s = similarity(query, list[i]);
+                if (s > best) {
+                    best = s;
+                    current = list[i];
+                    moved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Best-first search of one layer; returns up to ef results, least similar on top
+    private NodeHeap searchLayer(float[] query, int start, int ef, int layer) {
+        Visited seen = visited.get().reset(nodes);
+        NodeHeap candidates = new NodeHeap(true);
+        NodeHeap results = new NodeHeap(false);
+        float startSimilarity = similarity(query, start);
+        seen.mark(start);
+        candidates.push(start, startSimilarity);
+        results.push(start, startSimilarity);
+        while (!candidates.isEmpty()) {
+            float nearest = candidates.peekSimilarity();
+            if (results.size() >= ef && nearest < results.peekSimilarity()) {
+                break;
+            }
+            int[] list = links[candidates.pop()][layer];
+            for (int i = 1; i <= list[0]; i++) {
+                int neighbor = list[i];
+                if (!seen.mark(neighbor)) {
+                    continue;
+                }
+                float s = similarity(query, neighbor);
+                if (results.size() < ef || s > results.peekSimilarity()) {
+                    candidates.push(neighbor, s);
+                    results.push(neighbor, s);
+                    if (results.size() > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private float similarity(float[] query, int node) {
+        int base = node * dimensions;
+        float sum = 0f;
+        for (int d = 0; d < dimensions; d++) {
+            sum += query[d] * vectors.get(base + d);
+        }
+        return sum;
+    }
+
+    private float similarity(int a, int b) {
+        int baseA = a * dimensions;
+        int baseB = b * dimensions;
+        float sum = 0f;
+        for (int d = 0; d < dimensions; d++) {
+            sum += vectors.get(baseA + d) * vectors.get(baseB + d);
+        }
+        return sum;
+    }
+
+    private boolean sameVector(int node, float[] vector) {
+        int base = node * dimensions;
+        for (int d = 0; d < dimensions; d++) {
+            if (vectors.get(base + d) != vector[d]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private float[] normalize(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + vector.length);
+        }
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float[] normalized = new float[dimensions];
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int d = 0; d < dimensions; d++) {
+                normalized[d] = vector[d] * scale;
+            }
+        }
+        return normalized;
+    }
+
+    // Generation-stamped visited marks, reused across searches on the same thread
+    private static final class Visited {
+        private int[] marks = new int[0];
+        private int stamp;
+
+        Visited reset(int nodes) {
+            if (marks.length < nodes) {
+                marks = new int[Math.max(nodes, marks.length * 2)];
+                stamp = 0;
+            }
+            if (++stamp == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                stamp = 1;
+            }
+            return this;
+        }
+
+        // True if the node was not marked yet
+        boolean mark(int node) {
+            if (marks[node] == stamp) {
+                return false;
+            }
+            marks[node] = stamp;
+            return true;
+        }
+    }
+}
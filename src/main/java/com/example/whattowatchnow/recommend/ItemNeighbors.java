@@ -0,0 +1,235 @@
+package com.example.whattowatchnow.recommend;
+
+import com.example.whattowatchnow.search.MovieDocIds;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Precomputed item-item neighbor table: for each movie, its most similar movies by adjusted
+ * cosine over the users who rated both, shrunk by {@code co / (co + shrinkage)} so a handful
+ * of shared raters cannot produce a perfect score. Only positive similarities are kept.
+ * <p>
+ * The table is built with fork-join over ranges of movies. Each leaf task walks the users of
+ * its movies and their other ratings, accumulating dot products in dense per-task arrays
+ * indexed by movie, so the inner loop touches only primitives. Users with more than
+ * {@code maxUserRatings} ratings are left out of the similarities: their cost grows with the
+ * square of their ratings and they say little about any one pair.
+ */
+public final class ItemNeighbors {
+
+    private final MovieDocIds movieDocIds;
+    private final int movies;
+    private final int width;
+    private final float globalMean;
+    private final int[] neighbors; // movie m's neighbors at [m * width, m * width + counts[m])
+    private final float[] similarities;
+    private final int[] counts;
+
+    private ItemNeighbors(MovieDocIds movieDocIds, int movies, int width, float globalMean,
+                          int[] neighbors, float[] similarities, int[] counts) {
+        this.movieDocIds = movieDocIds;
+        this.movies = movies;
+        this.width = width;
+        this.globalMean = globalMean;
+        this.neighbors = neighbors;
+        this.similarities = similarities;
+        this.counts = counts;
+    }
+
+    public static ItemNeighbors compute(RatingMatrix matrix, MovieDocIds movieDocIds, int width,
+                                        int shrinkage, int maxUserRatings, ForkJoinPool pool) {
+        int movies = matrix.movies;
+        float[] norms = new float[movies];
+        for (int m = 0; m < movies; m++) {
+            double sum = 0;
+            for (int i = matrix.movieStart[m]; i < matrix.movieStart[m + 1]; i++) {
+                if (rowLength(matrix, matrix.movieUsers[i]) <= maxUserRatings) {
+                    sum += (double) matrix.movieValues[i] * matrix.movieValues[i];
+                }
+            }
+            norms[m] = (float) Math.sqrt(sum);
+        }
+        int[] neighbors = new int[movies * width];
+        float[] similarities = new float[movies * width];
+        int[] counts = new int[movies];
+        int leaf = Math.max(32, movies / (pool.getParallelism() * 16));
+        pool.invoke(new Build(matrix, norms, width, shrinkage, maxUserRatings, leaf,
+                neighbors, similarities, counts, 0, movies));
+        return new ItemNeighbors(movieDocIds, movies, width, matrix.globalMean, neighbors, similarities, counts);
+    }
+
+    private static int rowLength(RatingMatrix matrix, int user) {
+        return matrix.userStart[user + 1] - matrix.userStart[user];
+    }
+
+    public int movies() {
+        return movies;
+    }
+
+    public long links() {
+        return Arrays.stream(counts).asLongStream().sum();
+    }
+
+    /**
+     * Most similar movies to the given one, best first; empty if the movie was not in the
+     * ratings the table was built from.
+     */
+    public List<String> neighborsOf(String movieId) {
+        int m = movieDocIds.find(movieId);
+        if (m == MovieDocIds.NO_DOC || m >= movies) {
+            return List.of();
+        }
+        List<String> result = new ArrayList<>(counts[m]);
+        for (int k = 0; k < counts[m]; k++) {
+            result.add(movieDocIds.movieId(neighbors[m * width + k]));
+        }
+        return result;
+    }
+
+    /**
+     * Ranks unrated movies for a user from their own ratings. Each rated movie votes for its
+     * neighbors with similarity × the user's deviation from their baseline; a candidate's score
+     * is the weighted mean deviation, damped toward zero when few of the user's movies vouch
+     * for it. Only candidates predicted above the user's baseline are returned.
+     */
+    public List<String> recommend(List<String> ratedMovieIds, float[] ratings, int limit) {
+        int n = ratedMovieIds.size();
+        int[] rated = new int[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            rated[i] = movieDocIds.find(ratedMovieIds.get(i));
+            sum += ratings[i];
+        }
+        float baseline = RatingMatrix.baseline(sum, n, globalMean);
+
+        float[] votes = new float[movies];
+        float[] weights = new float[movies];
+        int[] touched = new int[Math.min(movies, n * width)];
+        int touchedCount = 0;
+        for (int i = 0; i < n; i++) {
+            int m = rated[i];
+            if (m == MovieDocIds.NO_DOC || m >= movies) {
+                continue;
+            }
+            float deviation = ratings[i] - baseline;
+            for (int k = m * width, end = k + counts[m]; k < end; k++) {
+                int candidate = neighbors[k];
+                if (weights[candidate] == 0f) {
+                    touched[touchedCount++] = candidate;
+                }
+                votes[candidate] += similarities[k] * deviation;
+                weights[candidate] += similarities[k];
+            }
+        }
+        for (int m : rated) {
+            if (m != MovieDocIds.NO_DOC && m < movies) {
+                weights[m] = -1f; // Already rated
+            }
+        }
+
+        TopK best = new TopK(limit);
+        for (int t = 0; t < touchedCount; t++) {
+            int candidate = touched[t];
+            if (weights[candidate] > 0f) {
+                float score = votes[candidate] / (weights[candidate] + 1f);
+                if (score > 0f) {
+                    best.offer(candidate, score);
+                }
+            }
+        }
+        int[] ids = new int[best.size()];
+        int found = best.drainTo(ids, new float[ids.length], 0);
+        List<String> result = new ArrayList<>(found);
+        for (int k = 0; k < found; k++) {
+            result.add(movieDocIds.movieId(ids[k]));
+        }
+        return result;
+    }
+
+    private static final class Build extends RecursiveAction {
+
+        private final RatingMatrix matrix;
+        private final float[] norms;
+        private final int width;
+        private final int shrinkage;
+        private final int maxUserRatings;
+        private final int leaf;
+        private final int[] neighbors;
+        private final float[] similarities;
+        private final int[] counts;
+        private final int from;
+        private final int to;
+
+        Build(RatingMatrix matrix, float[] norms, int width, int shrinkage, int maxUserRatings, int leaf,
+              int[] neighbors, float[] similarities, int[] counts, int from, int to) {
+            this.matrix = matrix;
+            this.norms = norms;
+            this.width = width;
+            this.shrinkage = shrinkage;
+            this.maxUserRatings = maxUserRatings;
+            this.leaf = leaf;
+            this.neighbors = neighbors;
+            this.similarities = similarities;
+            this.counts = counts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > leaf) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Build(matrix, norms, width, shrinkage, maxUserRatings, leaf,
+                                neighbors, similarities, counts, from, mid),
+                        new Build(matrix, norms, width, shrinkage, maxUserRatings, leaf,
+                                neighbors, similarities, counts, mid, to));
+                return;
+            }
+            double[] dot = new double[matrix.movies];
+            int[] together = new int[matrix.movies];
+            int[] touched = new int[matrix.movies];
+            TopK best = new TopK(width);
+            for (int m = from; m < to; m++) {
+                if (norms[m] == 0f) {
+                    continue;
+                }
+                int touchedCount = 0;
+                for (int i = matrix.movieStart[m]; i < matrix.movieStart[m + 1]; i++) {
+                    int user = matrix.movieUsers[i];
+                    int rowStart = matrix.userStart[user];
+                    int rowEnd = matrix.userStart[user + 1];
+                    if (rowEnd - rowStart > maxUserRatings) {
+                        continue;
+                    }
+                    float value = matrix.movieValues[i];
+                    for (int j = rowStart; j < rowEnd; j++) {
+                        int other = matrix.userMovies[j];
+                        if (other == m) {
+                            continue;
+                        }
+                        if (together[other]++ == 0) {
+                            touched[touchedCount++] = other;
+                        }
+                        dot[other] += value * matrix.userValues[j];
+                    }
+                }
+                for (int t = 0; t < touchedCount; t++) {
+                    int other = touched[t];
+                    if (norms[other] > 0f && dot[other] > 0) {
+                        int co = together[other];
+                        float similarity = (float) (dot[other] / ((double) norms[m] * norms[other]))
+                                * co / (co + shrinkage);
+                        best.offer(other, similarity);
+                    }
+                    dot[other] = 0;
+                    together[other] = 0;
+                }
+                counts[m] = best.drainTo(neighbors, similarities, m * width);
+            }
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.example.whattowatchnow.recommend;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Jaccard similarity of feature sets without comparing every pair: each doc gets a MinHash
+ * signature of {@code bands × rows} ints, where the chance two docs agree in a slot equals
+ * the Jaccard similarity of their sets. Signatures are cut into bands and every band is
+ * hashed into a bucket; docs sharing any bucket are the candidates, which are then ranked by
+ * the fraction of agreeing slots. Pairs above roughly {@code (1/bands)^(1/rows)} similarity
+ * are very likely to become candidates, pairs well below it rarely are.
+ * <p>
+ * Docs are the numbers from {@link com.example.whattowatchnow.search.MovieDocIds}. Putting a
+ * doc again moves it to the buckets of its new signature. The exact feature sets are kept
+ * as sorted hashes so {@link #accuracy} can compare against brute-force Jaccard.
+ */
+public final class MinHashLsh {
+
+    private final int bands;
+    private final int rows;
+    private final int slots;
+    private final long[] multipliers;
+    private final long[] increments;
+    private final Map<Long, RoaringBitmap>[] buckets;
+    private final RoaringBitmap present = new RoaringBitmap();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int[] signatures = new int[0];
+    private long[][] features = new long[0][];
+
+    @SuppressWarnings("unchecked")
+    public MinHashLsh(int bands, int rows, long seed) {
+        this.bands = bands;
+        this.rows = rows;
+        this.slots = bands * rows;
+        this.multipliers = new long[slots];
+        this.increments = new long[slots];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < slots; i++) {
+            multipliers[i] = random.nextLong() | 1;
+            increments[i] = random.nextLong();
+        }
+        this.buckets = new Map[bands];
+        for (int band = 0; band < bands; band++) {
+            buckets[band] = new HashMap<>();
+        }
+    }
+
+    /**
+     * Indexes the doc's feature set, replacing what it had before; an empty set removes it.
+     */
+    public void put(int doc, Collection<String> featureSet) {
+        long[] hashes = featureSet.stream().mapToLong(MinHashLsh::hash).sorted().distinct().toArray();
+        int[] signature = new int[slots];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (long feature : hashes) {
+            for (int i = 0; i < slots; i++) {
+                // Multiply-shift: the high bits of a·x + b form a universal hash family
+                int h = (int) ((multipliers[i] * feature + increments[i]) >>> 33);
+                if (h < signature[i]) {
+                    signature[i] = h;
+                }
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            unbucket(doc);
+            if (hashes.length == 0) {
+                return;
+            }
+            if (doc >= features.length) {
+                int capacity = Math.max(doc + 1, features.length * 2);
+                features = Arrays.copyOf(features, capacity);
+                signatures = Arrays.copyOf(signatures, capacity * slots);
+            }
+            features[doc] = hashes;
+            System.arraycopy(signature, 0, signatures, doc * slots, slots);
+            for (int band = 0; band < bands; band++) {
+                buckets[band].computeIfAbsent(bandKey(doc, band), key -> new RoaringBitmap()).add(doc);
+            }
+            present.add(doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int doc) {
+        lock.writeLock().lock();
+        try {
+            unbucket(doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (Map<Long, RoaringBitmap> band : buckets) {
+                band.clear();
+            }
+            present.clear();
+            signatures = new int[0];
+            features = new long[0][];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return present.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void unbucket(int doc) {
+        if (!present.contains(doc)) {
+            return;
+        }
+        for (int band = 0; band < bands; band++) {
+            Long key = bandKey(doc, band);
+            RoaringBitmap bucket = buckets[band].get(key);
+            bucket.remove(doc);
+            if (bucket.isEmpty()) {
+                buckets[band].remove(key);
+            }
+        }
+        present.remove(doc);
+        features[doc] = null;
+    }
+
+    private long bandKey(int doc, int band) {
+        long key = band;
+        int base = doc * slots + band * rows;
+        for (int r = 0; r < rows; r++) {
+            key = key * 0x9E3779B97F4A7C15L + signatures[base + r];
+        }
+        return key;
+    }
+
+    /**
+     * Writes the up to {@code k} docs most similar to {@code doc} among its LSH candidates
+     * into {@code docs} and their estimated Jaccard similarity into {@code similarities},
+     * best first, and returns how many were written.
+     */
+    public int similar(int doc, int k, int[] docs, float[] similarities) {
+        lock.readLock().lock();
+        try {
+            if (!present.contains(doc)) {
+                return 0;
+            }
+            TopK best = new TopK(k);
+            RoaringBitmap candidates = candidates(doc);
+            candidates.forEach((int other) -> best.offer(other, estimate(doc, other)));
+            return best.drainTo(docs, similarities, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap candidates(int doc) {
+        RoaringBitmap[] matching = new RoaringBitmap[bands];
+        for (int band = 0; band < bands; band++) {
+            matching[band] = buckets[band].get(bandKey(doc, band));
+        }
+        RoaringBitmap candidates = RoaringBitmap.or(matching);
+        candidates.remove(doc);
+        return candidates;
+    }
+
+    private float estimate(int a, int b) {
+        int baseA = a * slots;
+        int baseB = b * slots;
+        int agree = 0;
+        for (int i = 0; i < slots; i++) {
+            if (signatures[baseA + i] == signatures[baseB + i]) {
+                agree++;
+            }
+        }
+        return agree / (float) slots;
+    }
+
+    private static double jaccard(long[] a, long[] b) {
+        int common = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return common / (double) (a.length + b.length - common);
+    }
+
+    // 64-bit FNV-1a over the UTF-16 code units, finished with a mixer so nearby strings spread out
+    private static long hash(String feature) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < feature.length(); i++) {
+            h = (h ^ feature.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * Compares {@link #similar} with a brute-force exact Jaccard scan on up to {@code sample}
+     * randomly chosen docs. The feature sets are copied under the read lock and the scans run
+     * outside it, so writers only wait for the copy.
+     */
+    public Accuracy accuracy(int sample, int k, long seed) {
+        int[] docs;
+        long[][] exactFeatures;
+        lock.readLock().lock();
+        try {
+            docs = present.toArray();
+            exactFeatures = features.clone(); // The per-doc arrays are never modified in place
+        } finally {
+            lock.readLock().unlock();
+        }
+        int queries = Math.min(sample, docs.length);
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] found = new int[k];
+        float[] estimated = new float[k];
+        int[] exact = new int[k];
+        float[] exactSimilarities = new float[k];
+        double recall = 0;
+        double error = 0;
+        long errors = 0;
+        long candidates = 0;
+        long nanos = 0;
+        for (int q = 0; q < queries; q++) {
+            int doc = docs[random.nextInt(docs.length)];
+            long start = System.nanoTime();
+            int count = similar(doc, k, found, estimated);
+            nanos += System.nanoTime() - start;
+            candidates += candidateCount(doc);
+
+            TopK best = new TopK(k);
+            for (int other : docs) {
+                if (other != doc) {
+                    double similarity = jaccard(exactFeatures[doc], exactFeatures[other]);
+                    if (similarity > 0) {
+                        best.offer(other, (float) similarity);
+                    }
+                }
+            }
+            int exactCount = best.drainTo(exact, exactSimilarities, 0);
+            if (exactCount == 0) {
+                recall += 1;
+            } else {
+                int hits = 0;
+                for (int i = 0; i < exactCount; i++) {
+                    for (int j = 0; j < count; j++) {
+                        if (found[j] == exact[i]) {
+                            hits++;
+                            break;
+                        }
+                    }
+                }
+                // Ties at the k-th similarity make several answers equally right
+                float cutoff = exactSimilarities[exactCount - 1];
+                for (int j = 0; j < count; j++) {
+                    if (found[j] >= exactFeatures.length || exactFeatures[found[j]] == null) {
+                        continue; // Indexed after the copy was taken
+                    }
+                    double truth = jaccard(exactFeatures[doc], exactFeatures[found[j]]);
+                    if (truth >= cutoff && !contains(exact, exactCount, found[j])) {
+                        hits++;
+                    }
+                    error += Math.abs(truth - estimated[j]);
+                    errors++;
+                }
+                recall += Math.min(1.0, hits / (double) exactCount);
+            }
+        }
+        return new Accuracy(queries, k,
+                queries == 0 ? 1.0 : recall / queries,
+                errors == 0 ? 0.0 : error / errors,
+                queries == 0 ? 0.0 : candidates / (double) queries,
+                queries == 0 ? 0.0 : nanos / 1000.0 / queries);
+    }
+
+    private int candidateCount(int doc) {
+        lock.readLock().lock();
+        try {
+            return present.contains(doc) ? candidates(doc).getCardinality() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean contains(int[] docs, int count, int doc) {
+        for (int i = 0; i < count; i++) {
+            if (docs[i] == doc) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Result of {@link #accuracy}: share of the exact top k found, mean absolute error of the
+     * estimated similarities returned, and mean candidates scored and time per query.
+     */
+    public static final class Accuracy {
+        private final int queries;
+        private final int k;
+        private final double recall;
+        private final double meanAbsoluteError;
+        private final double meanCandidates;
+        private final double meanQueryMicros;
+
+        Accuracy(int queries, int k, double recall, double meanAbsoluteError, double meanCandidates, double meanQueryMicros) {
+            this.queries = queries;
+            this.k = k;
+            this.recall = recall;
+            this.meanAbsoluteError = meanAbsoluteError;
+            this.meanCandidates = meanCandidates;
+            this.meanQueryMicros = meanQueryMicros;
+        }
+
+        public int queries() {
+            return queries;
+        }
+
+        public int k() {
+            return k;
+        }
+
+        public double recall() {
+            return recall;
+        }
+
+        public double meanAbsoluteError() {
+            return meanAbsoluteError;
+        }
+
+        public double meanCandidates() {
+            return meanCandidates;
+        }
+
+        public double meanQueryMicros() {
+            return meanQueryMicros;
+        }
+    }
+}
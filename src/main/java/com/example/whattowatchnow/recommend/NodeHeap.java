@@ -0,0 +1,94 @@
+package com.example.whattowatchnow.recommend;
+
+import java.util.Arrays;
+
+/**
+ * Growable binary heap of (node, similarity) pairs in parallel primitive arrays, ordered
+ * either most similar first or least similar first. Used for the candidate and result
+ * queues of a graph search.
+ */
+final class NodeHeap {
+
+    private final boolean mostSimilarFirst;
+    private int[] nodes = new int[64];
+    private float[] similarities = new float[64];
+    private int size;
+
+    NodeHeap(boolean mostSimilarFirst) {
+        this.mostSimilarFirst = mostSimilarFirst;
+    }
+
+    void push(int node, float similarity) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            similarities = Arrays.copyOf(similarities, size * 2);
+        }
+        nodes[size] = node;
+        similarities[size] = similarity;
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(i, parent)) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int peekNode() {
+        return nodes[0];
+    }
+
+    float peekSimilarity() {
+        return similarities[0];
+    }
+
+    /**
+     * Removes the top entry and returns its node.
+     */
+    int pop() {
+        int top = nodes[0];
+        size--;
+        nodes[0] = nodes[size];
+        similarities[0] = similarities[size];
+        int i = 0;
+        while (true) {
+            int first = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && before(left, first)) {
+                first = left;
+            }
+            if (right < size && before(right, first)) {
+                first = right;
+            }
+            if (first == i) {
+                return top;
+            }
+            swap(i, first);
+            i = first;
+        }
+    }
+
+    private boolean before(int a, int b) {
+        return mostSimilarFirst ? similarities[a] > similarities[b] : similarities[a] < similarities[b];
+    }
+
+    private void swap(int a, int b) {
+        int node = nodes[a];
+        nodes[a] = nodes[b];
+        nodes[b] = node;
+        float similarity = similarities[a];
+        similarities[a] = similarities[b];
+        similarities[b] = similarity;
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.whattowatchnow.recommend;
+
+import com.example.whattowatchnow.search.MovieDocIds;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Users × movies rating matrix in compressed sparse form, stored twice: by user (each user's
+ * movies and ratings) and by movie (each movie's users and ratings). Movies are numbered by
+ * {@link MovieDocIds}, users densely in the order they were first seen. Ratings are stored
+ * as deviations from a damped user baseline, {@code (sum + DAMPING * globalMean) / (n + DAMPING)},
+ * so a user with one review still says something about what they liked.
+ */
+public final class RatingMatrix {
+
+    static final float DAMPING = 5f;
+
+    final int users;
+    final int movies;
+    final String[] userIds;
+    final float globalMean;
+    final float[] userBaseline;
+    final int[] userStart; // row u spans userStart[u] until userStart[u + 1]
+    final int[] userMovies;
+    final float[] userValues;
+    final int[] movieStart;
+    final int[] movieUsers;
+    final float[] movieValues;
+
+    private RatingMatrix(int users, int movies, String[] userIds, float globalMean, float[] userBaseline,
+                         int[] userStart, int[] userMovies, float[] userValues,
+                         int[] movieStart, int[] movieUsers, float[] movieValues) {
+        this.users = users;
+        this.movies = movies;
+        this.userIds = userIds;
+        this.globalMean = globalMean;
+        this.userBaseline = userBaseline;
+        this.userStart = userStart;
+        this.userMovies = userMovies;
+        this.userValues = userValues;
+        this.movieStart = movieStart;
+        this.movieUsers = movieUsers;
+        this.movieValues = movieValues;
+    }
+
+    public int users() {
+        return users;
+    }
+
+    public int movies() {
+        return movies;
+    }
+
+    public String userId(int user) {
+        return userIds[user];
+    }
+
+    public int ratings() {
+        return userMovies.length;
+    }
+
+    public float globalMean() {
+        return globalMean;
+    }
+
+    static float baseline(double sum, int count, float globalMean) {
+        return (float) ((sum + DAMPING * globalMean) / (count + DAMPING));
+    }
+
+    /**
+     * Collects (user, movie, rating) triples in flat primitive arrays, then sorts them into
+     * both layouts with counting sorts. A user who rated the same movie more than once counts
+     * with the mean of those ratings.
+     */
+    public static final class Builder {
+
+        private final MovieDocIds movieDocIds;
+        private final Map<String, Integer> userNumbers = new HashMap<>();
+        private int[] users = new int[1 << 16];
+        private int[] movies = new int[1 << 16];
+        private float[] ratings = new float[1 << 16];
+        private int size;
+
+        public Builder(MovieDocIds movieDocIds) {
+            this.movieDocIds = movieDocIds;
+        }
+
+        public Builder add(String userId, String movieId, float rating) {
+            if (size == users.length) {
+                int grown = size * 2;
+                users = Arrays.copyOf(users, grown);
+                movies = Arrays.copyOf(movies, grown);
+                ratings = Arrays.copyOf(ratings, grown);
+            }
+            users[size] = userNumbers.computeIfAbsent(userId, id -> userNumbers.size());
+            movies[size] = movieDocIds.intern(movieId);
+            ratings[size] = rating;
+            size++;
+            return this;
+        }
+
+        public RatingMatrix build() {
+            int userCount = userNumbers.size();
+            int movieCount = movieDocIds.size();
+
+            // Bucket the triples by user
+            int[] start = new int[userCount + 1];
+            for (int i = 0; i < size; i++) {
+                start[users[i] + 1]++;
+            }
+            for (int u = 0; u < userCount; u++) {
+                start[u + 1] += start[u];
+            }
+            long[] byUser = new long[size];
+            int[] next = Arrays.copyOf(start, userCount);
+            for (int i = 0; i < size; i++) {
+                // Movie in the high half so sorting a row orders it by movie
+                byUser[next[users[i]]++] = ((long) movies[i] << 32) | (Float.floatToIntBits(ratings[i]) & 0xffffffffL);
+            }
+
+            // Sort each row by movie, merge duplicates and compute the baselines
+            int[] userStart = new int[userCount + 1];
+            int[] userMovies = new int[size];
+            float[] userValues = new float[size];
+            double total = 0;
+            for (int i = 0; i < size; i++) {
+                total += ratings[i];
+            }
+            float globalMean = size == 0 ? 0f : (float) (total / size);
+            float[] baseline = new float[userCount];
+            int written = 0;
+            for (int u = 0; u < userCount; u++) {
+                Arrays.sort(byUser, start[u], start[u + 1]);
+                int rowStart = written;
+                double rowSum = 0;
+                for (int i = start[u]; i < start[u + 1]; ) {
+                    int movie = (int) (byUser[i] >>> 32);
+                    double sum = 0;
+                    int n = 0;
+                    for (; i < start[u + 1] && (int) (byUser[i] >>> 32) == movie; i++, n++) {
+                        sum += Float.intBitsToFloat((int) byUser[i]);
+                    }
+                    userMovies[written] = movie;
+                    userValues[written] = (float) (sum / n);
+                    rowSum += userValues[written];
+                    written++;
+                }
+                baseline[u] = baseline(rowSum, written - rowStart, globalMean);
+                for (int i = rowStart; i < written; i++) {
+                    userValues[i] -= baseline[u];
+                }
+                userStart[u + 1] = written;
+            }
+            userMovies = Arrays.copyOf(userMovies, written);
+            userValues = Arrays.copyOf(userValues, written);
+
+            // Transpose into movie rows; users come out in ascending order
+            int[] movieStart = new int[movieCount + 1];
+            for (int i = 0; i < written; i++) {
+                movieStart[userMovies[i] + 1]++;
+            }
+            for (int m = 0; m < movieCount; m++) {
+                movieStart[m + 1] += movieStart[m];
+            }
+            int[] movieUsers = new int[written];
+            float[] movieValues = new float[written];
+            next = Arrays.copyOf(movieStart, movieCount);
+            for (int u = 0; u < userCount; u++) {
+                for (int i = userStart[u]; i < userStart[u + 1]; i++) {
+                    int slot = next[userMovies[i]]++;
+                    movieUsers[slot] = u;
+                    movieValues[slot] = userValues[i];
+                }
+            }
+            String[] userIds = new String[userCount];
+            userNumbers.forEach((id, number) -> userIds[number] = id);
+            return new RatingMatrix(userCount, movieCount, userIds, globalMean, baseline,
+                    userStart, userMovies, userValues, movieStart, movieUsers, movieValues);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.whattowatchnow.recommend;
+
+/**
+ * Keeps the k highest scoring ints seen so far in a primitive min-heap, so collecting the
+ * best neighbors of a movie allocates nothing per candidate.
+ */
+final class TopK {
+
+    private final int[] ids;
+    private final float[] scores;
+    private int size;
+
+    TopK(int k) {
+        this.ids = new int[k];
+        this.scores = new float[k];
+    }
+
+    void offer(int id, float score) {
+        if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (ids.length > 0 && score > scores[0]) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Writes the entries best first into the arrays starting at {@code offset} and returns
+     * how many were written. Empties the heap.
+     */
+    int drainTo(int[] idsOut, float[] scoresOut, int offset) {
+        int n = size;
+        while (size > 0) {
+            int last = --size;
+            idsOut[offset + last] = ids[0];
+            scoresOut[offset + last] = scores[0];
+            ids[0] = ids[last];
+            scores[0] = scores[last];
+            siftDown(0);
+        }
+        return n;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (scores[parent] <= scores[i]) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && scores[left] < scores[smallest]) {
+                smallest = left;
+            }
+            if (right < size && scores[right] < scores[smallest]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.whattowatchnow.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Burkhard-Keller tree over strings with Damerau-Levenshtein distance. Each child hangs off its
+ * parent by their distance, so the triangle inequality lets a lookup for "within k edits
+ * of q" skip every subtree whose edge is outside [d(q, node) - k, d(q, node) + k]. For small
+ * k that touches a small fraction of the vocabulary instead of comparing against all of it.
+ * Values can only be added; not thread-safe, callers synchronize.
+ */
+class BkTree {
+
+    private Node root;
+    private int size;
+
+    /**
+     * Adds {@code value}; returns false if it was already present.
+     */
+    boolean add(String value) {
+        if (root == null) {
+            root = new Node(value);
+            size++;
+            return true;
+        }
+        Distance fromValue = new Distance(value);
+        Node node = root;
+        while (true) {
+            int distance = fromValue.to(node.value);
+            if (distance == 0) {
+                return false;
+            }
+            Node child = node.child(distance);
+            if (child == null) {
+                node.addChild(distance, new Node(value));
+                size++;
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Values within {@code maxDistance} edits of {@code query}, closest first.
+     */
+    List<Match> search(String query, int maxDistance) {
+        List<Match> matches = new ArrayList<>();
+        if (root == null) {
+            return matches;
+        }
+        Distance fromQuery = new Distance(query);
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = fromQuery.to(node.value);
+            if (distance <= maxDistance) {
+                matches.add(new Match(node.value, distance));
+            }
+            for (int i = 0; i < node.childCount; i++) {
+                if (Math.abs(node.edges[i] - distance) <= maxDistance) {
+                    pending.push(node.children[i]);
+                }
+            }
+        }
+        matches.sort((a, b) -> a.distance != b.distance
+                ? Integer.compare(a.distance, b.distance)
+                : a.value.compareTo(b.value));
+        return matches;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Damerau-Levenshtein distance: insertions, deletions, substitutions and transpositions of
+     * adjacent characters ("matirx") each cost one edit. Unlike the restricted variant this is a
+     * true metric, which the tree relies on.
+     */
+    static int distance(String a, String b) {
+        return a.equals(b) ? 0 : new Distance(a).to(b);
+    }
+
+    /**
+     * Distances from one fixed string. The table of last-seen rows is indexed by the string's
+     * distinct characters and, with the matrix, reused across calls, so a tree walk allocates
+     * only when it meets a longer value. Not thread-safe.
+     */
+    static final class Distance {
+        private final String a;
+        private final char[] alphabet; // Distinct characters of a, sorted
+        private final int[] lastRow; // Last row of a in which each alphabet character was seen
+        private int[] slots = new int[0]; // Alphabet index of each character of b, -1 if absent
+        private int[] d = new int[0];
+
+        Distance(String a) {
+            this.a = a;
+            char[] chars = a.toCharArray();
+            Arrays.sort(chars);
+            int distinct = 0;
+            for (int i = 0; i < chars.length; i++) {
+                if (i == 0 || chars[i] != chars[i - 1]) {
+                    chars[distinct++] = chars[i];
+                }
+            }
+            this.alphabet = Arrays.copyOf(chars, distinct);
+            this.lastRow = new int[distinct];
+        }
+
+        int to(String b) {
+            if (a.equals(b)) {
+                return 0;
+            }
+            int width = b.length() + 2; // d is a flattened (a.length() + 2) x width matrix
+            if (d.length < (a.length() + 2) * width) {
+                d = new int[(a.length() + 2) * width];
+            }
+            if (slots.length < b.length()) {
+                slots = new int[b.length()];
+            }
+            for (int j = 0; j < b.length(); j++) {
+                int slot = Arrays.binarySearch(alphabet, b.charAt(j));
+                slots[j] = slot < 0 ? -1 : slot;
+            }
+            Arrays.fill(lastRow, 0);
+
+            int infinity = a.length() + b.length();
+            d[0] = infinity;
+            for (int i = 0; i <= a.length(); i++) {
+                d[(i + 1) * width] = infinity;
+                d[(i + 1) * width + 1] = i;
+            }
+            for (int j = 0; j <= b.length(); j++) {
+                d[j + 1] = infinity;
+                d[width + j + 1] = j;
+            }
+            for (int i = 1; i <= a.length(); i++) {
+                int lastMatchColumn = 0;
+                for (int j = 1; j <= b.length(); j++) {
+                    int k = slots[j - 1] < 0 ? 0 : lastRow[slots[j - 1]];
+                    int l = lastMatchColumn;
+                    int cost = 1;
+                    if (a.charAt(i - 1) == b.charAt(j - 1)) {
+                        cost = 0;
+                        lastMatchColumn = j;
+                    }
+                    d[(i + 1) * width + j + 1] = Math.min(
+                            Math.min(d[i * width + j] + cost, d[(i + 1) * width + j] + 1),
+                            Math.min(d[i * width + j + 1] + 1, d[k * width + l] + (i - k - 1) + 1 + (j - l - 1)));
+                }
+                lastRow[Arrays.binarySearch(alphabet, a.charAt(i - 1))] = i;
+            }
+            return d[(a.length() + 1) * width + b.length() + 1];
+        }
+    }
+
+    static final class Match {
+        final String value;
+        final int distance;
+
+        Match(String value, int distance) {
+            this.value = value;
+            this.distance = distance;
+        }
+    }
+
+    private static final class Node {
+        final String value;
+        int[] edges = new int[0];
+        Node[] children = new Node[0];
+        int childCount;
+
+        Node(String value) {
+            this.value = value;
+        }
+
+        Node child(int distance) {
+            for (int i = 0; i < childCount; i++) {
+                if (edges[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        void addChild(int distance, Node child) {
+            if (childCount == edges.length) {
+                edges = Arrays.copyOf(edges, Math.max(2, childCount * 2));
+                children = Arrays.copyOf(children, edges.length);
+            }
+            edges[childCount] = distance;
+            children[childCount++] = child;
+        }
+    }
+}
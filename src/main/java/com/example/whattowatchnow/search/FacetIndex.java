@@ -0,0 +1,252 @@
+package com.example.whattowatchnow.search;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.dto.FacetCount;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compressed bitmaps (one per genre, release year and actor) over the doc numbers of
+ * {@link MovieDocIds}. Combined filters become bitmap intersections and facet counts are
+ * intersection cardinalities, so a filter change costs microseconds instead of a query.
+ */
+@Component
+public class FacetIndex implements MovieIndex {
+
+    private final MovieDocIds docIds;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final Map<String, RoaringBitmap> genres = new HashMap<>(); // keyed by lowercased genre
+    private final Map<String, String> genreLabels = new HashMap<>(); // lowercased -> first spelling seen
+    private final Map<Integer, RoaringBitmap> years = new HashMap<>();
+    private final Map<String, RoaringBitmap> actors = new HashMap<>(); // keyed by lowercased name
+    private final Map<Integer, DocFacets> facetsByDoc = new HashMap<>(); // to unindex on update
+
+    @Autowired
+    public FacetIndex(MovieDocIds docIds) {
+        this.docIds = docIds;
+    }
+
+    @Override
+    public void index(Movie movie) {
+        if (movie.getId() == null) {
+            return;
+        }
+        int doc = docIds.intern(movie.getId());
+        DocFacets facets = new DocFacets(distinctLowercase(movie.getGenres()), movie.getReleaseYear(),
+                distinctLowercase(movie.getActors()));
+
+        lock.writeLock().lock();
+        try {
+            unindex(doc);
+            all.add(doc);
+            for (String genre : facets.genres) {
+                genres.computeIfAbsent(genre, g -> new RoaringBitmap()).add(doc);
+            }
+            if (movie.getGenres() != null) {
+                for (String label : movie.getGenres()) {
+                    if (label != null && !label.isBlank()) {
+                        genreLabels.putIfAbsent(label.trim().toLowerCase(Locale.ROOT), label.trim());
+                    }
+                }
+            }
+            if (facets.year != null) {
+                years.computeIfAbsent(facets.year, y -> new RoaringBitmap()).add(doc);
+            }
+            for (String actor : facets.actors) {
+                actors.computeIfAbsent(actor, a -> new RoaringBitmap()).add(doc);
+            }
+            facetsByDoc.put(doc, facets);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            all.clear();
+            genres.clear();
+            genreLabels.clear();
+            years.clear();
+            actors.clear();
+            facetsByDoc.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public RoaringBitmap allDocs() {
+        lock.readLock().lock();
+        try {
+            return all.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Docs with a genre containing {@code genre}, ignoring case. Distinct genres are few,
+     * so matching every key and OR-ing their bitmaps is cheap.
+     */
+    public RoaringBitmap genreDocs(String genre) {
+        String needle = genre.trim().toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = new RoaringBitmap();
+            genres.forEach((key, docs) -> {
+                if (key.contains(needle)) {
+                    result.or(docs);
+                }
+            });
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Docs with exactly this genre, ignoring case; for callers holding a genre label rather
+     * than a user's filter text.
+     */
+    public RoaringBitmap genreDocsExact(String genre) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap docs = genres.get(genre.trim().toLowerCase(Locale.ROOT));
+            return docs == null ? new RoaringBitmap() : docs.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public RoaringBitmap yearDocs(int year) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap docs = years.get(year);
+            return docs == null ? new RoaringBitmap() : docs.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Docs featuring exactly this actor (ignoring case), or null if the name is unknown.
+     */
+    public RoaringBitmap actorDocs(String actor) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap docs = actors.get(actor.trim().toLowerCase(Locale.ROOT));
+            return docs == null ? null : docs.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Genre counts within {@code docs}, most frequent first, zero counts omitted.
+     */
+    public List<FacetCount> genreCounts(RoaringBitmap docs) {
+        List<FacetCount> counts = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            genres.forEach((key, bitmap) -> {
+                int count = RoaringBitmap.andCardinality(bitmap, docs);
+                if (count > 0) {
+                    counts.add(new FacetCount(genreLabels.getOrDefault(key, key), count));
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        counts.sort((a, b) -> a.getCount() != b.getCount()
+                ? Integer.compare(b.getCount(), a.getCount())
+                : a.getValue().compareTo(b.getValue()));
+        return counts;
+    }
+
+    /**
+     * Release year counts within {@code docs}, newest year first, zero counts omitted.
+     */
+    public List<FacetCount> yearCounts(RoaringBitmap docs) {
+        List<Integer> sortedYears;
+        List<FacetCount> counts = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            sortedYears = new ArrayList<>(years.keySet());
+            sortedYears.sort((a, b) -> Integer.compare(b, a));
+            for (Integer year : sortedYears) {
+                int count = RoaringBitmap.andCardinality(years.get(year), docs);
+                if (count > 0) {
+                    counts.add(new FacetCount(String.valueOf(year), count));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return counts;
+    }
+
+    private void unindex(int doc) {
+        DocFacets previous = facetsByDoc.remove(doc);
+        if (previous == null) {
+            return;
+        }
+        all.remove(doc);
+        for (String genre : previous.genres) {
+            removeFrom(genres, genre, doc);
+        }
+        if (previous.year != null) {
+            removeFrom(years, previous.year, doc);
+        }
+        for (String actor : previous.actors) {
+            removeFrom(actors, actor, doc);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, RoaringBitmap> bitmaps, K key, int doc) {
+        RoaringBitmap docs = bitmaps.get(key);
+        if (docs != null) {
+            docs.remove(doc);
+            if (docs.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private static String[] distinctLowercase(List<String> values) {
+        if (values == null) {
+            return new String[0];
+        }
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                distinct.add(value.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return distinct.toArray(new String[0]);
+    }
+
+    private static final class DocFacets {
+        final String[] genres;
+        final Integer year;
+        final String[] actors;
+
+        DocFacets(String[] genres, Integer year, String[] actors) {
+            this.genres = genres;
+            this.year = year;
+            this.actors = actors;
+        }
+    }
+}
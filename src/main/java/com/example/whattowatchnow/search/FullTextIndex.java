@@ -0,0 +1,363 @@
+package com.example.whattowatchnow.search;
+
+import com.example.whattowatchnow.domain.Movie;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over movie titles and descriptions, ranked with BM25F.
+ * <p>
+ * Every term keeps a posting list sorted by doc number with the term frequency per
+ * field. Queries are conjunctive (all terms must appear in the title or the description),
+ * so a search walks the shortest posting list and gallops through the others: the cost
+ * depends on how many documents contain the rarest term, not on the catalog size.
+ */
+@Component
+public class FullTextIndex implements MovieIndex {
+
+    static final float TITLE_WEIGHT = 3.0f;
+    static final float DESCRIPTION_WEIGHT = 1.0f;
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private final MovieDocIds docIds;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private String[][] docTerms = new String[0][]; // forward index, used to unindex on update
+    private int[] titleLengths = new int[0];
+    private int[] descriptionLengths = new int[0];
+    private long totalTitleLength;
+    private long totalDescriptionLength;
+    private int docCount;
+
+    @Autowired
+    public FullTextIndex(MovieDocIds docIds) {
+        this.docIds = docIds;
+    }
+
+    @Override
+    public void index(Movie movie) {
+        if (movie.getId() == null) {
+            return;
+        }
+        int doc = docIds.intern(movie.getId());
+        List<String> titleTokens = TextAnalyzer.tokenize(movie.getTitle());
+        List<String> descriptionTokens = TextAnalyzer.tokenize(movie.getDescription());
+
+        Map<String, int[]> frequencies = new HashMap<>(); // term -> {title tf, description tf}
+        for (String token : titleTokens) {
+            frequencies.computeIfAbsent(token, t -> new int[2])[0]++;
+        }
+        for (String token : descriptionTokens) {
+            frequencies.computeIfAbsent(token, t -> new int[2])[1]++;
+        }
+
+        lock.writeLock().lock();
+        try {
+            unindex(doc);
+            ensureCapacity(doc + 1);
+            for (Map.Entry<String, int[]> entry : frequencies.entrySet()) {
+                int[] tf = entry.getValue();
+                postings.computeIfAbsent(entry.getKey(), t -> new PostingList()).add(doc, tf[0], tf[1]);
+            }
+            docTerms[doc] = frequencies.keySet().toArray(new String[0]);
+            titleLengths[doc] = titleTokens.size();
+            descriptionLengths[doc] = descriptionTokens.size();
+            totalTitleLength += titleTokens.size();
+            totalDescriptionLength += descriptionTokens.size();
+            docCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docTerms = new String[0][];
+            titleLengths = new int[0];
+            descriptionLengths = new int[0];
+            totalTitleLength = 0;
+            totalDescriptionLength = 0;
+            docCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns every movie whose title or description contains all terms of the query,
+     * best matches first.
+     */
+    public TextHits search(String text) {
+        Set<String> terms = new LinkedHashSet<>(TextAnalyzer.tokenize(text));
+        if (terms.isEmpty()) {
+            return TextHits.EMPTY;
+        }
+
+        lock.readLock().lock();
+        try {
+            PostingList[] lists = new PostingList[terms.size()];
+            int n = 0;
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list == null) {
+                    return TextHits.EMPTY;
+                }
+                lists[n++] = list;
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+            float[] idf = new float[n];
+            for (int i = 0; i < n; i++) {
+                idf[i] = idf(lists[i].size);
+            }
+            float avgTitleLength = docCount == 0 ? 0 : (float) totalTitleLength / docCount;
+            float avgDescriptionLength = docCount == 0 ? 0 : (float) totalDescriptionLength / docCount;
+
+            PostingList lead = lists[0];
+            int[] cursors = new int[n];
+            long[] ranked = new long[lead.size];
+            int hits = 0;
+            candidates:
+            for (int p = 0; p < lead.size; p++) {
+                int doc = lead.docs[p];
+                float score = idf[0] * termScore(lead, p, doc, avgTitleLength, avgDescriptionLength);
+                for (int i = 1; i < n; i++) {
+                    PostingList list = lists[i];
+                    int pos = list.advance(cursors[i], doc);
+                    cursors[i] = pos;
+                    if (pos == list.size) {
+                        break candidates;
+                    }
+                    if (list.docs[pos] != doc) {
+                        continue candidates;
+                    }
+                    score += idf[i] * termScore(list, pos, doc, avgTitleLength, avgDescriptionLength);
+                }
+                ranked[hits++] = rankKey(score, doc);
+            }
+            return toHits(ranked, hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Like {@link #search(String)}, but each clause matches any of several terms, each with
+     * a boost applied to its score (e.g. lower for misspelling corrections). A document must
+     * match every clause and gets, per clause, the best boosted score among the terms it has.
+     */
+    public TextHits search(List<Map<String, Float>> clauses) {
+        if (clauses.isEmpty()) {
+            return TextHits.EMPTY;
+        }
+        lock.readLock().lock();
+        try {
+            float avgTitleLength = docCount == 0 ? 0 : (float) totalTitleLength / docCount;
+            float avgDescriptionLength = docCount == 0 ? 0 : (float) totalDescriptionLength / docCount;
+            // Scores are positive, so zero marks a doc with no score yet (best) or out of the running (total)
+            float[] total = new float[docTerms.length];
+            float[] best = new float[docTerms.length]; // The current clause's best score per doc
+            int[] candidates = null; // Docs matching every clause so far
+            int count = 0;
+            for (Map<String, Float> clause : clauses) {
+                boolean first = candidates == null;
+                if (first) {
+                    candidates = new int[docTerms.length];
+                }
+                for (Map.Entry<String, Float> term : clause.entrySet()) {
+                    PostingList list = postings.get(term.getKey());
+                    if (list == null) {
+                        continue;
+                    }
+                    float weight = idf(list.size) * term.getValue();
+                    for (int p = 0; p < list.size; p++) {
+                        int doc = list.docs[p];
+                        if (!first && total[doc] == 0f) {
+                            continue;
+                        }
+                        float score = weight * termScore(list, p, doc, avgTitleLength, avgDescriptionLength);
+                        if (first && best[doc] == 0f) {
+                            candidates[count++] = doc;
+                        }
+                        best[doc] = Math.max(best[doc], score);
+                    }
+                }
+                int kept = 0;
+                for (int i = 0; i < count; i++) {
+                    int doc = candidates[i];
+                    if (best[doc] > 0f) {
+                        total[doc] += best[doc];
+                        best[doc] = 0f;
+                        candidates[kept++] = doc;
+                    } else {
+                        total[doc] = 0f;
+                    }
+                }
+                count = kept;
+                if (count == 0) {
+                    return TextHits.EMPTY;
+                }
+            }
+            long[] ranked = new long[count];
+            for (int i = 0; i < count; i++) {
+                ranked[i] = rankKey(total[candidates[i]], candidates[i]);
+            }
+            return toHits(ranked, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of movies containing {@code term} (already normalized) in the title or description.
+     */
+    public int documentFrequency(String term) {
+        lock.readLock().lock();
+        try {
+            PostingList list = postings.get(term);
+            return list == null ? 0 : list.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int documentCount() {
+        lock.readLock().lock();
+        try {
+            return docCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private float idf(int documentFrequency) {
+        return (float) Math.log(1 + (docCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private float termScore(PostingList list, int pos, int doc, float avgTitleLength, float avgDescriptionLength) {
+        float tf = TITLE_WEIGHT * list.titleTf[pos] / lengthNorm(titleLengths[doc], avgTitleLength)
+                + DESCRIPTION_WEIGHT * list.descriptionTf[pos] / lengthNorm(descriptionLengths[doc], avgDescriptionLength);
+        return tf * (K1 + 1) / (K1 + tf);
+    }
+
+    private static float lengthNorm(int length, float avgLength) {
+        return avgLength == 0 ? 1 : 1 - B + B * length / avgLength;
+    }
+
+    // Scores are positive, so their float bits sort like the scores themselves. Packing
+    // (inverted score, doc) into one long lets a primitive sort give score desc, doc asc.
+    private static long rankKey(float score, int doc) {
+        return ((long) (Integer.MAX_VALUE - Float.floatToIntBits(score)) << 32) | doc;
+    }
+
+    private static TextHits toHits(long[] ranked, int hits) {
+        Arrays.sort(ranked, 0, hits);
+        int[] docs = new int[hits];
+        float[] scores = new float[hits];
+        for (int i = 0; i < hits; i++) {
+            docs[i] = (int) ranked[i];
+            scores[i] = Float.intBitsToFloat(Integer.MAX_VALUE - (int) (ranked[i] >>> 32));
+        }
+        return new TextHits(docs, scores);
+    }
+
+    private void unindex(int doc) {
+        if (doc >= docTerms.length || docTerms[doc] == null) {
+            return;
+        }
+        for (String term : docTerms[doc]) {
+            PostingList list = postings.get(term);
+            list.remove(doc);
+            if (list.size == 0) {
+                postings.remove(term);
+            }
+        }
+        totalTitleLength -= titleLengths[doc];
+        totalDescriptionLength -= descriptionLengths[doc];
+        docTerms[doc] = null;
+        docCount--;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= docTerms.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, docTerms.length * 2);
+        docTerms = Arrays.copyOf(docTerms, newCapacity);
+        titleLengths = Arrays.copyOf(titleLengths, newCapacity);
+        descriptionLengths = Arrays.copyOf(descriptionLengths, newCapacity);
+    }
+
+    private static final class PostingList {
+        int[] docs = new int[4];
+        int[] titleTf = new int[4];
+        int[] descriptionTf = new int[4];
+        int size;
+
+        void add(int doc, int tfTitle, int tfDescription) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                titleTf = Arrays.copyOf(titleTf, size * 2);
+                descriptionTf = Arrays.copyOf(descriptionTf, size * 2);
+            }
+            // Doc numbers are handed out in increasing order, so this is almost always an append
+            int pos = size;
+            if (size > 0 && docs[size - 1] > doc) {
+                pos = -Arrays.binarySearch(docs, 0, size, doc) - 1;
+                System.arraycopy(docs, pos, docs, pos + 1, size - pos);
+                System.arraycopy(titleTf, pos, titleTf, pos + 1, size - pos);
+                System.arraycopy(descriptionTf, pos, descriptionTf, pos + 1, size - pos);
+            }
+            docs[pos] = doc;
+            titleTf[pos] = tfTitle;
+            descriptionTf[pos] = tfDescription;
+            size++;
+        }
+
+        void remove(int doc) {
+            int pos = Arrays.binarySearch(docs, 0, size, doc);
+            if (pos < 0) {
+                return;
+            }
+            int tail = size - pos - 1;
+            System.arraycopy(docs, pos + 1, docs, pos, tail);
+            System.arraycopy(titleTf, pos + 1, titleTf, pos, tail);
+            System.arraycopy(descriptionTf, pos + 1, descriptionTf, pos, tail);
+            size--;
+        }
+
+        /**
+         * Returns the first position at or after {@code from} whose doc is >= target,
+         * galloping forward so skipping over long runs stays logarithmic.
+         */
+        int advance(int from, int target) {
+            if (from >= size || docs[from] >= target) {
+                return from;
+            }
+            int step = 1;
+            int low = from;
+            int high = from + 1;
+            while (high < size && docs[high] < target) {
+                low = high;
+                step <<= 1;
+                high = from + step;
+            }
+            high = Math.min(high, size);
+            int pos = Arrays.binarySearch(docs, low + 1, high, target);
+            return pos >= 0 ? pos : -pos - 1;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.whattowatchnow.search;
+
+import com.example.whattowatchnow.domain.Movie;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Typo tolerance: BK-trees over the title/description vocabulary and over actor names,
+ * answering "which known words are within k edits of this one".
+ * <p>
+ * Entries are never removed, so a word may outlive the last movie using it; callers check
+ * the match against the live indexes (e.g. its document frequency) before using it.
+ */
+@Component
+public class FuzzyIndex implements MovieIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private BkTree terms = new BkTree();
+    private BkTree actors = new BkTree(); // normalized names
+    private final Map<String, String> actorNames = new HashMap<>(); // normalized -> display name
+
+    /**
+     * Edits allowed for a word of this length: none up to 3 characters, where a single edit
+     * already turns most words into other real words, one up to 7 and two beyond.
+     */
+    public static int maxDistance(int length) {
+        return length <= 3 ? 0 : length <= 7 ? 1 : 2;
+    }
+
+    /**
+     * True if {@code candidate} is within the typo budget of {@code word} (both normalized).
+     */
+    public static boolean isTypo(String word, String candidate) {
+        int maxDistance = maxDistance(word.length());
+        return maxDistance > 0 && Math.abs(word.length() - candidate.length()) <= maxDistance
+                && BkTree.distance(word, candidate) <= maxDistance;
+    }
+
+    @Override
+    public void index(Movie movie) {
+        List<String> words = new ArrayList<>(TextAnalyzer.tokenize(movie.getTitle()));
+        words.addAll(TextAnalyzer.tokenize(movie.getDescription()));
+
+        lock.writeLock().lock();
+        try {
+            words.forEach(terms::add);
+            if (movie.getActors() != null) {
+                for (String actor : movie.getActors()) {
+                    String normalized = normalizeName(actor);
+                    if (!normalized.isEmpty() && actors.add(normalized)) {
+                        actorNames.put(normalized, actor.trim());
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            terms = new BkTree();
+            actors = new BkTree();
+            actorNames.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vocabulary words within {@link #maxDistance} of {@code term} (itself included if known)
+     * that still occur somewhere according to {@code frequency}: closest first, then most frequent.
+     */
+    public List<String> similarTerms(String term, ToIntFunction<String> frequency) {
+        int maxDistance = maxDistance(term.length());
+        List<BkTree.Match> matches;
+        lock.readLock().lock();
+        try {
+            matches = terms.search(term, maxDistance);
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<String, Integer> frequencies = new HashMap<>();
+        List<BkTree.Match> live = new ArrayList<>();
+        for (BkTree.Match match : matches) {
+            int count = frequency.applyAsInt(match.value);
+            if (count > 0) {
+                frequencies.put(match.value, count);
+                live.add(match);
+            }
+        }
+        live.sort((a, b) -> a.distance != b.distance
+                ? Integer.compare(a.distance, b.distance)
+                : Integer.compare(frequencies.get(b.value), frequencies.get(a.value)));
+        List<String> similar = new ArrayList<>(live.size());
+        live.forEach(match -> similar.add(match.value));
+        return similar;
+    }
+
+    /**
+     * Display names of the actors within {@link #maxDistance} of {@code name}, closest first.
+     */
+    public List<String> similarActors(String name) {
+        String normalized = normalizeName(name);
+        int maxDistance = maxDistance(normalized.length());
+        lock.readLock().lock();
+        try {
+            List<String> similar = new ArrayList<>();
+            for (BkTree.Match match : actors.search(normalized, maxDistance)) {
+                similar.add(actorNames.get(match.value));
+            }
+            return similar;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static String normalizeName(String name) {
+        return name == null ? "" : String.join(" ", TextAnalyzer.tokenize(name));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.whattowatchnow.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns Mongo movie ids into dense ints so the in-memory indexes can use
+ * primitive arrays for their postings. Numbers are never reused, so a doc number
+ * stays valid for the lifetime of the process, across index rebuilds.
+ */
+@Component
+public class MovieDocIds {
+
+    public static final int NO_DOC = -1;
+
+    private final ConcurrentHashMap<String, Integer> docsByMovieId = new ConcurrentHashMap<>();
+    private volatile String[] movieIds = new String[1024];
+    private volatile int size;
+
+    public synchronized int intern(String movieId) {
+        Integer existing = docsByMovieId.get(movieId);
+        if (existing != null) {
+            return existing;
+        }
+        int doc = size;
+        if (doc == movieIds.length) {
+            movieIds = Arrays.copyOf(movieIds, doc * 2);
+        }
+        movieIds[doc] = movieId;
+        size = doc + 1;
+        docsByMovieId.put(movieId, doc);
+        return doc;
+    }
+
+    /**
+     * Returns the doc number for the movie, or {@link #NO_DOC} if it was never interned.
+     */
+    public int find(String movieId) {
+        Integer doc = docsByMovieId.get(movieId);
+        return doc != null ? doc : NO_DOC;
+    }
+
+    public String movieId(int doc) {
+        return movieIds[doc];
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.whattowatchnow.search;
+
+import com.example.whattowatchnow.domain.Movie;
+
+/**
+ * An in-memory structure derived from the movies collection. Implementations are
+ * registered as Spring beans and kept up to date by {@link MovieIndexer}.
+ */
+public interface MovieIndex {
+
+    /**
+     * Adds the movie, or replaces whatever was indexed before for the same id.
+     */
+    void index(Movie movie);
+
+    /**
+     * Drops all indexed data, called before a full rebuild.
+     */
+    void clear();
+}
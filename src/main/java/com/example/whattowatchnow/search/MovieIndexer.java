@@ -0,0 +1,64 @@
+package com.example.whattowatchnow.search;
+
+import com.example.whattowatchnow.domain.Movie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Keeps every {@link MovieIndex} in sync with the movies collection: a full rebuild from
+ * a single cursor pass at startup, then incremental updates as movies are saved.
+ * Until the first rebuild completes, {@link #isReady()} is false and callers are
+ * expected to fall back to querying Mongo directly.
+ */
+@Component
+public class MovieIndexer {
+
+    private static final Logger log = LoggerFactory.getLogger(MovieIndexer.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final List<MovieIndex> indexes;
+    private volatile boolean ready;
+
+    @Autowired
+    public MovieIndexer(MongoTemplate mongoTemplate, List<MovieIndex> indexes) {
+        this.mongoTemplate = mongoTemplate;
+        this.indexes = indexes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        ready = false;
+        long start = System.currentTimeMillis();
+        int count = 0;
+        try {
+            indexes.forEach(MovieIndex::clear);
+            try (Stream<Movie> movies = mongoTemplate.stream(new Query(), Movie.class)) {
+                for (Movie movie : (Iterable<Movie>) movies::iterator) {
+                    indexes.forEach(index -> index.index(movie));
+                    count++;
+                }
+            }
+            ready = true;
+            log.info("Indexed {} movies into {} indexes in {} ms", count, indexes.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.warn("Movie index rebuild failed after {} movies, searches will use Mongo", count, e);
+        }
+    }
+
+    public void movieSaved(Movie movie) {
+        indexes.forEach(index -> index.index(movie));
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+}
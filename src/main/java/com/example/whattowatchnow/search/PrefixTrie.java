@@ -0,0 +1,250 @@
+package com.example.whattowatchnow.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Radix trie mapping string keys to weighted values, answering "best k values under a prefix".
+ * <p>
+ * Edges carry whole label runs (one node per branching point, not per character) and children
+ * are kept in parallel sorted arrays rather than maps. Every node also stores the highest
+ * weight anywhere below it, so a top-k lookup expands the subtree best-first and stops after
+ * k values instead of enumerating every completion of a short prefix.
+ * Not thread-safe; callers synchronize.
+ */
+class PrefixTrie<V> {
+
+    private static final char[] NO_CHARS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node<V> root = new Node<>(NO_CHARS);
+
+    void insert(String key, V value, int weight) {
+        insert(root, key, 0, new Entry<>(value, weight));
+    }
+
+    /**
+     * Removes the values stored under exactly {@code key} that match {@code filter}.
+     */
+    void remove(String key, Predicate<V> filter) {
+        remove(root, key, 0, filter);
+    }
+
+    void clear() {
+        root.children = NO_CHILDREN;
+        root.childChars = NO_CHARS;
+        root.entries = null;
+        root.maxWeight = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Up to {@code k} values whose key starts with {@code prefix}, heaviest first, counting values
+     * with the same {@code identity} once. At most {@code maxVisits} nodes and values are popped,
+     * which bounds the cost of a lookup whatever the shape of the trie.
+     */
+    List<V> top(String prefix, int k, int maxVisits, Function<? super V, ?> identity) {
+        List<V> result = new ArrayList<>(k);
+        Node<V> start = find(prefix);
+        if (start == null || k <= 0) {
+            return result;
+        }
+        // Values and nodes share one queue: a node is only expanded once no value outweighs it
+        PriorityQueue<Object> queue = new PriorityQueue<>(BY_WEIGHT);
+        queue.add(start);
+        Set<Object> seen = new HashSet<>();
+        int visits = 0;
+        while (!queue.isEmpty() && result.size() < k && visits++ < maxVisits) {
+            Object next = queue.poll();
+            if (next instanceof Entry<?> entry) {
+                @SuppressWarnings("unchecked")
+                V value = (V) entry.value;
+                if (seen.add(identity.apply(value))) {
+                    result.add(value);
+                }
+            } else {
+                @SuppressWarnings("unchecked")
+                Node<V> node = (Node<V>) next;
+                if (node.entries != null) {
+                    queue.addAll(node.entries);
+                }
+                queue.addAll(Arrays.asList(node.children));
+            }
+        }
+        return result;
+    }
+
+    private Node<V> find(String prefix) {
+        Node<V> node = root;
+        int pos = 0;
+        while (pos < prefix.length()) {
+            int index = Arrays.binarySearch(node.childChars, prefix.charAt(pos));
+            if (index < 0) {
+                return null;
+            }
+            node = node.child(index);
+            int length = Math.min(node.label.length, prefix.length() - pos);
+            for (int i = 0; i < length; i++) {
+                if (node.label[i] != prefix.charAt(pos + i)) {
+                    return null;
+                }
+            }
+            pos += length; // a prefix ending inside a label still selects the whole subtree
+        }
+        return node;
+    }
+
+    private static <V> void insert(Node<V> node, String key, int pos, Entry<V> entry) {
+        node.maxWeight = Math.max(node.maxWeight, entry.weight);
+        if (pos == key.length()) {
+            node.addEntry(entry);
+            return;
+        }
+        char first = key.charAt(pos);
+        int index = Arrays.binarySearch(node.childChars, first);
+        if (index < 0) {
+            Node<V> leaf = new Node<>(key.substring(pos).toCharArray());
+            leaf.maxWeight = entry.weight;
+            leaf.addEntry(entry);
+            node.addChild(-index - 1, first, leaf);
+            return;
+        }
+        Node<V> child = node.child(index);
+        int common = 0;
+        while (common < child.label.length && pos + common < key.length()
+                && child.label[common] == key.charAt(pos + common)) {
+            common++;
+        }
+        if (common < child.label.length) {
+            // Split the edge at the first mismatch
+            Node<V> split = new Node<>(Arrays.copyOf(child.label, common));
+            child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+            split.childChars = new char[]{child.label[0]};
+            split.children = new Node[]{child};
+            split.maxWeight = child.maxWeight;
+            node.children[index] = split;
+            child = split;
+        }
+        insert(child, key, pos + common, entry);
+    }
+
+    private static <V> void remove(Node<V> node, String key, int pos, Predicate<V> filter) {
+        if (pos == key.length()) {
+            node.removeEntries(filter);
+        } else {
+            int index = Arrays.binarySearch(node.childChars, key.charAt(pos));
+            if (index < 0) {
+                return;
+            }
+            Node<V> child = node.child(index);
+            int length = child.label.length;
+            if (pos + length > key.length() || !key.regionMatches(pos, new String(child.label), 0, length)) {
+                return;
+            }
+            remove(child, key, pos + length, filter);
+            if (child.entries == null && child.children.length == 0) {
+                node.removeChild(index);
+            }
+        }
+        node.recomputeMaxWeight();
+    }
+
+    private static final Comparator<Object> BY_WEIGHT = (a, b) -> {
+        int byWeight = Integer.compare(weightOf(b), weightOf(a));
+        if (byWeight != 0) {
+            return byWeight;
+        }
+        // On ties emit values before expanding more nodes
+        return Boolean.compare(a instanceof Node, b instanceof Node);
+    };
+
+    private static int weightOf(Object item) {
+        return item instanceof Entry<?> entry ? entry.weight : ((Node<?>) item).maxWeight;
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final int weight;
+
+        Entry(V value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Node<V> {
+        char[] label;
+        char[] childChars = NO_CHARS; // first label char of each child, sorted
+        Node[] children = NO_CHILDREN;
+        List<Entry<V>> entries; // null for pure branching nodes, the vast majority
+        int maxWeight = Integer.MIN_VALUE;
+
+        Node(char[] label) {
+            this.label = label;
+        }
+
+        @SuppressWarnings("unchecked")
+        Node<V> child(int index) {
+            return children[index];
+        }
+
+        void addEntry(Entry<V> entry) {
+            if (entries == null) {
+                entries = new ArrayList<>(1);
+            }
+            entries.add(entry);
+        }
+
+        void removeEntries(Predicate<V> filter) {
+            if (entries != null) {
+                entries.removeIf(entry -> filter.test(entry.value));
+                if (entries.isEmpty()) {
+                    entries = null;
+                }
+            }
+        }
+
+        void addChild(int index, char first, Node<V> child) {
+            char[] chars = new char[childChars.length + 1];
+            Node[] nodes = new Node[children.length + 1];
+            System.arraycopy(childChars, 0, chars, 0, index);
+            System.arraycopy(children, 0, nodes, 0, index);
+            chars[index] = first;
+            nodes[index] = child;
+            System.arraycopy(childChars, index, chars, index + 1, childChars.length - index);
+            System.arraycopy(children, index, nodes, index + 1, children.length - index);
+            childChars = chars;
+            children = nodes;
+        }
+
+        void removeChild(int index) {
+            char[] chars = new char[childChars.length - 1];
+            Node[] nodes = new Node[children.length - 1];
+            System.arraycopy(childChars, 0, chars, 0, index);
+            System.arraycopy(children, 0, nodes, 0, index);
+            System.arraycopy(childChars, index + 1, chars, index, chars.length - index);
+            System.arraycopy(children, index + 1, nodes, index, nodes.length - index);
+            childChars = chars;
+            children = nodes;
+        }
+
+        void recomputeMaxWeight() {
+            int max = Integer.MIN_VALUE;
+            if (entries != null) {
+                for (Entry<V> entry : entries) {
+                    max = Math.max(max, entry.weight);
+                }
+            }
+            for (Node child : children) {
+                max = Math.max(max, child.maxWeight);
+            }
+            maxWeight = max;
+        }
+    }
+}
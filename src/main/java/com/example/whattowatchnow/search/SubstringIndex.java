@@ -0,0 +1,77 @@
+package com.example.whattowatchnow.search;
+
+import com.example.whattowatchnow.domain.Movie;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+
+/**
+ * Trigram-backed "contains, ignore case" matching for titles, genres and actors,
+ * replacing the unanchored regexes of the *ContainingIgnoreCase finders.
+ * <p>
+ * Candidates verified and matches found are recorded per query in the
+ * {@code movies.substring.candidates} / {@code movies.substring.matches} summaries,
+ * tagged by field.
+ */
+@Component
+public class SubstringIndex implements MovieIndex {
+
+    private final MovieDocIds docIds;
+    private final TrigramIndex titles = new TrigramIndex();
+    private final TrigramIndex genres = new TrigramIndex();
+    private final TrigramIndex actors = new TrigramIndex();
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public SubstringIndex(MovieDocIds docIds, MeterRegistry meterRegistry) {
+        this.docIds = docIds;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void index(Movie movie) {
+        if (movie.getId() == null) {
+            return;
+        }
+        int doc = docIds.intern(movie.getId());
+        titles.index(doc, movie.getTitle() == null ? null : Collections.singletonList(movie.getTitle()));
+        genres.index(doc, movie.getGenres());
+        actors.index(doc, movie.getActors());
+    }
+
+    @Override
+    public void clear() {
+        titles.clear();
+        genres.clear();
+        actors.clear();
+    }
+
+    public SubstringMatch titleContaining(String needle) {
+        return record("title", titles.containing(needle));
+    }
+
+    public SubstringMatch genresContaining(String needle) {
+        return record("genres", genres.containing(needle));
+    }
+
+    public SubstringMatch actorsContaining(String needle) {
+        return record("actors", actors.containing(needle));
+    }
+
+    private SubstringMatch record(String field, SubstringMatch match) {
+        DistributionSummary.builder("movies.substring.candidates")
+                .description("Candidates verified per trigram query")
+                .tag("field", field)
+                .register(meterRegistry)
+                .record(match.getCandidatesVerified());
+        DistributionSummary.builder("movies.substring.matches")
+                .description("Verified matches per trigram query")
+                .tag("field", field)
+                .register(meterRegistry)
+                .record(match.getDocs().length);
+        return match;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.whattowatchnow.search;
+
+/**
+ * Docs matched by a {@link TrigramIndex} query, plus how many candidates had to be
+ * verified to find them. The ratio tells how selective the grams are on real data.
+ */
+public final class SubstringMatch {
+
+    private final int[] docs;
+    private final int candidatesVerified;
+
+    SubstringMatch(int[] docs, int candidatesVerified) {
+        this.docs = docs;
+        this.candidatesVerified = candidatesVerified;
+    }
+
+    /**
+     * Matching doc numbers, sorted ascending.
+     */
+    public int[] getDocs() {
+        return docs;
+    }
+
+    public int getCandidatesVerified() {
+        return candidatesVerified;
+    }
+}
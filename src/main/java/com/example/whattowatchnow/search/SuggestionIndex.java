@@ -0,0 +1,189 @@
+package com.example.whattowatchnow.search;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.dto.MovieSuggestion;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typeahead over movie titles and actor names. Keys are normalized and every word of a
+ * name starts a key of its own, so "matr" finds "The Matrix" and "reev" finds "Keanu Reeves".
+ * Suggestions are ranked by popularity, the movie's review count: loaded with every rebuild
+ * and kept current as reviews are added and deleted, which re-weights the movie's entries.
+ */
+@Component
+public class SuggestionIndex implements MovieIndex {
+
+    static final int MAX_VISITS = 512; // Bounds a lookup even for one-letter prefixes
+    private static final int MAX_KEY_WORDS = 8; // Very long titles only get their first words as keys
+
+    private final MongoTemplate mongoTemplate;
+    private final PrefixTrie<MovieSuggestion> trie = new PrefixTrie<>();
+    private final Map<String, List<Keyed>> keysByMovie = new HashMap<>(); // to unindex or re-weight
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<String, Integer> reviewCounts = new HashMap<>(); // Guarded by lock
+
+    @Autowired
+    public SuggestionIndex(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void index(Movie movie) {
+        if (movie.getId() == null) {
+            return;
+        }
+        String movieId = movie.getId();
+        List<Keyed> keys = new ArrayList<>();
+
+        lock.writeLock().lock();
+        try {
+            unindex(movieId);
+            int popularity = reviewCounts.getOrDefault(movieId, 0);
+            if (movie.getTitle() != null) {
+                MovieSuggestion title = new MovieSuggestion(movie.getTitle(), MovieSuggestion.TITLE, movieId);
+                for (String key : keys(movie.getTitle())) {
+                    trie.insert(key, title, popularity);
+                    keys.add(new Keyed(key, title));
+                }
+            }
+            if (movie.getActors() != null) {
+                for (String actor : movie.getActors()) {
+                    // One entry per (actor, movie): an actor ranks by their most popular movie
+                    MovieSuggestion suggestion = new MovieSuggestion(actor, MovieSuggestion.ACTOR, movieId);
+                    for (String key : keys(actor)) {
+                        trie.insert(key, suggestion, popularity);
+                        keys.add(new Keyed(key, suggestion));
+                    }
+                }
+            }
+            keysByMovie.put(movieId, keys);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs at the start of every rebuild, so popularity is refreshed along with the keys.
+     */
+    @Override
+    public void clear() {
+        Map<String, Integer> counts = loadReviewCounts();
+        lock.writeLock().lock();
+        try {
+            trie.clear();
+            keysByMovie.clear();
+            reviewCounts = counts;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adjusts the movie's review count by {@code delta} and re-inserts its entries with the
+     * new popularity.
+     */
+    public void reviewCountChanged(String movieId, int delta) {
+        if (movieId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int popularity = Math.max(0, reviewCounts.getOrDefault(movieId, 0) + delta);
+            reviewCounts.put(movieId, popularity);
+            List<Keyed> keys = keysByMovie.get(movieId);
+            if (keys == null) {
+                return; // Not indexed yet; index() picks the count up
+            }
+            for (Keyed keyed : keys) {
+                trie.remove(keyed.key, suggestion -> suggestion.getMovieId().equals(movieId));
+            }
+            for (Keyed keyed : keys) {
+                trie.insert(keyed.key, keyed.suggestion, popularity);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} titles and actor names starting with {@code prefix} (at any word),
+     * most popular first.
+     */
+    public List<MovieSuggestion> suggest(String prefix, int limit) {
+        String key = normalizeKey(prefix);
+        if (key.isEmpty()) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            return trie.top(key, limit, MAX_VISITS, SuggestionIndex::identity);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void unindex(String movieId) {
+        List<Keyed> previous = keysByMovie.remove(movieId);
+        if (previous != null) {
+            for (Keyed keyed : previous) {
+                trie.remove(keyed.key, suggestion -> suggestion.getMovieId().equals(movieId));
+            }
+        }
+    }
+
+    private Map<String, Integer> loadReviewCounts() {
+        Aggregation countByMovie = Aggregation.newAggregation(
+                Aggregation.group("movieId").count().as("count"));
+        Map<String, Integer> counts = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(countByMovie, "reviews", Document.class)) {
+            Object movieId = row.get("_id");
+            if (movieId != null) {
+                counts.put(movieId.toString(), ((Number) row.get("count")).intValue());
+            }
+        }
+        return counts;
+    }
+
+    // Titles collapse per movie, actors per name
+    private static Object identity(MovieSuggestion suggestion) {
+        return MovieSuggestion.TITLE.equals(suggestion.getType())
+                ? suggestion.getMovieId()
+                : suggestion.getText().toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> keys(String text) {
+        List<String> words = TextAnalyzer.tokenize(text);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < Math.min(words.size(), MAX_KEY_WORDS); i++) {
+            keys.add(String.join(" ", words.subList(i, words.size())));
+        }
+        return keys;
+    }
+
+    static String normalizeKey(String prefix) {
+        return String.join(" ", TextAnalyzer.tokenize(prefix));
+    }
+
+    // One trie entry of a movie
+    private static final class Keyed {
+        final String key;
+        final MovieSuggestion suggestion;
+
+        Keyed(String key, MovieSuggestion suggestion) {
+            this.key = key;
+            this.suggestion = suggestion;
+        }
+    }
+}
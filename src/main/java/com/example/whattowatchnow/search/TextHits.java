@@ -0,0 +1,34 @@
+package com.example.whattowatchnow.search;
+
+/**
+ * Ranked result of a {@link FullTextIndex} search: doc numbers ordered by descending
+ * score, ties broken by ascending doc number so the order is stable between calls.
+ */
+public final class TextHits {
+
+    public static final TextHits EMPTY = new TextHits(new int[0], new float[0]);
+
+    private final int[] docs;
+    private final float[] scores;
+
+    TextHits(int[] docs, float[] scores) {
+        this.docs = docs;
+        this.scores = scores;
+    }
+
+    public int size() {
+        return docs.length;
+    }
+
+    public int doc(int rank) {
+        return docs[rank];
+    }
+
+    public float score(int rank) {
+        return scores[rank];
+    }
+
+    public boolean isEmpty() {
+        return docs.length == 0;
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.whattowatchnow.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Substring index over one multi-valued text field. Each lowercased value is split into
+ * overlapping three-character grams; a "contains" query intersects the posting lists of
+ * the needle's grams to get candidates and then verifies them against the stored values,
+ * since sharing all grams does not guarantee the needle appears contiguously.
+ */
+public class TrigramIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private String[][] values = new String[0][];
+    private Postings allDocs = new Postings(); // scanned when the needle is too short for grams
+
+    public void index(int doc, Collection<String> docValues) {
+        String[] lowered = docValues == null ? new String[0] : docValues.stream()
+                .filter(value -> value != null && !value.isEmpty())
+                .map(value -> value.toLowerCase(Locale.ROOT))
+                .toArray(String[]::new);
+
+        lock.writeLock().lock();
+        try {
+            unindex(doc);
+            if (doc >= values.length) {
+                values = Arrays.copyOf(values, Math.max(doc + 1, values.length * 2));
+            }
+            values[doc] = lowered;
+            for (long gram : grams(lowered)) {
+                postings.computeIfAbsent(gram, g -> new Postings()).add(doc);
+            }
+            allDocs.add(doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            values = new String[0][];
+            allDocs = new Postings();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the docs with at least one value containing {@code needle}, ignoring case.
+     */
+    public SubstringMatch containing(String needle) {
+        String lowered = needle.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            int[] candidates;
+            if (lowered.length() < 3) {
+                candidates = Arrays.copyOf(allDocs.docs, allDocs.size);
+            } else {
+                candidates = candidates(lowered);
+            }
+
+            int[] matches = new int[candidates.length];
+            int n = 0;
+            for (int doc : candidates) {
+                for (String value : values[doc]) {
+                    if (value.contains(lowered)) {
+                        matches[n++] = doc;
+                        break;
+                    }
+                }
+            }
+            return new SubstringMatch(Arrays.copyOf(matches, n), candidates.length);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] candidates(String lowered) {
+        Set<Long> needleGrams = grams(new String[]{lowered});
+        List<Postings> lists = new ArrayList<>(needleGrams.size());
+        for (long gram : needleGrams) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+        int[] result = Arrays.copyOf(lists.get(0).docs, lists.get(0).size);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = lists.get(i).retain(result);
+        }
+        return result;
+    }
+
+    private void unindex(int doc) {
+        if (doc >= values.length || values[doc] == null) {
+            return;
+        }
+        for (long gram : grams(values[doc])) {
+            Postings list = postings.get(gram);
+            list.remove(doc);
+            if (list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+        values[doc] = null;
+        allDocs.remove(doc);
+    }
+
+    private static Set<Long> grams(String[] docValues) {
+        Set<Long> grams = new HashSet<>();
+        for (String value : docValues) {
+            for (int i = 0; i + 3 <= value.length(); i++) {
+                grams.add(((long) value.charAt(i) << 32) | ((long) value.charAt(i + 1) << 16) | value.charAt(i + 2));
+            }
+        }
+        return grams;
+    }
+
+    private static final class Postings {
+        int[] docs = new int[4];
+        int size;
+
+        void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            int pos = size;
+            if (size > 0 && docs[size - 1] > doc) {
+                pos = -Arrays.binarySearch(docs, 0, size, doc) - 1;
+                System.arraycopy(docs, pos, docs, pos + 1, size - pos);
+            }
+            docs[pos] = doc;
+            size++;
+        }
+
+        void remove(int doc) {
+            int pos = Arrays.binarySearch(docs, 0, size, doc);
+            if (pos >= 0) {
+                System.arraycopy(docs, pos + 1, docs, pos, size - pos - 1);
+                size--;
+            }
+        }
+
+        // Cost is driven by the (already small) candidate set rather than this list's size
+        int[] retain(int[] candidates) {
+            int[] kept = new int[candidates.length];
+            int n = 0;
+            int from = 0;
+            for (int doc : candidates) {
+                int pos = Arrays.binarySearch(docs, from, size, doc);
+                if (pos >= 0) {
+                    kept[n++] = doc;
+                    from = pos + 1;
+                } else {
+                    from = -pos - 1;
+                }
+                if (from == size) {
+                    break;
+                }
+            }
+            return Arrays.copyOf(kept, n);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.dto.ActorPath;
+import com.example.whattowatchnow.dto.Collaborator;
+import com.example.whattowatchnow.graph.ActorGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Actor co-appearance queries over an {@link ActorGraph} built from the movies collection in
+ * one streaming pass, at startup and nightly. A build that would exceed the edge budget is
+ * abandoned and the previous graph kept. Until the first build completes every query
+ * answers empty.
+ */
+@Service
+public class ActorGraphService {
+
+    private static final Logger log = LoggerFactory.getLogger(ActorGraphService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MovieCache movieCache;
+    private final long maxEdges;
+    private final int searchers;
+    private final int maxPathMovies;
+    private final AtomicBoolean building = new AtomicBoolean();
+    private volatile ActorGraph graph;
+
+    @Autowired
+    public ActorGraphService(MongoTemplate mongoTemplate,
+                             MovieCache movieCache,
+                             @Value("${whattowatchnow.actors.max-edges:20000000}") long maxEdges,
+                             @Value("${whattowatchnow.actors.path-searchers:4}") int searchers,
+                             @Value("${whattowatchnow.actors.max-path-movies:6}") int maxPathMovies) {
+        this.mongoTemplate = mongoTemplate;
+        this.movieCache = movieCache;
+        this.maxEdges = maxEdges;
+        this.searchers = searchers;
+        this.maxPathMovies = maxPathMovies;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildAtStartup() {
+        rebuild();
+    }
+
+    @Scheduled(cron = "${whattowatchnow.actors.rebuild-cron:0 15 5 * * *}")
+    public void rebuild() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            ActorGraph.Builder builder = new ActorGraph.Builder(maxEdges, searchers);
+            Query query = new Query();
+            query.fields().include("actors");
+            try (Stream<Movie> movies = mongoTemplate.stream(query, Movie.class)) {
+                movies.forEach(movie -> builder.add(movie.getId(), movie.getActors()));
+            }
+            ActorGraph built = builder.build();
+            graph = built;
+            log.info("Built actor graph of {} actors, {} movies and {} appearances ({} bytes of adjacency) in {} ms",
+                    built.actors(), built.movies(), built.edges(),
+                    ActorGraph.adjacencyBytes(built.actors(), built.movies(), built.edges()),
+                    System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.warn("Actor graph build failed, keeping the current graph", e);
+        } finally {
+            building.set(false);
+        }
+    }
+
+    /**
+     * Movies both actors appear in; empty if either is unknown.
+     */
+    public Optional<List<Movie>> sharedMovies(String actorA, String actorB) {
+        ActorGraph current = graph;
+        if (current == null) {
+            return Optional.empty();
+        }
+        int a = current.actor(actorA);
+        int b = current.actor(actorB);
+        if (a < 0 || b < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(current.sharedMovies(a, b).stream().map(movieCache::get).filter(Objects::nonNull).toList());
+    }
+
+    /**
+     * A shortest chain of co-stars linking the two actors; empty if either is unknown, they
+     * are not linked within the configured number of movies, or a movie on the chain has been
+     * deleted since the graph was built.
+     */
+    public Optional<ActorPath> shortestPath(String fromActor, String toActor) {
+        ActorGraph current = graph;
+        if (current == null) {
+            return Optional.empty();
+        }
+        int from = current.actor(fromActor);
+        int to = current.actor(toActor);
+        if (from < 0 || to < 0) {
+            return Optional.empty();
+        }
+        int[] path;
+        try {
+            path = current.shortestPath(from, to, maxPathMovies);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+        if (path.length == 0) {
+            return Optional.empty();
+        }
+        List<String> actors = new ArrayList<>();
+        List<String> movieIds = new ArrayList<>();
+        for (int i = 0; i < path.length; i++) {
+            if (i % 2 == 0) {
+                actors.add(current.actorName(path[i]));
+            } else {
+                movieIds.add(current.movieId(path[i]));
+            }
+        }
+        Map<String, Movie> found = movieCache.getAll(movieIds);
+        List<Movie> movies = new ArrayList<>(movieIds.size());
+        for (String movieId : movieIds) {
+            Movie movie = found.get(movieId);
+            if (movie == null) {
+                return Optional.empty(); // A broken chain links nobody
+            }
+            movies.add(movie);
+        }
+        return Optional.of(new ActorPath(actors, movies));
+    }
+
+    /**
+     * The actors who appeared with the given one in the most movies; empty if it is unknown.
+     */
+    public Optional<List<Collaborator>> topCollaborators(String actor, int limit) {
+        ActorGraph current = graph;
+        int id = current == null ? -1 : current.actor(actor);
+        if (id < 0) {
+            return Optional.empty();
+        }
+        List<int[]> pairs;
+        try {
+            pairs = current.topCollaborators(id, limit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+        return Optional.of(pairs.stream()
+                .map(pair -> new Collaborator(current.actorName(pair[0]), pair[1]))
+                .toList());
+    }
+}
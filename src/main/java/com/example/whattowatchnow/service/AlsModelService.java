@@ -0,0 +1,132 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.recommend.AlsModel;
+import com.example.whattowatchnow.recommend.AlsTrainer;
+import com.example.whattowatchnow.recommend.RatingMatrix;
+import com.example.whattowatchnow.search.MovieDocIds;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Owns the latent-factor model: maps the model file at startup and, when training is
+ * enabled, retrains it nightly from the reviews. An interrupted run leaves a checkpoint
+ * that the next run resumes from. Serving never waits on training; the new model replaces
+ * the old one once its file is complete.
+ */
+@Service
+public class AlsModelService {
+
+    private static final Logger log = LoggerFactory.getLogger(AlsModelService.class);
+
+    private final RatingMatrixLoader ratingMatrixLoader;
+    private final MovieDocIds movieDocIds;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean trainingEnabled;
+    private final int factors;
+    private final float lambda;
+    private final int iterations;
+    private final Path modelFile;
+    private final Path checkpointFile;
+    private final AtomicBoolean training = new AtomicBoolean();
+    private volatile AlsModel model;
+
+    @Autowired
+    public AlsModelService(RatingMatrixLoader ratingMatrixLoader,
+                           MovieDocIds movieDocIds,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${whattowatchnow.als.training-enabled:false}") boolean trainingEnabled,
+                           @Value("${whattowatchnow.als.factors:32}") int factors,
+                           @Value("${whattowatchnow.als.lambda:0.05}") float lambda,
+                           @Value("${whattowatchnow.als.iterations:10}") int iterations,
+                           @Value("${whattowatchnow.als.model-file:data/als-model.bin}") Path modelFile,
+                           @Value("${whattowatchnow.als.checkpoint-file:data/als-checkpoint.bin}") Path checkpointFile) {
+        this.ratingMatrixLoader = ratingMatrixLoader;
+        this.movieDocIds = movieDocIds;
+        this.eventPublisher = eventPublisher;
+        this.trainingEnabled = trainingEnabled;
+        this.factors = factors;
+        this.lambda = lambda;
+        this.iterations = iterations;
+        this.modelFile = modelFile;
+        this.checkpointFile = checkpointFile;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAtStartup() {
+        if (Files.exists(modelFile)) {
+            try {
+                model = AlsModel.open(modelFile);
+                eventPublisher.publishEvent(new FactorModelUpdatedEvent(model.iteration()));
+                log.info("Mapped factor model {} with {} users and {} movies", modelFile, model.users(), model.movies());
+                return;
+            } catch (IOException e) {
+                log.warn("Could not map factor model {}", modelFile, e);
+            }
+        }
+        if (trainingEnabled) {
+            train();
+        }
+    }
+
+    @Scheduled(cron = "${whattowatchnow.als.train-cron:0 30 5 * * *}")
+    public void train() {
+        if (!trainingEnabled || !training.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            AlsModel resume = null;
+            if (Files.exists(checkpointFile)) {
+                resume = AlsModel.open(checkpointFile);
+                log.info("Resuming factor model training after iteration {}", resume.iteration());
+            }
+            RatingMatrix matrix = ratingMatrixLoader.load();
+            AlsModel trained = new AlsTrainer(factors, lambda, iterations, pool).train(matrix, movieDocIds, resume,
+                    checkpointFile, modelFile,
+                    (iteration, rmse) -> log.info("Factor model iteration {}/{}: training RMSE {}", iteration, iterations, rmse));
+            model = trained;
+            eventPublisher.publishEvent(new FactorModelUpdatedEvent(trained.iteration()));
+            Files.deleteIfExists(checkpointFile);
+            log.info("Trained factor model on {} ratings by {} users in {} ms",
+                    matrix.ratings(), matrix.users(), System.currentTimeMillis() - start);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Factor model training failed, keeping the current model", e);
+        } finally {
+            pool.shutdown();
+            training.set(false);
+        }
+    }
+
+    /**
+     * The model currently served, or null before the first one is mapped or trained.
+     */
+    public AlsModel model() {
+        return model;
+    }
+
+    /**
+     * The user's top movies by predicted preference, or empty if there is no model yet or it
+     * was trained before the user's first review.
+     */
+    public List<String> recommend(String userId, int limit) {
+        AlsModel current = model;
+        return current == null ? List.of() : current.recommend(userId, limit);
+    }
+}
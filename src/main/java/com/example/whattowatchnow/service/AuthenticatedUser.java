@@ -0,0 +1,26 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.User;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * The principal {@link UserService#loadUserByUsername} signs users in with. Besides the email
+ * it carries the user's id, so a request knows who is calling without looking the user up.
+ * The profile itself is read from {@link UserCache}.
+ */
+public class AuthenticatedUser extends org.springframework.security.core.userdetails.User {
+
+    private final String userId;
+
+    public AuthenticatedUser(User user, Collection<? extends GrantedAuthority> authorities) {
+        super(user.getEmail(), user.getPassword(), authorities);
+        this.userId = user.getId();
+    }
+
+    // Getters
+    public String getUserId() {
+        return userId;
+    }
+}
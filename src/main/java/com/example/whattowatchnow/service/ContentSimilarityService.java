@@ -0,0 +1,102 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.dto.ContentSimilarityReport;
+import com.example.whattowatchnow.recommend.MinHashLsh;
+import com.example.whattowatchnow.search.MovieDocIds;
+import com.example.whattowatchnow.search.MovieIndex;
+import com.example.whattowatchnow.search.TextAnalyzer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Movies with a similar cast and genres, for titles with too few reviews for the
+ * collaborative recommenders. Backed by a {@link MinHashLsh} over each movie's set of genres
+ * and actors, so a query scores only the movies sharing an LSH bucket and the result
+ * approximates ranking by Jaccard similarity. Kept up to date as a {@link MovieIndex}.
+ */
+@Service
+public class ContentSimilarityService implements MovieIndex {
+
+    private final MovieDocIds movieDocIds;
+    private final MovieCache movieCache;
+    private final MinHashLsh lsh;
+
+    @Autowired
+    public ContentSimilarityService(MovieDocIds movieDocIds,
+                                    MovieCache movieCache,
+                                    @Value("${whattowatchnow.similar.content.bands:16}") int bands,
+                                    @Value("${whattowatchnow.similar.content.rows:4}") int rows) {
+        this.movieDocIds = movieDocIds;
+        this.movieCache = movieCache;
+        this.lsh = new MinHashLsh(bands, rows, 42);
+    }
+
+    @Override
+    public void index(Movie movie) {
+        if (movie.getId() != null) {
+            lsh.put(movieDocIds.intern(movie.getId()), features(movie));
+        }
+    }
+
+    @Override
+    public void clear() {
+        lsh.clear();
+    }
+
+    static Set<String> features(Movie movie) {
+        Set<String> features = new HashSet<>();
+        if (movie.getGenres() != null) {
+            for (String genre : movie.getGenres()) {
+                if (genre != null && !genre.isBlank()) {
+                    features.add("g:" + genre.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        if (movie.getActors() != null) {
+            for (String actor : movie.getActors()) {
+                if (actor != null && !actor.isBlank()) {
+                    features.add("a:" + String.join(" ", TextAnalyzer.tokenize(actor)));
+                }
+            }
+        }
+        return features;
+    }
+
+    /**
+     * Up to {@code limit} movies most similar in genres and cast, most similar first.
+     */
+    public List<Movie> similarTo(String movieId, int limit) {
+        int doc = movieDocIds.find(movieId);
+        if (doc == MovieDocIds.NO_DOC) {
+            return List.of();
+        }
+        int[] docs = new int[limit];
+        int found = lsh.similar(doc, limit, docs, new float[limit]);
+        List<Movie> movies = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            Movie movie = movieCache.get(movieDocIds.movieId(docs[i]));
+            if (movie != null) {
+                movies.add(movie);
+            }
+        }
+        return movies;
+    }
+
+    /**
+     * How well the LSH results match the exact Jaccard top {@code k}, on {@code sample}
+     * random movies. Scans the catalog once per sampled movie.
+     */
+    public ContentSimilarityReport accuracy(int sample, int k) {
+        MinHashLsh.Accuracy accuracy = lsh.accuracy(sample, k, System.nanoTime());
+        return new ContentSimilarityReport(accuracy.queries(), accuracy.k(), accuracy.recall(),
+                accuracy.meanAbsoluteError(), accuracy.meanCandidates(), accuracy.meanQueryMicros());
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.whattowatchnow.service;
+
+/**
+ * Published by {@link AlsModelService} when it starts serving a different factor model.
+ */
+public class FactorModelUpdatedEvent {
+
+    private final int iteration;
+
+    public FactorModelUpdatedEvent(int iteration) {
+        this.iteration = iteration;
+    }
+
+    public int getIteration() {
+        return iteration;
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.domain.Review;
+import com.example.whattowatchnow.dto.FeedPage;
+import com.example.whattowatchnow.dto.LeaderboardEntry;
+import com.example.whattowatchnow.repository.ReviewRepository;
+import com.example.whattowatchnow.search.FacetIndex;
+import com.example.whattowatchnow.search.MovieDocIds;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The "what to watch now" feed: popular movies re-ranked by how much the user likes their
+ * genres, minus everything the user has reviewed.
+ * <p>
+ * The first page reads the user's reviews once, derives genre affinities from them against
+ * the {@link FacetIndex}, pools trending and top-rated movies overall and in the favourite
+ * genres, and caches the ranked candidates together with a bitmap of the reviewed doc
+ * numbers. Later pages are slices of that list with movies batch-loaded from
+ * {@link MovieCache}, so scrolling costs at most one query per page. Cursors carry the
+ * generation of the list they slice and are rejected once it has expired or been rebuilt.
+ * When the user reviews a movie it is added to the bitmap, so it disappears from the pages
+ * still to come without shifting them, and the entry is marked stale; the next first page
+ * rebuilds it. Cached users are bounded in number and expire when idle.
+ */
+@Service
+public class FeedService {
+
+    private static final int FAVOURITE_GENRES = 3;
+    private static final float AFFINITY_WEIGHT = 0.6f;
+
+    private final ReviewRepository reviewRepository;
+    private final LeaderboardService leaderboardService;
+    private final FacetIndex facetIndex;
+    private final MovieDocIds movieDocIds;
+    private final MovieCache movieCache;
+    private final int maxCandidates;
+    private final Cache<String, Candidates> candidates;
+
+    @Autowired
+    public FeedService(ReviewRepository reviewRepository,
+                       LeaderboardService leaderboardService,
+                       FacetIndex facetIndex,
+                       MovieDocIds movieDocIds,
+                       MovieCache movieCache,
+                       @Value("${whattowatchnow.feed.candidates:300}") int maxCandidates,
+                       @Value("${whattowatchnow.feed.cache.max-users:10000}") long maxUsers,
+                       @Value("${whattowatchnow.feed.cache.expire-after:30m}") Duration expireAfter,
+                       MeterRegistry meterRegistry) {
+        this.reviewRepository = reviewRepository;
+        this.leaderboardService = leaderboardService;
+        this.facetIndex = facetIndex;
+        this.movieDocIds = movieDocIds;
+        this.movieCache = movieCache;
+        this.maxCandidates = maxCandidates;
+        this.candidates = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(expireAfter)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, candidates, "feed.candidates");
+    }
+
+    /**
+     * A page of the user's feed.
+     *
+     * @param cursor token from the previous page, null for the first page
+     * @throws IllegalArgumentException if the cursor is malformed or its candidate list has
+     *                                  expired or been rebuilt; the client starts over
+     */
+    public FeedPage getFeed(String userId, String cursor, int limit) {
+        FeedCursor position = decodeCursor(cursor);
+        Candidates feed;
+        if (position == null) {
+            feed = candidates.get(userId, this::build);
+            if (feed.stale) {
+                feed = build(userId);
+                candidates.put(userId, feed);
+            }
+        } else {
+            // A later page only reads the list the cursor points into; rebuilding it would not help
+            feed = candidates.getIfPresent(userId);
+            if (feed == null || position.generation != feed.generation) {
+                throw new IllegalArgumentException("Stale cursor"); // Expired or rebuilt
+            }
+        }
+        int next = position == null ? 0 : position.offset;
+        List<String> pageIds = new ArrayList<>(limit);
+        while (next < feed.movieIds.length && pageIds.size() < limit) {
+            String movieId = feed.movieIds[next++];
+            if (!feed.isReviewed(movieDocIds.find(movieId))) {
+                pageIds.add(movieId);
+            }
+        }
+        Map<String, Movie> movies = movieCache.getAll(pageIds);
+        List<Movie> items = new ArrayList<>(pageIds.size());
+        for (String movieId : pageIds) {
+            Movie movie = movies.get(movieId);
+            if (movie != null) { // Deleted since the list was built
+                items.add(movie);
+            }
+        }
+        String nextCursor = next < feed.movieIds.length ? encodeCursor(new FeedCursor(feed.generation, next)) : null;
+        return new FeedPage(items, nextCursor);
+    }
+
+    @EventListener
+    public void reviewAdded(ReviewAddedEvent event) {
+        Review review = event.getReview();
+        Candidates feed = candidates.getIfPresent(review.getUserId());
+        if (feed != null && review.getMovieId() != null) {
+            feed.reviewed(movieDocIds.intern(review.getMovieId()));
+        }
+    }
+
+    @EventListener
+    public void reviewDeleted(ReviewDeletedEvent event) {
+        Candidates feed = candidates.getIfPresent(event.getReview().getUserId());
+        if (feed != null) {
+            feed.stale = true; // The movie may belong in the feed again
+        }
+    }
+
+    private Candidates build(String userId) {
+        RoaringBitmap reviewed = new RoaringBitmap();
+        RoaringBitmap liked = new RoaringBitmap();
+        RoaringBitmap disliked = new RoaringBitmap();
+        int rated = 0;
+        for (Review review : reviewRepository.findByUserId(userId)) {
+            if (review.getMovieId() == null) {
+                continue;
+            }
+            int doc = movieDocIds.intern(review.getMovieId());
+            reviewed.add(doc);
+            if (!MovieRatingService.isValidRating(review.getRating())) {
+                continue; // Legacy reviews may lack a rating; they say nothing about taste
+            }
+            rated++;
+            if (review.getRating() >= 4) {
+                liked.add(doc);
+            } else if (review.getRating() <= 2) {
+                disliked.add(doc);
+            }
+        }
+
+        // Affinity: share of the user's reviews liking the genre minus the share disliking it
+        Map<String, Float> affinity = new HashMap<>();
+        if (rated > 0) {
+            float total = rated;
+            facetIndex.genreCounts(liked).forEach(count -> affinity.merge(count.getValue(), count.getCount() / total, Float::sum));
+            facetIndex.genreCounts(disliked).forEach(count -> affinity.merge(count.getValue(), -count.getCount() / total, Float::sum));
+        }
+        List<String> favourites = affinity.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .sorted((a, b) -> Float.compare(b.getValue(), a.getValue()))
+                .limit(FAVOURITE_GENRES)
+                .map(Map.Entry::getKey)
+                .toList();
+        Map<String, RoaringBitmap> genreDocs = new HashMap<>();
+        affinity.keySet().forEach(genre -> genreDocs.put(genre, facetIndex.genreDocsExact(genre)));
+
+        Map<String, float[]> popularity = new LinkedHashMap<>(); // movieId -> {trending, rating}
+        pool(leaderboardService.trending(null, maxCandidates), 0, popularity);
+        pool(leaderboardService.topRated(null, maxCandidates), 1, popularity);
+        for (String genre : favourites) {
+            pool(leaderboardService.trending(genre, maxCandidates / 2), 0, popularity);
+            pool(leaderboardService.topRated(genre, maxCandidates / 2), 1, popularity);
+        }
+
+        List<String> movieIds = new ArrayList<>();
+        List<Float> scores = new ArrayList<>();
+        popularity.forEach((movieId, components) -> {
+            int doc = movieDocIds.find(movieId);
+            if (doc == MovieDocIds.NO_DOC || reviewed.contains(doc)) {
+                return;
+            }
+            float genreScore = 0f;
+            for (Map.Entry<String, Float> entry : affinity.entrySet()) {
+                if (genreDocs.get(entry.getKey()).contains(doc)) {
+                    genreScore += entry.getValue();
+                }
+            }
+            float popular = (components[0] + components[1]) / 2;
+            movieIds.add(movieId);
+            scores.add(AFFINITY_WEIGHT * genreScore + (1 - AFFINITY_WEIGHT) * popular);
+        });
+        Integer[] order = new Integer[movieIds.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(scores.get(b), scores.get(a)));
+        String[] ranked = new String[Math.min(order.length, maxCandidates)];
+        for (int i = 0; i < ranked.length; i++) {
+            ranked[i] = movieIds.get(order[i]);
+        }
+        return new Candidates(ranked, reviewed);
+    }
+
+    // Adds a leaderboard to the pool; component 0 is the trending rank, 1 the rating, both scaled to [0, 1]
+    private static void pool(List<LeaderboardEntry> entries, int component, Map<String, float[]> popularity) {
+        for (int rank = 0; rank < entries.size(); rank++) {
+            LeaderboardEntry entry = entries.get(rank);
+            float value = component == 0
+                    ? 1f - rank / (float) entries.size()
+                    : (float) Math.max(0, Math.min(1, (entry.getScore() - 1) / 4));
+            float[] components = popularity.computeIfAbsent(entry.getMovieId(), id -> new float[2]);
+            components[component] = Math.max(components[component], value);
+        }
+    }
+
+    private static String encodeCursor(FeedCursor cursor) {
+        String raw = "feed|" + cursor.generation + "|" + cursor.offset;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static FeedCursor decodeCursor(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length == 3 && parts[0].equals("feed")) {
+                int offset = Integer.parseInt(parts[2]);
+                if (offset >= 0) {
+                    return new FeedCursor(Long.parseLong(parts[1]), offset);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // fall through, NumberFormatException included
+        }
+        throw new IllegalArgumentException("Invalid cursor");
+    }
+
+    // An offset into one particular build of a user's candidate list
+    private static final class FeedCursor {
+        private final long generation;
+        private final int offset;
+
+        FeedCursor(long generation, int offset) {
+            this.generation = generation;
+            this.offset = offset;
+        }
+    }
+
+    // Ranked movie ids not reviewed when built, and the doc numbers the user has reviewed since
+    private static final class Candidates {
+        private final long generation = ThreadLocalRandom.current().nextLong(); // Ties cursors to this build
+        private final String[] movieIds;
+        private final RoaringBitmap reviewed; // Guarded by itself
+        private volatile boolean stale;
+
+        Candidates(String[] movieIds, RoaringBitmap reviewed) {
+            this.movieIds = movieIds;
+            this.reviewed = reviewed;
+        }
+
+        boolean isReviewed(int doc) {
+            synchronized (reviewed) {
+                return doc != MovieDocIds.NO_DOC && reviewed.contains(doc);
+            }
+        }
+
+        void reviewed(int doc) {
+            synchronized (reviewed) {
+                reviewed.add(doc);
+            }
+            stale = true;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.MovieRating;
+import com.example.whattowatchnow.domain.Review;
+import com.example.whattowatchnow.domain.TrendingScore;
+import com.example.whattowatchnow.dto.LeaderboardEntry;
+import com.example.whattowatchnow.ranking.Leaderboards;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Trending and top-rated leaderboards, served from {@link Leaderboards} without touching Mongo.
+ * <p>
+ * Review events keep the boards current. Trending scores are snapshotted to
+ * {@code trending_scores} every few minutes, only for movies whose score changed, and rating
+ * totals already live in {@code movie_ratings}. A restart loads both and replays just the
+ * reviews created since the last snapshot, found through the creation time embedded in their
+ * ObjectId. Only when there is no snapshot at all are the reviews rescanned in full. Reviews
+ * deleted while the app was down stay in the trending score until it decays away.
+ */
+@Service
+public class LeaderboardService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardService.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final Leaderboards leaderboards;
+    private final MongoTemplate mongoTemplate;
+    private volatile boolean ready;
+
+    @Autowired
+    public LeaderboardService(Leaderboards leaderboards, MongoTemplate mongoTemplate) {
+        this.leaderboards = leaderboards;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public List<LeaderboardEntry> trending(String genre, int limit) {
+        return ready ? leaderboards.trending(genre, limit) : Collections.emptyList();
+    }
+
+    public List<LeaderboardEntry> topRated(String genre, int limit) {
+        return ready ? leaderboards.topRated(genre, limit) : Collections.emptyList();
+    }
+
+    /**
+     * True once the boards have been restored at startup and reflect the stored reviews.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener
+    public void reviewAdded(ReviewAddedEvent event) {
+        Review review = event.getReview();
+        if (MovieRatingService.isValidRating(review.getRating())) {
+            leaderboards.reviewAdded(review.getMovieId(), review.getRating(), reviewTime(review));
+        }
+    }
+
+    @EventListener
+    public void reviewDeleted(ReviewDeletedEvent event) {
+        Review review = event.getReview();
+        if (MovieRatingService.isValidRating(review.getRating())) {
+            leaderboards.reviewRemoved(review.getMovieId(), review.getRating(), reviewTime(review));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        long start = System.currentTimeMillis();
+        try {
+            Instant watermark = null;
+            try (Stream<TrendingScore> scores = mongoTemplate.stream(new Query().cursorBatchSize(BATCH_SIZE), TrendingScore.class)) {
+                for (TrendingScore score : (Iterable<TrendingScore>) scores::iterator) {
+                    leaderboards.restoreTrend(score.getMovieId(), score.getScore(), score.getTakenAt());
+                    if (watermark == null || score.getTakenAt().isAfter(watermark)) {
+                        watermark = score.getTakenAt();
+                    }
+                }
+            }
+            int replayed;
+            if (watermark == null) {
+                replayed = replay(new Query(), true);
+            } else {
+                try (Stream<MovieRating> ratings = mongoTemplate.stream(new Query().cursorBatchSize(BATCH_SIZE), MovieRating.class)) {
+                    ratings.forEach(rating -> leaderboards.restoreRating(rating.getMovieId(), rating.getCount(), rating.getSum()));
+                }
+                ObjectId since = ObjectId.getSmallestWithDate(Date.from(watermark));
+                replayed = replay(new Query(Criteria.where("id").gte(since)), false);
+            }
+            leaderboards.refresh(System.currentTimeMillis());
+            ready = true;
+            log.info("Restored leaderboards from {}, replayed {} reviews in {} ms",
+                    watermark == null ? "a full review scan" : "the snapshot of " + watermark,
+                    replayed, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.warn("Leaderboard restore failed, leaderboards stay empty until the next restart", e);
+        }
+    }
+
+    /**
+     * Writes the trending scores that changed since the last snapshot and re-ranks top rated
+     * against a fresh catalog mean.
+     */
+    @Scheduled(fixedDelayString = "${whattowatchnow.leaderboards.snapshot-interval:PT5M}",
+            initialDelayString = "${whattowatchnow.leaderboards.snapshot-interval:PT5M}")
+    public void snapshot() {
+        if (!ready) {
+            return;
+        }
+        Instant now = Instant.now();
+        leaderboards.refresh(now.toEpochMilli());
+        List<TrendingScore> changed = leaderboards.changedTrends(now);
+        for (int from = 0; from < changed.size(); from += BATCH_SIZE) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TrendingScore.class);
+            for (TrendingScore score : changed.subList(from, Math.min(from + BATCH_SIZE, changed.size()))) {
+                bulk.upsert(new Query(Criteria.where("id").is(score.getMovieId())), new Update()
+                        .set("score", score.getScore())
+                        .set("takenAt", score.getTakenAt()));
+            }
+            bulk.execute();
+        }
+    }
+
+    private int replay(Query query, boolean withRatings) {
+        query.cursorBatchSize(BATCH_SIZE).fields().include("movieId", "rating", "reviewDate");
+        int replayed = 0;
+        try (Stream<Review> reviews = mongoTemplate.stream(query, Review.class)) {
+            for (Review review : (Iterable<Review>) reviews::iterator) {
+                if (review.getMovieId() == null || !MovieRatingService.isValidRating(review.getRating())) {
+                    continue;
+                }
+                if (withRatings) {
+                    leaderboards.reviewAdded(review.getMovieId(), review.getRating(), reviewTime(review));
+                } else {
+                    leaderboards.activity(review.getMovieId(), reviewTime(review));
+                }
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+
+    private static long reviewTime(Review review) {
+        return review.getReviewDate() == null
+                ? System.currentTimeMillis()
+                : review.getReviewDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.repository.MovieRepository;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-through cache of movies by id in front of {@link MovieRepository#findById}.
+ * <p>
+ * Caffeine's W-TinyLFU policy only admits a new id over the eviction victim if it has been
+ * asked for more often, so a crawler walking the whole catalog once does not push out the
+ * titles everyone is looking at. Entries older than the refresh interval are reloaded in the
+ * background on their next read while the cached copy is still served; entries nobody reads
+ * expire. Unknown ids are not cached, so a movie inserted elsewhere shows up immediately.
+ * {@link #getAll} loads every missing id of a batch with one {@code findAllById}.
+ * Stats, load latency included, are exported as {@code cache.*} tagged {@code cache=movies.byId}.
+ */
+@Component
+public class MovieCache {
+
+    private final LoadingCache<String, Movie> movies;
+
+    @Autowired
+    public MovieCache(MovieRepository movieRepository,
+                      @Value("${whattowatchnow.movies.cache.max-size:10000}") long maxSize,
+                      @Value("${whattowatchnow.movies.cache.refresh-after:5m}") Duration refreshAfter,
+                      @Value("${whattowatchnow.movies.cache.expire-after:30m}") Duration expireAfter,
+                      MeterRegistry meterRegistry) {
+        this.movies = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(expireAfter)
+                .recordStats()
+                .build(new CacheLoader<String, Movie>() {
+                    @Override
+                    public Movie load(String id) {
+                        return movieRepository.findById(id).orElse(null);
+                    }
+
+                    @Override
+                    public Map<String, Movie> loadAll(Set<? extends String> ids) {
+                        Map<String, Movie> found = new HashMap<>();
+                        movieRepository.findAllById(Set.copyOf(ids)).forEach(movie -> found.put(movie.getId(), movie));
+                        return found;
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, movies, "movies.byId");
+    }
+
+    /**
+     * The movie with this id, or null if there is none.
+     */
+    public Movie get(String id) {
+        return movies.get(id);
+    }
+
+    /**
+     * The movies with these ids, keyed by id; ids with no movie are left out. Cached entries
+     * cost nothing and the rest come from a single query.
+     */
+    public Map<String, Movie> getAll(Collection<String> ids) {
+        return movies.getAll(ids);
+    }
+
+    /**
+     * Replaces the cached copy after a write, so the next read needs no round trip.
+     */
+    public void put(Movie movie) {
+        if (movie.getId() != null) {
+            movies.put(movie.getId(), movie);
+        }
+    }
+
+    public void invalidate(String id) {
+        movies.invalidate(id);
+    }
+}
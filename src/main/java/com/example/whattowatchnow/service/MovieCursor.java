@@ -0,0 +1,104 @@
+package com.example.whattowatchnow.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last movie returned by a page of {@link MovieService#findMovies}.
+ * Ranked searches are ordered by (score desc, id asc) and carry the score; title prefix
+ * searches are ordered by (titleKey, id) and carry the titleKey; everything else is ordered
+ * by id alone. Clients only ever see the Base64 token.
+ */
+final class MovieCursor {
+
+    private final Float score; // null for id- and title-ordered pages
+    private final String titleKey; // null unless title-ordered
+    private final String id;
+
+    MovieCursor(Float score, String id) {
+        this(score, null, id);
+    }
+
+    private MovieCursor(Float score, String titleKey, String id) {
+        this.score = score;
+        this.titleKey = titleKey;
+        this.id = id;
+    }
+
+    static MovieCursor byTitle(String titleKey, String id) {
+        return new MovieCursor(null, titleKey == null ? "" : titleKey, id);
+    }
+
+    Float getScore() {
+        return score;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    String getTitleKey() {
+        return titleKey;
+    }
+
+    boolean isRanked() {
+        return score != null;
+    }
+
+    boolean isTitleOrdered() {
+        return titleKey != null;
+    }
+
+    /**
+     * True if a ranked entry sorts strictly after this cursor.
+     */
+    boolean precedes(float entryScore, String entryId) {
+        int byScore = Float.compare(entryScore, score);
+        return byScore < 0 || (byScore == 0 && entryId.compareTo(id) > 0);
+    }
+
+    String encode() {
+        String raw;
+        if (score != null) {
+            raw = "s:" + Integer.toHexString(Float.floatToIntBits(score)) + ":" + id;
+        } else if (titleKey != null) {
+            raw = "t:" + id + ":" + titleKey; // Ids never contain ':', title keys may be empty
+        } else {
+            raw = "i:" + id;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a client supplied token; returns null for a missing token (first page).
+     *
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    static MovieCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (raw.startsWith("i:") && raw.length() > 2) {
+                return new MovieCursor(null, raw.substring(2));
+            }
+            if (raw.startsWith("t:")) {
+                int separator = raw.indexOf(':', 2);
+                if (separator > 2) {
+                    return byTitle(raw.substring(separator + 1), raw.substring(2, separator));
+                }
+            }
+            if (raw.startsWith("s:")) {
+                int separator = raw.indexOf(':', 2);
+                if (separator > 2 && separator < raw.length() - 1) {
+                    float score = Float.intBitsToFloat(Integer.parseUnsignedInt(raw.substring(2, separator), 16));
+                    return new MovieCursor(score, raw.substring(separator + 1));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // fall through, NumberFormatException included
+        }
+        throw new IllegalArgumentException("Invalid cursor");
+    }
+}
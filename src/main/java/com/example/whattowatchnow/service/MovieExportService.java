@@ -0,0 +1,145 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.domain.Review;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Streams the catalog as newline-delimited JSON without ever holding it in memory.
+ * <p>
+ * Movies are read from a Mongo cursor in _id order and written straight to the response.
+ * Writes block while the client is slow, and the cursor only fetches its next batch when
+ * the next movie is requested, so a slow consumer throttles the read instead of piling up
+ * documents on the heap. Reviews come from a second cursor per batch of movies, sorted by
+ * movieId and merged in, so even a movie with thousands of reviews is never buffered.
+ * Since the order is by _id, a client whose connection drops can resume by passing the
+ * id of the last movie it received as {@code afterId}.
+ */
+@Service
+public class MovieExportService {
+
+    static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public MovieExportService(MongoTemplate mongoTemplate, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes one line per movie: {@code {"movie":{...}}}, plus a {@code "reviews"} array
+     * when {@code includeReviews} is set.
+     */
+    public void exportMovies(String afterId, boolean includeReviews, OutputStream out) throws IOException {
+        Query query = new Query();
+        if (StringUtils.hasText(afterId)) {
+            query.addCriteria(Criteria.where("id").gt(afterId));
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "id")).cursorBatchSize(BATCH_SIZE);
+
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null); // lines are terminated explicitly below
+        try (Stream<Movie> movies = mongoTemplate.stream(query, Movie.class)) {
+            Iterator<Movie> cursor = movies.iterator();
+            List<Movie> batch = new ArrayList<>(BATCH_SIZE);
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == BATCH_SIZE) {
+                    writeBatch(batch, includeReviews, generator);
+                    batch.clear();
+                }
+            }
+            writeBatch(batch, includeReviews, generator);
+        } finally {
+            generator.close();
+        }
+    }
+
+    private void writeBatch(List<Movie> batch, boolean includeReviews, JsonGenerator generator) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (!includeReviews) {
+            for (Movie movie : batch) {
+                writeMovie(movie, null, generator);
+            }
+        } else {
+            // Movie ids and review movieIds sort the same way, so both cursors advance together
+            List<String> movieIds = new ArrayList<>(batch.size());
+            batch.forEach(movie -> movieIds.add(movie.getId()));
+            Query reviewQuery = new Query(Criteria.where("movieId").in(movieIds))
+                    .with(Sort.by(Sort.Direction.ASC, "movieId"))
+                    .cursorBatchSize(BATCH_SIZE);
+            try (Stream<Review> reviews = mongoTemplate.stream(reviewQuery, Review.class)) {
+                PeekingIterator<Review> reviewCursor = new PeekingIterator<>(reviews.iterator());
+                for (Movie movie : batch) {
+                    writeMovie(movie, reviewCursor, generator);
+                }
+            }
+        }
+        generator.flush(); // Push each batch to the client so it can checkpoint the last id
+    }
+
+    private void writeMovie(Movie movie, PeekingIterator<Review> reviews, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeObjectField("movie", movie);
+        if (reviews != null) {
+            generator.writeArrayFieldStart("reviews");
+            // Reviews sorting before this movie belong to none in the batch, e.g. it was deleted mid-export
+            while (reviews.hasNext() && reviews.peek().getMovieId().compareTo(movie.getId()) < 0) {
+                reviews.next();
+            }
+            while (reviews.hasNext() && reviews.peek().getMovieId().equals(movie.getId())) {
+                generator.writeObject(reviews.next());
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private static final class PeekingIterator<T> {
+        private final Iterator<T> delegate;
+        private T next;
+
+        PeekingIterator(Iterator<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        boolean hasNext() {
+            return next != null || delegate.hasNext();
+        }
+
+        T peek() {
+            if (next == null) {
+                next = delegate.next();
+            }
+            return next;
+        }
+
+        T next() {
+            T value = peek();
+            next = null;
+            return value;
+        }
+    }
+}
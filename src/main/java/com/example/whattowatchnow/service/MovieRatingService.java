@@ -0,0 +1,204 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.MovieRating;
+import com.example.whattowatchnow.domain.Review;
+import com.example.whattowatchnow.dto.RatingSummary;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Per-movie rating count, sum and 1-5 star histogram in {@code movie_ratings}.
+ * <p>
+ * Every review add or delete applies a single $inc to the movie's aggregate, so reading the
+ * average is one lookup by id however many reviews there are. The review write and the $inc
+ * are two separate operations, and a crash between them leaves the aggregate off by one;
+ * {@link #repair()} recomputes everything from {@code reviews} to correct such drift.
+ */
+@Service
+public class MovieRatingService {
+
+    static final int MIN_RATING = 1;
+    static final int MAX_RATING = 5;
+
+    private static final Logger log = LoggerFactory.getLogger(MovieRatingService.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public MovieRatingService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    static boolean isValidRating(Integer rating) {
+        return rating != null && rating >= MIN_RATING && rating <= MAX_RATING;
+    }
+
+    public void reviewAdded(Review review) {
+        if (!isValidRating(review.getRating())) {
+            return;
+        }
+        mongoTemplate.upsert(byMovie(review.getMovieId()), delta(review.getRating(), 1), MovieRating.class);
+    }
+
+    /**
+     * Same as {@link #reviewAdded} for many reviews, in a single bulk write.
+     */
+    public void reviewsAdded(List<Review> reviews) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MovieRating.class);
+        int pending = 0;
+        for (Review review : reviews) {
+            if (isValidRating(review.getRating())) {
+                bulk.upsert(byMovie(review.getMovieId()), delta(review.getRating(), 1));
+                pending++;
+            }
+        }
+        if (pending > 0) {
+            bulk.execute();
+        }
+    }
+
+    public void reviewDeleted(Review review) {
+        if (!isValidRating(review.getRating())) {
+            return;
+        }
+        // Never drive the totals negative if the aggregate was already missing this review
+        Query query = byMovie(review.getMovieId())
+                .addCriteria(Criteria.where("histogram." + review.getRating()).gt(0));
+        mongoTemplate.updateFirst(query, delta(review.getRating(), -1), MovieRating.class);
+    }
+
+    public RatingSummary getRating(String movieId) {
+        MovieRating rating = mongoTemplate.findById(movieId, MovieRating.class);
+        return rating == null ? new RatingSummary(movieId, 0, 0, new long[MAX_RATING]) : toSummary(rating);
+    }
+
+    /**
+     * Summaries for several movies from a single $in query, keyed by movie id. Movies without
+     * reviews get an empty summary.
+     */
+    public Map<String, RatingSummary> getRatings(Collection<String> movieIds) {
+        Map<String, RatingSummary> summaries = new HashMap<>();
+        for (MovieRating rating : mongoTemplate.find(new Query(Criteria.where("id").in(movieIds)), MovieRating.class)) {
+            summaries.put(rating.getMovieId(), toSummary(rating));
+        }
+        for (String movieId : movieIds) {
+            summaries.computeIfAbsent(movieId, id -> new RatingSummary(id, 0, 0, new long[MAX_RATING]));
+        }
+        return summaries;
+    }
+
+    /**
+     * Rebuilds every aggregate from {@code reviews} and drops aggregates of movies that no
+     * longer have reviews. Reviews written while this runs may be counted twice or not at all;
+     * the next run settles them.
+     */
+    @Scheduled(cron = "${whattowatchnow.ratings.repair-cron:0 30 4 * * *}")
+    public void repair() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("rating").gte(MIN_RATING).lte(MAX_RATING)),
+                Aggregation.group("movieId", "rating").count().as("reviews"),
+                Aggregation.sort(Sort.by("_id.movieId")));
+
+        Set<String> rated = new HashSet<>();
+        int rewritten = 0;
+        try (Stream<Document> groups = mongoTemplate.aggregateStream(aggregation, Review.class, Document.class)) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MovieRating.class);
+            int pending = 0;
+            MovieRating current = null;
+            for (Document group : (Iterable<Document>) groups::iterator) {
+                Document id = group.get("_id", Document.class);
+                String movieId = id.getString("movieId");
+                if (movieId == null) {
+                    continue;
+                }
+                if (current == null || !current.getMovieId().equals(movieId)) {
+                    if (current != null) {
+                        replace(bulk, current);
+                        if (++pending == BATCH_SIZE) {
+                            bulk.execute();
+                            rewritten += pending;
+                            bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MovieRating.class);
+                            pending = 0;
+                        }
+                    }
+                    current = new MovieRating(movieId);
+                    rated.add(movieId);
+                }
+                int stars = ((Number) id.get("rating")).intValue();
+                long reviews = ((Number) group.get("reviews")).longValue();
+                current.setCount(current.getCount() + reviews);
+                current.setSum(current.getSum() + stars * reviews);
+                current.getHistogram().put(String.valueOf(stars), reviews);
+            }
+            if (current != null) {
+                replace(bulk, current);
+                pending++;
+            }
+            if (pending > 0) {
+                bulk.execute();
+                rewritten += pending;
+            }
+        }
+
+        Query all = new Query().cursorBatchSize(BATCH_SIZE);
+        all.fields().include("id");
+        List<String> stale = new ArrayList<>();
+        try (Stream<MovieRating> ratings = mongoTemplate.stream(all, MovieRating.class)) {
+            ratings.map(MovieRating::getMovieId).filter(movieId -> !rated.contains(movieId)).forEach(stale::add);
+        }
+        if (!stale.isEmpty()) {
+            mongoTemplate.remove(new Query(Criteria.where("id").in(stale)), MovieRating.class);
+        }
+        log.info("Recomputed rating aggregates for {} movies, removed {} stale", rewritten, stale.size());
+    }
+
+    private static void replace(BulkOperations bulk, MovieRating rating) {
+        bulk.upsert(byMovie(rating.getMovieId()), new Update()
+                .set("count", rating.getCount())
+                .set("sum", rating.getSum())
+                .set("histogram", rating.getHistogram()));
+    }
+
+    private static Query byMovie(String movieId) {
+        return new Query(Criteria.where("id").is(movieId));
+    }
+
+    private static Update delta(int rating, int sign) {
+        return new Update()
+                .inc("count", sign)
+                .inc("sum", sign * rating)
+                .inc("histogram." + rating, sign);
+    }
+
+    static RatingSummary toSummary(MovieRating rating) {
+        long[] histogram = new long[MAX_RATING];
+        if (rating.getHistogram() != null) {
+            for (int stars = MIN_RATING; stars <= MAX_RATING; stars++) {
+                Long reviews = rating.getHistogram().get(String.valueOf(stars));
+                histogram[stars - 1] = reviews == null ? 0 : Math.max(0, reviews);
+            }
+        }
+        return new RatingSummary(rating.getMovieId(), rating.getCount(), rating.getSum(), histogram);
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.dto.MoviePage;
+import com.example.whattowatchnow.search.FuzzyIndex;
+import com.example.whattowatchnow.search.TextAnalyzer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pages of {@link MovieService#findMovies} results, bounded by total weight (roughly one unit
+ * per movie and facet value held) with Caffeine's frequency-aware eviction.
+ * <p>
+ * Keys carry the normalized (query, genre, year, actor) tuple. When a movie is saved, only the
+ * entries whose filters match the movie, before or after the change, are dropped. For
+ * entries with facets the genre and year filters are relaxed, because their counts span the
+ * other values too. Every change also bumps a generation: a page computed before the change
+ * may reflect the old indexes and is not stored. Hit, miss and eviction counts are exported
+ * as {@code cache.*} metrics tagged {@code cache=movies.search}.
+ */
+@Component
+public class MovieSearchCache {
+
+    private final Cache<Key, MoviePage> pages;
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public MovieSearchCache(@Value("${whattowatchnow.movies.search-cache.max-weight:20000}") long maxWeight,
+                            @Value("${whattowatchnow.movies.search-cache.ttl:10m}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        this.pages = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher(MovieSearchCache::weigh)
+                .expireAfterWrite(ttl) // Upper bound on staleness for writes that bypass the service
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "movies.search");
+    }
+
+    static Key key(String query, String genre, Integer year, String actor, String cursor, int limit,
+                   boolean includeFacets, boolean fuzzy) {
+        return new Key(normalizeQuery(query), normalizeGenre(genre), year, normalizeActor(actor), cursor, limit,
+                includeFacets, fuzzy);
+    }
+
+    /**
+     * Read before computing a page; pass it back to {@link #put}.
+     */
+    long generation() {
+        return generation.get();
+    }
+
+    MoviePage get(Key key) {
+        return pages.getIfPresent(key);
+    }
+
+    void put(Key key, long computedAt, MoviePage page) {
+        if (generation.get() != computedAt) {
+            return;
+        }
+        pages.put(key, page);
+        // A change that bumped the generation before this put may have swept the cache before
+        // the page landed; take it back out. One that bumps it later sweeps the page itself.
+        if (generation.get() != computedAt) {
+            pages.asMap().remove(key, page);
+        }
+    }
+
+    /**
+     * Call after the search indexes reflect the change. {@code previous} is null for new movies.
+     */
+    void movieChanged(Movie previous, Movie saved) {
+        generation.incrementAndGet();
+        List<MovieTerms> versions = new ArrayList<>(2);
+        if (previous != null) {
+            versions.add(new MovieTerms(previous));
+        }
+        versions.add(new MovieTerms(saved));
+        pages.asMap().entrySet().removeIf(entry -> versions.stream().anyMatch(entry.getKey()::affectedBy)
+                || containsMovie(entry.getValue(), saved.getId()));
+    }
+
+    private static boolean containsMovie(MoviePage page, String movieId) {
+        return movieId != null
+                && page.getItems().stream().anyMatch(movie -> movieId.equals(movie.getId()));
+    }
+
+    private static int weigh(Key key, MoviePage page) {
+        int weight = 1 + page.getItems().size();
+        if (page.getFacets() != null) {
+            weight += page.getFacets().getGenres().size() + page.getFacets().getYears().size();
+        }
+        return weight;
+    }
+
+    // The indexes only see the query's words, so "The  Matrix!" and "the matrix" are the same search.
+    // A trailing '*' (prefix search, see SearchQuery) is kept.
+    private static String normalizeQuery(String query) {
+        if (query == null || query.isBlank()) {
+            return null;
+        }
+        String words = String.join(" ", TextAnalyzer.tokenize(query));
+        return query.trim().endsWith("*") ? words + "*" : words;
+    }
+
+    private static String normalizeGenre(String genre) {
+        return genre == null || genre.isBlank() ? null : genre.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizeActor(String actor) {
+        return actor == null || actor.isBlank() ? null : actor.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static final class Key {
+        private final String query;
+        private final String genre;
+        private final Integer year;
+        private final String actor;
+        private final String cursor;
+        private final int limit;
+        private final boolean facets;
+        private final boolean fuzzy;
+
+        Key(String query, String genre, Integer year, String actor, String cursor, int limit,
+            boolean facets, boolean fuzzy) {
+            this.query = query;
+            this.genre = genre;
+            this.year = year;
+            this.actor = actor;
+            this.cursor = cursor;
+            this.limit = limit;
+            this.facets = facets;
+            this.fuzzy = fuzzy;
+        }
+
+        /**
+         * Conservative: true whenever this version of the movie could appear in, or be counted
+         * by, the cached page.
+         */
+        boolean affectedBy(MovieTerms movie) {
+            if (!matchesQuery(movie) || !matchesActor(movie)) {
+                return false;
+            }
+            boolean genreMatches = genre == null || movie.genres.stream().anyMatch(g -> g.contains(genre));
+            boolean yearMatches = year == null || year.equals(movie.year);
+            if (facets) {
+                return genreMatches || yearMatches; // genre counts ignore the genre filter, and vice versa
+            }
+            return genreMatches && yearMatches;
+        }
+
+        private boolean matchesQuery(MovieTerms movie) {
+            if (query == null) {
+                return true;
+            }
+            if (query.endsWith("*")) {
+                return movie.titleKey.startsWith(query.substring(0, query.length() - 1));
+            }
+            // Any shared word is enough: the search itself may need all of them, but this never misses.
+            // Near misses count even without fuzzy, since they can change the "did you mean" correction.
+            for (String word : query.split(" ")) {
+                for (String term : movie.words) {
+                    if (term.equals(word) || FuzzyIndex.isTypo(word, term)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean matchesActor(MovieTerms movie) {
+            if (actor == null) {
+                return true;
+            }
+            for (String name : movie.actors) {
+                if (name.contains(actor) || (fuzzy && FuzzyIndex.isTypo(normalizeName(actor), normalizeName(name)))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return limit == other.limit && facets == other.facets && fuzzy == other.fuzzy
+                    && Objects.equals(query, other.query) && Objects.equals(genre, other.genre)
+                    && Objects.equals(year, other.year) && Objects.equals(actor, other.actor)
+                    && Objects.equals(cursor, other.cursor);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, genre, year, actor, cursor, limit, facets, fuzzy);
+        }
+    }
+
+    private static String normalizeName(String name) {
+        return String.join(" ", TextAnalyzer.tokenize(name));
+    }
+
+    private static final class MovieTerms {
+        final List<String> words;
+        final String titleKey;
+        final List<String> genres;
+        final Integer year;
+        final List<String> actors;
+
+        MovieTerms(Movie movie) {
+            words = new ArrayList<>(TextAnalyzer.tokenize(movie.getTitle()));
+            words.addAll(TextAnalyzer.tokenize(movie.getDescription()));
+            titleKey = SearchQuery.titleKey(movie.getTitle());
+            genres = lowercase(movie.getGenres());
+            year = movie.getReleaseYear();
+            actors = lowercase(movie.getActors());
+        }
+
+        private static List<String> lowercase(List<String> values) {
+            List<String> result = new ArrayList<>();
+            if (values != null) {
+                for (String value : values) {
+                    if (value != null) {
+                        result.add(value.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
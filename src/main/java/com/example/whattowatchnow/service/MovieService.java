@@ -1,33 +1,80 @@
 package com.example.whattowatchnow.service;
 
 import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.dto.MovieFacets;
+import com.example.whattowatchnow.dto.MoviePage;
 import com.example.whattowatchnow.repository.MovieRepository;
+import com.example.whattowatchnow.search.FacetIndex;
+import com.example.whattowatchnow.search.FullTextIndex;
+import com.example.whattowatchnow.search.FuzzyIndex;
+import com.example.whattowatchnow.search.TextAnalyzer;
+import com.example.whattowatchnow.search.MovieDocIds;
+import com.example.whattowatchnow.search.MovieIndexer;
+import com.example.whattowatchnow.search.SubstringIndex;
+import com.example.whattowatchnow.search.TextHits;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class MovieService {
 
+    private static final float CORRECTION_BOOST = 0.5f; // A corrected term scores less than the term itself
+    private static final Duration QUERY_MAX_TIME = Duration.ofSeconds(2); // Mongo aborts searches running longer
+
     private final MovieRepository movieRepository;
     private final MongoTemplate mongoTemplate; // For complex queries
+    private final MovieIndexer movieIndexer;
+    private final FullTextIndex fullTextIndex;
+    private final SubstringIndex substringIndex;
+    private final MovieDocIds movieDocIds;
+    private final FacetIndex facetIndex;
+    private final FuzzyIndex fuzzyIndex;
+    private final MovieSearchCache searchCache;
+    private final MovieCache movieCache;
 
     @Autowired
-    public MovieService(MovieRepository movieRepository, MongoTemplate mongoTemplate) {
+    public MovieService(MovieRepository movieRepository, MongoTemplate mongoTemplate, MovieIndexer movieIndexer,
+                        FullTextIndex fullTextIndex, SubstringIndex substringIndex, MovieDocIds movieDocIds,
+                        FacetIndex facetIndex, FuzzyIndex fuzzyIndex, MovieSearchCache searchCache,
+                        MovieCache movieCache) {
         this.movieRepository = movieRepository;
         this.mongoTemplate = mongoTemplate;
+        this.movieIndexer = movieIndexer;
+        this.fullTextIndex = fullTextIndex;
+        this.substringIndex = substringIndex;
+        this.movieDocIds = movieDocIds;
+        this.facetIndex = facetIndex;
+        this.fuzzyIndex = fuzzyIndex;
+        this.searchCache = searchCache;
+        this.movieCache = movieCache;
     }
 
     public Movie saveMovie(Movie movie) {
         // Additional validation or business logic can go here
-        return movieRepository.save(movie);
+        movie.setTitleKey(SearchQuery.titleKey(movie.getTitle()));
+        Movie previous = movie.getId() == null ? null : movieRepository.findById(movie.getId()).orElse(null);
+        Movie savedMovie = movieRepository.save(movie);
+        movieCache.put(savedMovie);
+        movieIndexer.movieSaved(savedMovie);
+        searchCache.movieChanged(previous, savedMovie); // after the indexes, see MovieSearchCache
+        return savedMovie;
     }
 
     public List<Movie> getAllMovies() {
@@ -35,14 +82,20 @@ public class MovieService {
     }
 
     public Optional<Movie> getMovieById(String id) {
-        return movieRepository.findById(id);
+        return Optional.ofNullable(movieCache.get(id));
     }
 
     public List<Movie> searchMoviesByTitle(String title) {
+        if (title != null && movieIndexer.isReady()) {
+            return findByDocs(substringIndex.titleContaining(title).getDocs());
+        }
         return movieRepository.findByTitleContainingIgnoreCase(title);
     }
 
     public List<Movie> filterMoviesByGenre(String genre) {
+        if (genre != null && movieIndexer.isReady()) {
+            return findByDocs(substringIndex.genresContaining(genre).getDocs());
+        }
         return movieRepository.findByGenresContainingIgnoreCase(genre);
     }
 
@@ -51,28 +104,300 @@ public class MovieService {
     }
 
     public List<Movie> filterMoviesByActor(String actor) {
+        if (actor != null && movieIndexer.isReady()) {
+            return findByDocs(substringIndex.actorsContaining(actor).getDocs());
+        }
         return movieRepository.findByActorsContainingIgnoreCase(actor);
     }
 
+    private List<Movie> findByDocs(int[] docs) {
+        List<String> ids = new ArrayList<>(docs.length);
+        for (int doc : docs) {
+            ids.add(movieDocIds.movieId(doc));
+        }
+        List<Movie> movies = new ArrayList<>(ids.size());
+        movieRepository.findAllById(ids).forEach(movies::add);
+        return movies;
+    }
+
+    public MoviePage findMovies(String query, String genre, Integer year, String actor, String cursor, int limit) {
+        return findMovies(query, genre, year, actor, cursor, limit, false, false);
+    }
+
     /**
-     * Finds movies based on a combination of query (title), genre, year, and actor.
-     * Parameters that are null or empty are ignored.
+     * Finds one page of movies based on a combination of query (title or description), genre, year, and actor.
+     * Parameters that are null or empty are ignored. {@code cursor} is the {@code nextCursor} of the previous
+     * page, or null for the first one.
+     * Once the in-memory indexes are built, every filter is resolved there: text results come back ranked by
+     * relevance, and genre/year/actor become bitmap intersections. Until then, or with no filter at all, Mongo
+     * is queried in _id order. With {@code includeFacets}, the page also carries genre and year counts (only
+     * once the indexes are built).
+     * With {@code fuzzy}, query words and the actor name also match within a few typos. Either way, a query
+     * with no text match at all comes back with a "did you mean" correction when one exists.
+     * Once the indexes are built, pages are cached in {@link MovieSearchCache}.
+     * A query ending in {@code *} is a title prefix search, see {@link SearchQuery}.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed or belongs to a different kind of search,
+     *                                  or if the query or a filter is too expensive to run
      */
-    public List<Movie> findMovies(String query, String genre, Integer year, String actor) {
-        Query mongoQuery = new Query();
+    public MoviePage findMovies(String query, String genre, Integer year, String actor, String cursor, int limit,
+                                boolean includeFacets, boolean fuzzy) {
+        SearchQuery parsed = SearchQuery.parse(query);
+        SearchQuery.checkFilter("genre", genre);
+        SearchQuery.checkFilter("actor", actor);
+        MovieCursor after = MovieCursor.decode(cursor);
+        if (!movieIndexer.isReady()) {
+            return search(parsed, genre, year, actor, after, limit, includeFacets, fuzzy);
+        }
+        MovieSearchCache.Key key = MovieSearchCache.key(query, genre, year, actor, cursor, limit, includeFacets, fuzzy);
+        MoviePage cached = searchCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = searchCache.generation();
+        MoviePage page = search(parsed, genre, year, actor, after, limit, includeFacets, fuzzy);
+        searchCache.put(key, generation, page);
+        return page;
+    }
+
+    private MoviePage search(SearchQuery query, String genre, Integer year, String actor, MovieCursor after, int limit,
+                             boolean includeFacets, boolean fuzzy) {
+        boolean filtered = query != null || StringUtils.hasText(genre) || year != null || StringUtils.hasText(actor);
+        boolean byTitle = query != null && query.isPrefix();
+        if (after != null && after.isTitleOrdered() != byTitle) {
+            throw new IllegalArgumentException("Cursor does not belong to this search");
+        }
+        // Prefix searches are a range over the titleKey index, which Mongo answers as cheaply as the indexes would
+        if (movieIndexer.isReady() && filtered && !byTitle) {
+            return findPageWithIndexes(query == null ? null : query.getLiteral(), genre, year, actor, after, limit,
+                    includeFacets, fuzzy);
+        }
+
+        MoviePage page = findPageInMongo(query, genre, year, actor, after, limit);
+        if (includeFacets && movieIndexer.isReady()) {
+            page.setFacets(countFacets(null, null, null, null));
+        }
+        return page;
+    }
+
+    private MoviePage findPageInMongo(SearchQuery query, String genre, Integer year, String actor,
+                                      MovieCursor after, int limit) {
         Criteria criteria = new Criteria();
         boolean criteriaAdded = false;
 
-        if (StringUtils.hasText(query)) {
-            criteria.orOperator(
-                Criteria.where("title").regex(query, "i"), // "i" for case-insensitive
-                Criteria.where("description").regex(query, "i") 
-            );
+        if (query != null) {
+            query.addTo(criteria);
+            criteriaAdded = true;
+        }
+
+        criteriaAdded |= addFilters(criteria, genre, year, actor);
+
+        // Prefix searches page along the (titleKey, _id) index, so the range, the order and the
+        // seek to the cursor are all answered by it; everything else pages along _id
+        boolean byTitle = query != null && query.isPrefix();
+        if (after != null) {
+            if (byTitle) {
+                criteria.orOperator(
+                        Criteria.where("titleKey").gt(after.getTitleKey()),
+                        Criteria.where("titleKey").is(after.getTitleKey()).and("id").gt(after.getId()));
+            } else {
+                criteria.and("id").gt(after.getId());
+            }
             criteriaAdded = true;
         }
 
+        Query mongoQuery = criteriaAdded ? new Query(criteria) : new Query();
+        Sort order = byTitle ? Sort.by(Sort.Direction.ASC, "titleKey", "id") : Sort.by(Sort.Direction.ASC, "id");
+        mongoQuery.with(order).limit(limit + 1).maxTime(QUERY_MAX_TIME);
+        List<Movie> movies = new ArrayList<>(mongoTemplate.find(mongoQuery, Movie.class));
+        String nextCursor = null;
+        if (movies.size() > limit) {
+            movies = new ArrayList<>(movies.subList(0, limit));
+            Movie last = movies.get(limit - 1);
+            nextCursor = (byTitle ? MovieCursor.byTitle(last.getTitleKey(), last.getId())
+                    : new MovieCursor(null, last.getId())).encode();
+        }
+        return new MoviePage(movies, nextCursor);
+    }
+
+    /**
+     * Resolves every filter against the in-memory indexes, then loads only the movies of the
+     * requested page from Mongo with a primary key lookup.
+     */
+    private MoviePage findPageWithIndexes(String query, String genre, Integer year, String actor,
+                                          MovieCursor after, int limit, boolean includeFacets, boolean fuzzy) {
+        RoaringBitmap genreDocs = StringUtils.hasText(genre) ? facetIndex.genreDocs(genre) : null;
+        RoaringBitmap yearDocs = year != null ? facetIndex.yearDocs(year) : null;
+        RoaringBitmap actorDocs = StringUtils.hasText(actor) ? actorDocs(actor, fuzzy) : null;
+        RoaringBitmap allowed = and(and(genreDocs, yearDocs), actorDocs); // null when unfiltered
+
+        List<RankedId> candidates = new ArrayList<>();
+        RoaringBitmap textDocs = null;
+        String didYouMean = null;
+        if (StringUtils.hasText(query)) {
+            if (after != null && !after.isRanked()) {
+                throw new IllegalArgumentException("Cursor does not belong to this search");
+            }
+            TextHits hits = fuzzy ? fullTextIndex.search(fuzzyClauses(query)) : fullTextIndex.search(query);
+            if (hits.isEmpty() && after == null) {
+                didYouMean = correct(query);
+            }
+            textDocs = new RoaringBitmap();
+            for (int rank = 0; rank < hits.size(); rank++) {
+                int doc = hits.doc(rank);
+                textDocs.add(doc);
+                if (allowed == null || allowed.contains(doc)) {
+                    String id = movieDocIds.movieId(doc);
+                    if (after == null || after.precedes(hits.score(rank), id)) {
+                        candidates.add(new RankedId(hits.score(rank), id));
+                    }
+                }
+            }
+            candidates.sort((a, b) -> {
+                int byScore = Float.compare(b.score, a.score);
+                return byScore != 0 ? byScore : a.id.compareTo(b.id);
+            });
+        } else {
+            if (after != null && after.isRanked()) {
+                throw new IllegalArgumentException("Cursor does not belong to this search");
+            }
+            PeekableIntIterator docs = allowed.getIntIterator();
+            while (docs.hasNext()) {
+                String id = movieDocIds.movieId(docs.next());
+                if (after == null || id.compareTo(after.getId()) > 0) {
+                    candidates.add(new RankedId(null, id));
+                }
+            }
+            candidates.sort((a, b) -> a.id.compareTo(b.id));
+        }
+
+        MoviePage page = fetchPage(candidates, limit);
+        page.setDidYouMean(didYouMean);
+        if (includeFacets) {
+            page.setFacets(countFacets(textDocs, genreDocs, yearDocs, actorDocs));
+        }
+        return page;
+    }
+
+    /**
+     * Every actor whose name contains the filter ("dicap"), from the trigram index, like the
+     * genre filter; when fuzzy and nothing contains it, the actors whose name is a few typos away.
+     */
+    private RoaringBitmap actorDocs(String actor, boolean fuzzy) {
+        RoaringBitmap docs = RoaringBitmap.bitmapOf(substringIndex.actorsContaining(actor.trim()).getDocs());
+        if (docs.isEmpty() && fuzzy) {
+            for (String similar : fuzzyIndex.similarActors(actor)) {
+                RoaringBitmap similarDocs = facetIndex.actorDocs(similar);
+                if (similarDocs != null) {
+                    docs.or(similarDocs);
+                }
+            }
+        }
+        return docs;
+    }
+
+    /**
+     * One clause per query word: the word itself plus the known words within a few edits of it.
+     */
+    private List<Map<String, Float>> fuzzyClauses(String query) {
+        List<Map<String, Float>> clauses = new ArrayList<>();
+        for (String word : new LinkedHashSet<>(TextAnalyzer.tokenize(query))) {
+            Map<String, Float> clause = new LinkedHashMap<>();
+            clause.put(word, 1f);
+            for (String similar : fuzzyIndex.similarTerms(word, fullTextIndex::documentFrequency)) {
+                clause.putIfAbsent(similar, CORRECTION_BOOST);
+            }
+            clauses.add(clause);
+        }
+        return clauses;
+    }
+
+    /**
+     * Replaces every unknown word of the query with its closest (then most frequent) known
+     * neighbour; returns the result only if it changed something and actually finds movies.
+     */
+    private String correct(String query) {
+        List<String> words = TextAnalyzer.tokenize(query);
+        List<String> corrected = new ArrayList<>(words.size());
+        boolean changed = false;
+        for (String word : words) {
+            String replacement = word;
+            if (fullTextIndex.documentFrequency(word) == 0) {
+                List<String> similar = fuzzyIndex.similarTerms(word, fullTextIndex::documentFrequency);
+                if (!similar.isEmpty()) {
+                    replacement = similar.get(0);
+                    changed = true;
+                }
+            }
+            corrected.add(replacement);
+        }
+        if (!changed) {
+            return null;
+        }
+        String suggestion = String.join(" ", corrected);
+        return fullTextIndex.search(suggestion).isEmpty() ? null : suggestion;
+    }
+
+    /**
+     * Counts each facet with all the other filters applied but not its own, so picking a genre
+     * still shows what the other genres would give. Null bitmaps mean "not filtered".
+     */
+    private MovieFacets countFacets(RoaringBitmap textDocs, RoaringBitmap genreDocs, RoaringBitmap yearDocs,
+                                    RoaringBitmap actorDocs) {
+        RoaringBitmap base = and(textDocs, actorDocs);
+        if (base == null) {
+            base = facetIndex.allDocs();
+        }
+        RoaringBitmap forGenres = yearDocs == null ? base : RoaringBitmap.and(base, yearDocs);
+        RoaringBitmap forYears = genreDocs == null ? base : RoaringBitmap.and(base, genreDocs);
+        return new MovieFacets(facetIndex.genreCounts(forGenres), facetIndex.yearCounts(forYears));
+    }
+
+    private static RoaringBitmap and(RoaringBitmap left, RoaringBitmap right) {
+        if (left == null) {
+            return right;
+        }
+        return right == null ? left : RoaringBitmap.and(left, right);
+    }
+
+    /**
+     * Loads movies for the ordered candidates until the page is full: normally a single $in of
+     * {@code limit} ids. Ids that no longer resolve are skipped and the next chunk is fetched.
+     */
+    private MoviePage fetchPage(List<RankedId> candidates, int limit) {
+        List<Movie> page = new ArrayList<>(limit);
+        int consumed = 0;
+        while (page.size() < limit && consumed < candidates.size()) {
+            List<RankedId> chunk = candidates.subList(consumed,
+                    Math.min(candidates.size(), consumed + limit - page.size()));
+            List<String> chunkIds = new ArrayList<>(chunk.size());
+            chunk.forEach(candidate -> chunkIds.add(candidate.id));
+            Map<String, Movie> found = new HashMap<>();
+            mongoTemplate.find(new Query(Criteria.where("id").in(chunkIds)).maxTime(QUERY_MAX_TIME), Movie.class)
+                    .forEach(movie -> found.put(movie.getId(), movie));
+
+            for (RankedId candidate : chunk) {
+                consumed++;
+                Movie movie = found.get(candidate.id);
+                if (movie != null) {
+                    page.add(movie);
+                }
+            }
+        }
+
+        String nextCursor = null;
+        if (page.size() == limit && consumed < candidates.size()) {
+            RankedId last = candidates.get(consumed - 1);
+            nextCursor = new MovieCursor(last.score, last.id).encode();
+        }
+        return new MoviePage(page, nextCursor);
+    }
+
+    private boolean addFilters(Criteria criteria, String genre, Integer year, String actor) {
+        boolean criteriaAdded = false;
+
         if (StringUtils.hasText(genre)) {
-            criteria.and("genres").regex(genre, "i");
+            criteria.and("genres").regex(SearchQuery.containing(genre), "i");
             criteriaAdded = true;
         }
 
@@ -82,15 +407,19 @@ public class MovieService {
         }
 
         if (StringUtils.hasText(actor)) {
-            criteria.and("actors").regex(actor, "i");
+            criteria.and("actors").regex(SearchQuery.containing(actor), "i");
             criteriaAdded = true;
         }
-        
-        if (!criteriaAdded) {
-            return getAllMovies(); // Or return empty list if no criteria means no search
-        }
+        return criteriaAdded;
+    }
 
-        mongoQuery.addCriteria(criteria);
-        return mongoTemplate.find(mongoQuery, Movie.class);
+    private static final class RankedId {
+        final Float score; // null when ordered by id only
+        final String id;
+
+        RankedId(Float score, String id) {
+            this.score = score;
+            this.id = id;
+        }
     }
 }
@@ -0,0 +1,54 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.dto.MovieSuggestion;
+import com.example.whattowatchnow.search.MovieIndexer;
+import com.example.whattowatchnow.search.SuggestionIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Search box typeahead. Served from memory only: until the indexes are built there are
+ * simply no suggestions, rather than a Mongo scan per keystroke.
+ * Review events keep the popularity ranking current between rebuilds.
+ * Lookup latency is published as the {@code movies.suggest} timer with p50/p99.
+ */
+@Service
+public class MovieSuggestService {
+
+    private final SuggestionIndex suggestionIndex;
+    private final MovieIndexer movieIndexer;
+    private final Timer latency;
+
+    @Autowired
+    public MovieSuggestService(SuggestionIndex suggestionIndex, MovieIndexer movieIndexer, MeterRegistry meterRegistry) {
+        this.suggestionIndex = suggestionIndex;
+        this.movieIndexer = movieIndexer;
+        this.latency = Timer.builder("movies.suggest")
+                .description("Typeahead lookup time")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void reviewAdded(ReviewAddedEvent event) {
+        suggestionIndex.reviewCountChanged(event.getReview().getMovieId(), 1);
+    }
+
+    @EventListener
+    public void reviewDeleted(ReviewDeletedEvent event) {
+        suggestionIndex.reviewCountChanged(event.getReview().getMovieId(), -1);
+    }
+
+    public List<MovieSuggestion> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank() || !movieIndexer.isReady()) {
+            return Collections.emptyList();
+        }
+        return latency.record(() -> suggestionIndex.suggest(prefix, limit));
+    }
+}
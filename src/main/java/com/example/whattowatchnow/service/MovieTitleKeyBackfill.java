@@ -0,0 +1,65 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Movie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.Stream;
+
+/**
+ * Fills in {@code titleKey} for movies stored before prefix searches existed; new and updated
+ * movies get it from {@link MovieService#saveMovie}. Only touches documents missing the field,
+ * so after the first run it is a single empty index lookup.
+ */
+@Component
+public class MovieTitleKeyBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(MovieTitleKeyBackfill.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public MovieTitleKeyBackfill(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        Query missing = new Query(Criteria.where("titleKey").exists(false)).cursorBatchSize(BATCH_SIZE);
+        missing.fields().include("title");
+        int updated = 0;
+        try (Stream<Movie> movies = mongoTemplate.stream(missing, Movie.class)) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Movie.class);
+            int pending = 0;
+            for (Movie movie : (Iterable<Movie>) movies::iterator) {
+                bulk.updateOne(new Query(Criteria.where("id").is(movie.getId())),
+                        Update.update("titleKey", SearchQuery.titleKey(movie.getTitle())));
+                if (++pending == BATCH_SIZE) {
+                    bulk.execute();
+                    updated += pending;
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Movie.class);
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                bulk.execute();
+                updated += pending;
+            }
+            if (updated > 0) {
+                log.info("Backfilled titleKey on {} movies", updated);
+            }
+        } catch (RuntimeException e) {
+            log.warn("titleKey backfill stopped after {} movies, prefix searches may miss older titles", updated, e);
+        }
+    }
+}
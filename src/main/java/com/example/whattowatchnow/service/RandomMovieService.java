@@ -0,0 +1,70 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.ranking.RandomPicks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Serves "surprise me" picks from {@link RandomPicks} and keeps its tables current: reviews
+ * mark the reviewed movie's buckets, and a periodic job rebuilds the marked ones. Every table
+ * is rebuilt once the leaderboards have been restored at startup, since that changes all
+ * ratings at once.
+ */
+@Service
+public class RandomMovieService {
+
+    private final RandomPicks randomPicks;
+    private final LeaderboardService leaderboardService;
+    private final MovieCache movieCache;
+    private volatile boolean ratingsLoaded;
+
+    @Autowired
+    public RandomMovieService(RandomPicks randomPicks, LeaderboardService leaderboardService, MovieCache movieCache) {
+        this.randomPicks = randomPicks;
+        this.leaderboardService = leaderboardService;
+        this.movieCache = movieCache;
+    }
+
+    /**
+     * A random movie matching the optional filters, weighted by rating and popularity.
+     */
+    public Optional<Movie> pick(String genre, Integer year) {
+        // A pick can name a movie deleted since its table was built; try a few times
+        for (int attempt = 0; attempt < 3; attempt++) {
+            String movieId = randomPicks.pick(genre, year);
+            if (movieId == null) {
+                return Optional.empty();
+            }
+            Movie movie = movieCache.get(movieId);
+            if (movie != null) {
+                return Optional.of(movie);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @EventListener
+    public void reviewAdded(ReviewAddedEvent event) {
+        randomPicks.weightChanged(event.getReview().getMovieId());
+    }
+
+    @EventListener
+    public void reviewDeleted(ReviewDeletedEvent event) {
+        randomPicks.weightChanged(event.getReview().getMovieId());
+    }
+
+    @Scheduled(fixedDelayString = "${whattowatchnow.random.refresh-interval:PT1M}",
+            initialDelayString = "${whattowatchnow.random.refresh-interval:PT1M}")
+    public void refresh() {
+        if (!ratingsLoaded && leaderboardService.isReady()) {
+            ratingsLoaded = true;
+            randomPicks.markAllDirty();
+        }
+        randomPicks.refresh();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Review;
+import com.example.whattowatchnow.recommend.RatingMatrix;
+import com.example.whattowatchnow.search.MovieDocIds;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads every rating in {@code reviews} into a {@link RatingMatrix} in one streaming pass,
+ * for the recommendation models to train on.
+ */
+@Component
+public class RatingMatrixLoader {
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final MovieDocIds movieDocIds;
+
+    @Autowired
+    public RatingMatrixLoader(MongoTemplate mongoTemplate, MovieDocIds movieDocIds) {
+        this.mongoTemplate = mongoTemplate;
+        this.movieDocIds = movieDocIds;
+    }
+
+    public RatingMatrix load() {
+        RatingMatrix.Builder builder = new RatingMatrix.Builder(movieDocIds);
+        // Raw documents: decoding ten million reviews into entities would dominate the pass
+        try (MongoCursor<Document> reviews = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Review.class))
+                .find()
+                .projection(Projections.include("userId", "movieId", "rating"))
+                .batchSize(BATCH_SIZE)
+                .iterator()) {
+            while (reviews.hasNext()) {
+                Document review = reviews.next();
+                String userId = review.getString("userId");
+                String movieId = review.getString("movieId");
+                if (userId != null && movieId != null && review.get("rating") instanceof Number rating
+                        && MovieRatingService.isValidRating(rating.intValue())) {
+                    builder.add(userId, movieId, rating.floatValue());
+                }
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.domain.Review;
+import com.example.whattowatchnow.dto.LeaderboardEntry;
+import com.example.whattowatchnow.recommend.ItemNeighbors;
+import com.example.whattowatchnow.recommend.RatingMatrix;
+import com.example.whattowatchnow.search.MovieDocIds;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Personal recommendations. Users the latent-factor model was trained on are served from it
+ * entirely in memory. Everyone else is scored against an item-item neighbor table, rebuilt
+ * off the request path at startup and nightly; that reads only the user's own reviews through
+ * the (userId, _id) index. Users neither can say anything about yet get the top-rated movies
+ * they have not reviewed.
+ */
+@Service
+public class RecommendationService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final RatingMatrixLoader ratingMatrixLoader;
+    private final AlsModelService alsModelService;
+    private final MovieCache movieCache;
+    private final MovieDocIds movieDocIds;
+    private final LeaderboardService leaderboardService;
+    private final int width;
+    private final int shrinkage;
+    private final int maxUserRatings;
+    private final AtomicBoolean building = new AtomicBoolean();
+    private volatile ItemNeighbors neighbors;
+
+    @Autowired
+    public RecommendationService(MongoTemplate mongoTemplate,
+                                 RatingMatrixLoader ratingMatrixLoader,
+                                 AlsModelService alsModelService,
+                                 MovieCache movieCache,
+                                 MovieDocIds movieDocIds,
+                                 LeaderboardService leaderboardService,
+                                 @Value("${whattowatchnow.recommendations.neighbors:50}") int width,
+                                 @Value("${whattowatchnow.recommendations.shrinkage:20}") int shrinkage,
+                                 @Value("${whattowatchnow.recommendations.max-user-ratings:2000}") int maxUserRatings) {
+        this.mongoTemplate = mongoTemplate;
+        this.ratingMatrixLoader = ratingMatrixLoader;
+        this.alsModelService = alsModelService;
+        this.movieCache = movieCache;
+        this.movieDocIds = movieDocIds;
+        this.leaderboardService = leaderboardService;
+        this.width = width;
+        this.shrinkage = shrinkage;
+        this.maxUserRatings = maxUserRatings;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildAtStartup() {
+        rebuild();
+    }
+
+    @Scheduled(cron = "${whattowatchnow.recommendations.rebuild-cron:0 0 5 * * *}")
+    public void rebuild() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            RatingMatrix matrix = ratingMatrixLoader.load();
+            long loaded = System.currentTimeMillis();
+            ItemNeighbors table = ItemNeighbors.compute(matrix, movieDocIds, width, shrinkage, maxUserRatings, pool);
+            neighbors = table;
+            log.info("Built item neighbors for {} movies from {} ratings by {} users ({} links): loaded in {} ms, computed in {} ms",
+                    table.movies(), matrix.ratings(), matrix.users(), table.links(),
+                    loaded - start, System.currentTimeMillis() - loaded);
+        } catch (RuntimeException e) {
+            log.warn("Recommendation rebuild failed, keeping the previous table", e);
+        } finally {
+            pool.shutdown();
+            building.set(false);
+        }
+    }
+
+    /**
+     * Up to {@code limit} movies for the user, best first, none of which they have reviewed.
+     */
+    public List<Movie> recommendFor(String userId, int limit) {
+        // The user's current reviews, on the (userId, _id) index; the model only knows the
+        // ones from its training run
+        Query query = new Query(Criteria.where("userId").is(userId));
+        query.fields().include("movieId", "rating");
+        Set<String> reviewed = new HashSet<>();
+        List<String> ratedIds = new ArrayList<>();
+        List<Integer> ratings = new ArrayList<>();
+        for (Review review : mongoTemplate.find(query, Review.class)) {
+            if (review.getMovieId() == null) {
+                continue;
+            }
+            reviewed.add(review.getMovieId());
+            if (MovieRatingService.isValidRating(review.getRating())) {
+                ratedIds.add(review.getMovieId());
+                ratings.add(review.getRating());
+            }
+        }
+
+        List<String> predicted = alsModelService.recommend(userId, limit + reviewed.size());
+        if (!predicted.isEmpty()) {
+            return resolve(predicted.stream().filter(id -> !reviewed.contains(id)).limit(limit).toList());
+        }
+
+        Set<String> picks = new LinkedHashSet<>();
+        ItemNeighbors table = neighbors;
+        if (table != null && !ratedIds.isEmpty()) {
+            float[] values = new float[ratings.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = ratings.get(i);
+            }
+            table.recommend(ratedIds, values, limit).stream()
+                    .filter(id -> !reviewed.contains(id)) // Reviews without a rating are not excluded by the table
+                    .forEach(picks::add);
+        }
+        if (picks.size() < limit) {
+            for (LeaderboardEntry entry : leaderboardService.topRated(null, limit + reviewed.size())) {
+                if (picks.size() == limit) {
+                    break;
+                }
+                if (!reviewed.contains(entry.getMovieId())) {
+                    picks.add(entry.getMovieId());
+                }
+            }
+        }
+
+        return resolve(picks);
+    }
+
+    private List<Movie> resolve(Collection<String> movieIds) {
+        List<Movie> movies = new ArrayList<>(movieIds.size());
+        for (String id : movieIds) {
+            Movie movie = movieCache.get(id);
+            if (movie != null) { // Skips movies deleted since the model was built
+                movies.add(movie);
+            }
+        }
+        return movies;
+    }
+}
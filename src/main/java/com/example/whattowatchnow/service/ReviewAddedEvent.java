@@ -0,0 +1,19 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Review;
+
+/**
+ * Published by {@link ReviewService} once a review has been added.
+ */
+public class ReviewAddedEvent {
+
+    private final Review review;
+
+    public ReviewAddedEvent(Review review) {
+        this.review = review;
+    }
+
+    public Review getReview() {
+        return review;
+    }
+}
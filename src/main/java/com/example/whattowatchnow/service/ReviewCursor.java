@@ -0,0 +1,78 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Review;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last review returned by a page of {@link ReviewService#getReviewsForMovie}.
+ * Newest-first pages are ordered by (reviewDate, id) descending, rating pages by
+ * (rating, reviewDate, id) descending; the cursor records the sort it belongs to so it cannot
+ * be replayed against the other one. Clients only ever see the Base64 token.
+ */
+final class ReviewCursor {
+
+    private final ReviewSort sort;
+    private final Integer rating; // only for rating order
+    private final LocalDateTime reviewDate;
+    private final String id;
+
+    private ReviewCursor(ReviewSort sort, Integer rating, LocalDateTime reviewDate, String id) {
+        this.sort = sort;
+        this.rating = rating;
+        this.reviewDate = reviewDate;
+        this.id = id;
+    }
+
+    static ReviewCursor after(ReviewSort sort, Review last) {
+        return new ReviewCursor(sort, sort == ReviewSort.RATING ? last.getRating() : null, last.getReviewDate(), last.getId());
+    }
+
+    ReviewSort getSort() {
+        return sort;
+    }
+
+    Integer getRating() {
+        return rating;
+    }
+
+    LocalDateTime getReviewDate() {
+        return reviewDate;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    String encode() {
+        String raw = sort.name() + "|" + (rating == null ? "" : rating) + "|" + reviewDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a client supplied token; returns null for a missing token (first page).
+     *
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     *                                  for the same sort order
+     */
+    static ReviewCursor decode(String token, ReviewSort expected) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", 4);
+            if (parts.length == 4 && parts[0].equals(expected.name()) && !parts[3].isEmpty()) {
+                Integer rating = parts[1].isEmpty() ? null : Integer.valueOf(parts[1]);
+                if ((rating != null) == (expected == ReviewSort.RATING)) {
+                    return new ReviewCursor(expected, rating, LocalDateTime.parse(parts[2]), parts[3]);
+                }
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // fall through, NumberFormatException included
+        }
+        throw new IllegalArgumentException("Invalid cursor");
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Review;
+
+/**
+ * Published by {@link ReviewService} once a review has been deleted.
+ */
+public class ReviewDeletedEvent {
+
+    private final Review review;
+
+    public ReviewDeletedEvent(Review review) {
+        this.review = review;
+    }
+
+    public Review getReview() {
+        return review;
+    }
+}
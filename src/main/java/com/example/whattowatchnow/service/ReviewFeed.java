@@ -0,0 +1,290 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Review;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live review events per movie over Server-Sent Events. Subscribers hold an async request, not
+ * a thread: a review event is serialized once, appended to each subscriber's bounded buffer,
+ * and a small shared pool drains the buffers that have something in them. A subscriber whose
+ * buffer fills up is too slow to keep up and is disconnected by its sender, never by the
+ * publishing request; its EventSource reconnects and reloads the list.
+ * <p>
+ * A send is a blocking servlet write, so a client that stops reading can hold a sender inside
+ * {@code send()} until the container's socket timeout. A send still in flight after
+ * {@code write-timeout} has its subscriber dropped and its sender written off: the pool grows
+ * by one so the other streams keep flowing, and shrinks back once the stuck write returns.
+ * <p>
+ * Events are {@code review-added} with the review and {@code review-deleted} with its id. A
+ * comment is sent to everyone every {@code heartbeat} so proxies keep idle streams open and
+ * dead connections are noticed.
+ */
+@Component
+public class ReviewFeed {
+
+    static final String REVIEW_ADDED = "review-added";
+    static final String REVIEW_DELETED = "review-deleted";
+
+    private static final Set<DataWithMediaType> KEEP_ALIVE = SseEmitter.event().comment("keep-alive").build();
+
+    // Subscriber.sendState values
+    private static final int IDLE = 0;
+    private static final int SENDING = 1;
+    private static final int WRITTEN_OFF = 2;
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Set<Subscriber> sending = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor senders;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long writeTimeoutNanos;
+    private final Counter dropped;
+
+    @Autowired
+    public ReviewFeed(ObjectMapper objectMapper,
+                      MeterRegistry meterRegistry,
+                      @Value("${whattowatchnow.reviews.feed.buffer-size:32}") int bufferSize,
+                      @Value("${whattowatchnow.reviews.feed.timeout:30m}") Duration timeout,
+                      @Value("${whattowatchnow.reviews.feed.write-timeout:PT5S}") Duration writeTimeout,
+                      @Value("${whattowatchnow.reviews.feed.senders:4}") int senders) {
+        this(objectMapper, meterRegistry, bufferSize, timeout, writeTimeout, senderPool(senders));
+    }
+
+    ReviewFeed(ObjectMapper objectMapper, MeterRegistry meterRegistry, int bufferSize, Duration timeout,
+               Duration writeTimeout, ThreadPoolExecutor senders) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+        this.senders = senders;
+        Gauge.builder("reviews.feed.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open live review streams")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("reviews.feed.dropped")
+                .description("Live review streams closed because the client fell behind")
+                .register(meterRegistry);
+        Gauge.builder("reviews.feed.senders", senders, ThreadPoolExecutor::getCorePoolSize)
+                .description("Sender threads, including ones stuck in a timed-out write")
+                .register(meterRegistry);
+    }
+
+    private static ThreadPoolExecutor senderPool(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "review-feed-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        senders.shutdownNow();
+        subscribers.values().forEach(movie -> movie.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    public SseEmitter subscribe(String movieId) {
+        return subscribe(movieId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(String movieId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(movieId, emitter, new ArrayBlockingQueue<>(bufferSize));
+        subscribers.compute(movieId, (id, movie) -> {
+            movie = movie == null ? ConcurrentHashMap.newKeySet() : movie;
+            movie.add(subscriber);
+            return movie;
+        });
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        return emitter;
+    }
+
+    int subscriberCount(String movieId) {
+        Set<Subscriber> movie = subscribers.get(movieId);
+        return movie == null ? 0 : movie.size();
+    }
+
+    @EventListener
+    public void reviewAdded(ReviewAddedEvent event) {
+        Review review = event.getReview();
+        publish(review.getMovieId(), REVIEW_ADDED, review.getId(), review);
+    }
+
+    @EventListener
+    public void reviewDeleted(ReviewDeletedEvent event) {
+        Review review = event.getReview();
+        publish(review.getMovieId(), REVIEW_DELETED, review.getId(), Map.of("id", review.getId()));
+    }
+
+    @Scheduled(fixedDelayString = "${whattowatchnow.reviews.feed.heartbeat:PT30S}",
+            initialDelayString = "${whattowatchnow.reviews.feed.heartbeat:PT30S}")
+    public void heartbeat() {
+        for (Set<Subscriber> movie : subscribers.values()) {
+            for (Subscriber subscriber : movie) {
+                offer(subscriber, KEEP_ALIVE);
+            }
+        }
+    }
+
+    /**
+     * Drops every subscriber whose current send has been blocked for longer than the write
+     * timeout and starts a replacement sender for each, so one client that stopped reading
+     * cannot stall the fan-out to everybody else.
+     */
+    @Scheduled(fixedDelayString = "${whattowatchnow.reviews.feed.write-timeout:PT5S}",
+            initialDelayString = "${whattowatchnow.reviews.feed.write-timeout:PT5S}")
+    public void abandonStuckWrites() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : sending) {
+            if (now - subscriber.sendStarted > writeTimeoutNanos
+                    && subscriber.sendState.compareAndSet(SENDING, WRITTEN_OFF)) {
+                if (!subscriber.closed) { // Not already dropped for a full buffer
+                    dropped.increment();
+                    remove(subscriber);
+                    subscriber.closed = true;
+                }
+                subscriber.buffer.clear();
+                resizeSenders(1);
+            }
+        }
+    }
+
+    private void publish(String movieId, String name, String id, Object payload) {
+        Set<Subscriber> movie = subscribers.get(movieId);
+        if (movie == null) {
+            return;
+        }
+        Set<DataWithMediaType> event;
+        try {
+            event = SseEmitter.event().name(name).id(id)
+                    .data(objectMapper.writeValueAsString(payload), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + name + " event", e);
+        }
+        for (Subscriber subscriber : movie) {
+            offer(subscriber, event);
+        }
+    }
+
+    private void offer(Subscriber subscriber, Set<DataWithMediaType> event) {
+        if (subscriber.closed) {
+            return;
+        }
+        if (!subscriber.buffer.offer(event)) {
+            dropped.increment();
+            remove(subscriber);
+            subscriber.closed = true;
+        }
+        schedule(subscriber);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.draining.set(false); // Shutting down
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        Set<DataWithMediaType> event;
+        while (!subscriber.closed && (event = subscriber.buffer.poll()) != null) {
+            subscriber.sendStarted = System.nanoTime();
+            subscriber.sendState.set(SENDING);
+            sending.add(subscriber);
+            try {
+                subscriber.emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the emitter was already completed
+                remove(subscriber);
+                subscriber.closed = true;
+            } finally {
+                sending.remove(subscriber);
+                if (!subscriber.sendState.compareAndSet(SENDING, IDLE)) {
+                    subscriber.sendState.set(IDLE);
+                    resizeSenders(-1); // A replacement took over while this write was stuck
+                }
+            }
+        }
+        if (subscriber.closed) {
+            subscriber.buffer.clear();
+            subscriber.emitter.complete(); // Leaves draining set, nothing is sent after this
+            return;
+        }
+        subscriber.draining.set(false);
+        if (!subscriber.buffer.isEmpty() || subscriber.closed) {
+            schedule(subscriber); // An event slipped in after the last poll
+        }
+    }
+
+    // Maximum first when growing and last when shrinking, so it never drops below the core size
+    private synchronized void resizeSenders(int delta) {
+        int threads = senders.getCorePoolSize() + delta;
+        if (delta > 0) {
+            senders.setMaximumPoolSize(threads);
+            senders.setCorePoolSize(threads);
+        } else {
+            senders.setCorePoolSize(threads);
+            senders.setMaximumPoolSize(threads);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.movieId, (id, movie) -> {
+            if (movie.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+            return movie.isEmpty() ? null : movie;
+        });
+    }
+
+    static final class Subscriber {
+        final String movieId;
+        final SseEmitter emitter;
+        final BlockingQueue<Set<DataWithMediaType>> buffer;
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicInteger sendState = new AtomicInteger(IDLE);
+        volatile long sendStarted;
+        volatile boolean closed;
+
+        Subscriber(String movieId, SseEmitter emitter, BlockingQueue<Set<DataWithMediaType>> buffer) {
+            this.movieId = movieId;
+            this.emitter = emitter;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -1,64 +1,219 @@
 package com.example.whattowatchnow.service;
 
+import com.example.whattowatchnow.domain.Movie;
 import com.example.whattowatchnow.domain.Review;
+import com.example.whattowatchnow.domain.ReviewerSnapshot;
 import com.example.whattowatchnow.domain.User;
+import com.example.whattowatchnow.dto.MovieReviewSummary;
+import com.example.whattowatchnow.dto.RatingSummary;
+import com.example.whattowatchnow.dto.ReviewPage;
 import com.example.whattowatchnow.repository.ReviewRepository;
-import com.example.whattowatchnow.repository.UserRepository; // For fetching user details
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class ReviewService {
 
+    private static final Duration QUERY_MAX_TIME = Duration.ofSeconds(2);
+    private static final Duration WRITE_BEHIND_TIMEOUT = Duration.ofSeconds(10);
+
     private final ReviewRepository reviewRepository;
-    private final UserRepository userRepository; // To fetch User object if needed
+    private final UserCache userCache; // Who is calling, without a user query
+    private final MovieRatingService movieRatingService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MongoTemplate mongoTemplate;
+    private final ReviewWriteBuffer writeBuffer;
 
     @Autowired
-    public ReviewService(ReviewRepository reviewRepository, UserRepository userRepository) {
+    public ReviewService(ReviewRepository reviewRepository, UserCache userCache,
+                         MovieRatingService movieRatingService, ApplicationEventPublisher eventPublisher,
+                         MongoTemplate mongoTemplate, ReviewWriteBuffer writeBuffer) {
         this.reviewRepository = reviewRepository;
-        this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.movieRatingService = movieRatingService;
+        this.eventPublisher = eventPublisher;
+        this.mongoTemplate = mongoTemplate;
+        this.writeBuffer = writeBuffer;
     }
 
     public Review addReview(Review review, String movieId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String userEmail = authentication.getName(); // email is used as username
-
-        User currentUser = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found, cannot add review."));
+        String userId = userCache.currentUserId();
+        User currentUser = userId == null ? null : userCache.get(userId);
+        if (currentUser == null) {
+            throw new RuntimeException("User not found, cannot add review.");
+        }
+        if (!MovieRatingService.isValidRating(review.getRating())) {
+            throw new IllegalArgumentException("Rating must be between 1 and 5");
+        }
 
         review.setUserId(currentUser.getId());
+        review.setReviewer(ReviewerSnapshot.of(currentUser));
         review.setMovieId(movieId);
         review.setReviewDate(LocalDateTime.now());
-        return reviewRepository.save(review);
+        Review saved;
+        if (writeBuffer.isEnabled()) {
+            saved = writeBehind(review); // Rating totals are updated with the batch
+        } else {
+            saved = reviewRepository.save(review);
+            movieRatingService.reviewAdded(saved);
+        }
+        eventPublisher.publishEvent(new ReviewAddedEvent(saved));
+        return saved;
+    }
+
+    private Review writeBehind(Review review) {
+        CompletableFuture<Review> result = writeBuffer.submit(review);
+        try {
+            try {
+                return result.get(WRITE_BEHIND_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (writeBuffer.withdraw(review)) {
+                    throw new IllegalStateException("Timed out saving review", e);
+                }
+                // Its batch is being written; answering now would invite a retry and a duplicate
+                return result.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not save review", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while saving review", e);
+        }
+    }
+
+    /**
+     * One page of a movie's reviews. Each order has a matching compound index and the cursor
+     * resumes with a range condition on it, so a page costs the same at any depth.
+     *
+     * @throws IllegalArgumentException for a cursor that is malformed or from another order
+     */
+    public ReviewPage getReviewsForMovie(String movieId, ReviewSort sort, String cursorToken, int limit) {
+        ReviewCursor cursor = ReviewCursor.decode(cursorToken, sort);
+        Query query = new Query(Criteria.where("movieId").is(movieId));
+        if (cursor != null) {
+            query.addCriteria(after(cursor));
+        }
+        Sort order = Sort.by(Sort.Direction.DESC, "reviewDate", "id");
+        if (sort == ReviewSort.RATING) {
+            order = Sort.by(Sort.Direction.DESC, "rating").and(order);
+        }
+        query.with(order).limit(limit + 1).maxTime(QUERY_MAX_TIME);
+
+        List<Review> reviews = mongoTemplate.find(query, Review.class);
+        String nextCursor = null;
+        if (reviews.size() > limit) {
+            reviews = reviews.subList(0, limit);
+            nextCursor = ReviewCursor.after(sort, reviews.get(limit - 1)).encode();
+        }
+        return new ReviewPage(reviews, nextCursor);
     }
 
-    public List<Review> getReviewsForMovie(String movieId) {
-        return reviewRepository.findByMovieId(movieId);
+    /**
+     * Rating summary and the newest {@code recent} reviews for each movie, keyed by movie id in
+     * request order. Ratings come from one $in query on {@code movie_ratings}, reviews from one
+     * aggregation that looks up each movie's newest reviews through the (movieId, reviewDate)
+     * index, so a blockbuster costs no more than any other title.
+     */
+    public Map<String, MovieReviewSummary> getReviewSummaries(List<String> movieIds, int recent) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(movieIds));
+        Map<String, RatingSummary> ratings = movieRatingService.getRatings(ids);
+        Map<String, List<Review>> recentReviews = recent > 0 ? findRecentReviews(ids, recent) : Collections.emptyMap();
+
+        Map<String, MovieReviewSummary> summaries = new LinkedHashMap<>();
+        for (String movieId : ids) {
+            summaries.put(movieId, new MovieReviewSummary(ratings.get(movieId),
+                    recentReviews.getOrDefault(movieId, Collections.emptyList())));
+        }
+        return summaries;
+    }
+
+    private Map<String, List<Review>> findRecentReviews(List<String> movieIds, int recent) {
+        // Movie _ids are ObjectIds while reviews reference them as strings
+        Document lookup = new Document("$lookup", new Document("from", "reviews")
+                .append("let", new Document("movieId", new Document("$toString", "$_id")))
+                .append("pipeline", List.of(
+                        new Document("$match", new Document("$expr", new Document("$eq", List.of("$movieId", "$$movieId")))),
+                        new Document("$sort", new Document("reviewDate", -1).append("_id", -1)),
+                        new Document("$limit", recent)))
+                .append("as", "recent"));
+        TypedAggregation<Movie> aggregation = Aggregation.newAggregation(Movie.class,
+                Aggregation.match(Criteria.where("id").in(movieIds)),
+                Aggregation.project("id"),
+                context -> lookup)
+                .withOptions(AggregationOptions.builder().maxTime(QUERY_MAX_TIME).build());
+
+        Map<String, List<Review>> recentByMovie = new HashMap<>();
+        for (Document movie : mongoTemplate.aggregate(aggregation, Document.class)) {
+            List<Review> reviews = new ArrayList<>();
+            for (Document review : movie.getList("recent", Document.class)) {
+                reviews.add(mongoTemplate.getConverter().read(Review.class, review));
+            }
+            recentByMovie.put(movie.get("_id").toString(), reviews);
+        }
+        return recentByMovie;
     }
 
     public List<Review> getReviewsByUser(String userId) {
         return reviewRepository.findByUserId(userId);
     }
 
+    // Reviews strictly after the cursor in descending (rating,) reviewDate, id order
+    private static Criteria after(ReviewCursor cursor) {
+        Criteria byDate = new Criteria().orOperator(
+                Criteria.where("reviewDate").lt(cursor.getReviewDate()),
+                Criteria.where("reviewDate").is(cursor.getReviewDate()).and("id").lt(cursor.getId()));
+        if (cursor.getSort() != ReviewSort.RATING) {
+            return byDate;
+        }
+        return new Criteria().orOperator(
+                Criteria.where("rating").lt(cursor.getRating()),
+                new Criteria().andOperator(Criteria.where("rating").is(cursor.getRating()), byDate));
+    }
+
     public boolean deleteReview(String reviewId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String userEmail = authentication.getName();
-        User currentUser = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found, cannot verify review ownership."));
+        String currentUserId = userCache.currentUserId();
+        if (currentUserId == null) {
+            throw new RuntimeException("User not found, cannot verify review ownership.");
+        }
 
         Optional<Review> reviewOptional = reviewRepository.findById(reviewId);
         if (reviewOptional.isPresent()) {
             Review review = reviewOptional.get();
             // Check if the current user is the author of the review
             // (Later, admin role could also be allowed to delete)
-            if (review.getUserId().equals(currentUser.getId())) {
-                reviewRepository.deleteById(reviewId);
+            if (review.getUserId().equals(currentUserId)) {
+                // Only the request that actually removed the document moves the rating totals,
+                // so two concurrent deletes of the same review cannot both apply the -1 delta
+                Query byAuthor = new Query(Criteria.where("id").is(reviewId).and("userId").is(currentUserId));
+                if (mongoTemplate.remove(byAuthor, Review.class).getDeletedCount() != 1) {
+                    return false; // Someone else deleted it first
+                }
+                movieRatingService.reviewDeleted(review);
+                eventPublisher.publishEvent(new ReviewDeletedEvent(review));
                 return true;
             } else {
                 // User is not the author, cannot delete
@@ -0,0 +1,27 @@
+package com.example.whattowatchnow.service;
+
+import java.util.Locale;
+
+/**
+ * Orders in which a movie's reviews can be listed, each backed by its own index on {@code reviews}.
+ */
+public enum ReviewSort {
+    NEWEST,
+    RATING;
+
+    /**
+     * Parses the {@code sort} request parameter; null means the default, newest first.
+     *
+     * @throws IllegalArgumentException for an unknown order
+     */
+    public static ReviewSort parse(String value) {
+        if (value == null || value.isBlank()) {
+            return NEWEST;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown sort: " + value);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Review;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional group commit for new reviews. Requests hand their review to a single writer
+ * thread, which collects whatever arrives within {@code max-delay} (or up to
+ * {@code max-batch} reviews) and writes them with one ordered insertMany, followed by one
+ * bulk update of the rating totals. A request is only acknowledged once its batch has been
+ * written, so nothing acknowledged can be lost, and reviews are inserted in arrival order.
+ * A request that gives up waiting {@link #withdraw withdraws} its review, so a review the
+ * caller was told failed is never written later.
+ * <p>
+ * Ids are assigned before the insert. If a batch fails, its reviews are retried one by one
+ * as upserts on those ids, so reviews that did make it in are not duplicated and each
+ * request gets its own outcome. Batch sizes and flush latency are published as
+ * {@code reviews.write_behind.batch_size} and {@code reviews.write_behind.flush}.
+ */
+@Component
+public class ReviewWriteBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewWriteBuffer.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MovieRatingService movieRatingService;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final DistributionSummary batchSize;
+    private final Timer flushLatency;
+    private volatile boolean running;
+    private Thread writer;
+
+    @Autowired
+    public ReviewWriteBuffer(MongoTemplate mongoTemplate,
+                             MovieRatingService movieRatingService,
+                             MeterRegistry meterRegistry,
+                             @Value("${whattowatchnow.reviews.write-behind.enabled:false}") boolean enabled,
+                             @Value("${whattowatchnow.reviews.write-behind.max-batch:128}") int maxBatch,
+                             @Value("${whattowatchnow.reviews.write-behind.max-delay:5ms}") Duration maxDelay) {
+        this.mongoTemplate = mongoTemplate;
+        this.movieRatingService = movieRatingService;
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.batchSize = DistributionSummary.builder("reviews.write_behind.batch_size")
+                .description("Reviews written per insertMany")
+                .register(meterRegistry);
+        this.flushLatency = Timer.builder("reviews.write_behind.flush")
+                .description("Time to write one batch of reviews")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::run, "review-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false; // The writer notices within one poll and flushes what is left
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the review for the next batch. The future completes with the saved review once
+     * its batch is written, or exceptionally if it could not be written.
+     */
+    public CompletableFuture<Review> submit(Review review) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Review write-behind is not running"));
+        }
+        Pending pending = new Pending(review);
+        queue.add(pending);
+        if (!running && queue.remove(pending)) {
+            // Stopped while we were adding; the writer may already have made its last pass
+            pending.result.completeExceptionally(new IllegalStateException("Review write-behind is not running"));
+        }
+        return pending.result;
+    }
+
+    /**
+     * Takes a submitted review back out of the queue, failing its future, if no batch has
+     * picked it up yet. Returns false once it is being written, when its future is sure to
+     * complete with the outcome of that write.
+     */
+    public boolean withdraw(Review review) {
+        for (Pending pending : queue) {
+            if (pending.review == review && queue.remove(pending)) {
+                pending.result.completeExceptionally(new IllegalStateException("Review withdrawn before it was written"));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatch) {
+                    Pending next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                queue.drainTo(batch); // Shutting down: write what was already accepted
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    void flush(List<Pending> batch) {
+        List<Review> reviews = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            if (pending.review.getId() == null) {
+                pending.review.setId(new ObjectId().toHexString());
+            }
+            reviews.add(pending.review);
+        }
+        batchSize.record(batch.size());
+        long start = System.nanoTime();
+        List<Review> written = new ArrayList<>(batch.size());
+        try {
+            mongoTemplate.insert(reviews, Review.class);
+            written.addAll(reviews);
+        } catch (RuntimeException e) {
+            log.warn("Review batch of {} failed, retrying one by one", batch.size(), e);
+            for (Pending pending : batch) {
+                try {
+                    written.add(mongoTemplate.save(pending.review));
+                } catch (RuntimeException single) {
+                    pending.result.completeExceptionally(single);
+                }
+            }
+        }
+        try {
+            movieRatingService.reviewsAdded(written);
+        } catch (RuntimeException e) {
+            // The reviews are stored; the nightly rating repair picks up the missed increments
+            log.warn("Rating update for {} reviews failed", written.size(), e);
+        }
+        flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        for (Pending pending : batch) {
+            pending.result.complete(pending.review); // no-op for the ones that already failed
+        }
+    }
+
+    static final class Pending {
+        final Review review;
+        final CompletableFuture<Review> result = new CompletableFuture<>();
+
+        Pending(Review review) {
+            this.review = review;
+        }
+    }
+}
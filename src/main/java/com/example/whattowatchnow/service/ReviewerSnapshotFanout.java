@@ -0,0 +1,82 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Review;
+import com.example.whattowatchnow.domain.ReviewerSnapshot;
+import com.example.whattowatchnow.domain.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rewrites the reviewer snapshot on a user's existing reviews after a profile change. Runs off
+ * the request thread and walks the reviews through the (userId, _id) index in batches, one
+ * updateMany per batch, so a prolific reviewer never holds one long write.
+ * <p>
+ * Each batch re-reads the user and writes their current profile rather than the one from the
+ * event, so when two changes race, whichever job finishes last still leaves the latest values.
+ */
+@Component
+public class ReviewerSnapshotFanout {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewerSnapshotFanout.class);
+    static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public ReviewerSnapshotFanout(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Async
+    @EventListener
+    public void profileChanged(UserProfileChangedEvent event) {
+        try {
+            int updated = fanOut(event.getUserId());
+            log.debug("Updated reviewer snapshot on {} reviews of user {}", updated, event.getUserId());
+        } catch (RuntimeException e) {
+            log.warn("Reviewer snapshot fan-out for user {} failed", event.getUserId(), e);
+        }
+    }
+
+    int fanOut(String userId) {
+        int updated = 0;
+        String lastId = null;
+        while (true) {
+            User user = mongoTemplate.findById(userId, User.class);
+            if (user == null) {
+                return updated;
+            }
+            Query page = new Query(Criteria.where("userId").is(userId));
+            if (lastId != null) {
+                page.addCriteria(Criteria.where("id").gt(lastId));
+            }
+            page.with(Sort.by(Sort.Direction.ASC, "id")).limit(BATCH_SIZE).fields().include("id");
+            List<Review> batch = mongoTemplate.find(page, Review.class);
+            if (batch.isEmpty()) {
+                return updated;
+            }
+            List<String> ids = new ArrayList<>(batch.size());
+            for (Review review : batch) {
+                ids.add(review.getId());
+            }
+            updated += (int) mongoTemplate.updateMulti(new Query(Criteria.where("id").in(ids)),
+                    new Update().set("reviewer", ReviewerSnapshot.of(user)), Review.class).getModifiedCount();
+            if (batch.size() < BATCH_SIZE) {
+                return updated;
+            }
+            lastId = ids.get(ids.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.search.TextAnalyzer;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.regex.Pattern;
+
+/**
+ * Compiled form of the user supplied {@code query} of {@link MovieService#findMovies}.
+ * <p>
+ * The grammar is deliberately tiny: a literal, optionally followed by {@code *}. A literal
+ * matches movies whose title or description contains it; it is quoted before it reaches
+ * Mongo, so no user input is ever interpreted as a regular expression. A trailing {@code *}
+ * turns the query into a title prefix search, compiled to a range over the
+ * {@code (titleKey, _id)} index, which also gives its pages their order, instead of an
+ * unanchored scan. Shapes whose cost cannot be bounded
+ * (very long input, one-letter prefixes) are rejected before any query runs.
+ */
+final class SearchQuery {
+
+    static final int MAX_QUERY_LENGTH = 200;
+    static final int MAX_FILTER_LENGTH = 100;
+    static final int MIN_PREFIX_LENGTH = 2; // "a*" would walk most of the titleKey index
+
+    private final String literal; // trimmed user text, without the trailing '*'
+    private final boolean prefix;
+
+    private SearchQuery(String literal, boolean prefix) {
+        this.literal = literal;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Returns null for a blank query.
+     *
+     * @throws IllegalArgumentException if the query is too long or too broad to run
+     */
+    static SearchQuery parse(String query) {
+        if (query == null || query.isBlank()) {
+            return null;
+        }
+        String text = query.trim();
+        if (text.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Query is longer than " + MAX_QUERY_LENGTH + " characters");
+        }
+        if (!text.endsWith("*")) {
+            return new SearchQuery(text, false);
+        }
+        String literal = text.substring(0, text.length() - 1).trim();
+        if (titleKey(literal).length() < MIN_PREFIX_LENGTH) {
+            throw new IllegalArgumentException("Prefix searches need at least " + MIN_PREFIX_LENGTH + " letters");
+        }
+        return new SearchQuery(literal, true);
+    }
+
+    /**
+     * Checks a genre or actor filter, which is matched as a quoted "contains" regex.
+     *
+     * @throws IllegalArgumentException if the value is too long
+     */
+    static void checkFilter(String name, String value) {
+        if (value != null && value.length() > MAX_FILTER_LENGTH) {
+            throw new IllegalArgumentException(name + " is longer than " + MAX_FILTER_LENGTH + " characters");
+        }
+    }
+
+    /**
+     * The normalized title stored in {@code titleKey}: words only, lowercase, accents folded.
+     */
+    static String titleKey(String title) {
+        return String.join(" ", TextAnalyzer.tokenize(title));
+    }
+
+    boolean isPrefix() {
+        return prefix;
+    }
+
+    String getLiteral() {
+        return literal;
+    }
+
+    void addTo(Criteria criteria) {
+        if (prefix) {
+            // All keys starting with p sort in [p, p with its last char incremented)
+            String low = titleKey(literal);
+            String high = low.substring(0, low.length() - 1) + (char) (low.charAt(low.length() - 1) + 1);
+            criteria.and("titleKey").gte(low).lt(high);
+        } else {
+            criteria.orOperator(
+                    Criteria.where("title").regex(containing(literal), "i"), // "i" for case-insensitive
+                    Criteria.where("description").regex(containing(literal), "i"));
+        }
+    }
+
+    /**
+     * A regex matching {@code value} literally; Mongo's PCRE honours \Q...\E like Java does.
+     */
+    static String containing(String value) {
+        return Pattern.quote(value);
+    }
+}
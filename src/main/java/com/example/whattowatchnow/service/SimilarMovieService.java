@@ -0,0 +1,224 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.recommend.AlsModel;
+import com.example.whattowatchnow.recommend.HnswIndex;
+import com.example.whattowatchnow.search.MovieIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * "More like this": nearest neighbors by cosine similarity in an {@link HnswIndex} over one
+ * vector per movie. The vector is genres and actors feature-hashed into
+ * {@link #CONTENT_DIMENSIONS} dimensions, followed by the movie's factors from the
+ * latent-factor model, which carry the rating co-occurrence. Both halves are unit length and
+ * scaled by the square roots of their weights, so a similarity is the weighted mix of the
+ * content and rating similarities. Movies the model does not know yet, or all movies while
+ * there is no model, are compared on content alone.
+ * <p>
+ * As a {@link MovieIndex} the graph is filled by {@link com.example.whattowatchnow.search.MovieIndexer}
+ * and a saved movie is inserted right away. A new factor model changes every vector, so the
+ * graph is then rebuilt in the background and swapped in; movies saved meanwhile go into
+ * both graphs.
+ */
+@Service
+public class SimilarMovieService implements MovieIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SimilarMovieService.class);
+
+    static final int CONTENT_DIMENSIONS = 128;
+    private static final float ACTOR_WEIGHT = 0.7f;
+    private static final int RECALL_K = 10;
+
+    private final MongoTemplate mongoTemplate;
+    private final AlsModelService alsModelService;
+    private final MovieCache movieCache;
+    private final int links;
+    private final int efConstruction;
+    private final int efSearch;
+    private final float ratingWeight;
+    private final int recallSample;
+    private final Object rebuildLock = new Object();
+    private volatile Graph graph;
+    private List<Movie> savedDuringRebuild; // Guarded by this
+
+    @Autowired
+    public SimilarMovieService(MongoTemplate mongoTemplate,
+                               AlsModelService alsModelService,
+                               MovieCache movieCache,
+                               @Value("${whattowatchnow.similar.links:16}") int links,
+                               @Value("${whattowatchnow.similar.ef-construction:200}") int efConstruction,
+                               @Value("${whattowatchnow.similar.ef-search:64}") int efSearch,
+                               @Value("${whattowatchnow.similar.rating-weight:0.5}") float ratingWeight,
+                               @Value("${whattowatchnow.similar.recall-sample:100}") int recallSample) {
+        this.mongoTemplate = mongoTemplate;
+        this.alsModelService = alsModelService;
+        this.movieCache = movieCache;
+        this.links = links;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.ratingWeight = ratingWeight;
+        this.recallSample = recallSample;
+        this.graph = newGraph(null);
+    }
+
+    @Override
+    public synchronized void index(Movie movie) {
+        graph.add(movie);
+        if (savedDuringRebuild != null) {
+            savedDuringRebuild.add(movie);
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        graph = newGraph(alsModelService.model());
+    }
+
+    @Async
+    @EventListener(FactorModelUpdatedEvent.class)
+    public void modelUpdated() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.currentTimeMillis();
+            Graph fresh = newGraph(alsModelService.model());
+            synchronized (this) {
+                savedDuringRebuild = new ArrayList<>();
+            }
+            int count = 0;
+            try {
+                Query query = new Query();
+                query.fields().include("genres", "actors");
+                try (Stream<Movie> movies = mongoTemplate.stream(query, Movie.class)) {
+                    for (Movie movie : (Iterable<Movie>) movies::iterator) {
+                        fresh.add(movie);
+                        count++;
+                    }
+                }
+                synchronized (this) {
+                    savedDuringRebuild.forEach(fresh::add);
+                    graph = fresh;
+                }
+                log.info("Rebuilt similar-movie index of {} movies with {} dimensions in {} ms",
+                        count, fresh.index.dimensions(), System.currentTimeMillis() - start);
+            } catch (RuntimeException e) {
+                log.warn("Similar-movie index rebuild failed after {} movies, keeping the current index", count, e);
+                return;
+            } finally {
+                synchronized (this) {
+                    savedDuringRebuild = null;
+                }
+            }
+            if (recallSample > 0) {
+                log.info("Similar-movie recall@{} at ef {}: {}", RECALL_K, efSearch,
+                        fresh.index.recall(recallSample, RECALL_K, efSearch, 42));
+            }
+        }
+    }
+
+    /**
+     * Up to {@code limit} movies most similar to the given one, most similar first; empty if
+     * the movie is not indexed.
+     *
+     * @param ef    candidates explored per query, null for the configured default; higher
+     *              finds more of the true neighbors at the cost of latency
+     * @param exact compare against every movie instead of searching the graph, for checking
+     *              what the approximate search misses
+     */
+    public List<Movie> similarTo(String movieId, int limit, Integer ef, boolean exact) {
+        HnswIndex index = graph.index;
+        float[] vector = index.vector(movieId);
+        if (vector == null) {
+            return List.of();
+        }
+        List<String> ids = exact
+                ? index.exactSearch(vector, limit, movieId)
+                : index.search(vector, limit, ef == null ? efSearch : ef, movieId);
+        return ids.stream().map(movieCache::get).filter(Objects::nonNull).toList();
+    }
+
+    private Graph newGraph(AlsModel model) {
+        int dimensions = CONTENT_DIMENSIONS + (model == null ? 0 : model.factors());
+        return new Graph(model, new HnswIndex(dimensions, links, efConstruction, 42));
+    }
+
+    // An index together with the factor model its vectors were computed from
+    private final class Graph {
+        private final AlsModel model;
+        private final HnswIndex index;
+
+        Graph(AlsModel model, HnswIndex index) {
+            this.model = model;
+            this.index = index;
+        }
+
+        void add(Movie movie) {
+            if (movie.getId() != null) {
+                index.add(movie.getId(), vector(movie));
+            }
+        }
+
+        private float[] vector(Movie movie) {
+            float[] vector = new float[index.dimensions()];
+            if (movie.getGenres() != null) {
+                movie.getGenres().forEach(genre -> hashFeature("g:" + genre, 1f, vector));
+            }
+            if (movie.getActors() != null) {
+                movie.getActors().forEach(actor -> hashFeature("a:" + actor, ACTOR_WEIGHT, vector));
+            }
+            float[] factors = model == null ? null : new float[model.factors()];
+            boolean rated = factors != null && model.movieFactors(movie.getId(), factors);
+            scale(vector, 0, CONTENT_DIMENSIONS, rated ? (float) Math.sqrt(1 - ratingWeight) : 1f);
+            if (rated) {
+                System.arraycopy(factors, 0, vector, CONTENT_DIMENSIONS, factors.length);
+                scale(vector, CONTENT_DIMENSIONS, vector.length, (float) Math.sqrt(ratingWeight));
+            }
+            return vector;
+        }
+    }
+
+    private static void hashFeature(String feature, float weight, float[] vector) {
+        int hash = mix(feature.trim().toLowerCase(Locale.ROOT).hashCode());
+        // Low bits pick the dimension, the top bit the sign, so collisions cancel out on average
+        vector[Math.floorMod(hash, CONTENT_DIMENSIONS)] += hash < 0 ? -weight : weight;
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    // Scales vector[from, to) to the given length, leaving it zero if it is zero
+    private static void scale(float[] vector, int from, int to, float length) {
+        double norm = 0;
+        for (int i = from; i < to; i++) {
+            norm += vector[i] * vector[i];
+        }
+        if (norm == 0) {
+            return;
+        }
+        float factor = (float) (length / Math.sqrt(norm));
+        for (int i = from; i < to; i++) {
+            vector[i] *= factor;
+        }
+    }
+}
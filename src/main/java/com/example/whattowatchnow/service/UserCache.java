@@ -0,0 +1,114 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.User;
+import com.example.whattowatchnow.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Who is calling and what their profile looks like, without a query per request.
+ * <p>
+ * Users are cached by id, read through {@link UserRepository#findById} and without their
+ * password hash; callers get a copy they may modify. The signed-in user's id comes from the
+ * {@link AuthenticatedUser} principal; any other principal (a test user, say) is resolved from
+ * its email once and remembered. {@link UserService} writes profile changes through; entries
+ * also expire, which bounds how stale an edit made on another instance can look here.
+ * Stats are exported as {@code cache.*} tagged {@code cache=users.byId} and {@code cache=users.idByEmail}.
+ */
+@Component
+public class UserCache {
+
+    private final UserRepository userRepository;
+    private final LoadingCache<String, User> users;
+    private final Cache<String, String> idsByEmail;
+
+    @Autowired
+    public UserCache(UserRepository userRepository,
+                     @Value("${whattowatchnow.users.cache.max-size:10000}") long maxSize,
+                     @Value("${whattowatchnow.users.cache.expire-after:10m}") Duration expireAfter,
+                     MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfter)
+                .recordStats()
+                .build(id -> userRepository.findById(id).map(UserCache::withoutPassword).orElse(null));
+        this.idsByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByEmail, "users.idByEmail");
+    }
+
+    /**
+     * The id of the user the current request is authenticated as, or null if there is none.
+     * An {@link AuthenticatedUser} principal's id is taken as is, so it may name an account
+     * deleted since sign-in; any other principal resolves to null once its account is gone.
+     */
+    public String currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return null;
+        }
+        if (authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return principal.getUserId();
+        }
+        return idForEmail(authentication.getName());
+    }
+
+    /**
+     * The user's id, or null if no user has this email. Emails never change, so the answer is
+     * kept until evicted.
+     */
+    public String idForEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        return idsByEmail.get(email, key -> userRepository.findByEmail(key).map(user -> {
+            users.put(user.getId(), withoutPassword(user)); // Not put(): it would write this entry too
+            return user.getId();
+        }).orElse(null));
+    }
+
+    /**
+     * A copy of the user with this id, password left out, or null if there is none.
+     */
+    public User get(String userId) {
+        User user = users.get(userId);
+        return user == null ? null : withoutPassword(user);
+    }
+
+    /**
+     * Replaces the cached copy after the user was loaded or saved, so the next read needs no
+     * round trip.
+     */
+    public void put(User user) {
+        if (user.getId() != null) {
+            users.put(user.getId(), withoutPassword(user));
+            if (user.getEmail() != null) {
+                idsByEmail.put(user.getEmail(), user.getId());
+            }
+        }
+    }
+
+    public void invalidate(String userId) {
+        users.invalidate(userId);
+    }
+
+    private static User withoutPassword(User user) {
+        User copy = new User(user.getNickname(), user.getEmail(), null, user.getProfilePicture());
+        copy.setId(user.getId());
+        return copy;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.whattowatchnow.service;
+
+/**
+ * Published by {@link UserService} when a user's nickname or profile picture changed.
+ */
+public class UserProfileChangedEvent {
+
+    private final String userId;
+
+    public UserProfileChangedEvent(String userId) {
+        this.userId = userId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+}
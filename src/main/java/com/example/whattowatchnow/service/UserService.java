@@ -3,6 +3,13 @@ package com.example.whattowatchnow.service;
 import com.example.whattowatchnow.domain.User;
 import com.example.whattowatchnow.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -17,11 +24,19 @@ public class UserService implements UserDetailsService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserCache userCache;
+    private final MongoTemplate mongoTemplate;
 
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       ApplicationEventPublisher eventPublisher, UserCache userCache,
+                       MongoTemplate mongoTemplate) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
+        this.userCache = userCache;
+        this.mongoTemplate = mongoTemplate;
     }
 
     public User registerUser(User user) throws Exception {
@@ -37,50 +52,78 @@ public class UserService implements UserDetailsService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
 
-        return new org.springframework.security.core.userdetails.User(
-                user.getEmail(),
-                user.getPassword(),
+        userCache.put(user); // Warm for the requests this sign-in is about to make
+        return new AuthenticatedUser(
+                user,
                 new ArrayList<>() // Add authorities/roles here if needed
         );
     }
 
+    /**
+     * The id of the authenticated user, or null if the request is anonymous or the account is gone.
+     */
+    public String currentUserId() {
+        return userCache.currentUserId();
+    }
+
     // Optional: A method to find a user by email, which could be used by other services or for login checks if not relying solely on Spring Security
     public Optional<User> findByEmail(String email) {
         return userRepository.findByEmail(email);
     }
 
     public User getUserProfile(String userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + userId));
-        // Ensure password is not sent
-        user.setPassword(null);
+        User user = userCache.get(userId); // Never carries the password
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found with id: " + userId);
+        }
         return user;
     }
 
     public User updateUserProfile(String userId, String newNickname, String newProfilePictureUrl) {
         // Ensure the authenticated user is updating their own profile
-        Authentication authentication = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
-        String currentPrincipalName = authentication.getName(); // This is the email
-        User currentUser = userRepository.findByEmail(currentPrincipalName)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + currentPrincipalName));
+        String currentUserId = userCache.currentUserId();
+        if (currentUserId == null) {
+            Authentication authentication = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
+            throw new UsernameNotFoundException("User not found with email: " + (authentication == null ? null : authentication.getName()));
+        }
 
-        if (!currentUser.getId().equals(userId)) {
+        if (!currentUserId.equals(userId)) {
             throw new SecurityException("User not authorized to update this profile.");
         }
 
-        User userToUpdate = userRepository.findById(userId)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + userId));
+        User before = userCache.get(userId); // Only decides whether reviews need refreshing
 
+        // $set just the fields given, so the update needs no read of the user document
+        Update update = new Update();
+        boolean reviewerChanged = false;
         if (newNickname != null && !newNickname.isEmpty()) {
-            userToUpdate.setNickname(newNickname);
+            update.set("nickname", newNickname);
+            reviewerChanged = before == null || !newNickname.equals(before.getNickname());
         }
         if (newProfilePictureUrl != null) { // Allow empty string to clear profile picture
-            userToUpdate.setProfilePicture(newProfilePictureUrl);
+            update.set("profilePicture", newProfilePictureUrl);
+            reviewerChanged |= before == null || !newProfilePictureUrl.equals(before.getProfilePicture());
+        }
+        if (update.getUpdateObject().isEmpty()) {
+            if (before == null) {
+                throw new UsernameNotFoundException("User not found with id: " + userId);
+            }
+            return before; // Nothing to change
         }
 
-        userRepository.save(userToUpdate);
+        User updated = mongoTemplate.findAndModify(new Query(Criteria.where("id").is(userId)), update,
+                FindAndModifyOptions.options().returnNew(true), User.class);
+        if (updated == null) {
+            userCache.invalidate(userId);
+            throw new UsernameNotFoundException("User not found with id: " + userId);
+        }
+        userCache.put(updated);
+        if (reviewerChanged) {
+            // Reviews carry a copy of the nickname and picture; refreshed in the background
+            eventPublisher.publishEvent(new UserProfileChangedEvent(userId));
+        }
         // Ensure password is not sent back
-        userToUpdate.setPassword(null);
-        return userToUpdate;
+        updated.setPassword(null);
+        return updated;
     }
 }
@@ -0,0 +1,65 @@
+package com.example.whattowatchnow.controller;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.dto.ActorPath;
+import com.example.whattowatchnow.dto.Collaborator;
+import com.example.whattowatchnow.service.ActorGraphService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ActorController.class)
+public class ActorControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ActorGraphService actorGraphService;
+
+    @Test
+    @WithMockUser
+    void getPath_returnsActorsAndMovies() throws Exception {
+        Movie heat = new Movie("Heat", List.of("Crime"), 1995, List.of("Al Pacino", "Val Kilmer"), "Heist.", null);
+        when(actorGraphService.shortestPath("Al Pacino", "Val Kilmer"))
+                .thenReturn(Optional.of(new ActorPath(List.of("Al Pacino", "Val Kilmer"), List.of(heat))));
+
+        mockMvc.perform(get("/api/actors/path").param("from", "Al Pacino").param("to", "Val Kilmer"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.actors", hasSize(2)))
+                .andExpect(jsonPath("$.movies[0].title", is("Heat")));
+    }
+
+    @Test
+    @WithMockUser
+    void getPath_unknownActor_returnsNotFound() throws Exception {
+        when(actorGraphService.shortestPath("Al Pacino", "Nobody")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/actors/path").param("from", "Al Pacino").param("to", "Nobody"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser
+    void getCollaborators_capsLimit() throws Exception {
+        when(actorGraphService.topCollaborators("Al Pacino", 100))
+                .thenReturn(Optional.of(List.of(new Collaborator("Robert De Niro", 4))));
+
+        mockMvc.perform(get("/api/actors/Al Pacino/collaborators").param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].actor", is("Robert De Niro")))
+                .andExpect(jsonPath("$[0].sharedMovies", is(4)));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.whattowatchnow.controller;
+
+import com.example.whattowatchnow.dto.LeaderboardEntry;
+import com.example.whattowatchnow.service.LeaderboardService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(LeaderboardController.class)
+public class LeaderboardControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private LeaderboardService leaderboardService;
+
+    @Test
+    @WithMockUser
+    void getTrending_defaultLimit() throws Exception {
+        when(leaderboardService.trending(null, 10))
+                .thenReturn(List.of(new LeaderboardEntry("movie1", "Inception", "url1", 3.5, 12)));
+
+        mockMvc.perform(get("/api/movies/trending"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].movieId", is("movie1")))
+                .andExpect(jsonPath("$[0].reviewCount", is(12)));
+    }
+
+    @Test
+    @WithMockUser
+    void getTopRated_perGenre_capsLimit() throws Exception {
+        when(leaderboardService.topRated("Drama", 100))
+                .thenReturn(List.of(new LeaderboardEntry("movie2", "The Notebook", "url2", 4.2, 80)));
+
+        mockMvc.perform(get("/api/movies/top-rated").param("genre", "Drama").param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title", is("The Notebook")));
+    }
+}
@@ -1,7 +1,18 @@
 package com.example.whattowatchnow.controller;
 
 import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.dto.FacetCount;
+import com.example.whattowatchnow.dto.MovieFacets;
+import com.example.whattowatchnow.dto.MoviePage;
+import com.example.whattowatchnow.dto.MovieSuggestion;
+import com.example.whattowatchnow.dto.RatingSummary;
+import com.example.whattowatchnow.service.ContentSimilarityService;
+import com.example.whattowatchnow.service.MovieExportService;
+import com.example.whattowatchnow.service.MovieRatingService;
 import com.example.whattowatchnow.service.MovieService;
+import com.example.whattowatchnow.service.MovieSuggestService;
+import com.example.whattowatchnow.service.RandomMovieService;
+import com.example.whattowatchnow.service.SimilarMovieService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,7 +22,10 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser; // For POST endpoint
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -20,6 +34,7 @@ import java.util.Optional;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -33,10 +48,27 @@ public class MovieControllerTest {
 
     @MockBean
     private MovieService movieService;
+
+    @MockBean
+    private MovieExportService movieExportService;
+
+    @MockBean
+    private MovieSuggestService movieSuggestService;
+
+    @MockBean
+    private MovieRatingService movieRatingService;
+
+    @MockBean
+    private SimilarMovieService similarMovieService;
+
+    @MockBean
+    private ContentSimilarityService contentSimilarityService;
+
+    @MockBean
+    private RandomMovieService randomMovieService;
     
-    // As MovieController has GET /api/movies/** as permitAll,
-    // we don't always need @WithMockUser for GETs unless a specific user role is tested.
-    // For POST /api/movies, it's authenticated, so @WithMockUser is needed.
+    // SecurityConfig is not part of this slice, so the default chain requires a user on every
+    // endpoint: GETs run with @WithMockUser too; the permitAll rules are not under test here.
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -53,25 +85,28 @@ public class MovieControllerTest {
     }
 
     @Test
+    @WithMockUser
     void getAllMovies_noParams_returnsListOfMovies() throws Exception {
         List<Movie> allMovies = Arrays.asList(movie1, movie2);
-        when(movieService.findMovies(isNull(), isNull(), isNull(), isNull())).thenReturn(allMovies);
+        when(movieService.findMovies(isNull(), isNull(), isNull(), isNull(), isNull(), eq(20), eq(false), eq(false))).thenReturn(new MoviePage(allMovies, "next"));
 
         mockMvc.perform(get("/api/movies")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(2)))
-                .andExpect(jsonPath("$[0].title", is(movie1.getTitle())))
-                .andExpect(jsonPath("$[1].title", is(movie2.getTitle())));
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].title", is(movie1.getTitle())))
+                .andExpect(jsonPath("$.items[1].title", is(movie2.getTitle())))
+                .andExpect(jsonPath("$.nextCursor", is("next")));
     }
 
     @Test
+    @WithMockUser
     void getAllMovies_withParams_returnsFilteredMovies() throws Exception {
         String query = "Inception";
         String genre = "Sci-Fi";
         Integer year = 2010;
         
-        when(movieService.findMovies(eq(query), eq(genre), eq(year), isNull())).thenReturn(Collections.singletonList(movie1));
+        when(movieService.findMovies(eq(query), eq(genre), eq(year), isNull(), isNull(), eq(20), eq(false), eq(false))).thenReturn(new MoviePage(Collections.singletonList(movie1), null));
 
         mockMvc.perform(get("/api/movies")
                 .param("query", query)
@@ -79,11 +114,129 @@ public class MovieControllerTest {
                 .param("year", year.toString())
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].title", is(movie1.getTitle())));
+    }
+
+    @Test
+    @WithMockUser
+    void getAllMovies_limitAboveMaximum_isClamped() throws Exception {
+        when(movieService.findMovies(isNull(), isNull(), isNull(), isNull(), eq("abc"), eq(100), eq(false), eq(false))).thenReturn(new MoviePage(Collections.emptyList(), null));
+
+        mockMvc.perform(get("/api/movies")
+                .param("cursor", "abc")
+                .param("limit", "5000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(0)));
+    }
+
+    @Test
+    @WithMockUser
+    void getAllMovies_withFacets_returnsCounts() throws Exception {
+        MoviePage page = new MoviePage(Collections.singletonList(movie1), null);
+        page.setFacets(new MovieFacets(Collections.singletonList(new FacetCount("Sci-Fi", 2)),
+                Collections.singletonList(new FacetCount("2010", 1))));
+        when(movieService.findMovies(isNull(), eq("Sci-Fi"), isNull(), isNull(), isNull(), eq(20), eq(true), eq(false))).thenReturn(page);
+
+        mockMvc.perform(get("/api/movies")
+                .param("genre", "Sci-Fi")
+                .param("facets", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.facets.genres[0].value", is("Sci-Fi")))
+                .andExpect(jsonPath("$.facets.genres[0].count", is(2)))
+                .andExpect(jsonPath("$.facets.years[0].value", is("2010")));
+    }
+
+    @Test
+    @WithMockUser
+    void suggest_returnsSuggestionsWithClampedLimit() throws Exception {
+        when(movieSuggestService.suggest(eq("mat"), eq(20)))
+                .thenReturn(Collections.singletonList(new MovieSuggestion("The Matrix", MovieSuggestion.TITLE, "movie2")));
+
+        mockMvc.perform(get("/api/movies/suggest")
+                .param("prefix", "mat")
+                .param("limit", "500"))
+                .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].title", is(movie1.getTitle())));
+                .andExpect(jsonPath("$[0].text", is("The Matrix")))
+                .andExpect(jsonPath("$[0].movieId", is("movie2")));
     }
 
     @Test
+    @WithMockUser
+    void getSimilarMovies_clampsLimitAndEf() throws Exception {
+        when(similarMovieService.similarTo(eq("movie1"), eq(50), eq(1000), eq(false)))
+                .thenReturn(Collections.singletonList(movie2));
+
+        mockMvc.perform(get("/api/movies/movie1/similar")
+                .param("limit", "500")
+                .param("ef", "100000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].title", is(movie2.getTitle())));
+    }
+
+    @Test
+    @WithMockUser
+    void getExactSimilarMovies_scansWithClampedLimit() throws Exception {
+        when(similarMovieService.similarTo(eq("movie1"), eq(50), isNull(), eq(true)))
+                .thenReturn(Collections.singletonList(movie2));
+
+        mockMvc.perform(get("/api/movies/movie1/similar/exact").param("limit", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title", is(movie2.getTitle())));
+    }
+
+    @Test
+    @WithMockUser
+    void exportMovies_streamsNdjsonAsAsyncTask() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(2).write("{\"id\":\"movie1\"}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(movieExportService).exportMovies(eq("movie0"), eq(false), any(OutputStream.class));
+
+        MvcResult started = mockMvc.perform(get("/api/movies/export").param("after", "movie0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":\"movie1\"}\n"));
+    }
+
+    @Test
+    @WithMockUser
+    void getContentSimilarMovies_returnsMovies() throws Exception {
+        when(contentSimilarityService.similarTo(eq("movie1"), eq(10))).thenReturn(Collections.singletonList(movie2));
+
+        mockMvc.perform(get("/api/movies/movie1/similar/content"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].title", is(movie2.getTitle())));
+    }
+
+    @Test
+    @WithMockUser
+    void getRandomMovie_withFilters_returnsPick() throws Exception {
+        when(randomMovieService.pick("Sci-Fi", 1999)).thenReturn(Optional.of(movie2));
+
+        mockMvc.perform(get("/api/movies/random").param("genre", "Sci-Fi").param("year", "1999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title", is(movie2.getTitle())));
+    }
+
+    @Test
+    @WithMockUser
+    void getRandomMovie_noMatch_returnsNotFound() throws Exception {
+        when(randomMovieService.pick(null, 1850)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/movies/random").param("year", "1850"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser
     void getMovieById_found_returnsMovie() throws Exception {
         when(movieService.getMovieById("movie1")).thenReturn(Optional.of(movie1));
 
@@ -95,6 +248,7 @@ public class MovieControllerTest {
     }
 
     @Test
+    @WithMockUser
     void getMovieById_notFound_returnsNotFound() throws Exception {
         when(movieService.getMovieById("nonExistentId")).thenReturn(Optional.empty());
 
@@ -103,6 +257,19 @@ public class MovieControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser
+    void getMovieRating_returnsAggregate() throws Exception {
+        when(movieRatingService.getRating("movie1"))
+                .thenReturn(new RatingSummary("movie1", 4, 17, new long[]{0, 0, 1, 1, 2}));
+
+        mockMvc.perform(get("/api/movies/movie1/rating"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count", is(4)))
+                .andExpect(jsonPath("$.mean", is(4.25)))
+                .andExpect(jsonPath("$.histogram[4]", is(2)));
+    }
+
     @Test
     @WithMockUser // POST /api/movies requires authentication
     void addMovie_success_returnsCreatedMovie() throws Exception {
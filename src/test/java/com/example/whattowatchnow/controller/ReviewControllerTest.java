@@ -1,7 +1,12 @@
 package com.example.whattowatchnow.controller;
 
 import com.example.whattowatchnow.domain.Review;
+import com.example.whattowatchnow.dto.MovieReviewSummary;
+import com.example.whattowatchnow.dto.RatingSummary;
+import com.example.whattowatchnow.dto.ReviewPage;
+import com.example.whattowatchnow.service.ReviewFeed;
 import com.example.whattowatchnow.service.ReviewService;
+import com.example.whattowatchnow.service.ReviewSort;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,11 +16,13 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -36,6 +43,9 @@ public class ReviewControllerTest {
     @MockBean
     private ReviewService reviewService;
 
+    @MockBean
+    private ReviewFeed reviewFeed;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -86,30 +96,116 @@ public class ReviewControllerTest {
                 .andExpect(status().isUnauthorized()); // Controller maps RuntimeException to UNAUTHORIZED
     }
 
+    @Test
+    @WithMockUser
+    void addReview_writeBehindFailed_returnsServiceUnavailable() throws Exception {
+        when(reviewService.addReview(any(Review.class), eq(movieId))).thenThrow(new IllegalStateException("Timed out saving review"));
+
+        Review reviewPayload = new Review(null, null, 5, "Lost in the queue");
+
+        mockMvc.perform(post("/api/movies/{movieId}/reviews", movieId)
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(reviewPayload)))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @WithMockUser
+    void addReview_ratingOutOfRange_returnsBadRequest() throws Exception {
+        when(reviewService.addReview(any(Review.class), eq(movieId))).thenThrow(new IllegalArgumentException("Rating must be between 1 and 5"));
+
+        Review reviewPayload = new Review(null, null, 0, "No stars");
+
+        mockMvc.perform(post("/api/movies/{movieId}/reviews", movieId)
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(reviewPayload)))
+                .andExpect(status().isBadRequest());
+    }
+
 
     @Test
+    @WithMockUser // The slice runs without SecurityConfig's permitAll rules
     void getReviewsForMovie_success_returnsListOfReviews() throws Exception {
         List<Review> reviews = Arrays.asList(review1, review2);
-        when(reviewService.getReviewsForMovie(movieId)).thenReturn(reviews);
+        when(reviewService.getReviewsForMovie(movieId, ReviewSort.NEWEST, null, 20)).thenReturn(new ReviewPage(reviews, "next"));
 
         mockMvc.perform(get("/api/movies/{movieId}/reviews", movieId)
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(2)))
-                .andExpect(jsonPath("$[0].id", is(review1.getId())))
-                .andExpect(jsonPath("$[1].id", is(review2.getId())));
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].id", is(review1.getId())))
+                .andExpect(jsonPath("$.items[1].id", is(review2.getId())))
+                .andExpect(jsonPath("$.nextCursor", is("next")));
     }
     
     @Test
+    @WithMockUser
     void getReviewsForMovie_noReviews_returnsEmptyList() throws Exception {
-        when(reviewService.getReviewsForMovie(movieId)).thenReturn(Collections.emptyList());
+        when(reviewService.getReviewsForMovie(movieId, ReviewSort.NEWEST, null, 20)).thenReturn(new ReviewPage(Collections.emptyList(), null));
 
         mockMvc.perform(get("/api/movies/{movieId}/reviews", movieId)
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(0)));
+                .andExpect(jsonPath("$.items", hasSize(0)));
+    }
+
+    @Test
+    @WithMockUser
+    void getReviewsForMovie_byRatingWithCursor_passesThrough() throws Exception {
+        when(reviewService.getReviewsForMovie(movieId, ReviewSort.RATING, "abc", 5)).thenReturn(new ReviewPage(List.of(review1), null));
+
+        mockMvc.perform(get("/api/movies/{movieId}/reviews", movieId)
+                .param("sort", "rating")
+                .param("cursor", "abc")
+                .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id", is(review1.getId())));
+    }
+
+    @Test
+    @WithMockUser
+    void getReviewsForMovie_unknownSortOrBadCursor_returnsBadRequest() throws Exception {
+        when(reviewService.getReviewsForMovie(movieId, ReviewSort.NEWEST, "garbage", 20)).thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        mockMvc.perform(get("/api/movies/{movieId}/reviews", movieId).param("sort", "loudest"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/movies/{movieId}/reviews", movieId).param("cursor", "garbage"))
+                .andExpect(status().isBadRequest());
+    }
+
+
+    @Test
+    @WithMockUser
+    void getReviewSummaries_returnsMapKeyedByMovie() throws Exception {
+        Map<String, MovieReviewSummary> summaries = Map.of(movieId,
+                new MovieReviewSummary(new RatingSummary(movieId, 2, 9, new long[]{0, 0, 0, 1, 1}), List.of(review1)));
+        when(reviewService.getReviewSummaries(List.of(movieId, "movie456"), 3)).thenReturn(summaries);
+
+        mockMvc.perform(get("/api/movies/review-summaries").param("ids", movieId + ",movie456"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movie123.rating.mean", is(4.5)))
+                .andExpect(jsonPath("$.movie123.recentReviews[0].id", is(review1.getId())));
     }
 
+    @Test
+    @WithMockUser
+    void getReviewSummaries_tooManyIds_returnsBadRequest() throws Exception {
+        String ids = String.join(",", Collections.nCopies(101, "m"));
+
+        mockMvc.perform(get("/api/movies/review-summaries").param("ids", ids))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void streamReviewsForMovie_opensEventStream() throws Exception {
+        when(reviewFeed.subscribe(movieId)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/movies/" + movieId + "/reviews/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+    }
 
     @Test
     @WithMockUser // Required for getting reviews by user ID
@@ -1,7 +1,11 @@
 package com.example.whattowatchnow.controller;
 
+import com.example.whattowatchnow.domain.Movie;
 import com.example.whattowatchnow.domain.User;
+import com.example.whattowatchnow.dto.FeedPage;
 import com.example.whattowatchnow.dto.UserProfileDto;
+import com.example.whattowatchnow.service.FeedService;
+import com.example.whattowatchnow.service.RecommendationService;
 import com.example.whattowatchnow.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,11 +17,12 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.util.Optional;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -31,6 +36,12 @@ public class UserControllerTest {
 
     @MockBean
     private UserService userService;
+
+    @MockBean
+    private RecommendationService recommendationService;
+
+    @MockBean
+    private FeedService feedService;
     
     // We also need to mock UserDetailsService if Spring Security is fully engaged,
     // but for WebMvcTest focused on UserController, @WithMockUser often suffices for authorization.
@@ -53,6 +64,7 @@ public class UserControllerTest {
     }
 
     @Test
+    @WithMockUser // The slice runs without SecurityConfig, whose permitAll would let anonymous callers register
     void registerUser_success() throws Exception {
         User registeredUser = new User(user.getNickname(), user.getEmail(), null, user.getProfilePicture()); // Password null in response
         registeredUser.setId(user.getId());
@@ -70,6 +82,7 @@ public class UserControllerTest {
     }
 
     @Test
+    @WithMockUser
     void registerUser_emailExists_returnsBadRequest() throws Exception {
         when(userService.registerUser(any(User.class))).thenThrow(new Exception("Email already exists"));
 
@@ -84,7 +97,7 @@ public class UserControllerTest {
     @Test
     @WithMockUser(username = "test@example.com") // Mock an authenticated user
     void getCurrentUserProfile_success() throws Exception {
-        when(userService.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(userService.currentUserId()).thenReturn(user.getId());
         when(userService.getUserProfile(user.getId())).thenReturn(user); // userService.getUserProfile returns user with password nulled
 
         mockMvc.perform(get("/api/users/me")
@@ -94,26 +107,58 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.nickname").value(user.getNickname()))
                 .andExpect(jsonPath("$.email").value(user.getEmail()));
     }
+
+    @Test
+    @WithMockUser(username = "test@example.com")
+    void getRecommendations_returnsMoviesForCurrentUser() throws Exception {
+        Movie movie = new Movie();
+        movie.setId("movie1");
+        movie.setTitle("Heat");
+        when(userService.currentUserId()).thenReturn(user.getId());
+        when(recommendationService.recommendFor(user.getId(), 100)).thenReturn(List.of(movie));
+
+        mockMvc.perform(get("/api/users/me/recommendations").param("limit", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value("movie1"))
+                .andExpect(jsonPath("$[0].title").value("Heat"));
+    }
+
+    @Test
+    @WithMockUser(username = "test@example.com")
+    void getFeed_returnsPageForCurrentUser() throws Exception {
+        Movie movie = new Movie();
+        movie.setId("movie1");
+        movie.setTitle("Heat");
+        when(userService.currentUserId()).thenReturn(user.getId());
+        when(feedService.getFeed(user.getId(), "abc", 50)).thenReturn(new FeedPage(List.of(movie), "def"));
+
+        mockMvc.perform(get("/api/users/me/feed").param("cursor", "abc").param("limit", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].title").value("Heat"))
+                .andExpect(jsonPath("$.nextCursor").value("def"));
+    }
+
+    @Test
+    @WithMockUser(username = "test@example.com")
+    void getFeed_badCursor_returnsBadRequest() throws Exception {
+        when(userService.currentUserId()).thenReturn(user.getId());
+        when(feedService.getFeed(user.getId(), "junk", 20)).thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        mockMvc.perform(get("/api/users/me/feed").param("cursor", "junk"))
+                .andExpect(status().isBadRequest());
+    }
     
     @Test
     @WithMockUser(username = "test@example.com")
-    void getCurrentUserProfile_userNotFoundInService_throwsExceptionInternal() throws Exception {
-        // This tests if the principal (from @WithMockUser) is not found by findByEmail
-        when(userService.findByEmail("test@example.com")).thenReturn(Optional.empty());
+    void getCurrentUserProfile_userNotFoundInService_returnsUnauthorized() throws Exception {
+        // This tests if the principal (from @WithMockUser) does not resolve to a user
+        when(userService.currentUserId()).thenReturn(null);
 
+        // The controller throws UsernameNotFoundException, an AuthenticationException, which
+        // Spring Security's ExceptionTranslationFilter turns into an authentication challenge
         mockMvc.perform(get("/api/users/me")
                 .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(status().isNotFound()); // Or whatever UsernameNotFoundException maps to
-                // By default Spring Boot might turn it into a 500 if not handled by @ControllerAdvice
-                // For this test, let's assume it becomes a 404 or similar due to UsernameNotFoundException
-                // If it's 500, then an @ControllerAdvice would be needed for proper status mapping.
-                // Let's check the actual controller logic: it throws UsernameNotFoundException.
-                // Spring's default handler for UsernameNotFoundException (if not caught by a global handler)
-                // might result in a 500. For a more specific test, a custom exception handler mapping
-                // UsernameNotFoundException to 404 would be good.
-                // For now, we'll expect a general server error or a specific one if defined.
-                // A simple way is to ensure the controller re-throws or handles it.
-                // The controller uses .orElseThrow for findByEmail.
+                .andExpect(status().isUnauthorized());
     }
 
 
@@ -123,7 +168,7 @@ public class UserControllerTest {
         User updatedUser = new User("updatedNickname", user.getEmail(), null, "newpic.jpg");
         updatedUser.setId(user.getId());
 
-        when(userService.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(userService.currentUserId()).thenReturn(user.getId());
         when(userService.updateUserProfile(eq(user.getId()), anyString(), anyString())).thenReturn(updatedUser);
 
         UserProfileDto updateRequest = new UserProfileDto();
@@ -142,8 +187,8 @@ public class UserControllerTest {
     @Test
     @WithMockUser(username = "test@example.com")
     void updateUserProfile_serviceThrowsSecurityException_returnsForbidden() throws Exception {
-        when(userService.findByEmail("test@example.com")).thenReturn(Optional.of(user));
-        when(userService.updateUserProfile(eq(user.getId()), anyString(), anyString()))
+        when(userService.currentUserId()).thenReturn(user.getId());
+        when(userService.updateUserProfile(eq(user.getId()), anyString(), isNull()))
             .thenThrow(new SecurityException("User not authorized"));
 
         UserProfileDto updateRequest = new UserProfileDto();
@@ -0,0 +1,106 @@
+package com.example.whattowatchnow.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ActorGraphTest {
+
+    private static ActorGraph graph() {
+        return new ActorGraph.Builder(100, 2)
+                .add("heat", List.of("Al Pacino", "Robert De Niro", "Val Kilmer"))
+                .add("godfather2", List.of("Al Pacino", "Robert De Niro", "Diane Keaton"))
+                .add("annie-hall", List.of("Diane Keaton", "Woody Allen"))
+                .add("top-gun", List.of("Tom Cruise", "Val Kilmer"))
+                .add("notebook", List.of("Rachel McAdams", "Ryan Gosling"))
+                .add("no-cast", null)
+                .build();
+    }
+
+    @Test
+    void build_internsActorsIgnoringCase() {
+        ActorGraph graph = graph();
+
+        assertEquals(8, graph.actors());
+        assertEquals(6, graph.movies());
+        assertEquals(12, graph.edges());
+        assertEquals(graph.actor("Al Pacino"), graph.actor("al  pacino"));
+        assertEquals(-1, graph.actor("Nobody"));
+    }
+
+    @Test
+    void sharedMovies_intersectsFilmographies() {
+        ActorGraph graph = graph();
+
+        assertEquals(List.of("heat", "godfather2"), graph.sharedMovies(graph.actor("Al Pacino"), graph.actor("Robert De Niro")));
+        assertEquals(List.of(), graph.sharedMovies(graph.actor("Al Pacino"), graph.actor("Woody Allen")));
+    }
+
+    @Test
+    void topCollaborators_mostSharedMoviesFirst() throws InterruptedException {
+        ActorGraph graph = graph();
+
+        List<int[]> collaborators = graph.topCollaborators(graph.actor("Al Pacino"), 2);
+
+        assertEquals("Robert De Niro", graph.actorName(collaborators.get(0)[0]));
+        assertEquals(2, collaborators.get(0)[1]);
+        assertEquals("Diane Keaton", graph.actorName(collaborators.get(1)[0]));
+    }
+
+    @Test
+    void topCollaborators_sharesScratchWithPathQueries() throws InterruptedException {
+        ActorGraph graph = new ActorGraph.Builder(100, 1)
+                .add("heat", List.of("Al Pacino", "Robert De Niro", "Val Kilmer"))
+                .add("top-gun", List.of("Tom Cruise", "Val Kilmer"))
+                .build();
+
+        assertEquals(5, graph.shortestPath(graph.actor("Tom Cruise"), graph.actor("Al Pacino"), 6).length);
+        List<int[]> collaborators = graph.topCollaborators(graph.actor("Val Kilmer"), 5);
+        assertEquals(List.of("Al Pacino", "Robert De Niro", "Tom Cruise"),
+                collaborators.stream().map(pair -> graph.actorName(pair[0])).toList());
+        assertEquals(5, graph.shortestPath(graph.actor("Tom Cruise"), graph.actor("Robert De Niro"), 6).length);
+        assertEquals(List.of(), graph.topCollaborators(graph.actor("Val Kilmer"), 0));
+    }
+
+    @Test
+    void shortestPath_findsChainOfCoStars() throws InterruptedException {
+        ActorGraph graph = graph();
+
+        int[] path = graph.shortestPath(graph.actor("Tom Cruise"), graph.actor("Woody Allen"), 6);
+
+        List<String> steps = new ArrayList<>();
+        for (int i = 0; i < path.length; i++) {
+            steps.add(i % 2 == 0 ? graph.actorName(path[i]) : graph.movieId(path[i]));
+        }
+        // Pacino and De Niro are both in heat and godfather2, either one makes the link
+        assertEquals(List.of("Tom Cruise", "top-gun", "Val Kilmer", "heat"), steps.subList(0, 4));
+        assertTrue(List.of("Al Pacino", "Robert De Niro").contains(steps.get(4)));
+        assertEquals(List.of("godfather2", "Diane Keaton", "annie-hall", "Woody Allen"), steps.subList(5, 9));
+        assertEquals(9, path.length);
+        assertArrayEquals(new int[0], graph.shortestPath(graph.actor("Tom Cruise"), graph.actor("Woody Allen"), 3));
+        assertArrayEquals(new int[0], graph.shortestPath(graph.actor("Tom Cruise"), graph.actor("Ryan Gosling"), 6));
+    }
+
+    @Test
+    void shortestPath_largeFrontierMatchesExpectedLength() throws InterruptedException {
+        // A chain of movies, each shared by one link actor with the next and padded with extras
+        ActorGraph.Builder builder = new ActorGraph.Builder(1_000_000, 1);
+        for (int m = 0; m < 200; m++) {
+            List<String> cast = new ArrayList<>(List.of("link " + m, "link " + (m + 1)));
+            for (int extra = 0; extra < 600; extra++) {
+                cast.add("extra " + m + " " + extra);
+            }
+            builder.add("movie" + m, cast);
+        }
+        ActorGraph graph = builder.build();
+
+        int[] path = graph.shortestPath(graph.actor("extra 0 0"), graph.actor("extra 5 0"), 10);
+
+        assertEquals(2 * 6 + 1, path.length);
+        assertEquals("movie0", graph.movieId(path[1]));
+        assertEquals("movie5", graph.movieId(path[path.length - 2]));
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.whattowatchnow.ranking;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.domain.TrendingScore;
+import com.example.whattowatchnow.dto.LeaderboardEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LeaderboardsTest {
+
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+
+    private Leaderboards leaderboards;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        leaderboards = new Leaderboards(Duration.ofHours(24), 10);
+        now = System.currentTimeMillis();
+        leaderboards.index(movie("m1", "Inception", "Sci-Fi", "Action"));
+        leaderboards.index(movie("m2", "The Notebook", "Romance"));
+        leaderboards.index(movie("m3", "The Matrix", "Sci-Fi"));
+    }
+
+    @Test
+    void trending_recentActivityOutranksOlderActivity() {
+        // Two reviews three days ago weigh 2 * 1/8, one review an hour ago almost 1
+        leaderboards.reviewAdded("m1", 5, now - 72 * HOUR);
+        leaderboards.reviewAdded("m1", 5, now - 72 * HOUR);
+        leaderboards.reviewAdded("m2", 3, now - HOUR);
+
+        List<LeaderboardEntry> trending = leaderboards.trending(null, 10);
+
+        assertEquals(Arrays.asList("m2", "m1"), ids(trending));
+        assertEquals(0.25, trending.get(1).getScore(), 0.01);
+        assertEquals("The Notebook", trending.get(0).getTitle());
+    }
+
+    @Test
+    void trending_perGenre() {
+        leaderboards.reviewAdded("m1", 4, now);
+        leaderboards.reviewAdded("m2", 4, now);
+        leaderboards.reviewAdded("m3", 4, now - HOUR);
+
+        assertEquals(Arrays.asList("m1", "m3"), ids(leaderboards.trending("sci-fi", 10)));
+        assertTrue(leaderboards.trending("Western", 10).isEmpty());
+    }
+
+    @Test
+    void reviewRemoved_undoesTheReview() {
+        leaderboards.reviewAdded("m1", 5, now);
+        leaderboards.reviewRemoved("m1", 5, now);
+
+        assertTrue(leaderboards.trending(null, 10).isEmpty());
+        assertTrue(leaderboards.topRated(null, 10).isEmpty());
+    }
+
+    @Test
+    void topRated_pullsFewReviewsTowardsTheMean() {
+        leaderboards.reviewAdded("m1", 5, now); // a single perfect score
+        for (int i = 0; i < 100; i++) {
+            leaderboards.reviewAdded("m2", 4, now);
+        }
+        for (int i = 0; i < 100; i++) {
+            leaderboards.reviewAdded("m3", 2, now);
+        }
+        leaderboards.refresh(now);
+
+        List<LeaderboardEntry> top = leaderboards.topRated(null, 10);
+
+        assertEquals(Arrays.asList("m2", "m1", "m3"), ids(top));
+        assertEquals(101, top.get(0).getReviewCount() + top.get(1).getReviewCount());
+        assertEquals((10 * (605.0 / 201) + 5) / 11, top.get(1).getScore(), 1e-9);
+    }
+
+    @Test
+    void index_genreChangeMovesTheMovie() {
+        leaderboards.reviewAdded("m2", 4, now);
+
+        leaderboards.index(movie("m2", "The Notebook", "Drama"));
+
+        assertTrue(leaderboards.trending("romance", 10).isEmpty());
+        assertEquals(List.of("m2"), ids(leaderboards.trending("drama", 10)));
+    }
+
+    @Test
+    void reviewsOfUnknownMovies_areNotListed() {
+        leaderboards.reviewAdded("gone", 5, now);
+
+        assertTrue(leaderboards.trending(null, 10).isEmpty());
+    }
+
+    @Test
+    void changedTrends_roundTripsThroughRestore() {
+        leaderboards.reviewAdded("m1", 5, now - 24 * HOUR);
+        leaderboards.reviewAdded("m3", 5, now);
+        Instant takenAt = Instant.ofEpochMilli(now);
+
+        List<TrendingScore> changed = leaderboards.changedTrends(takenAt);
+        assertEquals(2, changed.size());
+        assertTrue(leaderboards.changedTrends(takenAt).isEmpty());
+
+        Leaderboards restored = new Leaderboards(Duration.ofHours(24), 10);
+        restored.index(movie("m1", "Inception", "Sci-Fi", "Action"));
+        restored.index(movie("m3", "The Matrix", "Sci-Fi"));
+        changed.forEach(score -> restored.restoreTrend(score.getMovieId(), score.getScore(), score.getTakenAt()));
+
+        List<LeaderboardEntry> trending = restored.trending(null, 10);
+        assertEquals(Arrays.asList("m3", "m1"), ids(trending));
+        assertEquals(0.5, trending.get(1).getScore(), 0.01);
+    }
+
+    @Test
+    void refresh_rebasingKeepsScores() {
+        leaderboards.reviewAdded("m1", 5, now);
+        double before = leaderboards.trending(null, 1).get(0).getScore();
+
+        leaderboards.refresh(now + Duration.ofDays(365).toMillis()); // far beyond the rebase threshold
+        leaderboards.reviewAdded("m3", 5, now + Duration.ofDays(365).toMillis());
+
+        List<LeaderboardEntry> trending = leaderboards.trending(null, 10);
+        assertEquals(Arrays.asList("m3", "m1"), ids(trending));
+        assertEquals(before, trending.get(1).getScore(), 0.01);
+    }
+
+    private static Movie movie(String id, String title, String... genres) {
+        Movie movie = new Movie(title, Arrays.asList(genres), 2000, List.of(), "", null);
+        movie.setId(id);
+        return movie;
+    }
+
+    private static List<String> ids(List<LeaderboardEntry> entries) {
+        return entries.stream().map(LeaderboardEntry::getMovieId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.whattowatchnow.ranking;
+
+import com.example.whattowatchnow.domain.Movie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RandomPicksTest {
+
+    private Leaderboards leaderboards;
+    private RandomPicks picks;
+
+    @BeforeEach
+    void setUp() {
+        leaderboards = new Leaderboards(Duration.ofHours(24), 10);
+        picks = new RandomPicks(leaderboards);
+        for (Movie movie : List.of(movie("m1", 1999, "Sci-Fi"), movie("m2", 1999, "Drama"), movie("m3", 2010, "Sci-Fi"))) {
+            leaderboards.index(movie);
+            picks.index(movie);
+        }
+    }
+
+    private static Movie movie(String id, int year, String... genres) {
+        Movie movie = new Movie(id, List.of(genres), year, List.of(), "", null);
+        movie.setId(id);
+        return movie;
+    }
+
+    private Map<String, Integer> counts(String genre, Integer year, int draws) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < draws; i++) {
+            counts.merge(picks.pick(genre, year), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    @Test
+    void pick_onlyReturnsMoviesMatchingFilters() {
+        assertEquals(Map.of("m1", 200), counts("sci-fi", 1999, 200));
+        assertEquals(Map.of("m3", 200), counts(" SCI-FI ", 2010, 200));
+        assertEquals(2, counts(null, 1999, 500).size());
+        assertNull(picks.pick("Western", null));
+        assertNull(picks.pick(null, 1850));
+    }
+
+    @Test
+    void refresh_followsRatingChanges() {
+        for (int i = 0; i < 200; i++) {
+            leaderboards.reviewAdded("m1", 5, System.currentTimeMillis());
+            leaderboards.reviewAdded("m3", 1, System.currentTimeMillis());
+        }
+        picks.pick("sci-fi", null); // Built before the marks below, with the new ratings
+
+        picks.weightChanged("m1");
+        assertTrue(picks.refresh() >= 3);
+
+        Map<String, Integer> counts = counts("Sci-Fi", null, 20_000);
+        // Weights are about 4.8 vs 1.2 times the same log factor
+        assertEquals(0.8, counts.get("m1") / 20_000.0, 0.03);
+        assertEquals(0, picks.refresh());
+    }
+
+    @Test
+    void index_movingGenreLeavesOldBucket() {
+        assertNotNull(picks.pick("drama", null));
+
+        picks.index(movie("m2", 1999, "Comedy"));
+        picks.refresh();
+
+        assertNull(picks.pick("drama", null));
+        assertEquals("m2", picks.pick("comedy", 1999));
+    }
+
+    @Test
+    void aliasTable_matchesWeights() {
+        AliasTable table = new AliasTable(List.of("a", "b", "c", "d"), new double[]{1, 2, 3, 0});
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 60_000; i++) {
+            counts.merge(table.pick(), 1, Integer::sum);
+        }
+
+        assertEquals(10_000, counts.get("a"), 600);
+        assertEquals(20_000, counts.get("b"), 800);
+        assertEquals(30_000, counts.get("c"), 800);
+        assertNull(counts.get("d"));
+    }
+}
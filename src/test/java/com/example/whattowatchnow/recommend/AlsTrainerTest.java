@@ -0,0 +1,90 @@
+package com.example.whattowatchnow.recommend;
+
+import com.example.whattowatchnow.search.MovieDocIds;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AlsTrainerTest {
+
+    @TempDir
+    Path dir;
+
+    private MovieDocIds movieDocIds;
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void setUp() {
+        movieDocIds = new MovieDocIds();
+        pool = new ForkJoinPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    private RatingMatrix ratings() {
+        return new RatingMatrix.Builder(movieDocIds)
+                .add("u1", "heat", 5).add("u1", "ronin", 5).add("u1", "notebook", 1)
+                .add("u2", "heat", 4).add("u2", "ronin", 5).add("u2", "notebook", 2)
+                .add("u3", "heat", 5).add("u3", "ronin", 4).add("u3", "notebook", 1)
+                .add("u4", "heat", 1).add("u4", "ronin", 2).add("u4", "notebook", 5)
+                .add("u5", "heat", 5)
+                .build();
+    }
+
+    @Test
+    void choleskySolve_solvesSymmetricSystem() {
+        // [4 2; 2 3] x = [2; 5]  ->  x = [-0.5; 2]
+        double[] a = {4, 0, 2, 3, 2, 5};
+        AlsTrainer.choleskySolve(a, 2);
+
+        assertEquals(-0.5, a[4], 1e-9);
+        assertEquals(2.0, a[5], 1e-9);
+    }
+
+    @Test
+    void train_fitsRatingsAndRecommendsUnratedMovies() throws Exception {
+        List<Double> errors = new ArrayList<>();
+        Path modelFile = dir.resolve("model.bin");
+
+        AlsModel model = new AlsTrainer(2, 0.05f, 10, pool).train(ratings(), movieDocIds, null,
+                dir.resolve("checkpoint.bin"), modelFile, (iteration, rmse) -> errors.add(rmse));
+
+        assertEquals(10, errors.size());
+        assertTrue(errors.get(9) < errors.get(0), "Training error should go down: " + errors);
+        assertEquals(10, model.iteration());
+        assertEquals(5, model.users());
+        assertEquals(List.of("ronin"), model.recommend("u5", 10));
+        assertEquals(List.of(), model.recommend("u1", 10), "u1 rated everything");
+        assertEquals(List.of(), model.recommend("stranger", 10));
+        assertEquals(List.of("ronin"), AlsModel.open(modelFile).recommend("u5", 10), "Reopened from disk");
+    }
+
+    @Test
+    void train_resumesAfterTheCheckpointedIteration() throws Exception {
+        Path checkpoint = dir.resolve("checkpoint.bin");
+        new AlsTrainer(2, 0.05f, 3, pool).train(ratings(), movieDocIds, null,
+                checkpoint, dir.resolve("first.bin"), (iteration, rmse) -> { });
+        AlsModel saved = AlsModel.open(checkpoint);
+        assertEquals(2, saved.iteration(), "Checkpoints are written after every iteration but the last");
+
+        List<Integer> resumed = new ArrayList<>();
+        AlsModel model = new AlsTrainer(2, 0.05f, 3, pool).train(ratings(), movieDocIds, saved,
+                dir.resolve("second.bin"), dir.resolve("model.bin"), (iteration, rmse) -> resumed.add(iteration));
+
+        assertEquals(List.of(3), resumed);
+        assertEquals(3, model.iteration());
+        assertTrue(Files.exists(dir.resolve("model.bin")));
+    }
+}
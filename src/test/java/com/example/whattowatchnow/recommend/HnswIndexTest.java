@@ -0,0 +1,93 @@
+package com.example.whattowatchnow.recommend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HnswIndexTest {
+
+    private static float[] randomVector(Random random, int dimensions) {
+        float[] vector = new float[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            vector[d] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    @Test
+    void search_findsNearestByCosine() {
+        HnswIndex index = new HnswIndex(2, 4, 20, 1);
+        index.add("east", new float[]{1, 0});
+        index.add("north-east", new float[]{1, 1});
+        index.add("north", new float[]{0, 3});
+        index.add("west", new float[]{-2, 0});
+
+        assertEquals(List.of("north-east", "north"), index.search(new float[]{1, 0}, 2, 10, "east"));
+        assertEquals(index.exactSearch(new float[]{0, 1}, 3, null), index.search(new float[]{0, 1}, 3, 10, null));
+    }
+
+    @Test
+    void recall_isHighOnRandomVectors() {
+        Random random = new Random(7);
+        HnswIndex index = new HnswIndex(16, 8, 100, 3);
+        for (int i = 0; i < 2000; i++) {
+            index.add("m" + i, randomVector(random, 16));
+        }
+
+        assertEquals(2000, index.size());
+        assertTrue(index.recall(100, 10, 100, 11) > 0.9);
+        // A wider search never finds less
+        assertTrue(index.recall(100, 10, 200, 11) >= index.recall(100, 10, 10, 11));
+    }
+
+    @Test
+    void add_sameIdReplacesOldVector() {
+        HnswIndex index = new HnswIndex(2, 4, 20, 1);
+        index.add("a", new float[]{1, 0});
+        index.add("b", new float[]{0, 1});
+        index.add("c", new float[]{1, 0.1f});
+
+        index.add("c", new float[]{0.1f, 1});
+
+        assertEquals(3, index.size());
+        assertEquals(List.of("c", "a"), index.search(new float[]{0, 1}, 5, 10, "b"));
+        assertArrayEquals(new float[]{0.1f, 1}, index.vector("c"), 0.2f);
+    }
+
+    @Test
+    void add_repeatedUpdatesDoNotGrowTheGraph() {
+        Random random = new Random(5);
+        HnswIndex index = new HnswIndex(8, 4, 40, 1);
+        for (int i = 0; i < 100; i++) {
+            index.add("m" + i, randomVector(random, 8));
+        }
+
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 100; i++) {
+                index.add("m" + i, randomVector(random, 8));
+            }
+        }
+
+        assertEquals(100, index.size());
+        // At most a quarter of the stored nodes are retired ones
+        assertTrue(index.storedNodes() <= 133);
+        assertTrue(index.recall(50, 5, 100, 11) > 0.9);
+    }
+
+    @Test
+    void remove_dropsFromResults() {
+        HnswIndex index = new HnswIndex(2, 4, 20, 1);
+        index.add("a", new float[]{1, 0});
+        index.add("b", new float[]{1, 0.2f});
+
+        assertTrue(index.remove("b"));
+
+        assertFalse(index.contains("b"));
+        assertNull(index.vector("b"));
+        assertEquals(List.of("a"), index.search(new float[]{1, 0.2f}, 5, 10, null));
+        assertEquals(List.of("a"), index.exactSearch(new float[]{1, 0.2f}, 5, null));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.whattowatchnow.recommend;
+
+import com.example.whattowatchnow.search.MovieDocIds;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemNeighborsTest {
+
+    private MovieDocIds movieDocIds;
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void setUp() {
+        movieDocIds = new MovieDocIds();
+        pool = new ForkJoinPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    // Fans of heat also like ronin and dislike notebook; one user has the opposite taste
+    private RatingMatrix ratings() {
+        return new RatingMatrix.Builder(movieDocIds)
+                .add("u1", "heat", 5).add("u1", "ronin", 5).add("u1", "notebook", 1)
+                .add("u2", "heat", 4).add("u2", "ronin", 5).add("u2", "notebook", 2)
+                .add("u3", "heat", 5).add("u3", "ronin", 4).add("u3", "notebook", 1)
+                .add("u4", "heat", 1).add("u4", "ronin", 2).add("u4", "notebook", 5)
+                .build();
+    }
+
+    @Test
+    void build_duplicateRatingsAreMergedAndCentered() {
+        RatingMatrix matrix = new RatingMatrix.Builder(movieDocIds)
+                .add("u1", "heat", 5).add("u1", "heat", 3).add("u2", "heat", 4)
+                .build();
+
+        assertEquals(2, matrix.users());
+        assertEquals(2, matrix.ratings(), "u1's two reviews of heat count once");
+        assertEquals(4f, matrix.globalMean());
+        // u1 rated heat 4 on average, exactly the baseline
+        assertEquals(0f, matrix.userValues[matrix.userStart[0]], 1e-6);
+    }
+
+    @Test
+    void compute_keepsOnlyPositivelyCorrelatedNeighbors() {
+        ItemNeighbors neighbors = ItemNeighbors.compute(ratings(), movieDocIds, 10, 0, 100, pool);
+
+        assertEquals(List.of("ronin"), neighbors.neighborsOf("heat"));
+        assertEquals(List.of("heat"), neighbors.neighborsOf("ronin"));
+        assertEquals(List.of(), neighbors.neighborsOf("notebook"));
+        assertEquals(List.of(), neighbors.neighborsOf("unknown"));
+    }
+
+    @Test
+    void compute_skipsUsersWithTooManyRatings() {
+        ItemNeighbors neighbors = ItemNeighbors.compute(ratings(), movieDocIds, 10, 0, 2, pool);
+
+        assertEquals(0, neighbors.links());
+    }
+
+    @Test
+    void recommend_ranksNeighborsOfWellRatedMoviesAndSkipsRatedOnes() {
+        ItemNeighbors neighbors = ItemNeighbors.compute(ratings(), movieDocIds, 10, 0, 100, pool);
+
+        assertEquals(List.of("ronin"), neighbors.recommend(List.of("heat"), new float[]{5}, 10));
+        assertEquals(List.of(), neighbors.recommend(List.of("heat"), new float[]{1}, 10),
+                "Disliking heat says nothing good about ronin");
+        assertEquals(List.of(), neighbors.recommend(List.of("heat", "ronin"), new float[]{5, 5}, 10));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.whattowatchnow.recommend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MinHashLshTest {
+
+    @Test
+    void similar_ranksByEstimatedJaccard() {
+        MinHashLsh lsh = new MinHashLsh(16, 4, 1);
+        lsh.put(0, Set.of("g:crime", "g:thriller", "a:al pacino", "a:robert de niro"));
+        lsh.put(1, Set.of("g:crime", "g:thriller", "a:al pacino", "a:robert de niro", "a:val kilmer"));
+        lsh.put(2, Set.of("g:crime", "g:drama", "a:al pacino"));
+        lsh.put(3, Set.of("g:romance", "a:rachel mcadams"));
+
+        int[] docs = new int[3];
+        float[] similarities = new float[3];
+        int found = lsh.similar(0, 3, docs, similarities);
+
+        assertTrue(found >= 1);
+        assertEquals(1, docs[0]);
+        assertEquals(0.8, similarities[0], 0.2);
+        for (int i = 0; i < found; i++) {
+            assertNotEquals(3, docs[i]); // Nothing in common, never a candidate
+        }
+    }
+
+    @Test
+    void put_againMovesDocToNewBuckets() {
+        MinHashLsh lsh = new MinHashLsh(16, 4, 1);
+        lsh.put(0, Set.of("g:comedy", "a:jim carrey"));
+        lsh.put(1, Set.of("g:comedy", "a:jim carrey"));
+        lsh.put(1, Set.of("g:horror", "a:jamie lee curtis"));
+
+        assertEquals(0, lsh.similar(0, 5, new int[5], new float[5]));
+
+        lsh.put(1, Set.of());
+        assertEquals(1, lsh.size());
+    }
+
+    @Test
+    void accuracy_findsMostOfExactTopK() {
+        Random random = new Random(5);
+        MinHashLsh lsh = new MinHashLsh(16, 4, 1);
+        // Clusters of movies sharing most of a cast, plus some noise
+        for (int doc = 0; doc < 500; doc++) {
+            int cluster = doc / 10;
+            List<String> features = new ArrayList<>();
+            for (int a = 0; a < 6; a++) {
+                features.add("a:" + cluster + "-" + a);
+            }
+            features.remove(random.nextInt(features.size()));
+            features.add("g:" + random.nextInt(5));
+            lsh.put(doc, features);
+        }
+
+        MinHashLsh.Accuracy accuracy = lsh.accuracy(50, 5, 3);
+
+        assertEquals(50, accuracy.queries());
+        assertTrue(accuracy.recall() > 0.9, "recall " + accuracy.recall());
+        assertTrue(accuracy.meanAbsoluteError() < 0.1, "error " + accuracy.meanAbsoluteError());
+        assertTrue(accuracy.meanCandidates() < 100, "candidates " + accuracy.meanCandidates());
+    }
+}
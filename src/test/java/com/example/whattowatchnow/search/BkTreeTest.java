@@ -0,0 +1,50 @@
+package com.example.whattowatchnow.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BkTreeTest {
+
+    @Test
+    void distance_countsTranspositionAsOneEdit() {
+        assertEquals(0, BkTree.distance("matrix", "matrix"));
+        assertEquals(1, BkTree.distance("matirx", "matrix"));
+        assertEquals(1, BkTree.distance("interstelar", "interstellar"));
+        assertEquals(2, BkTree.distance("ca", "abc"));
+        assertEquals(3, BkTree.distance("kitten", "sitting"));
+    }
+
+    @Test
+    void distance_reusedAcrossValuesOfDifferentLengths_matchesFreshOnes() {
+        BkTree.Distance fromQuery = new BkTree.Distance("matirx");
+
+        for (String value : Arrays.asList("matrix", "a", "interstellar", "xirtam", "mat", "matirx", "")) {
+            assertEquals(BkTree.distance("matirx", value), fromQuery.to(value), value);
+        }
+        assertEquals(1, fromQuery.to("matrix"));
+        assertEquals(6, fromQuery.to(""));
+    }
+
+    @Test
+    void search_returnsValuesWithinDistanceClosestFirst() {
+        BkTree tree = new BkTree();
+        for (String word : Arrays.asList("matrix", "mattress", "matron", "metric", "inception", "matrix")) {
+            tree.add(word);
+        }
+
+        List<BkTree.Match> matches = tree.search("matrx", 2);
+
+        assertEquals(5, tree.size());
+        assertEquals(Arrays.asList("matrix", "matron"), matches.stream().map(m -> m.value).toList());
+        assertEquals(1, matches.get(0).distance);
+    }
+
+    @Test
+    void search_emptyTree_returnsNothing() {
+        assertTrue(new BkTree().search("anything", 2).isEmpty());
+    }
+}
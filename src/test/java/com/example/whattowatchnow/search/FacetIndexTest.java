@@ -0,0 +1,85 @@
+package com.example.whattowatchnow.search;
+
+import com.example.whattowatchnow.domain.Movie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FacetIndexTest {
+
+    private MovieDocIds docIds;
+    private FacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        docIds = new MovieDocIds();
+        index = new FacetIndex(docIds);
+        index.index(movie("m1", Arrays.asList("Drama", "Romance"), 1997, Arrays.asList("Leonardo DiCaprio", "Kate Winslet")));
+        index.index(movie("m2", Arrays.asList("Sci-Fi", "Action"), 2010, Arrays.asList("Leonardo DiCaprio")));
+        index.index(movie("m3", Arrays.asList("Sci-Fi"), 1999, Arrays.asList("Keanu Reeves")));
+        index.index(movie("m4", Arrays.asList("drama"), 2010, List.of()));
+    }
+
+    @Test
+    void genreDocs_ignoresCaseAndMatchesPartialNames() {
+        assertEquals(ids("m1", "m4"), index.genreDocs("DRAMA"));
+        assertEquals(ids("m2", "m3"), index.genreDocs("sci"));
+        assertTrue(index.genreDocs("western").isEmpty());
+    }
+
+    @Test
+    void genreDocs_exactGenreAlsoMatchesLongerOnes() {
+        index.index(movie("m5", Arrays.asList("Docudrama"), 2001, List.of()));
+
+        assertEquals(ids("m1", "m4", "m5"), index.genreDocs("drama"));
+        assertEquals(ids("m1", "m4"), index.genreDocsExact("Drama"));
+    }
+
+    @Test
+    void combinedFilters_areIntersections() {
+        RoaringBitmap result = RoaringBitmap.and(index.yearDocs(2010), index.actorDocs("leonardo dicaprio"));
+
+        assertEquals(ids("m2"), result);
+        assertNull(index.actorDocs("Leo"));
+    }
+
+    @Test
+    void counts_withinDocs() {
+        List<String> genres = index.genreCounts(index.allDocs()).stream()
+                .map(count -> count.getValue() + ":" + count.getCount()).toList();
+        List<String> years = index.yearCounts(index.genreDocs("sci-fi")).stream()
+                .map(count -> count.getValue() + ":" + count.getCount()).toList();
+
+        assertEquals(Arrays.asList("Drama:2", "Sci-Fi:2", "Action:1", "Romance:1"), genres);
+        assertEquals(Arrays.asList("2010:1", "1999:1"), years);
+    }
+
+    @Test
+    void index_sameMovieTwice_movesItBetweenBitmaps() {
+        index.index(movie("m3", Arrays.asList("Action"), 2003, Arrays.asList("Keanu Reeves")));
+
+        assertEquals(ids("m2"), index.genreDocs("sci-fi"));
+        assertTrue(index.yearDocs(1999).isEmpty());
+        assertEquals(ids("m3"), index.yearDocs(2003));
+        assertEquals(4, index.allDocs().getCardinality());
+    }
+
+    private RoaringBitmap ids(String... movieIds) {
+        RoaringBitmap docs = new RoaringBitmap();
+        for (String id : movieIds) {
+            docs.add(docIds.find(id));
+        }
+        return docs;
+    }
+
+    private static Movie movie(String id, List<String> genres, int year, List<String> actors) {
+        Movie movie = new Movie(id, genres, year, actors, "", "");
+        movie.setId(id);
+        return movie;
+    }
+}
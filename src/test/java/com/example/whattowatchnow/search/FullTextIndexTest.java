@@ -0,0 +1,106 @@
+package com.example.whattowatchnow.search;
+
+import com.example.whattowatchnow.domain.Movie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FullTextIndexTest {
+
+    private MovieDocIds docIds;
+    private FullTextIndex index;
+
+    @BeforeEach
+    void setUp() {
+        docIds = new MovieDocIds();
+        index = new FullTextIndex(docIds);
+        index.index(movie("m1", "Inception", "A thief steals secrets through dream-sharing technology."));
+        index.index(movie("m2", "The Matrix", "A hacker learns the truth about his reality."));
+        index.index(movie("m3", "Dream House", "A family discovers the house they moved into holds a dark dream."));
+        index.index(movie("m4", "Amélie", "A shy waitress in Paris decides to change the lives of those around her."));
+    }
+
+    @Test
+    void search_rankTitleMatchAboveDescriptionMatch() {
+        TextHits hits = index.search("dream");
+
+        assertEquals(2, hits.size());
+        assertEquals("m3", docIds.movieId(hits.doc(0))); // "dream" in title and description
+        assertEquals("m1", docIds.movieId(hits.doc(1))); // only in description
+        assertTrue(hits.score(0) > hits.score(1));
+    }
+
+    @Test
+    void search_requiresAllTerms() {
+        TextHits hits = index.search("dream house");
+
+        assertEquals(1, hits.size());
+        assertEquals("m3", docIds.movieId(hits.doc(0)));
+        assertTrue(index.search("dream matrix").isEmpty());
+    }
+
+    @Test
+    void searchClauses_requireEveryClauseAndKeepTheBestTermPerClause() {
+        TextHits single = index.search("dream");
+        TextHits boosted = index.search(List.of(Map.of("dream", 1f, "thief", 0.5f)));
+
+        assertEquals(2, boosted.size());
+        assertEquals(single.doc(0), boosted.doc(0));
+        assertEquals(single.score(0), boosted.score(0), 1e-6);
+
+        TextHits both = index.search(List.of(Map.of("dream", 1f), Map.of("house", 1f, "family", 0.5f)));
+
+        assertEquals(1, both.size());
+        assertEquals("m3", docIds.movieId(both.doc(0)));
+        assertTrue(index.search(List.of(Map.of("dream", 1f), Map.of("hacker", 1f))).isEmpty());
+    }
+
+    @Test
+    void search_isCaseAndAccentInsensitive() {
+        TextHits hits = index.search("AMELIE");
+
+        assertEquals(1, hits.size());
+        assertEquals("m4", docIds.movieId(hits.doc(0)));
+    }
+
+    @Test
+    void search_unknownOrBlankQuery_returnsEmpty() {
+        assertTrue(index.search("interstellar").isEmpty());
+        assertTrue(index.search("  ").isEmpty());
+    }
+
+    @Test
+    void index_sameIdTwice_replacesPreviousTerms() {
+        index.index(movie("m2", "The Matrix Reloaded", "Neo and the rebels fight the machines."));
+
+        assertTrue(index.search("hacker").isEmpty());
+        assertEquals(1, index.search("reloaded").size());
+        assertEquals(4, index.documentCount());
+    }
+
+    @Test
+    void clear_removesEverything() {
+        index.clear();
+
+        assertTrue(index.search("matrix").isEmpty());
+        assertEquals(0, index.documentCount());
+    }
+
+    @Test
+    void tokenize_foldsAccentsAndSplitsOnPunctuation() {
+        List<String> tokens = TextAnalyzer.tokenize("Léon: The Professional (1994)");
+
+        assertEquals(Arrays.asList("leon", "the", "professional", "1994"), tokens);
+    }
+
+    private static Movie movie(String id, String title, String description) {
+        Movie movie = new Movie(title, List.of("Drama"), 2000, List.of(), description, null);
+        movie.setId(id);
+        return movie;
+    }
+}
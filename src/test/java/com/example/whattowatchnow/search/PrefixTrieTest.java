@@ -0,0 +1,51 @@
+package com.example.whattowatchnow.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrefixTrieTest {
+
+    private PrefixTrie<String> trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new PrefixTrie<>();
+        trie.insert("team", "team", 1);
+        trie.insert("tea", "tea", 5);
+        trie.insert("ten", "ten", 3);
+        trie.insert("toast", "toast", 9);
+    }
+
+    @Test
+    void top_returnsHeaviestCompletionsFirst() {
+        assertEquals(Arrays.asList("toast", "tea", "ten", "team"), trie.top("t", 10, 100, Function.identity()));
+        assertEquals(Arrays.asList("tea", "ten"), trie.top("te", 2, 100, Function.identity()));
+    }
+
+    @Test
+    void top_prefixEndingInsideAnEdge_matchesSubtree() {
+        assertEquals(List.of("toast"), trie.top("toa", 10, 100, Function.identity()));
+        assertTrue(trie.top("tx", 10, 100, Function.identity()).isEmpty());
+        assertTrue(trie.top("teams", 10, 100, Function.identity()).isEmpty());
+    }
+
+    @Test
+    void top_stopsAtVisitBudget() {
+        assertTrue(trie.top("t", 10, 3, Function.identity()).size() < 4);
+    }
+
+    @Test
+    void remove_dropsValueAndUpdatesWeights() {
+        trie.remove("toast", value -> true);
+        trie.remove("tea", value -> true);
+
+        assertEquals(Arrays.asList("ten", "team"), trie.top("t", 10, 100, Function.identity()));
+        assertEquals(List.of("team"), trie.top("tea", 10, 100, Function.identity()));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.whattowatchnow.search;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.dto.MovieSuggestion;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SuggestionIndexTest {
+
+    private SuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        List<Document> reviewCounts = Arrays.asList(
+                new Document("_id", "matrix").append("count", 40),
+                new Document("_id", "reloaded").append("count", 10),
+                new Document("_id", "john-wick").append("count", 25));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("reviews"), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(reviewCounts, new Document()));
+
+        index = new SuggestionIndex(mongoTemplate);
+        index.clear();
+        index.index(movie("reloaded", "The Matrix Reloaded", "Keanu Reeves", "Carrie-Anne Moss"));
+        index.index(movie("matrix", "The Matrix", "Keanu Reeves", "Laurence Fishburne"));
+        index.index(movie("john-wick", "John Wick", "Keanu Reeves"));
+        index.index(movie("amelie", "Amélie", "Audrey Tautou"));
+    }
+
+    @Test
+    void suggest_ranksByPopularity() {
+        assertEquals(Arrays.asList("The Matrix", "The Matrix Reloaded"), texts(index.suggest("the mat", 5)));
+    }
+
+    @Test
+    void reviewCountChanged_reranksWithoutRebuild() {
+        index.reviewCountChanged("reloaded", 31);
+
+        assertEquals(Arrays.asList("The Matrix Reloaded", "The Matrix"), texts(index.suggest("the mat", 5)));
+
+        index.reviewCountChanged("reloaded", -2);
+
+        assertEquals(Arrays.asList("The Matrix", "The Matrix Reloaded"), texts(index.suggest("the mat", 5)));
+    }
+
+    @Test
+    void suggest_matchesAnyWordIgnoringCaseAndAccents() {
+        assertEquals(Arrays.asList("The Matrix", "The Matrix Reloaded"), texts(index.suggest("MATR", 5)));
+        assertEquals(Arrays.asList("Amélie"), texts(index.suggest("ame", 5)));
+        assertEquals(Arrays.asList("Keanu Reeves"), texts(index.suggest("reev", 5)));
+    }
+
+    @Test
+    void suggest_listsAnActorOnceAndRespectsLimit() {
+        List<MovieSuggestion> suggestions = index.suggest("k", 5);
+
+        assertEquals(1, suggestions.size());
+        assertEquals(MovieSuggestion.ACTOR, suggestions.get(0).getType());
+        assertEquals(2, index.suggest("m", 2).size());
+    }
+
+    @Test
+    void index_updatedMovie_replacesItsKeys() {
+        index.index(movie("john-wick", "John Wick: Chapter 2", "Keanu Reeves"));
+
+        assertEquals(Arrays.asList("John Wick: Chapter 2"), texts(index.suggest("john", 5)));
+        assertEquals(Arrays.asList("John Wick: Chapter 2"), texts(index.suggest("chap", 5)));
+    }
+
+    @Test
+    void suggest_unknownOrBlankPrefix_returnsNothing() {
+        assertTrue(index.suggest("zz", 5).isEmpty());
+        assertTrue(index.suggest("  ", 5).isEmpty());
+    }
+
+    private static List<String> texts(List<MovieSuggestion> suggestions) {
+        return suggestions.stream().map(MovieSuggestion::getText).toList();
+    }
+
+    private static Movie movie(String id, String title, String... actors) {
+        Movie movie = new Movie(title, List.of(), 2000, Arrays.asList(actors), "", "");
+        movie.setId(id);
+        return movie;
+    }
+}
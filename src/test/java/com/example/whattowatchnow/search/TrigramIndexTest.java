@@ -0,0 +1,66 @@
+package com.example.whattowatchnow.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrigramIndexTest {
+
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex();
+        index.index(0, Arrays.asList("Leonardo DiCaprio", "Tom Hardy"));
+        index.index(1, List.of("Keanu Reeves"));
+        index.index(2, Arrays.asList("Leonardo DiCaprio", "Kate Winslet"));
+        index.index(3, List.of("Carrie-Anne Moss"));
+    }
+
+    @Test
+    void containing_matchesSubstringIgnoringCase() {
+        SubstringMatch match = index.containing("dicap");
+
+        assertArrayEquals(new int[]{0, 2}, match.getDocs());
+    }
+
+    @Test
+    void containing_verifiesCandidatesThatShareGramsButNotTheSubstring() {
+        // "Pearl Hardy" has both grams of "eard" ("ear", "ard") but not the substring itself
+        index.index(4, List.of("Pearl Hardy"));
+        index.index(5, List.of("Ariel Reardon"));
+
+        SubstringMatch match = index.containing("eard");
+
+        assertArrayEquals(new int[]{5}, match.getDocs());
+        assertEquals(2, match.getCandidatesVerified());
+    }
+
+    @Test
+    void containing_shortNeedle_scansAllDocs() {
+        SubstringMatch match = index.containing("mo");
+
+        assertArrayEquals(new int[]{3}, match.getDocs());
+        assertEquals(4, match.getCandidatesVerified());
+    }
+
+    @Test
+    void containing_unknownGram_hasNoCandidates() {
+        SubstringMatch match = index.containing("xyz");
+
+        assertEquals(0, match.getDocs().length);
+        assertEquals(0, match.getCandidatesVerified());
+    }
+
+    @Test
+    void index_sameDocTwice_replacesValues() {
+        index.index(1, List.of("Laurence Fishburne"));
+
+        assertEquals(0, index.containing("keanu").getDocs().length);
+        assertArrayEquals(new int[]{1}, index.containing("fishburne").getDocs());
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.domain.Review;
+import com.example.whattowatchnow.dto.FeedPage;
+import com.example.whattowatchnow.dto.LeaderboardEntry;
+import com.example.whattowatchnow.repository.ReviewRepository;
+import com.example.whattowatchnow.search.FacetIndex;
+import com.example.whattowatchnow.search.MovieDocIds;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class FeedServiceTest {
+
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    @Mock
+    private LeaderboardService leaderboardService;
+
+    @Mock
+    private MovieCache movieCache;
+
+    private FeedService feedService;
+    private final Map<String, Movie> movies = new HashMap<>();
+    private final MovieDocIds movieDocIds = new MovieDocIds();
+    private final FacetIndex facetIndex = new FacetIndex(movieDocIds);
+
+    @BeforeEach
+    void setUp() {
+        for (Movie movie : List.of(
+                movie("heat", "Crime"), movie("ronin", "Crime"), movie("casino", "Crime"),
+                movie("notebook", "Romance"), movie("titanic", "Romance"), movie("up", "Animation"))) {
+            facetIndex.index(movie);
+            movies.put(movie.getId(), movie);
+        }
+        when(movieCache.getAll(anyCollection())).thenAnswer(invocation -> {
+            Map<String, Movie> found = new HashMap<>();
+            for (String id : invocation.<Collection<String>>getArgument(0)) {
+                if (movies.containsKey(id)) {
+                    found.put(id, movies.get(id));
+                }
+            }
+            return found;
+        });
+        // Everything is equally popular, so genre affinity decides the order
+        List<LeaderboardEntry> popular = new ArrayList<>();
+        for (String id : List.of("titanic", "up", "notebook", "ronin", "heat", "casino")) {
+            popular.add(new LeaderboardEntry(id, id, null, 4.0, 10));
+        }
+        when(leaderboardService.trending(isNull(), anyInt())).thenReturn(popular);
+        when(leaderboardService.topRated(isNull(), anyInt())).thenReturn(popular);
+        when(leaderboardService.trending(anyString(), anyInt())).thenReturn(List.of());
+        when(leaderboardService.topRated(anyString(), anyInt())).thenReturn(List.of());
+        when(reviewRepository.findByUserId("u1")).thenReturn(List.of(review("heat", 5), review("notebook", 1)));
+
+        feedService = new FeedService(reviewRepository, leaderboardService, facetIndex, movieDocIds, movieCache,
+                100, 100, Duration.ofMinutes(30), new SimpleMeterRegistry());
+    }
+
+    private static Movie movie(String id, String genre) {
+        Movie movie = new Movie(id, List.of(genre), 2000, List.of(), null, null);
+        movie.setId(id);
+        return movie;
+    }
+
+    private static Review review(String movieId, Integer rating) {
+        Review review = new Review();
+        review.setUserId("u1");
+        review.setMovieId(movieId);
+        review.setRating(rating);
+        return review;
+    }
+
+    private static List<String> ids(FeedPage page) {
+        return page.getItems().stream().map(Movie::getId).toList();
+    }
+
+    @Test
+    void getFeed_ranksLikedGenresFirstAndSkipsReviewed() {
+        FeedPage first = feedService.getFeed("u1", null, 2);
+
+        assertEquals(List.of("ronin", "casino"), ids(first));
+        assertNotNull(first.getNextCursor());
+
+        FeedPage second = feedService.getFeed("u1", first.getNextCursor(), 10);
+
+        assertEquals(2, second.getItems().size());
+        assertEquals("titanic", second.getItems().get(1).getId()); // Disliked genre last
+        assertNull(second.getNextCursor());
+        assertFalse(ids(second).contains("heat"));
+        assertFalse(ids(second).contains("notebook"));
+    }
+
+    @Test
+    void getFeed_laterPagesComeFromCache() {
+        FeedPage first = feedService.getFeed("u1", null, 1);
+        feedService.getFeed("u1", first.getNextCursor(), 1);
+        feedService.getFeed("u1", first.getNextCursor(), 1);
+
+        verify(reviewRepository, times(1)).findByUserId("u1");
+        verify(movieCache, times(3)).getAll(anyCollection()); // One batch per page
+        verify(movieCache, never()).get(anyString());
+    }
+
+    @Test
+    void getFeed_cursorFromRebuiltList_throws() {
+        FeedPage first = feedService.getFeed("u1", null, 1);
+
+        feedService.reviewDeleted(new ReviewDeletedEvent(review("heat", 5)));
+        feedService.getFeed("u1", null, 1); // Rebuilds the stale list
+
+        assertThrows(IllegalArgumentException.class, () -> feedService.getFeed("u1", first.getNextCursor(), 1));
+    }
+
+    @Test
+    void getFeed_cursorAfterListExpired_throwsWithoutRebuilding() {
+        FeedPage first = feedService.getFeed("u1", null, 1);
+        FeedService expired = new FeedService(reviewRepository, leaderboardService, facetIndex, movieDocIds, movieCache,
+                100, 100, Duration.ofNanos(1), new SimpleMeterRegistry());
+
+        assertThrows(IllegalArgumentException.class, () -> expired.getFeed("u1", first.getNextCursor(), 1));
+        verify(reviewRepository, times(1)).findByUserId("u1"); // Only the first page's build
+    }
+
+    @Test
+    void getFeed_reviewWithoutRating_hidesMovieButNotTaste() {
+        List<Review> reviews = new ArrayList<>(List.of(review("heat", 5), review("notebook", 1)));
+        reviews.add(review("up", null));
+        when(reviewRepository.findByUserId("u1")).thenReturn(reviews);
+
+        FeedPage page = feedService.getFeed("u1", null, 10);
+
+        assertEquals(List.of("ronin", "casino"), ids(page).subList(0, 2));
+        assertFalse(ids(page).contains("up"));
+    }
+
+    @Test
+    void reviewAdded_hidesMovieAndRebuildsOnNextFirstPage() {
+        FeedPage first = feedService.getFeed("u1", null, 1);
+
+        feedService.reviewAdded(new ReviewAddedEvent(review("casino", 4)));
+
+        assertEquals(List.of("up"), ids(feedService.getFeed("u1", first.getNextCursor(), 1)));
+        verify(reviewRepository, times(1)).findByUserId("u1");
+
+        feedService.getFeed("u1", null, 1);
+        verify(reviewRepository, times(2)).findByUserId("u1");
+    }
+
+    @Test
+    void getFeed_badCursor_throws() {
+        assertThrows(IllegalArgumentException.class, () -> feedService.getFeed("u1", "not a cursor", 10));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.repository.MovieRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MovieCacheTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MovieCache movieCache;
+    private Movie movie;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        movieCache = new MovieCache(movieRepository, 100, Duration.ofMinutes(5), Duration.ofMinutes(30), meterRegistry);
+        movie = new Movie("Inception", Arrays.asList("Sci-Fi"), 2010, Arrays.asList("Leonardo DiCaprio"), "", "url1");
+        movie.setId("movie1");
+    }
+
+    @Test
+    void get_loadsOnceThenServesFromMemory() {
+        when(movieRepository.findById("movie1")).thenReturn(Optional.of(movie));
+
+        assertSame(movie, movieCache.get("movie1"));
+        assertSame(movie, movieCache.get("movie1"));
+
+        verify(movieRepository, times(1)).findById("movie1");
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "movies.byId").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "movies.byId").tag("result", "miss").functionCounter().count());
+        assertNotNull(meterRegistry.find("cache.load.duration").tag("cache", "movies.byId").meter());
+    }
+
+    @Test
+    void get_unknownId_isNotCached() {
+        when(movieRepository.findById("missing")).thenReturn(Optional.empty());
+
+        assertNull(movieCache.get("missing"));
+        assertNull(movieCache.get("missing"));
+
+        verify(movieRepository, times(2)).findById("missing");
+    }
+
+    @Test
+    void put_and_invalidate() {
+        movieCache.put(movie);
+        assertSame(movie, movieCache.get("movie1"));
+        verifyNoInteractions(movieRepository);
+
+        when(movieRepository.findById("movie1")).thenReturn(Optional.empty());
+        movieCache.invalidate("movie1");
+        assertNull(movieCache.get("movie1"));
+    }
+
+    @Test
+    void getAll_loadsMissingIdsWithOneQuery() {
+        Movie other = new Movie("Heat", Arrays.asList("Crime"), 1995, Arrays.asList("Al Pacino"), "", "url2");
+        other.setId("movie2");
+        movieCache.put(movie);
+        when(movieRepository.findAllById(Set.of("movie2", "missing"))).thenReturn(List.of(other));
+
+        Map<String, Movie> found = movieCache.getAll(List.of("movie1", "movie2", "missing"));
+
+        assertEquals(Map.of("movie1", movie, "movie2", other), found);
+        verify(movieRepository, times(1)).findAllById(Set.of("movie2", "missing"));
+        verify(movieRepository, never()).findById(anyString());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.domain.Review;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MovieExportServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private MovieExportService movieExportService;
+
+    private Movie movie1;
+    private Movie movie2;
+
+    @BeforeEach
+    void setUp() {
+        movieExportService = new MovieExportService(mongoTemplate, objectMapper);
+        movie1 = new Movie("Inception", Arrays.asList("Sci-Fi"), 2010, Arrays.asList("Leonardo DiCaprio"), "Dreams", "url1");
+        movie1.setId("movie1");
+        movie2 = new Movie("The Matrix", Arrays.asList("Sci-Fi"), 1999, Arrays.asList("Keanu Reeves"), "Simulation", "url2");
+        movie2.setId("movie2");
+    }
+
+    @Test
+    void exportMovies_writesOneJsonLinePerMovie() throws Exception {
+        when(mongoTemplate.stream(any(Query.class), eq(Movie.class))).thenReturn(Stream.of(movie1, movie2));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        movieExportService.exportMovies(null, false, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("Inception", objectMapper.readTree(lines[0]).path("movie").path("title").asText());
+        assertFalse(objectMapper.readTree(lines[1]).has("reviews"));
+        verify(mongoTemplate, never()).stream(any(Query.class), eq(Review.class));
+    }
+
+    @Test
+    void exportMovies_withReviews_mergesReviewCursorIntoEachMovie() throws Exception {
+        Review review1 = new Review("user1", "movie1", 5, "Great");
+        Review review2 = new Review("user2", "movie1", 4, "Good");
+        Review review3 = new Review("user1", "movie2", 3, "Fine");
+        when(mongoTemplate.stream(any(Query.class), eq(Movie.class))).thenReturn(Stream.of(movie1, movie2));
+        when(mongoTemplate.stream(any(Query.class), eq(Review.class))).thenReturn(Stream.of(review1, review2, review3));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        movieExportService.exportMovies(null, true, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        JsonNode first = objectMapper.readTree(lines[0]);
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals(2, first.path("reviews").size());
+        assertEquals(1, second.path("reviews").size());
+        assertEquals("Fine", second.path("reviews").get(0).path("comment").asText());
+    }
+
+    @Test
+    void exportMovies_resumesAfterGivenId() throws Exception {
+        when(mongoTemplate.stream(any(Query.class), eq(Movie.class))).thenReturn(Stream.of(movie2));
+
+        movieExportService.exportMovies("movie1", false, new ByteArrayOutputStream());
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(queryCaptor.capture(), eq(Movie.class));
+        String queryString = queryCaptor.getValue().getQueryObject().toJson();
+        assertTrue(queryString.contains("$gt") && queryString.contains("movie1"));
+        assertTrue(queryCaptor.getValue().getSortObject().containsKey("id"));
+    }
+}
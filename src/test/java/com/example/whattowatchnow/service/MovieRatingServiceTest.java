@@ -0,0 +1,93 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.MovieRating;
+import com.example.whattowatchnow.domain.Review;
+import com.example.whattowatchnow.dto.RatingSummary;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MovieRatingServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private MovieRatingService movieRatingService;
+
+    @Test
+    void reviewAdded_upsertsIncrements() {
+        movieRatingService.reviewAdded(new Review("user1", "movie1", 4, "Good"));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(query.capture(), update.capture(), eq(MovieRating.class));
+        assertEquals("movie1", query.getValue().getQueryObject().get("id"));
+        Document inc = (Document) update.getValue().getUpdateObject().get("$inc");
+        assertEquals(1, inc.get("count"));
+        assertEquals(4, inc.get("sum"));
+        assertEquals(1, inc.get("histogram.4"));
+    }
+
+    @Test
+    void reviewDeleted_decrementsOnlyWhileTheStarIsCounted() {
+        movieRatingService.reviewDeleted(new Review("user1", "movie1", 2, "Meh"));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(MovieRating.class));
+        assertTrue(query.getValue().getQueryObject().containsKey("histogram.2"));
+        Document inc = (Document) update.getValue().getUpdateObject().get("$inc");
+        assertEquals(-1, inc.get("count"));
+        assertEquals(-2, inc.get("sum"));
+        assertEquals(-1, inc.get("histogram.2"));
+    }
+
+    @Test
+    void reviewAdded_invalidRating_isIgnored() {
+        movieRatingService.reviewAdded(new Review("user1", "movie1", null, "No rating"));
+
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), eq(MovieRating.class));
+    }
+
+    @Test
+    void getRating_computesMeanAndFillsHistogram() {
+        MovieRating stored = new MovieRating("movie1");
+        stored.setCount(3);
+        stored.setSum(11);
+        stored.setHistogram(Map.of("3", 1L, "4", 1L));
+        when(mongoTemplate.findById("movie1", MovieRating.class)).thenReturn(stored);
+
+        RatingSummary summary = movieRatingService.getRating("movie1");
+
+        assertEquals(3, summary.getCount());
+        assertEquals(11.0 / 3, summary.getMean(), 1e-9);
+        assertArrayEquals(new long[]{0, 0, 1, 1, 0}, summary.getHistogram());
+    }
+
+    @Test
+    void getRating_unratedMovie_hasNoMean() {
+        when(mongoTemplate.findById("movie2", MovieRating.class)).thenReturn(null);
+
+        RatingSummary summary = movieRatingService.getRating("movie2");
+
+        assertEquals(0, summary.getCount());
+        assertNull(summary.getMean());
+        assertArrayEquals(new long[5], summary.getHistogram());
+    }
+}
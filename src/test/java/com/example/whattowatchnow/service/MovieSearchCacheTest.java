@@ -0,0 +1,152 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.dto.FacetCount;
+import com.example.whattowatchnow.dto.MovieFacets;
+import com.example.whattowatchnow.dto.MoviePage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovieSearchCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private MovieSearchCache cache;
+    private Movie inception;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new MovieSearchCache(1000, Duration.ofMinutes(10), meterRegistry);
+        inception = movie("m1", "Inception", "Mind-bending thriller", List.of("Sci-Fi"), 2010, List.of("Leonardo DiCaprio"));
+    }
+
+    @Test
+    void key_normalizesEquivalentSearches() {
+        assertEquals(MovieSearchCache.key("The  Matrix!", " Sci-Fi ", 1999, " Keanu ", null, 20, false, false),
+                MovieSearchCache.key("the matrix", "sci-fi", 1999, "keanu", null, 20, false, false));
+        assertNotEquals(MovieSearchCache.key("matrix", null, null, null, null, 20, false, false),
+                MovieSearchCache.key("matrix", null, null, null, null, 10, false, false));
+        assertNotEquals(MovieSearchCache.key("matr*", null, null, null, null, 20, false, false),
+                MovieSearchCache.key("matr", null, null, null, null, 20, false, false));
+    }
+
+    @Test
+    void movieChanged_dropsOnlyEntriesTheMovieCanMatch() {
+        MovieSearchCache.Key scifi = MovieSearchCache.key(null, "sci", null, null, null, 20, false, false);
+        MovieSearchCache.Key drama = MovieSearchCache.key(null, "drama", null, null, null, 20, false, false);
+        MovieSearchCache.Key dreams = MovieSearchCache.key("dreams", null, null, null, null, 20, false, false);
+        MovieSearchCache.Key thriller = MovieSearchCache.key("thriller", null, 1999, null, null, 20, false, false);
+        MovieSearchCache.Key unfiltered = MovieSearchCache.key(null, null, null, null, null, 20, false, false);
+        for (MovieSearchCache.Key key : Arrays.asList(scifi, drama, dreams, thriller, unfiltered)) {
+            cache.put(key, cache.generation(), page());
+        }
+
+        cache.movieChanged(null, inception);
+
+        assertNull(cache.get(scifi));
+        assertNull(cache.get(unfiltered));
+        assertNotNull(cache.get(drama));
+        assertNotNull(cache.get(dreams));
+        assertNotNull(cache.get(thriller)); // wrong year
+    }
+
+    @Test
+    void movieChanged_checksPreviousVersionAndPagesHoldingTheMovie() {
+        MovieSearchCache.Key scifi = MovieSearchCache.key(null, "sci-fi", null, null, null, 20, false, false);
+        MovieSearchCache.Key holding = MovieSearchCache.key("western", null, null, null, null, 20, false, false);
+        cache.put(scifi, cache.generation(), page());
+        cache.put(holding, cache.generation(), page(inception));
+
+        Movie asDrama = movie("m1", "Inception", "Mind-bending thriller", List.of("Drama"), 2010, List.of());
+        cache.movieChanged(inception, asDrama);
+
+        assertNull(cache.get(scifi)); // Inception used to be in it
+        assertNull(cache.get(holding));
+    }
+
+    @Test
+    void movieChanged_facetEntriesIgnoreTheirOwnFilter() {
+        MovieSearchCache.Key dramaWithFacets = MovieSearchCache.key(null, "drama", 2010, null, null, 20, true, false);
+        cache.put(dramaWithFacets, cache.generation(), page());
+
+        cache.movieChanged(null, inception); // Not a drama, but counted under "2010" of the genre facet
+
+        assertNull(cache.get(dramaWithFacets));
+    }
+
+    @Test
+    void movieChanged_typoOfQueryWordInvalidates() {
+        MovieSearchCache.Key misspelled = MovieSearchCache.key("inceptoin", null, null, null, null, 20, false, false);
+        cache.put(misspelled, cache.generation(), page());
+
+        cache.movieChanged(null, inception); // may now produce a "did you mean"
+
+        assertNull(cache.get(misspelled));
+    }
+
+    @Test
+    void movieChanged_prefixEntriesMatchOnTitleStart() {
+        MovieSearchCache.Key incep = MovieSearchCache.key("Incep*", null, null, null, null, 20, false, false);
+        MovieSearchCache.Key mind = MovieSearchCache.key("mind*", null, null, null, null, 20, false, false);
+        cache.put(incep, cache.generation(), page());
+        cache.put(mind, cache.generation(), page());
+
+        cache.movieChanged(null, inception);
+
+        assertNull(cache.get(incep));
+        assertNotNull(cache.get(mind)); // only in the description
+    }
+
+    @Test
+    void put_pageComputedBeforeAChange_isDropped() {
+        MovieSearchCache.Key key = MovieSearchCache.key("western", null, null, null, null, 20, false, false);
+        long generation = cache.generation();
+
+        cache.movieChanged(null, inception);
+        cache.put(key, generation, page());
+
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void stats_areExportedAsMetrics() {
+        MovieSearchCache.Key key = MovieSearchCache.key("inception", null, null, null, null, 20, false, false);
+        cache.get(key);
+        cache.put(key, cache.generation(), page(inception));
+        cache.get(key);
+
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "movies.search").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "movies.search").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void facetsCountTowardsWeight() {
+        MoviePage page = page(inception);
+        page.setFacets(new MovieFacets(Collections.singletonList(new FacetCount("Sci-Fi", 1)), Collections.emptyList()));
+        MovieSearchCache small = new MovieSearchCache(2, Duration.ofMinutes(10), new SimpleMeterRegistry());
+        MovieSearchCache.Key key = MovieSearchCache.key(null, null, null, null, null, 20, true, false);
+
+        small.put(key, small.generation(), page); // weight 3 > 2
+
+        small.movieChanged(null, movie("other", "x", "", List.of(), 1900, List.of())); // runs pending maintenance
+        assertNull(small.get(key));
+    }
+
+    private static MoviePage page(Movie... movies) {
+        return new MoviePage(Arrays.asList(movies), null);
+    }
+
+    private static Movie movie(String id, String title, String description, List<String> genres, int year, List<String> actors) {
+        Movie movie = new Movie(title, genres, year, actors, description, "");
+        movie.setId(id);
+        return movie;
+    }
+}
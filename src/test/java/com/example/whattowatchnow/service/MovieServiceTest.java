@@ -1,7 +1,16 @@
 package com.example.whattowatchnow.service;
 
 import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.dto.MoviePage;
 import com.example.whattowatchnow.repository.MovieRepository;
+import com.example.whattowatchnow.dto.FacetCount;
+import com.example.whattowatchnow.search.FacetIndex;
+import com.example.whattowatchnow.search.FullTextIndex;
+import com.example.whattowatchnow.search.FuzzyIndex;
+import com.example.whattowatchnow.search.MovieDocIds;
+import com.example.whattowatchnow.search.MovieIndexer;
+import com.example.whattowatchnow.search.SubstringIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,6 +21,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Query;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -30,6 +41,30 @@ public class MovieServiceTest {
     @Mock
     private MongoTemplate mongoTemplate;
 
+    @Mock
+    private MovieIndexer movieIndexer;
+
+    @Mock
+    private FullTextIndex fullTextIndex;
+
+    @Mock
+    private SubstringIndex substringIndex;
+
+    @Mock
+    private MovieDocIds movieDocIds;
+
+    @Mock
+    private FacetIndex facetIndex;
+
+    @Mock
+    private FuzzyIndex fuzzyIndex;
+
+    @Mock
+    private MovieSearchCache searchCache;
+
+    @Mock
+    private MovieCache movieCache;
+
     @InjectMocks
     private MovieService movieService;
 
@@ -51,6 +86,48 @@ public class MovieServiceTest {
         assertNotNull(savedMovie);
         assertEquals(movie1.getTitle(), savedMovie.getTitle());
         verify(movieRepository, times(1)).save(movie1);
+        verify(movieIndexer, times(1)).movieSaved(movie1);
+        verify(searchCache, times(1)).movieChanged(null, movie1);
+        verify(movieCache, times(1)).put(movie1);
+    }
+
+    @Test
+    void getMovieById_repeatedReads_hitMongoOnce() {
+        useRealMovieCache();
+        when(movieRepository.findById("movie1")).thenReturn(Optional.of(movie1));
+
+        movieService.getMovieById("movie1");
+        Optional<Movie> again = movieService.getMovieById("movie1");
+
+        assertEquals(Optional.of(movie1), again);
+        verify(movieRepository, times(1)).findById("movie1");
+    }
+
+    @Test
+    void saveMovie_updatesCachedCopy() {
+        useRealMovieCache();
+        when(movieRepository.findById("movie1")).thenReturn(Optional.of(movie1));
+        movieService.getMovieById("movie1");
+        Movie renamed = new Movie("Inception (Director's Cut)", movie1.getGenres(), 2010, movie1.getActors(), "", "url1");
+        renamed.setId("movie1");
+        when(movieRepository.save(renamed)).thenReturn(renamed);
+
+        movieService.saveMovie(renamed);
+
+        assertEquals("Inception (Director's Cut)", movieService.getMovieById("movie1").get().getTitle());
+    }
+
+    @Test
+    void findMovies_indexReady_servesRepeatedSearchFromCache() {
+        useRealIndexes(movie1, movie2);
+        when(movieIndexer.isReady()).thenReturn(true);
+        when(mongoTemplate.find(any(Query.class), eq(Movie.class))).thenReturn(Arrays.asList(movie2));
+
+        MoviePage first = movieService.findMovies("Matrix", null, null, null, null, 20);
+        MoviePage second = movieService.findMovies("  MATRIX? ", null, null, null, null, 20);
+
+        assertSame(first, second);
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Movie.class));
     }
 
     @Test
@@ -63,6 +140,7 @@ public class MovieServiceTest {
 
     @Test
     void getMovieById_found() {
+        useRealMovieCache();
         when(movieRepository.findById("movie1")).thenReturn(Optional.of(movie1));
         Optional<Movie> foundMovie = movieService.getMovieById("movie1");
         assertTrue(foundMovie.isPresent());
@@ -72,6 +150,7 @@ public class MovieServiceTest {
 
     @Test
     void getMovieById_notFound() {
+        useRealMovieCache();
         when(movieRepository.findById("nonExistentId")).thenReturn(Optional.empty());
         Optional<Movie> foundMovie = movieService.getMovieById("nonExistentId");
         assertFalse(foundMovie.isPresent());
@@ -80,15 +159,39 @@ public class MovieServiceTest {
 
     // Tests for findMovies (combined filter method)
     @Test
-    void findMovies_noFilters_callsGetAllMovies() {
-        // This test assumes that if all filters are null/empty, it defaults to getAllMovies behavior
-        // based on the current MovieService implementation.
-        // If MovieService is changed to return empty list for no criteria, this test needs adjustment.
-        when(movieRepository.findAll()).thenReturn(Arrays.asList(movie1, movie2));
-        List<Movie> result = movieService.findMovies(null, null, null, null);
-        assertEquals(2, result.size());
-        verify(mongoTemplate, never()).find(any(), any()); // Should not call mongoTemplate.find
-        verify(movieRepository, times(1)).findAll(); // Should call findAll
+    void findMovies_noFilters_returnsFirstPageInIdOrder() {
+        // No filters must not load the whole catalog: one bounded, _id-sorted query instead of findAll
+        when(mongoTemplate.find(any(Query.class), eq(Movie.class))).thenReturn(Arrays.asList(movie1, movie2));
+        MoviePage page = movieService.findMovies(null, null, null, null, null, 1);
+        assertEquals(Arrays.asList(movie1), page.getItems());
+        assertNotNull(page.getNextCursor());
+        verify(movieRepository, never()).findAll();
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(1)).find(queryCaptor.capture(), eq(Movie.class));
+        assertEquals(2, queryCaptor.getValue().getLimit()); // one extra row tells whether a next page exists
+        assertTrue(queryCaptor.getValue().getSortObject().containsKey("id"));
+    }
+
+    @Test
+    void findMovies_withCursor_seeksPastLastId() {
+        when(mongoTemplate.find(any(Query.class), eq(Movie.class))).thenReturn(Arrays.asList(movie1, movie2));
+        String cursor = movieService.findMovies(null, null, null, null, null, 1).getNextCursor();
+        when(mongoTemplate.find(any(Query.class), eq(Movie.class))).thenReturn(Arrays.asList(movie2));
+
+        MoviePage page = movieService.findMovies(null, null, null, null, cursor, 1);
+
+        assertEquals(Arrays.asList(movie2), page.getItems());
+        assertNull(page.getNextCursor());
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(queryCaptor.capture(), eq(Movie.class));
+        String queryString = queryCaptor.getValue().getQueryObject().toJson();
+        assertTrue(queryString.contains("$gt") && queryString.contains("movie1"));
+    }
+
+    @Test
+    void findMovies_malformedCursor_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> movieService.findMovies(null, null, null, null, "not-a-cursor", 10));
     }
     
     @Test
@@ -96,7 +199,7 @@ public class MovieServiceTest {
         String queryStr = "Inception";
         when(mongoTemplate.find(any(Query.class), eq(Movie.class))).thenReturn(Arrays.asList(movie1));
         
-        List<Movie> result = movieService.findMovies(queryStr, null, null, null);
+        List<Movie> result = movieService.findMovies(queryStr, null, null, null, null, 20).getItems();
         
         assertEquals(1, result.size());
         assertEquals(movie1.getTitle(), result.get(0).getTitle());
@@ -105,11 +208,11 @@ public class MovieServiceTest {
         verify(mongoTemplate, times(1)).find(queryCaptor.capture(), eq(Movie.class));
         
         Query capturedQuery = queryCaptor.getValue();
-        String queryString = capturedQuery.getQueryObject().toString();
+        String queryString = capturedQuery.getQueryObject().toJson();
         assertTrue(queryString.contains("title") && queryString.contains(queryStr));
         assertTrue(queryString.contains("description") && queryString.contains(queryStr));
         assertTrue(queryString.contains("$or")); // Expect OR condition for title and description
-        assertTrue(queryString.contains("$options\":\"i\"")); // Case-insensitive
+        assertTrue(queryString.contains("\"options\": \"i\"")); // Case-insensitive
     }
 
     @Test
@@ -117,7 +220,7 @@ public class MovieServiceTest {
         String genre = "Sci-Fi";
         when(mongoTemplate.find(any(Query.class), eq(Movie.class))).thenReturn(Arrays.asList(movie1, movie2));
         
-        List<Movie> result = movieService.findMovies(null, genre, null, null);
+        List<Movie> result = movieService.findMovies(null, genre, null, null, null, 20).getItems();
         
         assertEquals(2, result.size());
         
@@ -125,9 +228,9 @@ public class MovieServiceTest {
         verify(mongoTemplate, times(1)).find(queryCaptor.capture(), eq(Movie.class));
         
         Query capturedQuery = queryCaptor.getValue();
-        String queryString = capturedQuery.getQueryObject().toString();
+        String queryString = capturedQuery.getQueryObject().toJson();
         assertTrue(queryString.contains("genres") && queryString.contains(genre));
-        assertTrue(queryString.contains("$options\":\"i\""));
+        assertTrue(queryString.contains("\"options\": \"i\""));
     }
 
     @Test
@@ -135,7 +238,7 @@ public class MovieServiceTest {
         Integer year = 2010;
         when(mongoTemplate.find(any(Query.class), eq(Movie.class))).thenReturn(Arrays.asList(movie1));
         
-        List<Movie> result = movieService.findMovies(null, null, year, null);
+        List<Movie> result = movieService.findMovies(null, null, year, null, null, 20).getItems();
         
         assertEquals(1, result.size());
         
@@ -143,7 +246,7 @@ public class MovieServiceTest {
         verify(mongoTemplate, times(1)).find(queryCaptor.capture(), eq(Movie.class));
         
         Query capturedQuery = queryCaptor.getValue();
-        String queryString = capturedQuery.getQueryObject().toString();
+        String queryString = capturedQuery.getQueryObject().toJson();
         assertTrue(queryString.contains("releaseYear") && queryString.contains(year.toString()));
     }
     
@@ -152,7 +255,7 @@ public class MovieServiceTest {
         String actor = "DiCaprio"; // Partial match for Leonardo DiCaprio
         when(mongoTemplate.find(any(Query.class), eq(Movie.class))).thenReturn(Arrays.asList(movie1));
         
-        List<Movie> result = movieService.findMovies(null, null, null, actor);
+        List<Movie> result = movieService.findMovies(null, null, null, actor, null, 20).getItems();
         
         assertEquals(1, result.size());
         
@@ -160,9 +263,9 @@ public class MovieServiceTest {
         verify(mongoTemplate, times(1)).find(queryCaptor.capture(), eq(Movie.class));
         
         Query capturedQuery = queryCaptor.getValue();
-        String queryString = capturedQuery.getQueryObject().toString();
+        String queryString = capturedQuery.getQueryObject().toJson();
         assertTrue(queryString.contains("actors") && queryString.contains(actor));
-        assertTrue(queryString.contains("$options\":\"i\""));
+        assertTrue(queryString.contains("\"options\": \"i\""));
     }
 
 
@@ -175,7 +278,7 @@ public class MovieServiceTest {
 
         when(mongoTemplate.find(any(Query.class), eq(Movie.class))).thenReturn(Arrays.asList(movie1));
         
-        List<Movie> result = movieService.findMovies(queryStr, genre, year, actor);
+        List<Movie> result = movieService.findMovies(queryStr, genre, year, actor, null, 20).getItems();
         
         assertEquals(1, result.size());
         
@@ -183,7 +286,7 @@ public class MovieServiceTest {
         verify(mongoTemplate, times(1)).find(queryCaptor.capture(), eq(Movie.class));
         
         Query capturedQuery = queryCaptor.getValue();
-        String queryString = capturedQuery.getQueryObject().toString();
+        String queryString = capturedQuery.getQueryObject().toJson();
         
         // Check for query (title OR description)
         assertTrue(queryString.contains("$or") && queryString.contains(queryStr));
@@ -194,18 +297,269 @@ public class MovieServiceTest {
         // Check for actor
         assertTrue(queryString.contains("actors") && queryString.contains(actor));
         // All regex should be case-insensitive
-        long count = queryString.chars().filter(ch -> ch == 'i').count();
-        String temp = queryString.replace("\"$options\":\"i\"", ""); // count "i" for case-insensitivity
-        int iCount = 0;
-        for(int i=0; i < temp.length() ; i++) {
-            if(temp.charAt(i) == 'i' && temp.charAt(i-1) == '"' && temp.charAt(i-2) == ':') {
-                 // this is a bit of a hack, better to parse JSON if possible
-                 // but for now, we just count the occurrences of "$options":"i"
-            }
+        assertTrue(queryString.indexOf("\"options\": \"i\"") != queryString.lastIndexOf("\"options\": \"i\""), "Expected multiple case-insensitive flags for query, genre, actor");
+    }
+
+    @Test
+    void findMovies_regexInput_isMatchedLiterally() {
+        when(mongoTemplate.find(any(Query.class), eq(Movie.class))).thenReturn(Arrays.asList());
+
+        movieService.findMovies("(a+)+$", ".*", null, "[", null, 20);
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(Movie.class));
+        String queryString = queryCaptor.getValue().getQueryObject().toJson();
+        assertTrue(queryString.contains("\\\\Q(a+)+$\\\\E"), queryString);
+        assertTrue(queryString.contains("\\\\Q.*\\\\E"), queryString);
+        assertTrue(queryString.contains("\\\\Q[\\\\E"), queryString);
+        assertEquals(2000L, queryCaptor.getValue().getMeta().getMaxTimeMsec()); // bounded on the server too
+    }
+
+    @Test
+    void findMovies_prefixQuery_usesTitleKeyRangeEvenWithIndexesReady() {
+        when(movieIndexer.isReady()).thenReturn(true);
+        when(mongoTemplate.find(any(Query.class), eq(Movie.class))).thenReturn(Arrays.asList(movie2));
+
+        List<Movie> result = movieService.findMovies("Matri*", null, null, null, null, 20).getItems();
+
+        assertEquals(Arrays.asList(movie2), result);
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(Movie.class));
+        String queryString = queryCaptor.getValue().getQueryObject().toJson();
+        assertTrue(queryString.contains("titleKey") && queryString.contains("\"$gte\": \"matri\""), queryString);
+        assertFalse(queryString.contains("$regex"));
+        verifyNoInteractions(fullTextIndex);
+    }
+
+    @Test
+    void findMovies_prefixQuery_pagesAlongTitleKeyIndex() {
+        movie1.setTitleKey("matrix reloaded");
+        movie2.setTitleKey("matrix");
+        when(mongoTemplate.find(any(Query.class), eq(Movie.class)))
+                .thenReturn(new ArrayList<>(Arrays.asList(movie2, movie1)))
+                .thenReturn(new ArrayList<>(Arrays.asList(movie1)));
+
+        MoviePage first = movieService.findMovies("Matri*", null, null, null, null, 1);
+        movieService.findMovies("Matri*", null, null, null, first.getNextCursor(), 1);
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(queryCaptor.capture(), eq(Movie.class));
+        Query firstQuery = queryCaptor.getAllValues().get(0);
+        assertEquals(List.of("titleKey", "id"), new ArrayList<>(firstQuery.getSortObject().keySet()));
+        String next = queryCaptor.getAllValues().get(1).getQueryObject().toJson();
+        assertTrue(next.contains("\"$gt\": \"matrix\"") && next.contains("movie2"), next);
+        assertThrows(IllegalArgumentException.class,
+                () -> movieService.findMovies("Matrix", null, null, null, first.getNextCursor(), 1));
+    }
+
+    @Test
+    void findMovies_tooBroadPrefix_isRejectedBeforeQuerying() {
+        assertThrows(IllegalArgumentException.class, () -> movieService.findMovies("m*", null, null, null, null, 20));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void findMovies_indexReady_returnsMoviesInRelevanceOrder() {
+        Movie movie3 = new Movie("Inception: The Dream Files", Arrays.asList("Documentary"), 2011, Arrays.asList(), "Making of Inception", "url3");
+        movie3.setId("movie3");
+        useRealIndexes(movie1, movie2, movie3);
+        when(movieIndexer.isReady()).thenReturn(true);
+        // Mongo returns the id matches in storage order; the service must restore the ranking
+        when(mongoTemplate.find(any(Query.class), eq(Movie.class))).thenReturn(Arrays.asList(movie3, movie1));
+
+        List<Movie> result = movieService.findMovies("inception", null, null, null, null, 20).getItems();
+
+        assertEquals(Arrays.asList(movie1, movie3), result);
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(Movie.class));
+        String queryString = queryCaptor.getValue().getQueryObject().toJson();
+        assertTrue(queryString.contains("$in"));
+        assertFalse(queryString.contains("$regex"));
+    }
+
+    @Test
+    void findMovies_indexReady_noTextHits_skipsMongo() {
+        when(movieIndexer.isReady()).thenReturn(true);
+        when(fullTextIndex.search("interstellar")).thenReturn(com.example.whattowatchnow.search.TextHits.EMPTY);
+
+        List<Movie> result = movieService.findMovies("interstellar", null, null, null, null, 20).getItems();
+
+        assertTrue(result.isEmpty());
+        verify(mongoTemplate, never()).find(any(), any());
+    }
+
+    @Test
+    void findMovies_indexReady_genreAndActorResolvedInMemory() {
+        Movie movie3 = new Movie("Titanic", Arrays.asList("Drama", "Romance"), 1997, Arrays.asList("Leonardo DiCaprio", "Kate Winslet"), "A ship sinks.", "url3");
+        movie3.setId("movie3");
+        useRealIndexes(movie1, movie2, movie3);
+        when(movieIndexer.isReady()).thenReturn(true);
+        when(mongoTemplate.find(any(Query.class), eq(Movie.class))).thenReturn(Arrays.asList(movie1));
+
+        List<Movie> result = movieService.findMovies(null, "sci", 2010, "dicaprio", null, 20).getItems();
+
+        assertEquals(Arrays.asList(movie1), result);
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(Movie.class));
+        String queryString = queryCaptor.getValue().getQueryObject().toJson();
+        assertTrue(queryString.contains("movie1"));
+        assertFalse(queryString.contains("movie3")); // Titanic is not Sci-Fi
+        assertFalse(queryString.contains("releaseYear")); // the year is a bitmap too
+        assertFalse(queryString.contains("$regex"));
+    }
+
+    @Test
+    void findMovies_indexReady_yearOnlyResolvedInMemory() {
+        useRealIndexes(movie1, movie2);
+        when(movieIndexer.isReady()).thenReturn(true);
+        when(mongoTemplate.find(any(Query.class), eq(Movie.class))).thenReturn(Arrays.asList(movie2));
+
+        List<Movie> result = movieService.findMovies(null, null, 1999, null, null, 20).getItems();
+
+        assertEquals(Arrays.asList(movie2), result);
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(Movie.class));
+        String queryString = queryCaptor.getValue().getQueryObject().toJson();
+        assertTrue(queryString.contains("movie2") && queryString.contains("$in"));
+        assertFalse(queryString.contains("movie1"));
+    }
+
+    @Test
+    void findMovies_withFacets_countsEachFacetWithoutItsOwnFilter() {
+        Movie movie3 = new Movie("Titanic", Arrays.asList("Drama", "Romance"), 1997, Arrays.asList("Leonardo DiCaprio", "Kate Winslet"), "A ship sinks.", "url3");
+        movie3.setId("movie3");
+        useRealIndexes(movie1, movie2, movie3);
+        when(movieIndexer.isReady()).thenReturn(true);
+        when(mongoTemplate.find(any(Query.class), eq(Movie.class))).thenReturn(Arrays.asList(movie1));
+
+        MoviePage page = movieService.findMovies(null, "Sci-Fi", null, "Leonardo DiCaprio", null, 20, true, false);
+
+        assertEquals(Arrays.asList(movie1), page.getItems());
+        // Genres ignore the genre filter: DiCaprio movies are Inception (Sci-Fi, Action) and Titanic (Drama, Romance)
+        assertEquals(Arrays.asList("Action:1", "Drama:1", "Romance:1", "Sci-Fi:1"), asStrings(page.getFacets().getGenres()));
+        // Years keep the genre filter: only Inception is both Sci-Fi and with DiCaprio
+        assertEquals(Arrays.asList("2010:1"), asStrings(page.getFacets().getYears()));
+    }
+
+    @Test
+    void findMovies_withFacets_noFilters_countsWholeCatalog() {
+        useRealIndexes(movie1, movie2);
+        when(movieIndexer.isReady()).thenReturn(true);
+        when(mongoTemplate.find(any(Query.class), eq(Movie.class))).thenReturn(Arrays.asList(movie1, movie2));
+
+        MoviePage page = movieService.findMovies(null, null, null, null, null, 20, true, false);
+
+        assertEquals(Arrays.asList("Action:2", "Sci-Fi:2"), asStrings(page.getFacets().getGenres()));
+        assertEquals(Arrays.asList("2010:1", "1999:1"), asStrings(page.getFacets().getYears()));
+    }
+
+    @Test
+    void findMovies_withFacets_indexNotReady_omitsFacets() {
+        when(mongoTemplate.find(any(Query.class), eq(Movie.class))).thenReturn(Arrays.asList(movie1));
+
+        MoviePage page = movieService.findMovies(null, null, null, null, null, 20, true, false);
+
+        assertNull(page.getFacets());
+        verifyNoInteractions(facetIndex);
+    }
+
+    @Test
+    void findMovies_fuzzy_matchesMisspelledWordsAndActors() {
+        Movie movie3 = new Movie("Interstellar", Arrays.asList("Sci-Fi"), 2014, Arrays.asList("Matthew McConaughey"), "Explorers travel through a wormhole.", "url3");
+        movie3.setId("movie3");
+        useRealIndexes(movie1, movie2, movie3);
+        when(movieIndexer.isReady()).thenReturn(true);
+        when(mongoTemplate.find(any(Query.class), eq(Movie.class))).thenReturn(Arrays.asList(movie3), Arrays.asList(movie2));
+
+        MoviePage byTitle = movieService.findMovies("Interstelar", null, null, null, null, 20, false, true);
+        MoviePage byActor = movieService.findMovies(null, null, null, "Keanu Reevs", null, 20, false, true);
+
+        assertEquals(Arrays.asList(movie3), byTitle.getItems());
+        assertNull(byTitle.getDidYouMean());
+        assertEquals(Arrays.asList(movie2), byActor.getItems());
+    }
+
+    @Test
+    void findMovies_noTextHits_suggestsCorrection() {
+        useRealIndexes(movie1, movie2);
+        when(movieIndexer.isReady()).thenReturn(true);
+
+        MoviePage page = movieService.findMovies("the matirx", null, null, null, null, 20, false, false);
+
+        assertTrue(page.getItems().isEmpty());
+        assertEquals("the matrix", page.getDidYouMean());
+        verify(mongoTemplate, never()).find(any(), any());
+    }
+
+    @Test
+    void findMovies_noTextHitsAndNothingClose_hasNoSuggestion() {
+        useRealIndexes(movie1, movie2);
+        when(movieIndexer.isReady()).thenReturn(true);
+
+        MoviePage page = movieService.findMovies("godfather", null, null, null, null, 20, false, true);
+
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getDidYouMean());
+    }
+
+    private static List<String> asStrings(List<FacetCount> counts) {
+        return counts.stream().map(count -> count.getValue() + ":" + count.getCount()).toList();
+    }
+
+    @Test
+    void searchMoviesByTitle_indexReady_usesTrigramIndex() {
+        useRealIndexes(movie1, movie2);
+        when(movieIndexer.isReady()).thenReturn(true);
+        when(movieRepository.findAllById(Arrays.asList("movie2"))).thenReturn(Arrays.asList(movie2));
+
+        List<Movie> result = movieService.searchMoviesByTitle("MATRIX");
+
+        assertEquals(Arrays.asList(movie2), result);
+        verify(movieRepository, never()).findByTitleContainingIgnoreCase(any());
+    }
+
+    private void useRealMovieCache() {
+        movieService = new MovieService(movieRepository, mongoTemplate, movieIndexer, fullTextIndex, substringIndex,
+                movieDocIds, facetIndex, fuzzyIndex, searchCache,
+                new MovieCache(movieRepository, 100, Duration.ofMinutes(5), Duration.ofMinutes(30), new SimpleMeterRegistry()));
+    }
+
+    private void useRealIndexes(Movie... movies) {
+        MovieDocIds docIds = new MovieDocIds();
+        FullTextIndex textIndex = new FullTextIndex(docIds);
+        SubstringIndex trigramIndex = new SubstringIndex(docIds, new SimpleMeterRegistry());
+        FacetIndex bitmapIndex = new FacetIndex(docIds);
+        FuzzyIndex typoIndex = new FuzzyIndex();
+        for (Movie movie : movies) {
+            textIndex.index(movie);
+            trigramIndex.index(movie);
+            bitmapIndex.index(movie);
+            typoIndex.index(movie);
         }
-        // Depending on how MongoTemplate constructs the query, the number of "i" for case-insensitivity might vary.
-        // A more robust check would be to parse the JSON structure of the query.
-        // For now, let's just check if it's present for each regex field.
-        assertTrue(queryString.indexOf("\"$options\":\"i\"") != queryString.lastIndexOf("\"$options\":\"i\""), "Expected multiple case-insensitive flags for query, genre, actor");
+        movieService = new MovieService(movieRepository, mongoTemplate, movieIndexer, textIndex, trigramIndex, docIds,
+                bitmapIndex, typoIndex, new MovieSearchCache(1000, Duration.ofMinutes(10), new SimpleMeterRegistry()),
+                movieCache);
+    }
+
+    @Test
+    void findMovies_indexReady_pagesThroughRankedResultsWithCursor() {
+        Movie movie3 = new Movie("Inception: The Dream Files", Arrays.asList("Documentary"), 2011, Arrays.asList(), "Making of Inception", "url3");
+        movie3.setId("movie3");
+        useRealIndexes(movie1, movie2, movie3);
+        when(movieIndexer.isReady()).thenReturn(true);
+        when(mongoTemplate.find(any(Query.class), eq(Movie.class))).thenReturn(Arrays.asList(movie1), Arrays.asList(movie3));
+
+        MoviePage first = movieService.findMovies("inception", null, null, null, null, 1);
+        MoviePage second = movieService.findMovies("inception", null, null, null, first.getNextCursor(), 1);
+
+        assertEquals(Arrays.asList(movie1), first.getItems());
+        assertNotNull(first.getNextCursor());
+        assertEquals(Arrays.asList(movie3), second.getItems());
+        assertNull(second.getNextCursor());
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(queryCaptor.capture(), eq(Movie.class));
+        String secondQuery = queryCaptor.getAllValues().get(1).getQueryObject().toJson();
+        assertTrue(secondQuery.contains("movie3"));
+        assertFalse(secondQuery.contains("movie1")); // only the ids of the requested page are loaded
     }
 }
@@ -0,0 +1,65 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Movie;
+import com.example.whattowatchnow.domain.Review;
+import com.example.whattowatchnow.search.MovieDocIds;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RecommendationServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private RatingMatrixLoader ratingMatrixLoader;
+
+    @Mock
+    private AlsModelService alsModelService;
+
+    @Mock
+    private MovieCache movieCache;
+
+    @Mock
+    private LeaderboardService leaderboardService;
+
+    private RecommendationService recommendationService;
+
+    @BeforeEach
+    void setUp() {
+        recommendationService = new RecommendationService(mongoTemplate, ratingMatrixLoader, alsModelService,
+                movieCache, new MovieDocIds(), leaderboardService, 50, 20, 2000);
+    }
+
+    @Test
+    void recommendFor_modelResults_leaveOutMoviesReviewedSinceTraining() {
+        Review reviewed = new Review("user1", "heat", 5, "Reviewed after the model was trained");
+        Review unrated = new Review("user1", "ronin", 0, "No rating");
+        when(mongoTemplate.find(any(Query.class), eq(Review.class))).thenReturn(List.of(reviewed, unrated));
+        when(alsModelService.recommend("user1", 4)).thenReturn(List.of("heat", "casino", "ronin", "up"));
+        when(movieCache.get(anyString())).thenAnswer(invocation -> {
+            Movie movie = new Movie();
+            movie.setId(invocation.getArgument(0));
+            return movie;
+        });
+
+        List<Movie> picks = recommendationService.recommendFor("user1", 2);
+
+        assertEquals(List.of("casino", "up"), picks.stream().map(Movie::getId).toList());
+        verifyNoInteractions(leaderboardService);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Review;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReviewFeedTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ThreadPoolExecutor senders = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @AfterEach
+    void tearDown() {
+        senders.shutdownNow();
+    }
+
+    private static Review review(String id, String movieId) {
+        Review review = new Review("user1", movieId, 4, "Great");
+        review.setId(id);
+        return review;
+    }
+
+    @Test
+    void subscribe_tracksSubscribersPerMovie() {
+        ReviewFeed feed = new ReviewFeed(objectMapper, meterRegistry, 8, Duration.ofMinutes(1), Duration.ofSeconds(5), senders);
+
+        feed.subscribe("movie1");
+        feed.subscribe("movie1");
+        feed.subscribe("movie2");
+
+        assertEquals(2, feed.subscriberCount("movie1"));
+        assertEquals(1, feed.subscriberCount("movie2"));
+        assertEquals(0, feed.subscriberCount("movie3"));
+        assertEquals(3.0, meterRegistry.get("reviews.feed.subscribers").gauge().value());
+    }
+
+    @Test
+    void reviewAdded_subscriberThatFallsBehind_isDropped() throws Exception {
+        ReviewFeed feed = new ReviewFeed(objectMapper, meterRegistry, 2, Duration.ofMinutes(1), Duration.ofSeconds(5), senders);
+        CountDownLatch release = new CountDownLatch(1);
+        senders.execute(() -> { // Keeps the only sender busy so nothing drains
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        feed.subscribe("movie1");
+        feed.subscribe("movie2");
+
+        for (int i = 0; i < 3; i++) {
+            feed.reviewAdded(new ReviewAddedEvent(review("r" + i, "movie1")));
+        }
+        release.countDown();
+
+        assertEquals(0, feed.subscriberCount("movie1"));
+        assertEquals(1, feed.subscriberCount("movie2"), "Other movies' streams are untouched");
+        assertEquals(1.0, meterRegistry.get("reviews.feed.dropped").counter().count());
+        senders.shutdown();
+        assertTrue(senders.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void reviewAdded_blockedClient_doesNotStallOtherSubscribers() throws Exception {
+        ReviewFeed feed = new ReviewFeed(objectMapper, meterRegistry, 8, Duration.ofMinutes(1), Duration.ofMillis(50), senders);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        CountDownLatch delivered = new CountDownLatch(1);
+        feed.subscribe("slow", new SseEmitter() { // A client that stopped reading
+            @Override
+            public void send(Set<DataWithMediaType> items) {
+                blocked.countDown();
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        feed.subscribe("movie1", new SseEmitter() {
+            @Override
+            public void send(Set<DataWithMediaType> items) {
+                delivered.countDown();
+            }
+        });
+
+        feed.reviewAdded(new ReviewAddedEvent(review("r1", "slow")));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS)); // The only sender is now stuck
+        feed.reviewAdded(new ReviewAddedEvent(review("r2", "movie1")));
+        Thread.sleep(100);
+        feed.abandonStuckWrites();
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS), "A replacement sender serves the other stream");
+        assertEquals(0, feed.subscriberCount("slow"));
+        assertEquals(1, feed.subscriberCount("movie1"));
+        assertEquals(1.0, meterRegistry.get("reviews.feed.dropped").counter().count());
+        assertEquals(2, senders.getCorePoolSize());
+
+        unblock.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (senders.getCorePoolSize() != 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, senders.getCorePoolSize(), "The pool shrinks back once the write returns");
+    }
+}
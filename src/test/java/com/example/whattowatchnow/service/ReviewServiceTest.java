@@ -2,26 +2,39 @@ package com.example.whattowatchnow.service;
 
 import com.example.whattowatchnow.domain.Review;
 import com.example.whattowatchnow.domain.User;
+import com.example.whattowatchnow.dto.MovieReviewSummary;
+import com.example.whattowatchnow.dto.RatingSummary;
+import com.example.whattowatchnow.dto.ReviewPage;
 import com.example.whattowatchnow.repository.ReviewRepository;
-import com.example.whattowatchnow.repository.UserRepository;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContext;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Query;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,7 +44,19 @@ public class ReviewServiceTest {
     private ReviewRepository reviewRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private UserCache userCache;
+
+    @Mock
+    private MovieRatingService movieRatingService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ReviewWriteBuffer writeBuffer;
 
     @InjectMocks
     private ReviewService reviewService;
@@ -49,14 +74,9 @@ public class ReviewServiceTest {
         review.setId("reviewId123");
         review.setReviewDate(LocalDateTime.now().minusDays(1)); // Set a fixed past date for predictability
         
-        // Mock SecurityContext for authenticated user
-        Authentication authentication = mock(Authentication.class);
-        SecurityContext securityContext = mock(SecurityContext.class);
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getName()).thenReturn(testUser.getEmail());
-        SecurityContextHolder.setContext(securityContext);
-        
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        // testUser is the authenticated user
+        lenient().when(userCache.currentUserId()).thenReturn(testUser.getId());
+        lenient().when(userCache.get(testUser.getId())).thenReturn(testUser);
     }
 
     @Test
@@ -73,18 +93,59 @@ public class ReviewServiceTest {
 
         assertNotNull(addedReview);
         assertEquals(testUser.getId(), addedReview.getUserId());
+        assertEquals(testUser.getNickname(), addedReview.getReviewer().getNickname());
+        assertEquals(testUser.getProfilePicture(), addedReview.getReviewer().getProfilePicture());
         assertEquals(movieId, addedReview.getMovieId());
         assertEquals(4, addedReview.getRating());
         assertEquals("Awesome!", addedReview.getComment());
         assertNotNull(addedReview.getReviewDate());
         assertTrue(addedReview.getReviewDate().isAfter(LocalDateTime.now().minusMinutes(1))); // Ensure date is recent
         verify(reviewRepository, times(1)).save(any(Review.class));
+        verify(movieRatingService, times(1)).reviewAdded(addedReview);
+        verify(eventPublisher, times(1)).publishEvent(any(ReviewAddedEvent.class));
+    }
+
+    @Test
+    void addReview_writeBehind_waitsForTheBatch() {
+        when(writeBuffer.isEnabled()).thenReturn(true);
+        when(writeBuffer.submit(any(Review.class))).thenAnswer(invocation -> {
+            Review queued = invocation.getArgument(0);
+            queued.setId("batchedId");
+            return CompletableFuture.completedFuture(queued);
+        });
+
+        Review addedReview = reviewService.addReview(new Review(null, null, 4, "Awesome!"), movieId);
+
+        assertEquals("batchedId", addedReview.getId());
+        assertEquals(testUser.getId(), addedReview.getUserId());
+        verify(reviewRepository, never()).save(any(Review.class));
+        verify(movieRatingService, never()).reviewAdded(any(Review.class)); // updated with the batch
+        verify(eventPublisher, times(1)).publishEvent(any(ReviewAddedEvent.class));
+    }
+
+    @Test
+    void addReview_writeBehindFailure_propagates() {
+        when(writeBuffer.isEnabled()).thenReturn(true);
+        when(writeBuffer.submit(any(Review.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Mongo down")));
+
+        assertThrows(IllegalStateException.class, () -> reviewService.addReview(new Review(null, null, 4, "Lost"), movieId));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void addReview_ratingOutOfRange_throwsIllegalArgumentException() {
+        Review newReview = new Review(null, null, 6, "Off the scale");
+
+        assertThrows(IllegalArgumentException.class, () -> reviewService.addReview(newReview, movieId));
+        verify(reviewRepository, never()).save(any(Review.class));
+        verify(movieRatingService, never()).reviewAdded(any(Review.class));
     }
     
     @Test
     void addReview_userNotFoundInRepo_throwsRuntimeException() {
-        // Override the default mock for userRepository for this specific test
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.empty());
+        // The principal no longer resolves to a user
+        when(userCache.currentUserId()).thenReturn(null);
         
         Review newReview = new Review(null, null, 4, "This should fail");
         
@@ -100,12 +161,86 @@ public class ReviewServiceTest {
     @Test
     void getReviewsForMovie_success() {
         Review review2 = new Review(testUser.getId(), movieId, 3, "Okay movie.");
-        when(reviewRepository.findByMovieId(movieId)).thenReturn(Arrays.asList(review, review2));
+        review2.setId("reviewId456");
+        review2.setReviewDate(LocalDateTime.now().minusDays(2));
+        Review review3 = new Review(testUser.getId(), movieId, 4, "Fine.");
+        when(mongoTemplate.find(any(Query.class), eq(Review.class))).thenReturn(new ArrayList<>(Arrays.asList(review, review2, review3)));
 
-        List<Review> reviews = reviewService.getReviewsForMovie(movieId);
+        ReviewPage page = reviewService.getReviewsForMovie(movieId, ReviewSort.NEWEST, null, 2);
 
-        assertEquals(2, reviews.size());
-        verify(reviewRepository, times(1)).findByMovieId(movieId);
+        assertEquals(2, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Review.class));
+        assertEquals(3, query.getValue().getLimit()); // one extra to detect the next page
+        assertEquals(new Document("reviewDate", -1).append("id", -1), query.getValue().getSortObject());
+    }
+
+    @Test
+    void getReviewsForMovie_withCursor_seeksPastTheLastReview() {
+        Review last = new Review(testUser.getId(), movieId, 3, "Okay movie.");
+        last.setId("reviewId456");
+        last.setReviewDate(LocalDateTime.of(2024, 5, 1, 12, 0));
+        when(mongoTemplate.find(any(Query.class), eq(Review.class))).thenReturn(new ArrayList<>(Arrays.asList(review, last)));
+        String cursor = reviewService.getReviewsForMovie(movieId, ReviewSort.RATING, null, 2).getNextCursor();
+        assertNull(cursor);
+
+        when(mongoTemplate.find(any(Query.class), eq(Review.class))).thenReturn(new ArrayList<>(Arrays.asList(review, last, review)));
+        cursor = reviewService.getReviewsForMovie(movieId, ReviewSort.RATING, null, 2).getNextCursor();
+        reviewService.getReviewsForMovie(movieId, ReviewSort.RATING, cursor, 2);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(3)).find(query.capture(), eq(Review.class));
+        List<?> seek = (List<?>) query.getValue().getQueryObject().get("$or");
+        assertEquals(new Document("rating", new Document("$lt", 3)), seek.get(0));
+        assertEquals(new Document("rating", -1).append("reviewDate", -1).append("id", -1), query.getValue().getSortObject());
+    }
+
+    @Test
+    void getReviewsForMovie_cursorFromOtherOrder_throwsIllegalArgumentException() {
+        when(mongoTemplate.find(any(Query.class), eq(Review.class))).thenReturn(new ArrayList<>(Arrays.asList(review, review)));
+        String newestCursor = reviewService.getReviewsForMovie(movieId, ReviewSort.NEWEST, null, 1).getNextCursor();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> reviewService.getReviewsForMovie(movieId, ReviewSort.RATING, newestCursor, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> reviewService.getReviewsForMovie(movieId, ReviewSort.NEWEST, "not-a-cursor", 1));
+    }
+
+    @Test
+    void getReviewSummaries_combinesRatingsAndRecentReviewsInRequestOrder() {
+        String gridMovie = "65f000000000000000000001";
+        when(movieRatingService.getRatings(Arrays.asList(gridMovie, movieId))).thenReturn(Map.of(
+                gridMovie, new RatingSummary(gridMovie, 2, 9, new long[]{0, 0, 0, 1, 1}),
+                movieId, new RatingSummary(movieId, 0, 0, new long[5])));
+        Document movieWithReviews = new Document("_id", new ObjectId(gridMovie))
+                .append("recent", List.of(new Document("_id", "reviewId123").append("movieId", gridMovie)
+                        .append("rating", 5).append("comment", "Great movie!")));
+        when(mongoTemplate.aggregate(any(TypedAggregation.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(movieWithReviews), new Document()));
+        MongoConverter converter = mock(MongoConverter.class);
+        when(converter.read(eq(Review.class), any(Document.class))).thenReturn(review);
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+
+        Map<String, MovieReviewSummary> summaries = reviewService.getReviewSummaries(
+                Arrays.asList(gridMovie, movieId, gridMovie), 3);
+
+        assertEquals(Arrays.asList(gridMovie, movieId), new ArrayList<>(summaries.keySet()));
+        assertEquals(4.5, summaries.get(gridMovie).getRating().getMean());
+        assertEquals("Great movie!", summaries.get(gridMovie).getRecentReviews().get(0).getComment());
+        assertTrue(summaries.get(movieId).getRecentReviews().isEmpty());
+        verify(mongoTemplate, times(1)).aggregate(any(TypedAggregation.class), eq(Document.class));
+    }
+
+    @Test
+    void getReviewSummaries_noRecentReviews_skipsTheAggregation() {
+        when(movieRatingService.getRatings(List.of(movieId)))
+                .thenReturn(Map.of(movieId, new RatingSummary(movieId, 0, 0, new long[5])));
+
+        Map<String, MovieReviewSummary> summaries = reviewService.getReviewSummaries(List.of(movieId), 0);
+
+        assertEquals(0, summaries.get(movieId).getRating().getCount());
+        verify(mongoTemplate, never()).aggregate(any(TypedAggregation.class), eq(Document.class));
     }
 
     @Test
@@ -124,11 +259,31 @@ public class ReviewServiceTest {
         when(reviewRepository.findById(review.getId())).thenReturn(Optional.of(review));
         // review.getUserId() is testUser.getId(), which matches the authenticated user
 
+        when(mongoTemplate.remove(any(Query.class), eq(Review.class))).thenReturn(DeleteResult.acknowledged(1));
+
         boolean deleted = reviewService.deleteReview(review.getId());
 
         assertTrue(deleted);
         verify(reviewRepository, times(1)).findById(review.getId());
-        verify(reviewRepository, times(1)).deleteById(review.getId());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(query.capture(), eq(Review.class));
+        assertEquals(review.getId(), query.getValue().getQueryObject().get("id"));
+        assertEquals(testUser.getId(), query.getValue().getQueryObject().get("userId"));
+        verify(movieRatingService, times(1)).reviewDeleted(review);
+        verify(eventPublisher, times(1)).publishEvent(any(ReviewDeletedEvent.class));
+    }
+
+    @Test
+    void deleteReview_concurrentlyDeleted_leavesRatingsAlone() {
+        when(reviewRepository.findById(review.getId())).thenReturn(Optional.of(review));
+        // Another request removed the review between the lookup and the delete
+        when(mongoTemplate.remove(any(Query.class), eq(Review.class))).thenReturn(DeleteResult.acknowledged(0));
+
+        boolean deleted = reviewService.deleteReview(review.getId());
+
+        assertFalse(deleted);
+        verify(movieRatingService, never()).reviewDeleted(any(Review.class));
+        verify(eventPublisher, never()).publishEvent(any(ReviewDeletedEvent.class));
     }
 
     @Test
@@ -146,23 +301,21 @@ public class ReviewServiceTest {
 
         assertFalse(deleted, "Should not be able to delete another user's review");
         verify(reviewRepository, times(1)).findById(reviewByAnother.getId());
-        verify(reviewRepository, never()).deleteById(anyString());
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(Review.class));
     }
     
     @Test
     void deleteReview_userNotAuthenticatedOrFound_throwsRuntimeException() {
-        // Simulate user not being found in repository after SecurityContextHolder gives email
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.empty());
-        
-        when(reviewRepository.findById(review.getId())).thenReturn(Optional.of(review)); // Review itself exists
+        // Simulate the principal not resolving to a user
+        when(userCache.currentUserId()).thenReturn(null);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             reviewService.deleteReview(review.getId());
         });
         
         assertEquals("User not found, cannot verify review ownership.", exception.getMessage());
-        verify(reviewRepository, times(1)).findById(review.getId()); // Still checks if review exists
-        verify(reviewRepository, never()).deleteById(anyString());
+        verify(reviewRepository, never()).findById(anyString()); // Fails before touching the review
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(Review.class));
     }
 
 
@@ -174,6 +327,6 @@ public class ReviewServiceTest {
 
         assertFalse(deleted);
         verify(reviewRepository, times(1)).findById("nonExistentReviewId");
-        verify(reviewRepository, never()).deleteById(anyString());
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(Review.class));
     }
 }
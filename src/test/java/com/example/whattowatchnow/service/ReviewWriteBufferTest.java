@@ -0,0 +1,142 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Review;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReviewWriteBufferTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MovieRatingService movieRatingService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ReviewWriteBuffer buffer(boolean enabled, Duration maxDelay) {
+        return new ReviewWriteBuffer(mongoTemplate, movieRatingService, meterRegistry, enabled, 128, maxDelay);
+    }
+
+    @Test
+    void submit_concurrentReviewsShareOneInsertInArrivalOrder() throws Exception {
+        ReviewWriteBuffer buffer = buffer(true, Duration.ofMillis(200));
+        buffer.start();
+        try {
+            List<CompletableFuture<Review>> results = new ArrayList<>();
+            for (int i = 1; i <= 3; i++) {
+                results.add(buffer.submit(new Review("user" + i, "movie1", i, "Review " + i)));
+            }
+
+            for (CompletableFuture<Review> result : results) {
+                assertNotNull(result.get(5, TimeUnit.SECONDS).getId());
+            }
+        } finally {
+            buffer.stop();
+        }
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Review>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(mongoTemplate, times(1)).insert(inserted.capture(), eq(Review.class));
+        assertEquals(Arrays.asList("Review 1", "Review 2", "Review 3"),
+                inserted.getValue().stream().map(Review::getComment).toList());
+        verify(movieRatingService, times(1)).reviewsAdded(anyList());
+        assertEquals(3.0, meterRegistry.get("reviews.write_behind.batch_size").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("reviews.write_behind.flush").timer().count());
+    }
+
+    @Test
+    void flush_failedBatch_retriesEachReviewOnItsOwn() {
+        ReviewWriteBuffer buffer = buffer(false, Duration.ofMillis(5));
+        ReviewWriteBuffer.Pending good = new ReviewWriteBuffer.Pending(new Review("user1", "movie1", 4, "Fine"));
+        ReviewWriteBuffer.Pending bad = new ReviewWriteBuffer.Pending(new Review("user2", "movie1", 2, "Broken"));
+        when(mongoTemplate.insert(anyList(), eq(Review.class))).thenThrow(new DataIntegrityViolationException("batch"));
+        when(mongoTemplate.save(any(Review.class))).thenAnswer(invocation -> {
+            Review review = invocation.getArgument(0);
+            if (review == bad.review) {
+                throw new DataIntegrityViolationException("single");
+            }
+            return review;
+        });
+
+        buffer.flush(Arrays.asList(good, bad));
+
+        assertEquals(good.review, good.result.join());
+        ExecutionException failure = assertThrows(ExecutionException.class, bad.result::get);
+        assertInstanceOf(DataIntegrityViolationException.class, failure.getCause());
+        verify(movieRatingService).reviewsAdded(List.of(good.review));
+    }
+
+    @Test
+    void withdraw_removesOnlyReviewsStillQueued() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(mongoTemplate.insert(anyList(), eq(Review.class))).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+        ReviewWriteBuffer buffer = buffer(true, Duration.ofMillis(1));
+        buffer.start();
+        try {
+            Review inFlight = new Review("user1", "movie1", 4, "Being written");
+            CompletableFuture<Review> first = buffer.submit(inFlight);
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+            Review queued = new Review("user2", "movie1", 3, "Still queued");
+            CompletableFuture<Review> second = buffer.submit(queued);
+
+            assertTrue(buffer.withdraw(queued));
+            assertFalse(buffer.withdraw(inFlight));
+            assertTrue(second.isCompletedExceptionally());
+            release.countDown();
+            assertEquals(inFlight, first.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            buffer.stop();
+        }
+
+        verify(mongoTemplate, times(1)).insert(anyList(), eq(Review.class));
+    }
+
+    @Test
+    void submit_afterStop_failsImmediately() throws Exception {
+        ReviewWriteBuffer buffer = buffer(true, Duration.ofMillis(5));
+        buffer.start();
+        buffer.stop();
+
+        CompletableFuture<Review> result = buffer.submit(new Review("user1", "movie1", 4, "Too late"));
+
+        assertTrue(result.isCompletedExceptionally());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void submit_whenDisabled_fails() {
+        ReviewWriteBuffer buffer = buffer(false, Duration.ofMillis(5));
+
+        assertFalse(buffer.isEnabled());
+        assertTrue(buffer.submit(new Review("user1", "movie1", 4, "Fine")).isCompletedExceptionally());
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.whattowatchnow.service;
+
+import com.example.whattowatchnow.domain.Review;
+import com.example.whattowatchnow.domain.ReviewerSnapshot;
+import com.example.whattowatchnow.domain.User;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReviewerSnapshotFanoutTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private ReviewerSnapshotFanout fanout;
+
+    private static List<Review> reviews(int from, int count) {
+        List<Review> reviews = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            Review review = new Review();
+            review.setId(String.format("r%05d", i));
+            reviews.add(review);
+        }
+        return reviews;
+    }
+
+    @Test
+    void fanOut_updatesReviewsInBatchesWithTheCurrentProfile() {
+        User user = new User("newNick", "test@example.com", "password", "new.jpg");
+        user.setId("user1");
+        when(mongoTemplate.findById("user1", User.class)).thenReturn(user);
+        when(mongoTemplate.find(any(Query.class), eq(Review.class)))
+                .thenReturn(reviews(0, ReviewerSnapshotFanout.BATCH_SIZE))
+                .thenReturn(reviews(ReviewerSnapshotFanout.BATCH_SIZE, 3));
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Review.class)))
+                .thenReturn(UpdateResult.acknowledged(ReviewerSnapshotFanout.BATCH_SIZE, (long) ReviewerSnapshotFanout.BATCH_SIZE, null))
+                .thenReturn(UpdateResult.acknowledged(3, 3L, null));
+
+        int updated = fanout.fanOut("user1");
+
+        assertEquals(ReviewerSnapshotFanout.BATCH_SIZE + 3, updated);
+        ArgumentCaptor<Query> pages = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(pages.capture(), eq(Review.class));
+        assertFalse(pages.getAllValues().get(0).getQueryObject().containsKey("id"));
+        assertEquals(new Document("$gt", String.format("r%05d", ReviewerSnapshotFanout.BATCH_SIZE - 1)),
+                pages.getAllValues().get(1).getQueryObject().get("id"));
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateMulti(any(Query.class), updates.capture(), eq(Review.class));
+        ReviewerSnapshot snapshot = (ReviewerSnapshot) ((Document) updates.getValue().getUpdateObject().get("$set")).get("reviewer");
+        assertEquals("newNick", snapshot.getNickname());
+        assertEquals("new.jpg", snapshot.getProfilePicture());
+    }
+
+    @Test
+    void fanOut_deletedUser_writesNothing() {
+        when(mongoTemplate.findById("gone", User.class)).thenReturn(null);
+
+        assertEquals(0, fanout.fanOut("gone"));
+
+        verify(mongoTemplate, never()).updateMulti(any(Query.class), any(Update.class), eq(Review.class));
+    }
+}
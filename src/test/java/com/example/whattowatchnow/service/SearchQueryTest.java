@@ -0,0 +1,59 @@
+package com.example.whattowatchnow.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchQueryTest {
+
+    @Test
+    void parse_blank_isNull() {
+        assertNull(SearchQuery.parse(null));
+        assertNull(SearchQuery.parse("   "));
+    }
+
+    @Test
+    void literal_isQuotedNotInterpretedAsRegex() {
+        SearchQuery query = SearchQuery.parse("(a+)+$");
+
+        assertFalse(query.isPrefix());
+        String json = toJson(query);
+        assertTrue(json.contains("\\\\Q(a+)+$\\\\E"), json);
+        assertTrue(Pattern.compile(SearchQuery.containing("(a+)+$")).matcher("x(a+)+$y").find());
+        assertFalse(Pattern.compile(SearchQuery.containing("(a+)+$")).matcher("aaaa").find());
+    }
+
+    @Test
+    void trailingStar_becomesTitleKeyRange() {
+        SearchQuery query = SearchQuery.parse("  The Matr* ");
+
+        assertTrue(query.isPrefix());
+        String json = toJson(query);
+        assertTrue(json.contains("\"titleKey\": {\"$gte\": \"the matr\", \"$lt\": \"the mats\"}"), json);
+        assertFalse(json.contains("$regex"));
+    }
+
+    @Test
+    void parse_rejectsExpensiveShapes() {
+        assertThrows(IllegalArgumentException.class, () -> SearchQuery.parse("a*"));
+        assertThrows(IllegalArgumentException.class, () -> SearchQuery.parse("!!*"));
+        assertThrows(IllegalArgumentException.class, () -> SearchQuery.parse("x".repeat(SearchQuery.MAX_QUERY_LENGTH + 1)));
+        assertThrows(IllegalArgumentException.class, () -> SearchQuery.checkFilter("actor", "y".repeat(SearchQuery.MAX_FILTER_LENGTH + 1)));
+        assertDoesNotThrow(() -> SearchQuery.checkFilter("actor", null));
+    }
+
+    @Test
+    void titleKey_foldsCaseAccentsAndPunctuation() {
+        assertEquals("amelie from montmartre", SearchQuery.titleKey("Amélie: from  Montmartre!"));
+    }
+
+    private static String toJson(SearchQuery query) {
+        Criteria criteria = new Criteria();
+        query.addTo(criteria);
+        return new Query(criteria).getQueryObject().toJson();
+    }
+}
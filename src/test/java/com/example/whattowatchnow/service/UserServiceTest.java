@@ -2,12 +2,19 @@ package com.example.whattowatchnow.service;
 
 import com.example.whattowatchnow.domain.User;
 import com.example.whattowatchnow.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.bson.Document;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -15,12 +22,15 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
 import java.util.Optional;
 import java.util.ArrayList;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,7 +42,12 @@ public class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
-    @InjectMocks
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
     private UserService userService;
 
     private User user;
@@ -41,6 +56,8 @@ public class UserServiceTest {
     void setUp() {
         user = new User("testUser", "test@example.com", "password123", "profile.jpg");
         user.setId("userId123"); // Set an ID for existing user scenarios
+        UserCache userCache = new UserCache(userRepository, 100, Duration.ofMinutes(10), new SimpleMeterRegistry());
+        userService = new UserService(userRepository, passwordEncoder, eventPublisher, userCache, mongoTemplate);
     }
 
     // Tests for registerUser
@@ -48,7 +65,7 @@ public class UserServiceTest {
     void registerUser_success() throws Exception {
         when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
         when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
-        when(userRepository.save(any(User.class))).thenReturn(user);
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         User newUser = new User("testUser", "test@example.com", "password123", null);
         User registeredUser = userService.registerUser(newUser);
@@ -89,6 +106,49 @@ public class UserServiceTest {
         verify(userRepository, times(1)).findByEmail("test@example.com");
     }
 
+    @Test
+    void loadUserByUsername_principalCarriesTheUser() {
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+
+        AuthenticatedUser principal = (AuthenticatedUser) userService.loadUserByUsername("test@example.com");
+
+        assertEquals(user.getId(), principal.getUserId());
+        assertEquals(user.getEmail(), principal.getUsername());
+    }
+
+    @Test
+    void signedInUser_requestsDoNoUserLookups() {
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        UserDetails principal = userService.loadUserByUsername("test@example.com");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        assertEquals(user.getId(), userService.currentUserId());
+        User profile = userService.getUserProfile(user.getId());
+        userService.getUserProfile(user.getId());
+
+        assertEquals(user.getNickname(), profile.getNickname());
+        assertNull(profile.getPassword());
+        assertNotNull(user.getPassword(), "The stored user must not lose its password hash");
+        verify(userRepository, times(1)).findByEmail("test@example.com"); // The sign-in
+        verify(userRepository, never()).findById(anyString());
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void updateUserProfile_refreshesCachedProfile() {
+        mockSecurityContext(user);
+        stubUpdate(user);
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        userService.getUserProfile(user.getId());
+
+        userService.updateUserProfile(user.getId(), "renamed", null);
+
+        assertEquals("renamed", userService.getUserProfile(user.getId()).getNickname());
+        verify(userRepository, times(1)).findById(user.getId()); // Only the first read
+        verify(userRepository, never()).save(any(User.class));
+    }
+
     @Test
     void loadUserByUsername_userNotFound_throwsUsernameNotFoundException() {
         when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
@@ -111,14 +171,29 @@ public class UserServiceTest {
         when(userRepository.findByEmail(principalUser.getEmail())).thenReturn(Optional.of(principalUser));
     }
 
+    // Applies the $set to a copy of the stored user, as findAndModify with returnNew would
+    private void stubUpdate(User stored) {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(User.class)))
+                .thenAnswer(invocation -> {
+                    Document set = (Document) invocation.<Update>getArgument(1).getUpdateObject().get("$set");
+                    User updated = new User(stored.getNickname(), stored.getEmail(), stored.getPassword(), stored.getProfilePicture());
+                    updated.setId(stored.getId());
+                    if (set.containsKey("nickname")) {
+                        updated.setNickname(set.getString("nickname"));
+                    }
+                    if (set.containsKey("profilePicture")) {
+                        updated.setProfilePicture(set.getString("profilePicture"));
+                    }
+                    return updated;
+                });
+    }
+
 
     // Tests for updateUserProfile
     @Test
     void updateUserProfile_success_updatesOwnProfile() {
         mockSecurityContext(user); // Authenticated user is 'user'
-
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        stubUpdate(user);
 
         String newNickname = "updatedNickname";
         String newProfilePic = "updated.jpg";
@@ -128,18 +203,27 @@ public class UserServiceTest {
         assertEquals(newNickname, updatedUser.getNickname());
         assertEquals(newProfilePic, updatedUser.getProfilePicture());
         assertNull(updatedUser.getPassword(), "Password should not be returned"); // Check password is not returned
-        verify(userRepository, times(1)).findById(user.getId());
-        verify(userRepository, times(1)).save(any(User.class));
+        verify(mongoTemplate, times(1)).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(User.class));
+        verify(userRepository, never()).findById(anyString()); // The cache was warmed by resolving the principal
+        verify(userRepository, never()).save(any(User.class));
+        verify(eventPublisher, times(1)).publishEvent(any(UserProfileChangedEvent.class));
+    }
+
+    @Test
+    void updateUserProfile_unchangedValues_doesNotFanOut() {
+        mockSecurityContext(user);
+        stubUpdate(user);
+
+        userService.updateUserProfile(user.getId(), user.getNickname(), user.getProfilePicture());
+
+        verify(mongoTemplate).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(User.class));
+        verify(eventPublisher, never()).publishEvent(any());
     }
     
     @Test
     void updateUserProfile_onlyNickname_updatesOwnProfile() {
         mockSecurityContext(user);
-
-        User userToUpdate = new User(user.getNickname(), user.getEmail(), user.getPassword(), user.getProfilePicture());
-        userToUpdate.setId(user.getId());
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(userToUpdate));
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        stubUpdate(user);
     
         String newNickname = "onlyNicknameUpdated";
         User updatedUser = userService.updateUserProfile(user.getId(), newNickname, null); // null for profile picture URL
@@ -147,20 +231,15 @@ public class UserServiceTest {
         assertNotNull(updatedUser);
         assertEquals(newNickname, updatedUser.getNickname());
         assertEquals(user.getProfilePicture(), updatedUser.getProfilePicture(), "Profile picture should not change if null passed");
-        verify(userRepository).save(argThat(savedUser -> 
-            savedUser.getNickname().equals(newNickname) && 
-            savedUser.getProfilePicture().equals(user.getProfilePicture())
-        ));
+        verify(mongoTemplate).findAndModify(any(Query.class),
+                argThat((Update update) -> update.getUpdateObject().get("$set", Document.class).keySet().equals(Set.of("nickname"))),
+                any(FindAndModifyOptions.class), eq(User.class));
     }
 
     @Test
     void updateUserProfile_onlyProfilePicture_updatesOwnProfile() {
         mockSecurityContext(user);
-    
-        User userToUpdate = new User(user.getNickname(), user.getEmail(), user.getPassword(), user.getProfilePicture());
-        userToUpdate.setId(user.getId());
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(userToUpdate));
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        stubUpdate(user);
     
         String newProfilePic = "onlyPicUpdated.jpg";
         User updatedUser = userService.updateUserProfile(user.getId(), null, newProfilePic); // null for nickname
@@ -168,10 +247,9 @@ public class UserServiceTest {
         assertNotNull(updatedUser);
         assertEquals(user.getNickname(), updatedUser.getNickname(), "Nickname should not change if null passed");
         assertEquals(newProfilePic, updatedUser.getProfilePicture());
-        verify(userRepository).save(argThat(savedUser -> 
-            savedUser.getNickname().equals(user.getNickname()) &&
-            savedUser.getProfilePicture().equals(newProfilePic)
-        ));
+        verify(mongoTemplate).findAndModify(any(Query.class),
+                argThat((Update update) -> update.getUpdateObject().get("$set", Document.class).keySet().equals(Set.of("profilePicture"))),
+                any(FindAndModifyOptions.class), eq(User.class));
     }
 
 
@@ -182,7 +260,7 @@ public class UserServiceTest {
         
         mockSecurityContext(user); // Authenticated user is 'user'
 
-        // No need to mock userRepository.findById or save as it should fail before that
+        // No need to mock the update as it should fail before that
         
         SecurityException exception = assertThrows(SecurityException.class, () -> {
             userService.updateUserProfile(anotherUser.getId(), "newNick", "newPic.jpg");
@@ -190,21 +268,22 @@ public class UserServiceTest {
 
         assertEquals("User not authorized to update this profile.", exception.getMessage());
         verify(userRepository, never()).findById(anyString());
-        verify(userRepository, never()).save(any(User.class));
+        verifyNoInteractions(mongoTemplate);
     }
     
     @Test
     void updateUserProfile_targetUserNotFound_throwsException() {
         mockSecurityContext(user); // Authenticated as 'user'
 
-        when(userRepository.findById(user.getId())).thenReturn(Optional.empty()); // User to update not found
+        // The user document is gone by the time the update runs
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(User.class)))
+                .thenReturn(null);
 
         UsernameNotFoundException exception = assertThrows(UsernameNotFoundException.class, () -> {
             userService.updateUserProfile(user.getId(), "newNick", "newPic.jpg");
         });
         
         assertEquals("User not found with id: " + user.getId(), exception.getMessage());
-        verify(userRepository, times(1)).findById(user.getId());
         verify(userRepository, never()).save(any(User.class));
     }
 
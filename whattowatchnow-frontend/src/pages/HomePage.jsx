@@ -1,8 +1,11 @@
-import React, { useState, useEffect, useCallback } from 'react';
-import { Link } from 'react-router-dom';
-import { getMovies } from '../services/api'; // Assuming api.js is in src/services
+import React, { useState, useEffect, useCallback, useRef } from 'react';
+import { Link, useNavigate } from 'react-router-dom';
+import axios from 'axios';
+import { getMovies, getMovieSuggestions, getReviewSummaries } from '../services/api'; // Assuming api.js is in src/services
 
-const MovieCard = ({ movie }) => (
+const SUGGEST_DELAY_MS = 120;
+
+const MovieCard = ({ movie, rating }) => (
     <div className="bg-white rounded-lg shadow-md overflow-hidden hover:shadow-xl transition-shadow duration-300">
         <Link to={`/movie/${movie.id}`}>
             <img 
@@ -17,6 +20,9 @@ const MovieCard = ({ movie }) => (
             </h3>
             <p className="text-sm text-gray-600 mb-1">Release Year: {movie.releaseYear || 'N/A'}</p>
             <p className="text-sm text-gray-600 mb-2">Genres: {movie.genres && movie.genres.length > 0 ? movie.genres.join(', ') : 'N/A'}</p>
+            {rating && rating.count > 0 && (
+                <p className="text-sm text-gray-700">{rating.mean.toFixed(1)}/5 ({rating.count})</p>
+            )}
             {/* <p className="text-xs text-gray-500 truncate">{movie.description || ''}</p> */}
         </div>
     </div>
@@ -24,49 +30,135 @@ const MovieCard = ({ movie }) => (
 
 const HomePage = () => {
     const [movies, setMovies] = useState([]);
+    const [ratings, setRatings] = useState({}); // movieId -> rating summary
+    const [nextCursor, setNextCursor] = useState(null);
+    const [facets, setFacets] = useState(null); // { genres: [{ value, count }], years: [...] }
+    const [didYouMean, setDidYouMean] = useState(null);
     const [loading, setLoading] = useState(false);
     const [error, setError] = useState('');
     
     const [searchTerm, setSearchTerm] = useState('');
+    const [appliedSearch, setAppliedSearch] = useState(''); // Only searched on submit, not on every keystroke
+    const [suggestions, setSuggestions] = useState([]);
+    const suggestRequest = useRef(null); // AbortController of the in-flight typeahead request
+    const navigate = useNavigate();
     const [genreFilter, setGenreFilter] = useState('');
     const [yearFilter, setYearFilter] = useState('');
-    // Add more filters if needed (e.g., actor)
+    const [actorFilter, setActorFilter] = useState(''); // Set by picking an actor suggestion
 
     // Define available genres and years (can be dynamic in a real app)
     const genres = ["Action", "Comedy", "Drama", "Sci-Fi", "Horror", "Romance", "Thriller"]; // Example genres
     const currentYear = new Date().getFullYear();
     const years = Array.from({ length: 30 }, (_, i) => currentYear - i); // Last 30 years
 
-    const fetchMovies = useCallback(async () => {
+    // Once the backend returns facet counts, offer exactly the values that have results
+    const genreOptions = facets ? facets.genres : genres.map(value => ({ value }));
+    const yearOptions = facets ? facets.years : years.map(value => ({ value: String(value) }));
+    const withCount = (option) => option.count !== undefined
+        ? `${option.value} (${option.count.toLocaleString()})`
+        : option.value;
+
+    // One request for the ratings of a whole page of cards; a failure just leaves them off
+    const fetchRatings = async (pageMovies) => {
+        if (pageMovies.length === 0) return;
+        try {
+            const response = await getReviewSummaries(pageMovies.map(movie => movie.id));
+            const summaries = response.data || {};
+            setRatings(previous => {
+                const next = { ...previous };
+                Object.entries(summaries).forEach(([movieId, summary]) => { next[movieId] = summary.rating; });
+                return next;
+            });
+        } catch (err) {
+            console.error("Fetch ratings error:", err);
+        }
+    };
+
+    const fetchMovies = useCallback(async (cursor = null) => {
         setLoading(true);
         setError('');
         try {
             const filters = {
-                query: searchTerm, // Corresponds to 'query' in backend (title or description)
+                query: appliedSearch, // Corresponds to 'query' in backend (title or description)
                 genre: genreFilter,
                 year: yearFilter ? parseInt(yearFilter) : null,
+                actor: actorFilter,
+                cursor, // nextCursor of the previous page, null for the first page
+                facets: !cursor, // counts don't change while paging
+                fuzzy: true, // tolerate typos in the search box and actor name
             };
             const response = await getMovies(filters);
-            setMovies(response.data || []); // Assuming response.data is the array of movies
+            const page = response.data || {};
+            setMovies(previous => cursor ? [...previous, ...(page.items || [])] : (page.items || []));
+            fetchRatings(page.items || []);
+            setNextCursor(page.nextCursor || null);
+            if (!cursor) {
+                setFacets(page.facets || null);
+                setDidYouMean(page.didYouMean || null);
+            }
         } catch (err) {
             setError(`Failed to fetch movies: ${err.message}`);
             console.error("Fetch movies error:", err);
         } finally {
             setLoading(false);
         }
-    }, [searchTerm, genreFilter, yearFilter]);
+    }, [appliedSearch, genreFilter, yearFilter, actorFilter]);
 
     useEffect(() => {
         fetchMovies();
     }, [fetchMovies]); // Re-fetch when fetchMovies (due to filter changes)
 
+    useEffect(() => {
+        suggestRequest.current?.abort();
+        if (!searchTerm.trim()) {
+            setSuggestions([]);
+            return undefined;
+        }
+        const timer = setTimeout(async () => {
+            const controller = new AbortController();
+            suggestRequest.current = controller;
+            try {
+                const response = await getMovieSuggestions(searchTerm, controller.signal);
+                setSuggestions(response.data || []);
+            } catch (err) {
+                if (!axios.isCancel(err)) {
+                    setSuggestions([]);
+                }
+            }
+        }, SUGGEST_DELAY_MS);
+        return () => clearTimeout(timer);
+    }, [searchTerm]);
+
     const handleSearch = (e) => {
         e.preventDefault();
-        fetchMovies(); // Filters are already updated by onChange handlers
+        suggestRequest.current?.abort();
+        setSuggestions([]);
+        if (searchTerm === appliedSearch) {
+            fetchMovies();
+        } else {
+            setAppliedSearch(searchTerm); // useEffect re-fetches
+        }
+    };
+
+    const handleSuggestionClick = (suggestion) => {
+        setSuggestions([]);
+        if (suggestion.type === 'title') {
+            navigate(`/movie/${suggestion.movieId}`);
+        } else {
+            setSearchTerm('');
+            setAppliedSearch('');
+            setActorFilter(suggestion.text);
+        }
+    };
+
+    const handleLoadMore = () => {
+        fetchMovies(nextCursor);
     };
     
     const handleResetFilters = () => {
         setSearchTerm('');
+        setAppliedSearch('');
+        setActorFilter('');
         setGenreFilter('');
         setYearFilter('');
         // fetchMovies will be called by useEffect due to state changes if fetchMovies is in dependency array
@@ -81,7 +173,7 @@ const HomePage = () => {
             {/* Filter and Search Section */}
             <form onSubmit={handleSearch} className="mb-8 p-6 bg-gray-50 rounded-lg shadow">
                 <div className="grid grid-cols-1 md:grid-cols-2 lg:grid-cols-4 gap-4 items-end">
-                    <div>
+                    <div className="relative">
                         <label htmlFor="searchTerm" className="block text-sm font-medium text-gray-700">Search Title/Desc</label>
                         <input
                             type="text"
@@ -90,7 +182,24 @@ const HomePage = () => {
                             onChange={(e) => setSearchTerm(e.target.value)}
                             className="mt-1 block w-full px-3 py-2 border border-gray-300 rounded-md shadow-sm focus:ring-indigo-500 focus:border-indigo-500 sm:text-sm"
                             placeholder="e.g., Inception, space..."
+                            autoComplete="off"
                         />
+                        {suggestions.length > 0 && (
+                            <ul className="absolute z-10 mt-1 w-full bg-white border border-gray-200 rounded-md shadow-lg">
+                                {suggestions.map(s => (
+                                    <li key={`${s.type}-${s.movieId}-${s.text}`}>
+                                        <button
+                                            type="button"
+                                            onClick={() => handleSuggestionClick(s)}
+                                            className="w-full text-left px-3 py-2 text-sm hover:bg-gray-100"
+                                        >
+                                            {s.text}
+                                            {s.type === 'actor' && <span className="ml-2 text-xs text-gray-500">actor</span>}
+                                        </button>
+                                    </li>
+                                ))}
+                            </ul>
+                        )}
                     </div>
                     <div>
                         <label htmlFor="genreFilter" className="block text-sm font-medium text-gray-700">Genre</label>
@@ -101,7 +210,7 @@ const HomePage = () => {
                             className="mt-1 block w-full px-3 py-2 border border-gray-300 bg-white rounded-md shadow-sm focus:outline-none focus:ring-indigo-500 focus:border-indigo-500 sm:text-sm"
                         >
                             <option value="">All Genres</option>
-                            {genres.map(g => <option key={g} value={g}>{g}</option>)}
+                            {genreOptions.map(g => <option key={g.value} value={g.value}>{withCount(g)}</option>)}
                         </select>
                     </div>
                     <div>
@@ -113,7 +222,7 @@ const HomePage = () => {
                             className="mt-1 block w-full px-3 py-2 border border-gray-300 bg-white rounded-md shadow-sm focus:outline-none focus:ring-indigo-500 focus:border-indigo-500 sm:text-sm"
                         >
                             <option value="">All Years</option>
-                            {years.map(y => <option key={y} value={y}>{y}</option>)}
+                            {yearOptions.map(y => <option key={y.value} value={y.value}>{withCount(y)}</option>)}
                         </select>
                     </div>
                     <div className="flex space-x-2">
@@ -134,20 +243,52 @@ const HomePage = () => {
                 </div>
             </form>
 
+            {actorFilter && (
+                <p className="mb-4 text-sm text-gray-700">
+                    Movies with <span className="font-semibold">{actorFilter}</span>{' '}
+                    <button type="button" onClick={() => setActorFilter('')} className="text-blue-600 hover:underline">(clear)</button>
+                </p>
+            )}
+
             {loading && <p className="text-center text-gray-600">Loading movies...</p>}
             {error && <p className="text-center text-red-500 bg-red-100 p-3 rounded-md">{error}</p>}
             
-            {!loading && !error && movies.length === 0 && (
-                <p className="text-center text-gray-600">No movies found. Try adjusting your filters.</p>
+            {!error && movies.length === 0 && !loading && (
+                <p className="text-center text-gray-600">
+                    No movies found.{' '}
+                    {didYouMean ? (
+                        <>Did you mean{' '}
+                            <button
+                                type="button"
+                                onClick={() => { setSearchTerm(didYouMean); setAppliedSearch(didYouMean); }}
+                                className="text-blue-600 hover:underline font-semibold"
+                            >
+                                {didYouMean}
+                            </button>?
+                        </>
+                    ) : 'Try adjusting your filters.'}
+                </p>
             )}
 
-            {!loading && !error && movies.length > 0 && (
+            {!error && movies.length > 0 && (
                 <div className="grid grid-cols-1 sm:grid-cols-2 md:grid-cols-3 lg:grid-cols-4 xl:grid-cols-5 gap-6">
                     {movies.map(movie => (
-                        <MovieCard key={movie.id} movie={movie} />
+                        <MovieCard key={movie.id} movie={movie} rating={ratings[movie.id]} />
                     ))}
                 </div>
             )}
+
+            {!loading && !error && nextCursor && (
+                <div className="text-center mt-8">
+                    <button
+                        type="button"
+                        onClick={handleLoadMore}
+                        className="py-2 px-6 border border-gray-300 rounded-md shadow-sm text-sm font-medium text-gray-700 bg-white hover:bg-gray-50"
+                    >
+                        Load more
+                    </button>
+                </div>
+            )}
         </div>
     );
 };
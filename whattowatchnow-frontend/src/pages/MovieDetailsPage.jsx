@@ -1,6 +1,6 @@
 import React, { useState, useEffect, useCallback } from 'react';
 import { useParams, useNavigate, Link } from 'react-router-dom'; // Added Link
-import { getMovieById, getReviewsForMovie, addReview, deleteReview } from '../services/api'; // Removed getUserProfile
+import { getMovieById, getMovieRating, getReviewsForMovie, subscribeToMovieReviews, addReview, deleteReview } from '../services/api'; // Removed getUserProfile
 import { useAuth } from '../context/AuthContext'; // Import useAuth
 
 const MovieDetailsPage = () => {
@@ -10,6 +10,10 @@ const MovieDetailsPage = () => {
 
     const [movie, setMovie] = useState(null);
     const [reviews, setReviews] = useState([]);
+    const [reviewSort, setReviewSort] = useState('newest');
+    const [nextReviewCursor, setNextReviewCursor] = useState(null);
+    const [isLoadingMoreReviews, setIsLoadingMoreReviews] = useState(false);
+    const [rating, setRating] = useState(null);
     const [isLoadingMovie, setIsLoadingMovie] = useState(true);
     const [isLoadingReviews, setIsLoadingReviews] = useState(true);
     const [error, setError] = useState('');
@@ -34,24 +38,67 @@ const MovieDetailsPage = () => {
         }
     }, [movieId]);
 
+    const fetchRating = useCallback(async () => {
+        try {
+            const ratingResponse = await getMovieRating(movieId);
+            setRating(ratingResponse.data);
+        } catch (err) {
+            console.error(`Error fetching rating for movie ${movieId}:`, err);
+        }
+    }, [movieId]);
+
     const fetchReviewsData = useCallback(async () => {
         setIsLoadingReviews(true);
+        fetchRating(); // Reviews and the aggregate change together
         try {
-            const reviewsResponse = await getReviewsForMovie(movieId);
-            setReviews(reviewsResponse.data.sort((a, b) => new Date(b.reviewDate) - new Date(a.reviewDate)));
+            const reviewsResponse = await getReviewsForMovie(movieId, { sort: reviewSort });
+            setReviews(reviewsResponse.data.items);
+            setNextReviewCursor(reviewsResponse.data.nextCursor || null);
         } catch (err) {
             console.error(`Error fetching reviews for movie ${movieId}:`, err);
             // setError(`Failed to load reviews: ${err.message}`); // Don't overwrite movie error
         } finally {
             setIsLoadingReviews(false);
         }
-    }, [movieId]);
+    }, [movieId, reviewSort, fetchRating]);
+
+    const loadMoreReviews = async () => {
+        if (!nextReviewCursor) return;
+        setIsLoadingMoreReviews(true);
+        try {
+            const reviewsResponse = await getReviewsForMovie(movieId, { sort: reviewSort, cursor: nextReviewCursor });
+            setReviews(prev => [...prev, ...reviewsResponse.data.items]);
+            setNextReviewCursor(reviewsResponse.data.nextCursor || null);
+        } catch (err) {
+            console.error(`Error fetching more reviews for movie ${movieId}:`, err);
+        } finally {
+            setIsLoadingMoreReviews(false);
+        }
+    };
 
     useEffect(() => {
         // fetchCurrentUser is no longer needed here, AuthContext handles it.
         fetchMovieData();
         fetchReviewsData();
     }, [fetchMovieData, fetchReviewsData]); // Removed fetchCurrentUser
+
+    // Apply reviews added or deleted by anyone while the page is open
+    useEffect(() => {
+        const source = subscribeToMovieReviews(movieId);
+        source.addEventListener('review-added', (event) => {
+            const added = JSON.parse(event.data);
+            if (reviewSort === 'newest') {
+                setReviews(prev => prev.some(review => review.id === added.id) ? prev : [added, ...prev]);
+            }
+            fetchRating();
+        });
+        source.addEventListener('review-deleted', (event) => {
+            const { id } = JSON.parse(event.data);
+            setReviews(prev => prev.filter(review => review.id !== id));
+            fetchRating();
+        });
+        return () => source.close();
+    }, [movieId, reviewSort, fetchRating]);
     
     // Handle new review submission
     const handleReviewSubmit = async (e) => {
@@ -126,6 +173,11 @@ const MovieDetailsPage = () => {
                     <h1 className="text-3xl md:text-4xl font-bold mb-3 text-gray-800">{movie.title} ({movie.releaseYear})</h1>
                     <p className="text-gray-600 mb-4 text-sm"><strong>Genres:</strong> {movie.genres?.join(', ') || 'N/A'}</p>
                     <p className="text-gray-600 mb-4 text-sm"><strong>Actors:</strong> {movie.actors?.join(', ') || 'N/A'}</p>
+                    {rating && rating.count > 0 && (
+                        <p className="text-gray-600 mb-4 text-sm">
+                            <strong>Rating:</strong> {rating.mean.toFixed(1)}/5 from {rating.count} review{rating.count > 1 ? 's' : ''}
+                        </p>
+                    )}
                     <p className="text-gray-700 leading-relaxed mb-6">{movie.description || 'No description available.'}</p>
                     {/* Add more details like director, runtime etc. if available */}
                 </div>
@@ -133,7 +185,18 @@ const MovieDetailsPage = () => {
 
             {/* Reviews Section */}
             <div className="mt-10">
-                <h2 className="text-2xl font-semibold mb-6 text-gray-700">User Reviews</h2>
+                <div className="flex justify-between items-center mb-6">
+                    <h2 className="text-2xl font-semibold text-gray-700">User Reviews</h2>
+                    <select
+                        value={reviewSort}
+                        onChange={(e) => setReviewSort(e.target.value)}
+                        className="px-3 py-2 border border-gray-300 bg-white rounded-md shadow-sm text-sm"
+                        aria-label="Sort reviews"
+                    >
+                        <option value="newest">Newest first</option>
+                        <option value="rating">Highest rated</option>
+                    </select>
+                </div>
 
                 {/* Add Review Form (only if authenticated) */}
                 {isAuthenticated && currentUser ? ( // Use context's isAuthenticated and currentUser
@@ -190,8 +253,14 @@ const MovieDetailsPage = () => {
                                 <div className="flex justify-between items-start">
                                     <div>
                                         <p className="font-semibold text-gray-800">Rating: {review.rating}/5</p>
-                                        {/* TODO: Replace review.userId with user's nickname if available */}
-                                        {/* <p className="text-sm text-gray-500">By: User {review.userId.substring(0,8)}...</p> */}
+                                        {review.reviewer && (
+                                            <div className="flex items-center mt-1">
+                                                {review.reviewer.profilePicture && (
+                                                    <img src={review.reviewer.profilePicture} alt="" className="w-6 h-6 rounded-full mr-2 object-cover" />
+                                                )}
+                                                <p className="text-sm text-gray-500">By: {review.reviewer.nickname}</p>
+                                            </div>
+                                        )}
                                     </div>
                                     {/* Use context's isAuthenticated and currentUser */}
                                     {isAuthenticated && currentUser && currentUser.id === review.userId && ( 
@@ -210,6 +279,15 @@ const MovieDetailsPage = () => {
                                 </p>
                             </div>
                         ))}
+                        {nextReviewCursor && (
+                            <button
+                                onClick={loadMoreReviews}
+                                disabled={isLoadingMoreReviews}
+                                className="w-full py-2 px-4 border border-gray-300 rounded-md text-sm font-medium text-gray-700 bg-white hover:bg-gray-50 disabled:text-gray-400"
+                            >
+                                {isLoadingMoreReviews ? 'Loading...' : 'Load more reviews'}
+                            </button>
+                        )}
                     </div>
                 ) : (
                     <p className="text-gray-600">No reviews yet for this movie.</p>
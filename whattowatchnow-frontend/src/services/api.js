@@ -72,7 +72,7 @@ export const register = async (userData) => {
 
 // --- Movies ---
 export const getMovies = async (filters = {}) => {
-    // filters: { query, genre, year, actor }
+    // filters: { query, genre, year, actor, cursor, facets, fuzzy }
     // try {
     //     const response = await apiClient.get('/movies', { params: filters });
     //     return response.data;
@@ -84,6 +84,11 @@ export const getMovies = async (filters = {}) => {
     return apiClient.get('/movies', { params: filters });
 };
 
+// Typeahead; pass an AbortSignal so a stale request is dropped when the user keeps typing
+export const getMovieSuggestions = async (prefix, signal) => {
+    return apiClient.get('/movies/suggest', { params: { prefix }, signal });
+};
+
 export const getMovieById = async (id) => {
     // try {
     //     const response = await apiClient.get(`/movies/${id}`);
@@ -96,6 +101,11 @@ export const getMovieById = async (id) => {
     return apiClient.get(`/movies/${id}`);
 };
 
+// Count, mean and 1-5 star histogram, kept up to date by the server
+export const getMovieRating = async (id) => {
+    return apiClient.get(`/movies/${id}/rating`);
+};
+
 export const addMovie = async (movieData) => {
     // movieData: { title, genres, releaseYear, actors, description, posterUrl }
     // try {
@@ -123,16 +133,19 @@ export const addReview = async (movieId, reviewData) => {
     return apiClient.post(`/movies/${movieId}/reviews`, reviewData);
 };
 
-export const getReviewsForMovie = async (movieId) => {
-    // try {
-    //     const response = await apiClient.get(`/movies/${movieId}/reviews`);
-    //     return response.data;
-    // } catch (error) {
-    //     console.error(`Error fetching reviews for movie ${movieId}:`, error.response || error.message);
-    //     throw error;
-    // }
-    console.log('getReviewsForMovie called for movieId:', movieId);
-    return apiClient.get(`/movies/${movieId}/reviews`);
+// One page of reviews: { items, nextCursor }. params: { sort: 'newest' | 'rating', cursor, limit }
+export const getReviewsForMovie = async (movieId, params = {}) => {
+    return apiClient.get(`/movies/${movieId}/reviews`, { params });
+};
+
+// Rating summary plus the newest `recent` reviews for many movies in one request, keyed by movie id
+export const getReviewSummaries = async (movieIds, recent = 0) => {
+    return apiClient.get('/movies/review-summaries', { params: { ids: movieIds.join(','), recent } });
+};
+
+// Live 'review-added' / 'review-deleted' events for one movie; the caller closes the returned EventSource
+export const subscribeToMovieReviews = (movieId) => {
+    return new EventSource(`${API_BASE_URL}/movies/${movieId}/reviews/stream`);
 };
 
 export const deleteReview = async (reviewId) => {
@@ -173,6 +186,26 @@ export const updateUserProfile = async (profileData) => {
     return apiClient.put('/users/me', profileData);
 };
 
+// Movies picked for the signed-in user, best match first
+export const getRecommendations = async (limit = 20) => {
+    return apiClient.get('/users/me/recommendations', { params: { limit } });
+};
+
+// "More like this" for a movie page, most similar first
+export const getSimilarMovies = async (movieId, limit = 10) => {
+    return apiClient.get(`/movies/${movieId}/similar`, { params: { limit } });
+};
+
+// One page of the personal feed; pass the previous page's nextCursor for the next one
+export const getFeed = async (cursor = null, limit = 20) => {
+    return apiClient.get('/users/me/feed', { params: { cursor, limit } });
+};
+
+// A random movie for the optional genre/year filters, better rated ones more likely
+export const getRandomMovie = async (genre = null, year = null) => {
+    return apiClient.get('/movies/random', { params: { genre, year } });
+};
+
 export const getReviewsByUser = async (userId) => {
     // Note: The backend currently has /api/users/{userId}/reviews
     // This means we need the userId. If 'me' is implied, backend might need adjustment or use /users/me/reviews.
@@ -192,6 +225,7 @@ export default {
     login,
     register,
     getMovies,
+    getMovieSuggestions,
     getMovieById,
     addMovie,
     addReview,